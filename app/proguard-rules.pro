@@ -19,3 +19,12 @@
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
 #-renamesourcefileattribute SourceFile
+
+# Generated Gson adapters are looked up by name from the row, output or input class they adapt,
+# and created through their Gson constructor.
+-keepnames class * extends com.plex.androidsdk.httpdatasources.BaseRow
+-keepnames class * extends com.plex.androidsdk.httpdatasources.BaseOutputs
+-keepnames class * implements com.plex.androidsdk.httpdatasources.IBaseInput
+-keep class * extends com.plex.androidsdk.httpdatasources.GeneratedTypeAdapter {
+    public <init>(com.google.gson.Gson);
+}
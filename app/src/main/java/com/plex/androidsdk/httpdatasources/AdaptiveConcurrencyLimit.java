@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+/**
+ * A concurrency limit for one host that adapts to the latency the host is showing, using additive increase and multiplicative decrease.
+ * <p>
+ * Two moving averages of the time to first byte are kept: a short one that follows the current latency and a long one that stands for the
+ * latency the host has without queueing. When the short average rises above tolerance times the long one, or a call times out or is throttled,
+ * requests are queueing on the server, so the limit is cut by the backoff ratio. Otherwise, while the limit is actually being used, it grows by
+ * about one call per limit calls.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  public static final double DEFAULT_TOLERANCE = 2.0;
+  public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+  private static final double SHORT_SMOOTHING = 0.2;
+  private static final double LONG_SMOOTHING = 0.01;
+
+  private final int _minLimit;
+  private final int _maxLimit;
+  private final double _tolerance;
+  private final double _backoffRatio;
+
+  private double _limit;
+  private double _shortLatencyNanos = -1;
+  private double _longLatencyNanos = -1;
+
+  /**
+   * @param initialLimit The limit to start at.
+   * @param minLimit The lowest the limit can go.
+   * @param maxLimit The highest the limit can go.
+   */
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    this(initialLimit, minLimit, maxLimit, DEFAULT_TOLERANCE, DEFAULT_BACKOFF_RATIO);
+  }
+
+  /**
+   * @param initialLimit The limit to start at.
+   * @param minLimit The lowest the limit can go.
+   * @param maxLimit The highest the limit can go.
+   * @param tolerance How many times the long average latency the short average may reach before the limit is cut.
+   * @param backoffRatio What the limit is multiplied by when it is cut, between 0 and 1.
+   */
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+    if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Limits must be positive and initialLimit between minLimit and maxLimit");
+    }
+    if (tolerance < 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("tolerance must be at least 1 and backoffRatio between 0 and 1");
+    }
+
+    _limit = initialLimit;
+    _minLimit = minLimit;
+    _maxLimit = maxLimit;
+    _tolerance = tolerance;
+    _backoffRatio = backoffRatio;
+  }
+
+  public synchronized int getLimit() {
+    return (int) _limit;
+  }
+
+  /**
+   * Record the outcome of a call.
+   *
+   * @param latencyNanos The time to first byte, or -1 if the call failed before a response.
+   * @param inFlight The number of calls running against the host when the call finished, including it.
+   * @param dropped True if the call timed out or the server throttled it.
+   */
+  public synchronized void onSample(long latencyNanos, int inFlight, boolean dropped) {
+    if (dropped) {
+      this.decrease();
+      return;
+    }
+    if (latencyNanos < 0) {
+      return;
+    }
+
+    if (_longLatencyNanos < 0) {
+      _shortLatencyNanos = latencyNanos;
+      _longLatencyNanos = latencyNanos;
+    } else {
+      _shortLatencyNanos += (latencyNanos - _shortLatencyNanos) * SHORT_SMOOTHING;
+      _longLatencyNanos += (latencyNanos - _longLatencyNanos) * LONG_SMOOTHING;
+    }
+
+    if (_shortLatencyNanos > _longLatencyNanos * _tolerance) {
+      this.decrease();
+    } else if (inFlight * 2 >= _limit) {
+      // Only grow while at least half the limit is in use, otherwise the limit is not what holds calls back.
+      _limit = Math.min(_maxLimit, _limit + 1 / _limit);
+    }
+  }
+
+  private void decrease() {
+    _limit = Math.max(_minLimit, _limit * _backoffRatio);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+/**
+ * A token issued by an authorization server, as the Authorization header it is sent with and the time it expires.
+ */
+public class AuthToken {
+
+  private final String _authorization;
+  private final long _expiresAtMillis;
+
+  /**
+   * @param authorization The complete Authorization header value, such as "Bearer abc" or a session scheme the server accepts.
+   * @param expiresAtMillis The System.currentTimeMillis at which the token expires, or Long.MAX_VALUE if it does not.
+   */
+  public AuthToken(String authorization, long expiresAtMillis) {
+    if (authorization == null) {
+      throw new IllegalArgumentException("authorization == null");
+    }
+
+    _authorization = authorization;
+    _expiresAtMillis = expiresAtMillis;
+  }
+
+  /**
+   * Create a bearer token, such as an OAuth access token.
+   *
+   * @param accessToken The access token.
+   * @param expiresInSeconds The number of seconds the token is valid for from now, as in an OAuth expires_in.
+   * @return The token.
+   */
+  public static AuthToken bearer(String accessToken, long expiresInSeconds) {
+    return new AuthToken("Bearer " + accessToken, System.currentTimeMillis() + expiresInSeconds * 1000);
+  }
+
+  public String getAuthorization() {
+    return _authorization;
+  }
+
+  public long getExpiresAtMillis() {
+    return _expiresAtMillis;
+  }
+}
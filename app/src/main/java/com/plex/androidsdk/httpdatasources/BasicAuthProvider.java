@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import android.util.Base64;
+import java.nio.charset.Charset;
+
+/**
+ * Authorizes requests with HTTP Basic authentication. The header is encoded once, when the provider is created.
+ * <p>
+ * Providers for the same user name and password are equal, so identical calls made with separate credentials objects can still be shared.
+ */
+public class BasicAuthProvider implements IAuthProvider {
+
+  private final String _userName;
+  private final String _authorization;
+
+  public BasicAuthProvider(String userName, String password) {
+    _userName = userName;
+    String userPass = userName + ":" + password;
+    _authorization = "Basic " + new String(Base64.encode(userPass.getBytes(Charset.forName("UTF-8")), Base64.NO_WRAP), Charset.forName("US-ASCII"));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getAuthorization() {
+    return _authorization;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * A user name and password can not be refreshed, so nothing is done.
+   */
+  @Override
+  public void onUnauthorized(String authorization) {
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The user name.
+   */
+  @Override
+  public String getIdentity() {
+    return _userName;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof BasicAuthProvider && _authorization.equals(((BasicAuthProvider) o)._authorization);
+  }
+
+  @Override
+  public int hashCode() {
+    return _authorization.hashCode();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A bounded pool of byte arrays used to read and write http bodies, so a call does not allocate a new buffer, and a large response does not
+ * allocate a new array each time it grows.
+ * <p>
+ * Buffers are returned with release once the caller is done with them. The pool keeps at most its max bytes; anything beyond that is left to the
+ * garbage collector.
+ */
+class ByteArrayPool {
+
+  static final int BUFFER_SIZE = 8192;
+  static final int DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+
+  private static final ByteArrayPool DEFAULT = new ByteArrayPool(DEFAULT_MAX_BYTES);
+
+  private final int _maxBytes;
+  private final ArrayDeque<byte[]> _buffers = new ArrayDeque<>();
+  private int _bytes = 0;
+
+  /**
+   * @param maxBytes The most bytes the pool keeps between calls.
+   */
+  ByteArrayPool(int maxBytes) {
+    _maxBytes = maxBytes;
+  }
+
+  /**
+   * The pool shared by every connector.
+   *
+   * @return The shared pool.
+   */
+  static ByteArrayPool getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Take the smallest pooled buffer of at least minSize bytes, or allocate one if none fits. The contents are undefined.
+   *
+   * @param minSize The minimum length.
+   * @return A buffer of at least minSize, and at least BUFFER_SIZE, bytes.
+   */
+  synchronized byte[] acquire(int minSize) {
+    byte[] best = null;
+    for (byte[] buffer : _buffers) {
+      if (buffer.length >= minSize && (best == null || buffer.length < best.length)) {
+        best = buffer;
+      }
+    }
+
+    if (best == null) {
+      return new byte[Math.max(minSize, BUFFER_SIZE)];
+    }
+
+    for (Iterator<byte[]> i = _buffers.iterator(); i.hasNext(); ) {
+      if (i.next() == best) {
+        i.remove();
+        break;
+      }
+    }
+    _bytes -= best.length;
+
+    return best;
+  }
+
+  /**
+   * Return a buffer to the pool. The caller must not use it afterwards.
+   *
+   * @param buffer The buffer. Ignored if null.
+   */
+  synchronized void release(byte[] buffer) {
+    if (buffer != null && _bytes + buffer.length <= _maxBytes) {
+      _buffers.push(buffer);
+      _bytes += buffer.length;
+    }
+  }
+
+  synchronized int getPooledBytes() {
+    return _bytes;
+  }
+}
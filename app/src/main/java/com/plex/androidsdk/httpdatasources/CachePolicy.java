@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+/**
+ * How a data source uses a DiskResponseCache when it is executed.
+ */
+public enum CachePolicy {
+
+  /**
+   * Always call the server and never use the cache. The default.
+   */
+  NETWORK_ONLY,
+
+  /**
+   * Call the server and cache the response. If the call fails, return the cached response instead, however old it is.
+   */
+  NETWORK_FIRST,
+
+  /**
+   * Return the cached response if it is younger than the max age, otherwise call the server and cache the response.
+   */
+  CACHE_FIRST,
+
+  /**
+   * Return any cached response straight away. If it is older than the max age, also call the server in the background to refresh the cache for
+   * the next execution.
+   */
+  STALE_WHILE_REVALIDATE
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+/**
+ * Connector that serves read-only data sources from a DataSourceResponseCache and passes every other call to another connector.
+ * <p>
+ * A call is only cached if the cache has a time to live for its data source key and the data source is read-only, so write data sources such as
+ * Container_Move_Simple always reach the server. Cache hits are delivered on the thread that called execute. A cache miss reads the whole response
+ * before it is parsed, so it can be cached.
+ */
+public class CachingDataSourceConnector implements IDataSourceConnector {
+
+  private final IDataSourceConnector _connector;
+  private final DataSourceResponseCache _cache;
+
+  /**
+   * @param connector The connector used on a cache miss.
+   * @param cache The cache of responses.
+   */
+  public CachingDataSourceConnector(IDataSourceConnector connector, DataSourceResponseCache cache) {
+    _connector = connector;
+    _cache = cache;
+  }
+
+  @Override
+  public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+      IDataSourceConnectorCallback callback, int index) {
+
+    DataSource dataSource = DataSource.from(callback);
+
+    if (!_cache.isCached(dataSourceKey) || dataSource == null || !dataSource.isReadOnly()) {
+      _connector.execute(dataSourceKey, credentials, serverName, useTestServer, jsonRequest, callback, index);
+      return;
+    }
+
+    final DataSourceCallKey key = new DataSourceCallKey(dataSourceKey, credentials, serverName, useTestServer, jsonRequest);
+    String jsonResponse = _cache.get(key);
+
+    if (jsonResponse != null) {
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(jsonResponse, 200), index);
+      return;
+    }
+
+    _connector.execute(dataSourceKey, credentials, serverName, useTestServer, jsonRequest, new ForwardingConnectorCallback(callback, true) {
+      @Override
+      public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+        String jsonResponse = this.getJsonResponse(result);
+        if (result.getHTTPResponseCode() == 200 && result.getException() == null && jsonResponse != null) {
+          _cache.put(key, jsonResponse);
+        }
+
+        super.onDataSourceConnectorComplete(result, index);
+      }
+    }, index);
+  }
+
+  public DataSourceResponseCache getCache() {
+    return _cache;
+  }
+}
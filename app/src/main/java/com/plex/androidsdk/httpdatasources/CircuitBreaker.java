@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+/**
+ * Stops calls to a failing server for a while, so devices stop adding load to a server that is already struggling and callers fail fast instead of
+ * waiting for their sockets to time out.
+ * <p>
+ * While closed, the outcomes of the last window size calls are kept. Once at least minimum calls outcomes are known and the share of failures
+ * reaches the failure rate threshold, the circuit opens and every call is rejected. After the open duration one trial call is let through: if it
+ * succeeds the circuit closes again, otherwise it stays open for another open duration.
+ */
+public class CircuitBreaker {
+
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+  public static final int DEFAULT_WINDOW_SIZE = 20;
+  public static final int DEFAULT_MINIMUM_CALLS = 10;
+  public static final long DEFAULT_OPEN_MILLIS = 30000;
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final double _failureRateThreshold;
+  private final int _minimumCalls;
+  private final long _openNanos;
+  private final boolean[] _failures;
+
+  private State _state = State.CLOSED;
+  private int _calls = 0;
+  private int _failureCount = 0;
+  private int _next = 0;
+  private long _openedAt;
+  private boolean _trialInFlight = false;
+
+  /**
+   * Create a circuit breaker with the default settings.
+   */
+  public CircuitBreaker() {
+    this(DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, DEFAULT_OPEN_MILLIS);
+  }
+
+  /**
+   * @param failureRateThreshold The share of failed calls, from 0 to 1, at which the circuit opens.
+   * @param windowSize The number of most recent calls the failure rate is measured over.
+   * @param minimumCalls The number of calls needed in the window before the circuit can open.
+   * @param openMillis How long the circuit stays open before a trial call is let through.
+   */
+  public CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, long openMillis) {
+    if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+      throw new IllegalArgumentException("failureRateThreshold must be above 0 and at most 1");
+    }
+    if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || openMillis < 0) {
+      throw new IllegalArgumentException("Circuit breaker settings must be positive");
+    }
+
+    _failureRateThreshold = failureRateThreshold;
+    _minimumCalls = minimumCalls;
+    _openNanos = openMillis * 1000000;
+    _failures = new boolean[windowSize];
+  }
+
+  /**
+   * Ask to make a call. Moves an open circuit to half-open once the open duration has passed.
+   *
+   * @return True if the call may be made. Every permitted call must be followed by onSuccess, onFailure or onIgnored.
+   */
+  public synchronized boolean tryAcquire() {
+    if (_state == State.OPEN && System.nanoTime() - _openedAt >= _openNanos) {
+      _state = State.HALF_OPEN;
+    }
+
+    switch (_state) {
+      case CLOSED:
+        return true;
+      case HALF_OPEN:
+        if (_trialInFlight) {
+          return false;
+        }
+        _trialInFlight = true;
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Record a call that succeeded.
+   */
+  public synchronized void onSuccess() {
+    if (_state == State.HALF_OPEN) {
+      this.close();
+    } else if (_state == State.CLOSED) {
+      this.record(false);
+    }
+  }
+
+  /**
+   * Record a call that failed because of the server or the network.
+   */
+  public synchronized void onFailure() {
+    if (_state == State.HALF_OPEN) {
+      this.open();
+    } else if (_state == State.CLOSED) {
+      this.record(true);
+
+      if (_calls >= _minimumCalls && _failureCount >= _failureRateThreshold * _calls) {
+        this.open();
+      }
+    }
+  }
+
+  /**
+   * Release a permitted call whose outcome says nothing about the server, such as one rejected by the local dispatcher.
+   */
+  public synchronized void onIgnored() {
+    _trialInFlight = false;
+  }
+
+  public synchronized State getState() {
+    return _state;
+  }
+
+  /**
+   * The share of failed calls in the window, from 0 to 1.
+   *
+   * @return The failure rate, or 0 if no calls are recorded.
+   */
+  public synchronized double getFailureRate() {
+    return _calls == 0 ? 0 : (double) _failureCount / _calls;
+  }
+
+  private void record(boolean failure) {
+    if (_calls == _failures.length) {
+      if (_failures[_next]) {
+        _failureCount--;
+      }
+    } else {
+      _calls++;
+    }
+
+    _failures[_next] = failure;
+    if (failure) {
+      _failureCount++;
+    }
+    _next = (_next + 1) % _failures.length;
+  }
+
+  private void open() {
+    _state = State.OPEN;
+    _openedAt = System.nanoTime();
+    _trialInFlight = false;
+  }
+
+  private void close() {
+    _state = State.CLOSED;
+    _calls = 0;
+    _failureCount = 0;
+    _next = 0;
+    _trialInFlight = false;
+  }
+}
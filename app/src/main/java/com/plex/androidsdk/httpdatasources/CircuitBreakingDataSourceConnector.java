@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connector that keeps a CircuitBreaker per server and data source key and passes calls to another connector while its circuit is closed.
+ * <p>
+ * Calls rejected by an open circuit fail at once with a CircuitBreakerOpenException, delivered on the thread that called execute. I/O errors and
+ * the 429 and 5xx response codes count as failures. Wrap this connector in a RetryingDataSourceConnector, rather than the other way round, so each
+ * attempt is counted and a retry waits out its backoff instead of being rejected straight away.
+ */
+public class CircuitBreakingDataSourceConnector implements IDataSourceConnector {
+
+  private final IDataSourceConnector _connector;
+  private final double _failureRateThreshold;
+  private final int _windowSize;
+  private final int _minimumCalls;
+  private final long _openMillis;
+  private final ConcurrentHashMap<String, CircuitBreaker> _circuitBreakers = new ConcurrentHashMap<>();
+
+  /**
+   * Create a connector whose circuit breakers use the default settings.
+   *
+   * @param connector The connector used while a circuit is closed.
+   */
+  public CircuitBreakingDataSourceConnector(IDataSourceConnector connector) {
+    this(connector, CircuitBreaker.DEFAULT_FAILURE_RATE_THRESHOLD, CircuitBreaker.DEFAULT_WINDOW_SIZE, CircuitBreaker.DEFAULT_MINIMUM_CALLS,
+        CircuitBreaker.DEFAULT_OPEN_MILLIS);
+  }
+
+  /**
+   * @param connector The connector used while a circuit is closed.
+   * @param failureRateThreshold The share of failed calls, from 0 to 1, at which a circuit opens.
+   * @param windowSize The number of most recent calls the failure rate is measured over.
+   * @param minimumCalls The number of calls needed in the window before a circuit can open.
+   * @param openMillis How long a circuit stays open before a trial call is let through.
+   */
+  public CircuitBreakingDataSourceConnector(IDataSourceConnector connector, double failureRateThreshold, int windowSize, int minimumCalls,
+      long openMillis) {
+    // Fail on bad settings now rather than on the first call.
+    new CircuitBreaker(failureRateThreshold, windowSize, minimumCalls, openMillis);
+
+    _connector = connector;
+    _failureRateThreshold = failureRateThreshold;
+    _windowSize = windowSize;
+    _minimumCalls = minimumCalls;
+    _openMillis = openMillis;
+  }
+
+  @Override
+  public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+      IDataSourceConnectorCallback callback, int index) {
+
+    final CircuitBreaker circuitBreaker = this.getCircuitBreaker(serverName, useTestServer, dataSourceKey);
+
+    if (!circuitBreaker.tryAcquire()) {
+      callback.onProgressUpdate(IDataSourceConnectorCallback.Progress.ERROR, index);
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(new CircuitBreakerOpenException(
+          "The circuit breaker for data source " + dataSourceKey + " on " + serverName + " is open")), index);
+      return;
+    }
+
+    _connector.execute(dataSourceKey, credentials, serverName, useTestServer, jsonRequest, new ForwardingConnectorCallback(callback) {
+      @Override
+      public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+        int responseCode = result.getHTTPResponseCode();
+
+        if (result.getException() instanceof IOException || responseCode == 429 || responseCode >= 500) {
+          circuitBreaker.onFailure();
+        } else if (result.getException() != null) {
+          // Rejected locally, so the server was never asked.
+          circuitBreaker.onIgnored();
+        } else {
+          circuitBreaker.onSuccess();
+        }
+
+        if (result.getMetrics() != null) {
+          result.getMetrics().setCircuitState(circuitBreaker.getState());
+        }
+
+        super.onDataSourceConnectorComplete(result, index);
+      }
+    }, index);
+  }
+
+  /**
+   * Get the circuit breaker for a server and data source, for example to show its state.
+   *
+   * @param serverName The server name.
+   * @param useTestServer Whether the calls go to the test server.
+   * @param dataSourceKey The data source key.
+   * @return The circuit breaker.
+   */
+  public CircuitBreaker getCircuitBreaker(String serverName, boolean useTestServer, int dataSourceKey) {
+    String key = (useTestServer ? "test." : "") + serverName + "/" + dataSourceKey;
+    CircuitBreaker circuitBreaker = _circuitBreakers.get(key);
+
+    if (circuitBreaker == null) {
+      circuitBreaker = new CircuitBreaker(_failureRateThreshold, _windowSize, _minimumCalls, _openMillis);
+      CircuitBreaker existing = _circuitBreakers.putIfAbsent(key, circuitBreaker);
+      if (existing != null) {
+        circuitBreaker = existing;
+      }
+    }
+
+    return circuitBreaker;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connector that lets identical read-only calls share one round trip to the server.
+ * <p>
+ * While a call is in flight, any other call with the same data source key, server, test flag, request JSON and credentials attaches to it instead
+ * of sending its own POST. When the response arrives the same HttpDataSourceResult is passed to every attached callback with that caller's own
+ * index. Callers that attach late miss the progress updates sent before they joined.
+ * <p>
+ * The first caller parses the response as it would without this connector. Its body is read to the end first, so the response JSON can also be
+ * passed to the callers that attached, who parse it for themselves.
+ * <p>
+ * Only read-only data sources are coalesced, so every execute of a write data source such as Container_Move_Simple reaches the server.
+ */
+public class CoalescingDataSourceConnector implements IDataSourceConnector {
+
+  private final IDataSourceConnector _connector;
+  private final Map<DataSourceCallKey, InFlightCall> _inFlightCalls = new HashMap<>();
+  private long _coalescedCount = 0;
+
+  /**
+   * @param connector The connector that performs the shared calls.
+   */
+  public CoalescingDataSourceConnector(IDataSourceConnector connector) {
+    _connector = connector;
+  }
+
+  @Override
+  public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+      IDataSourceConnectorCallback callback, int index) {
+
+    DataSource dataSource = DataSource.from(callback);
+
+    if (dataSource == null || !dataSource.isReadOnly()) {
+      _connector.execute(dataSourceKey, credentials, serverName, useTestServer, jsonRequest, callback, index);
+      return;
+    }
+
+    DataSourceCallKey key = new DataSourceCallKey(dataSourceKey, credentials, serverName, useTestServer, jsonRequest);
+    // The provider, not its header, tells users apart, so a token being fetched never holds up the caller.
+    IAuthProvider authProvider = credentials != null ? credentials.getAuthProvider() : null;
+    InFlightCall call;
+
+    synchronized (this) {
+      InFlightCall inFlightCall = _inFlightCalls.get(key);
+
+      if (inFlightCall != null && inFlightCall.isSameUser(authProvider)) {
+        inFlightCall.attach(callback, index);
+        _coalescedCount++;
+        return;
+      }
+
+      call = new InFlightCall(key, authProvider, callback, index);
+      if (inFlightCall == null) {
+        _inFlightCalls.put(key, call);
+      }
+    }
+
+    _connector.execute(dataSourceKey, credentials, serverName, useTestServer, jsonRequest, call, index);
+  }
+
+  /**
+   * Get the number of calls that attached to an in-flight call instead of reaching the server.
+   *
+   * @return The coalesced call count.
+   */
+  public synchronized long getCoalescedCount() {
+    return _coalescedCount;
+  }
+
+  /**
+   * Get the number of distinct calls currently in flight.
+   *
+   * @return The in-flight call count.
+   */
+  public synchronized int getInFlightCount() {
+    return _inFlightCalls.size();
+  }
+
+  /**
+   * One call to the server and the callers waiting on it. The first caller's callback is the delegate, so connectors further down still see the
+   * data source behind it.
+   */
+  private class InFlightCall extends ForwardingConnectorCallback {
+
+    private final DataSourceCallKey _key;
+    private final IAuthProvider _authProvider;
+    private final List<IDataSourceConnectorCallback> _callbacks = new ArrayList<>();
+    private final List<Integer> _indexes = new ArrayList<>();
+
+    InFlightCall(DataSourceCallKey key, IAuthProvider authProvider, IDataSourceConnectorCallback callback, int index) {
+      super(callback, true);
+      _key = key;
+      _authProvider = authProvider;
+      this.attach(callback, index);
+    }
+
+    /**
+     * The round trip is shared, so cancelling or timing out one caller's call must not abort it for the others. Each caller still gets its own
+     * call's outcome once the round trip completes.
+     */
+    @Override
+    DataSourceCall getCall() {
+      return null;
+    }
+
+    boolean isSameUser(IAuthProvider authProvider) {
+      return _authProvider == null ? authProvider == null : _authProvider.equals(authProvider);
+    }
+
+    // Guarded by the connector's lock.
+    void attach(IDataSourceConnectorCallback callback, int index) {
+      _callbacks.add(callback);
+      _indexes.add(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+      List<IDataSourceConnectorCallback> callbacks;
+      List<Integer> indexes;
+
+      synchronized (CoalescingDataSourceConnector.this) {
+        // Calls made from here on start a new round trip.
+        if (_inFlightCalls.get(_key) == this) {
+          _inFlightCalls.remove(_key);
+        }
+
+        callbacks = new ArrayList<>(_callbacks);
+        indexes = new ArrayList<>(_indexes);
+      }
+
+      // A response the first caller parsed from the stream is passed to the others as JSON.
+      HttpDataSourceResult jsonResult = result.getDataSourceResult() != null ? result.withJsonResponse(this.getJsonResponse(result)) : result;
+
+      for (int i = 0; i < callbacks.size(); i++) {
+        callbacks.get(i).onDataSourceConnectorComplete(callbacks.get(i) == this.getDelegate() ? result : jsonResult, indexes.get(i));
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onProgressUpdate(int progressCode, int index) {
+      List<IDataSourceConnectorCallback> callbacks;
+      List<Integer> indexes;
+
+      synchronized (CoalescingDataSourceConnector.this) {
+        callbacks = new ArrayList<>(_callbacks);
+        indexes = new ArrayList<>(_indexes);
+      }
+
+      for (int i = 0; i < callbacks.size(); i++) {
+        callbacks.get(i).onProgressUpdate(progressCode, indexes.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,676 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of a result stored a column at a time instead of as one object per row.
+ * <p>
+ * Whole number columns are kept in int or long arrays, other numbers in double arrays and booleans in int arrays, so no value is boxed. String
+ * columns are dictionary encoded: each distinct value is kept once and every row holds an int code, which makes repeated values such as statuses,
+ * locations and part numbers cost four bytes a row. A column holding values of more than one kind is kept as strings.
+ * <p>
+ * Read the values directly by row and column, or through a RowView that can be moved from row to row without allocating. getRows builds row
+ * objects on demand for code written against the row class.
+ * <p>
+ * Decimal values are held as doubles, so values with more than 15 significant digits are rounded. Once parsing has finished the rows can be read
+ * from any thread.
+ */
+public class ColumnarRows {
+
+  /**
+   * The kinds of values a column can hold.
+   */
+  public enum ColumnType {
+    /**
+     * Every value in the column is null.
+     */
+    NULL,
+    INT,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    STRING
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Dictionary encoding is given up for a column once it holds more distinct values than this share of its rows, checked every so many rows.
+   */
+  private static final int DICTIONARY_CHECK_ROWS = 1024;
+  private static final int DICTIONARY_MAX_PERCENT = 50;
+
+  private final DataSourceGson _gson;
+  private final Type _rowType;
+  private final List<Column> _columns = new ArrayList<>();
+  private final Map<String, Integer> _columnIndexes = new HashMap<>();
+  private int _size = 0;
+  private int _capacity = INITIAL_CAPACITY;
+  private List<BaseRow> _rows;
+
+  /**
+   * @param gson The context used to build row objects in getRows.
+   * @param rowType The row type of the data source.
+   */
+  ColumnarRows(DataSourceGson gson, Type rowType) {
+    _gson = gson;
+    _rowType = rowType;
+  }
+
+  /**
+   * @return The number of rows.
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * @return The number of columns seen in any row.
+   */
+  public int getColumnCount() {
+    return _columns.size();
+  }
+
+  /**
+   * @param column The column index.
+   * @return The column name, as it appears in the response.
+   */
+  public String getColumnName(int column) {
+    return _columns.get(column).name;
+  }
+
+  /**
+   * @param name The column name, as it appears in the response.
+   * @return The column index, or -1 if no row has the column.
+   */
+  public int getColumnIndex(String name) {
+    Integer column = _columnIndexes.get(name);
+    return column != null ? column : -1;
+  }
+
+  /**
+   * @param column The column index.
+   * @return The kind of values the column holds.
+   */
+  public ColumnType getColumnType(int column) {
+    return _columns.get(column).type;
+  }
+
+  /**
+   * Get the number of distinct values of a string column.
+   *
+   * @param column The column index.
+   * @return The number of distinct values, or 0 if the column does not hold strings.
+   */
+  public int getDictionarySize(int column) {
+    Column col = _columns.get(column);
+    return col.dictionary != null ? col.dictionary.size() : 0;
+  }
+
+  /**
+   * @param row The row index.
+   * @param column The column index.
+   * @return True if the value is null or the row does not have the column.
+   */
+  public boolean isNull(int row, int column) {
+    this.checkRow(row);
+    return _columns.get(column).nulls.get(row);
+  }
+
+  /**
+   * @param row The row index.
+   * @param column The column index of an INT column, or a LONG column whose value fits.
+   * @return The value, or 0 if it is null.
+   */
+  public int getInt(int row, int column) {
+    long value = this.getLong(row, column);
+
+    if (value != (int) value) {
+      throw new ArithmeticException(_columns.get(column).name + " value " + value + " does not fit an int");
+    }
+
+    return (int) value;
+  }
+
+  /**
+   * @param row The row index.
+   * @param column The column index of an INT or LONG column.
+   * @return The value, or 0 if it is null.
+   */
+  public long getLong(int row, int column) {
+    this.checkRow(row);
+    Column col = _columns.get(column);
+
+    switch (col.type) {
+      case NULL:
+        return 0;
+      case INT:
+        return col.ints[row];
+      case LONG:
+        return col.longs[row];
+      default:
+        throw this.wrongType(col, "a whole number");
+    }
+  }
+
+  /**
+   * @param row The row index.
+   * @param column The column index of an INT, LONG or DOUBLE column.
+   * @return The value, or 0 if it is null.
+   */
+  public double getDouble(int row, int column) {
+    this.checkRow(row);
+    Column col = _columns.get(column);
+
+    switch (col.type) {
+      case DOUBLE:
+        return col.doubles[row];
+      default:
+        return this.getLong(row, column);
+    }
+  }
+
+  /**
+   * @param row The row index.
+   * @param column The column index of an INT, LONG or DOUBLE column.
+   * @return The value, or null if it is null.
+   */
+  public BigDecimal getBigDecimal(int row, int column) {
+    this.checkRow(row);
+    Column col = _columns.get(column);
+
+    if (col.nulls.get(row)) {
+      return null;
+    }
+
+    return col.type == ColumnType.DOUBLE ? BigDecimal.valueOf(col.doubles[row]) : BigDecimal.valueOf(this.getLong(row, column));
+  }
+
+  /**
+   * @param row The row index.
+   * @param column The column index of a BOOLEAN column.
+   * @return The value, or false if it is null.
+   */
+  public boolean getBoolean(int row, int column) {
+    this.checkRow(row);
+    Column col = _columns.get(column);
+
+    switch (col.type) {
+      case NULL:
+        return false;
+      case BOOLEAN:
+        return col.ints[row] != 0;
+      default:
+        throw this.wrongType(col, "a boolean");
+    }
+  }
+
+  /**
+   * Get a value of any column as a string. Only STRING columns are read without allocating.
+   *
+   * @param row The row index.
+   * @param column The column index.
+   * @return The value, or null if it is null.
+   */
+  public String getString(int row, int column) {
+    this.checkRow(row);
+    Column col = _columns.get(column);
+    return col.nulls.get(row) ? null : col.getString(row);
+  }
+
+  /**
+   * Get a view of a row. Move the view with RowView.moveTo to read many rows with a single object.
+   *
+   * @param row The row index.
+   * @return A view of the row.
+   */
+  public RowView getRow(int row) {
+    return new RowView().moveTo(row);
+  }
+
+  /**
+   * Get the rows as row objects of the data source's row type. Each row object is built when it is read and is not kept, so read each row once.
+   *
+   * @return A read-only list of the rows.
+   */
+  public List<BaseRow> getRows() {
+    if (_rows == null) {
+      _rows = new MaterializedRows();
+    }
+
+    return _rows;
+  }
+
+  /**
+   * Read a row from the response and add it.
+   *
+   * @param reader The reader positioned at the row object.
+   * @throws IOException if the row can not be read.
+   */
+  void readRow(JsonReader reader) throws IOException {
+    int row = _size;
+
+    if (row == _capacity) {
+      _capacity *= 2;
+      for (Column column : _columns) {
+        column.grow(_capacity);
+      }
+    }
+
+    reader.beginObject();
+
+    while (reader.hasNext()) {
+      Column column = this.getOrAddColumn(reader.nextName(), row);
+      column.lastRow = row;
+
+      switch (reader.peek()) {
+        case NUMBER:
+          column.readNumber(reader, row);
+          break;
+        case BOOLEAN:
+          column.setBoolean(row, reader.nextBoolean());
+          break;
+        case STRING:
+          column.setString(row, reader.nextString());
+          break;
+        default:
+          // Nulls, and nested values no row type of a data source has.
+          reader.skipValue();
+          column.nulls.set(row);
+          break;
+      }
+    }
+
+    reader.endObject();
+
+    for (Column column : _columns) {
+      if (column.lastRow != row) {
+        column.nulls.set(row);
+      }
+    }
+
+    _size++;
+
+    if (_size % DICTIONARY_CHECK_ROWS == 0) {
+      for (Column column : _columns) {
+        column.checkDictionary(_size);
+      }
+    }
+  }
+
+  /**
+   * Release the room reserved for rows that never came, and the lookup used to encode strings. Called when the last row has been read.
+   */
+  void trimToSize() {
+    _capacity = Math.max(_size, 1);
+
+    for (Column column : _columns) {
+      column.grow(_capacity);
+      column.codes = null;
+    }
+  }
+
+  private Column getOrAddColumn(String name, int row) {
+    Integer index = _columnIndexes.get(name);
+
+    if (index != null) {
+      return _columns.get(index);
+    }
+
+    Column column = new Column(name, _capacity);
+    // Earlier rows did not have the column.
+    column.nulls.set(0, row);
+    _columnIndexes.put(name, _columns.size());
+    _columns.add(column);
+    return column;
+  }
+
+  private int getColumn(String name) {
+    Integer column = _columnIndexes.get(name);
+
+    if (column == null) {
+      throw new IllegalArgumentException("No column " + name);
+    }
+
+    return column;
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= _size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + _size);
+    }
+  }
+
+  private IllegalStateException wrongType(Column column, String expected) {
+    return new IllegalStateException(column.name + " is a " + column.type + " column, not " + expected);
+  }
+
+  /**
+   * Build a row object by writing the row back out as JSON and reading it with the row type's adapter, so it is read exactly as the row based
+   * parse would have read it.
+   */
+  private BaseRow materialize(int row) {
+    try {
+      StringWriter json = new StringWriter();
+      JsonWriter writer = new JsonWriter(json);
+      writer.beginObject();
+
+      for (Column column : _columns) {
+        if (column.nulls.get(row)) {
+          continue;
+        }
+
+        writer.name(column.name);
+        switch (column.type) {
+          case INT:
+            writer.value(column.ints[row]);
+            break;
+          case LONG:
+            writer.value(column.longs[row]);
+            break;
+          case DOUBLE:
+            writer.value(column.doubles[row]);
+            break;
+          case BOOLEAN:
+            writer.value(column.ints[row] != 0);
+            break;
+          default:
+            writer.value(column.getString(row));
+            break;
+        }
+      }
+
+      writer.endObject();
+      return _gson.fromJson(new JsonReader(new StringReader(json.toString())), _rowType);
+    } catch (IOException e) {
+      // Only thrown by malformed JSON, which the writer does not produce.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * The values of one column. Nulls are tracked in a bit set; the arrays hold 0 for them.
+   */
+  private static class Column {
+
+    private final String name;
+    private ColumnType type = ColumnType.NULL;
+    private final BitSet nulls = new BitSet();
+    private int capacity;
+    private int lastRow = -1;
+
+    // INT and BOOLEAN values, and the dictionary codes of STRING values.
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private ArrayList<String> dictionary;
+    private HashMap<String, Integer> codes;
+
+    Column(String name, int capacity) {
+      this.name = name;
+      this.capacity = capacity;
+    }
+
+    void grow(int newCapacity) {
+      capacity = newCapacity;
+
+      if (ints != null) {
+        ints = Arrays.copyOf(ints, newCapacity);
+      }
+      if (longs != null) {
+        longs = Arrays.copyOf(longs, newCapacity);
+      }
+      if (doubles != null) {
+        doubles = Arrays.copyOf(doubles, newCapacity);
+      }
+    }
+
+    void readNumber(JsonReader reader, int row) throws IOException {
+      if (type == ColumnType.DOUBLE) {
+        doubles[row] = reader.nextDouble();
+        return;
+      }
+      if (type == ColumnType.BOOLEAN || type == ColumnType.STRING) {
+        this.setString(row, reader.nextString());
+        return;
+      }
+
+      long value;
+      try {
+        value = reader.nextLong();
+      } catch (NumberFormatException e) {
+        // Not a whole number. The reader keeps the number, so it can still be read as a double.
+        double doubleValue = reader.nextDouble();
+        this.convert(row, ColumnType.DOUBLE);
+        doubles[row] = doubleValue;
+        return;
+      }
+
+      if (value != (int) value) {
+        if (type != ColumnType.LONG) {
+          this.convert(row, ColumnType.LONG);
+        }
+        longs[row] = value;
+      } else if (type == ColumnType.LONG) {
+        longs[row] = value;
+      } else {
+        if (type == ColumnType.NULL) {
+          this.convert(row, ColumnType.INT);
+        }
+        ints[row] = (int) value;
+      }
+    }
+
+    void setBoolean(int row, boolean value) {
+      if (type == ColumnType.NULL) {
+        this.convert(row, ColumnType.BOOLEAN);
+      } else if (type != ColumnType.BOOLEAN) {
+        this.setString(row, Boolean.toString(value));
+        return;
+      }
+
+      ints[row] = value ? 1 : 0;
+    }
+
+    void setString(int row, String value) {
+      if (type != ColumnType.STRING) {
+        this.convert(row, ColumnType.STRING);
+      }
+
+      Integer code = codes != null ? codes.get(value) : null;
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.add(value);
+        if (codes != null) {
+          codes.put(value, code);
+        }
+      }
+
+      ints[row] = code;
+    }
+
+    String getString(int row) {
+      switch (type) {
+        case INT:
+          return Integer.toString(ints[row]);
+        case LONG:
+          return Long.toString(longs[row]);
+        case DOUBLE:
+          return Double.toString(doubles[row]);
+        case BOOLEAN:
+          return Boolean.toString(ints[row] != 0);
+        case STRING:
+          return dictionary.get(ints[row]);
+        default:
+          return null;
+      }
+    }
+
+    /**
+     * Stop looking values up once the column is mostly distinct values, such as keys or descriptions, so they are simply appended.
+     */
+    void checkDictionary(int rowCount) {
+      if (codes != null && codes.size() * 100 > rowCount * DICTIONARY_MAX_PERCENT) {
+        codes = null;
+      }
+    }
+
+    /**
+     * Change the kind of values the column holds, converting the values of the rows before the given one. Numbers only widen; any other change
+     * makes a string column.
+     */
+    private void convert(int rowCount, ColumnType newType) {
+
+      switch (newType) {
+        case INT:
+        case BOOLEAN:
+          ints = new int[capacity];
+          break;
+        case LONG:
+          longs = new long[capacity];
+          if (type == ColumnType.INT) {
+            for (int i = 0; i < rowCount; i++) {
+              longs[i] = ints[i];
+            }
+            ints = null;
+          }
+          break;
+        case DOUBLE:
+          doubles = new double[capacity];
+          for (int i = 0; i < rowCount && type != ColumnType.NULL; i++) {
+            doubles[i] = type == ColumnType.INT ? ints[i] : longs[i];
+          }
+          ints = null;
+          longs = null;
+          break;
+        default:
+          String[] values = new String[rowCount];
+          for (int i = 0; i < rowCount; i++) {
+            values[i] = nulls.get(i) ? null : this.getString(i);
+          }
+          ints = new int[capacity];
+          longs = null;
+          doubles = null;
+          dictionary = new ArrayList<>();
+          codes = new HashMap<>();
+          type = ColumnType.STRING;
+          for (int i = 0; i < rowCount; i++) {
+            if (values[i] != null) {
+              this.setString(i, values[i]);
+            }
+          }
+          break;
+      }
+
+      type = newType;
+    }
+  }
+
+  /**
+   * A view of one row that reads the values straight from the columns. The same view can be moved to any row.
+   */
+  public class RowView {
+
+    private int _row;
+
+    RowView() {
+    }
+
+    /**
+     * @return The index of the row the view is on.
+     */
+    public int getIndex() {
+      return _row;
+    }
+
+    /**
+     * Move the view to another row.
+     *
+     * @param row The row index.
+     * @return This view.
+     */
+    public RowView moveTo(int row) {
+      checkRow(row);
+      _row = row;
+      return this;
+    }
+
+    public boolean isNull(String column) {
+      return ColumnarRows.this.isNull(_row, getColumn(column));
+    }
+
+    public int getInt(String column) {
+      return ColumnarRows.this.getInt(_row, getColumn(column));
+    }
+
+    public long getLong(String column) {
+      return ColumnarRows.this.getLong(_row, getColumn(column));
+    }
+
+    public double getDouble(String column) {
+      return ColumnarRows.this.getDouble(_row, getColumn(column));
+    }
+
+    public BigDecimal getBigDecimal(String column) {
+      return ColumnarRows.this.getBigDecimal(_row, getColumn(column));
+    }
+
+    public boolean getBoolean(String column) {
+      return ColumnarRows.this.getBoolean(_row, getColumn(column));
+    }
+
+    public String getString(String column) {
+      return ColumnarRows.this.getString(_row, getColumn(column));
+    }
+  }
+
+  /**
+   * The rows as row objects, each built when it is read.
+   */
+  private class MaterializedRows extends AbstractList<BaseRow> {
+
+    @Override
+    public BaseRow get(int index) {
+      checkRow(index);
+      return materialize(index);
+    }
+
+    @Override
+    public int size() {
+      return _size;
+    }
+  }
+}
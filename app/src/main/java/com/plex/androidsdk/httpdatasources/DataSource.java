@@ -20,24 +20,53 @@
 
 package com.plex.androidsdk.httpdatasources;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
-public abstract class DataSource implements IDataSourceConnectorCallback {
+public abstract class DataSource implements IDataSourceStreamCallback {
+
+  public static final int DEFAULT_ROW_CHUNK_SIZE = 100;
+
+  /**
+   * Runs chunk deliveries on the thread that is already delivering the result.
+   */
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
 
   private IDataSourceCallback _dataSourceCallback;
   private IDataSourceConnector _connector;
   private HttpDataSourceCredentials _credentials;
   private String _serverName;
   private boolean _useTestServer;
-  private Gson _rowGson;
+  private int _rowChunkSize = DEFAULT_ROW_CHUNK_SIZE;
+  private Executor _callbackExecutor;
+  private CachePolicy _cachePolicy = CachePolicy.NETWORK_ONLY;
+  private DiskResponseCache _diskCache;
+  private long _cacheMaxAgeMillis;
+  private Boolean _idempotent;
+  private int _connectTimeoutMillis;
+  private int _readTimeoutMillis;
+  private long _callTimeoutMillis;
+  private boolean _columnarRows;
 
   /**
-   * Default constructor
+   * Default constructor. Calls are made with the shared HttpDataSourceConnector.getDefault().
    *
    * @param iDataSourceCallback The caller who will receive the data source results.
    * @param credentials The Plex credentials to use when connecting with the http data source server.
@@ -45,7 +74,7 @@ public abstract class DataSource implements IDataSourceConnectorCallback {
    * @param useTestServer If true, use the test api environment.
    */
   public DataSource(IDataSourceCallback iDataSourceCallback, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer) {
-    this(iDataSourceCallback, credentials, serverName, useTestServer, new HttpDataSourceConnector());
+    this(iDataSourceCallback, credentials, serverName, useTestServer, HttpDataSourceConnector.getDefault());
   }
 
   protected DataSource(IDataSourceCallback iDataSourceCallback, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer,
@@ -59,13 +88,234 @@ public abstract class DataSource implements IDataSourceConnectorCallback {
 
   /**
    * Execute the data source
+   *
+   * @return A handle to cancel the call.
    */
-  public void execute() {
-    this.execute(0);
+  public DataSourceCall execute() {
+    return this.execute(0);
   }
 
-  public void execute(int index) {
-    _connector.execute(this.getDataSourceKey(), _credentials, _serverName, _useTestServer, this.getJsonRequest(), this, index);
+  /**
+   * Execute the data source
+   *
+   * @param index The reference index of the data source execution.
+   * @return A handle to cancel the call.
+   */
+  public DataSourceCall execute(int index) {
+    return this.execute(index, _dataSourceCallback, 0);
+  }
+
+  /**
+   * Execute the data source and deliver this call's result to the given callback instead of the one the data source was created with. Lets
+   * DataSourceBatch collect results without replacing the caller's callback.
+   *
+   * @param index The reference index of the data source execution.
+   * @param callback The caller who will receive the result of this call.
+   * @param deadlineNanos The System.nanoTime by which the call must complete, or 0 for none. The data source's own call timeout applies if it is
+   * earlier.
+   * @return A handle to cancel the call.
+   */
+  DataSourceCall execute(int index, IDataSourceCallback callback, long deadlineNanos) {
+    if (_callTimeoutMillis > 0) {
+      long timeoutDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_callTimeoutMillis);
+      if (deadlineNanos == 0 || timeoutDeadlineNanos - deadlineNanos < 0) {
+        deadlineNanos = timeoutDeadlineNanos;
+      }
+    }
+
+    DataSourceCall call = new DataSourceCall(deadlineNanos);
+    IDataSourceConnectorCallback connectorCallback = new CallCallback(callback, call, callback != _dataSourceCallback);
+    call.start();
+
+    if (_cachePolicy == CachePolicy.NETWORK_ONLY) {
+      _connector.execute(this.getDataSourceKey(), _credentials, _serverName, _useTestServer, this.getJsonRequest(), connectorCallback, index);
+    } else {
+      this.executeWithCache(new DataSourceCallKey(this.getDataSourceKey(), _credentials, _serverName, _useTestServer, this.getJsonRequest()),
+          connectorCallback, index);
+    }
+
+    return call;
+  }
+
+  /**
+   * Get how the data source uses its disk cache.
+   *
+   * @return The cache policy.
+   */
+  public CachePolicy getCachePolicy() {
+    return _cachePolicy;
+  }
+
+  /**
+   * Set how the data source uses a disk cache. Only read-only data sources can be cached.
+   *
+   * @param cachePolicy The cache policy.
+   * @param diskCache The cache to use. May be null for CachePolicy.NETWORK_ONLY.
+   * @param maxAgeMillis How old a cached response can be before CACHE_FIRST and STALE_WHILE_REVALIDATE call the server.
+   */
+  public void setCachePolicy(CachePolicy cachePolicy, DiskResponseCache diskCache, long maxAgeMillis) {
+    if (cachePolicy != CachePolicy.NETWORK_ONLY) {
+      if (diskCache == null) {
+        throw new IllegalArgumentException("diskCache == null");
+      }
+      if (!this.isReadOnly()) {
+        throw new IllegalStateException("Only read-only data sources can be cached");
+      }
+    }
+
+    _cachePolicy = cachePolicy;
+    _diskCache = diskCache;
+    _cacheMaxAgeMillis = maxAgeMillis;
+  }
+
+  /**
+   * Get the executor used to deliver results that do not come from the connector, such as cached responses, and results of responses that were
+   * parsed in the background because they were handed over on the main thread.
+   *
+   * @return The callback executor.
+   */
+  public Executor getCallbackExecutor() {
+    if (_callbackExecutor == null) {
+      _callbackExecutor = new MainThreadExecutor();
+    }
+
+    return _callbackExecutor;
+  }
+
+  /**
+   * Set the executor used to deliver results that do not come from the connector, such as cached responses, and results of responses that were
+   * parsed in the background because they were handed over on the main thread. Defaults to the main thread.
+   *
+   * @param callbackExecutor The callback executor.
+   */
+  public void setCallbackExecutor(Executor callbackExecutor) {
+    _callbackExecutor = callbackExecutor;
+  }
+
+  /**
+   * Whether the data source can safely be executed more than once, for example when a RetryingDataSourceConnector retries a call whose response
+   * was lost. Defaults to whether the data source is read-only.
+   *
+   * @return True if the data source is idempotent.
+   */
+  public boolean isIdempotent() {
+    return _idempotent != null ? _idempotent : this.isReadOnly();
+  }
+
+  /**
+   * Mark the data source as safe, or not, to execute more than once. Mark a data source that changes data as idempotent only when repeating it has
+   * no further effect, such as moving a container to the location it is already in.
+   *
+   * @param idempotent True if the data source is idempotent.
+   */
+  public void setIdempotent(boolean idempotent) {
+    _idempotent = idempotent;
+  }
+
+  /**
+   * Get how long opening a connection may take for this data source.
+   *
+   * @return The connect timeout in milliseconds, or 0 to use the connector's.
+   */
+  public int getConnectTimeoutMillis() {
+    return _connectTimeoutMillis;
+  }
+
+  /**
+   * Set how long opening a connection may take for this data source, overriding the connector's connect timeout.
+   *
+   * @param connectTimeoutMillis The connect timeout in milliseconds, or 0 to use the connector's.
+   */
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    _connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  /**
+   * Get how long the connection may go without receiving data for this data source.
+   *
+   * @return The read timeout in milliseconds, or 0 to use the connector's.
+   */
+  public int getReadTimeoutMillis() {
+    return _readTimeoutMillis;
+  }
+
+  /**
+   * Set how long the connection may go without receiving data for this data source, overriding the connector's read timeout. Raise it for data
+   * sources the server takes long to run.
+   *
+   * @param readTimeoutMillis The read timeout in milliseconds, or 0 to use the connector's.
+   */
+  public void setReadTimeoutMillis(int readTimeoutMillis) {
+    _readTimeoutMillis = readTimeoutMillis;
+  }
+
+  /**
+   * Get how long each call may take from execute to its result, including time queued and any retries.
+   *
+   * @return The call timeout in milliseconds, or 0 for none.
+   */
+  public long getCallTimeoutMillis() {
+    return _callTimeoutMillis;
+  }
+
+  /**
+   * Set how long each call may take from execute to its result, including time queued and any retries. A call that runs out of time is aborted
+   * and its result has an InterruptedIOException.
+   *
+   * @param callTimeoutMillis The call timeout in milliseconds, or 0 for none.
+   */
+  public void setCallTimeoutMillis(long callTimeoutMillis) {
+    _callTimeoutMillis = callTimeoutMillis;
+  }
+
+  public boolean isColumnarRows() {
+    return _columnarRows;
+  }
+
+  /**
+   * Hold the rows of results a column at a time, in ColumnarRows, instead of as a list of row objects. Takes far less memory and garbage collection
+   * for large results, most of all when string values repeat. Does not apply when the callback is an IDataSourceRowCallback, which already
+   * receives the rows in chunks. Off by default.
+   *
+   * @param columnarRows True to hold rows in columns.
+   */
+  public void setColumnarRows(boolean columnarRows) {
+    _columnarRows = columnarRows;
+  }
+
+  IDataSourceConnector getConnector() {
+    return _connector;
+  }
+
+  String getServerName() {
+    return _serverName;
+  }
+
+  boolean isUseTestServer() {
+    return _useTestServer;
+  }
+
+  /**
+   * Get the number of rows delivered in each onRowsAvailable call to an IDataSourceRowCallback.
+   *
+   * @return The row chunk size.
+   */
+  public int getRowChunkSize() {
+    return _rowChunkSize;
+  }
+
+  /**
+   * Set the number of rows delivered in each onRowsAvailable call to an IDataSourceRowCallback. Smaller chunks reach the caller sooner, larger chunks
+   * mean fewer callbacks.
+   *
+   * @param rowChunkSize The row chunk size.
+   */
+  public void setRowChunkSize(int rowChunkSize) {
+    if (rowChunkSize < 1) {
+      throw new IllegalArgumentException("rowChunkSize must be positive");
+    }
+
+    _rowChunkSize = rowChunkSize;
   }
 
   /**
@@ -78,8 +328,7 @@ public abstract class DataSource implements IDataSourceConnectorCallback {
     IBaseInput baseInput = this.getBaseInput();
 
     if (baseInput != null) {
-      Gson gson = new Gson();
-      jsonRequest = gson.toJson(baseInput);
+      jsonRequest = this.getDataSourceGson().toJson(baseInput);
     }
 
     return jsonRequest;
@@ -89,89 +338,388 @@ public abstract class DataSource implements IDataSourceConnectorCallback {
    * {@inheritDoc}
    */
   public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
-    if (_dataSourceCallback != null) {
-      DataSourceResult dsResult;
+    this.complete(result, index, _dataSourceCallback);
+  }
 
-      if (result.getHTTPResponseCode() == 200) {
-        dsResult = this.parseJsonResponse(result.getJsonResponse());
-      } else {
-        dsResult = this.parseJsonError(result.getJsonResponse());
-      }
+  /**
+   * Build the DataSourceResult for a finished call and deliver it. A response handed over on the main thread is parsed in the background and only
+   * the finished result is posted to the callback executor, so large responses never freeze the UI.
+   *
+   * @param callback The caller who receives the result. Nothing is parsed if it is null.
+   */
+  private void complete(final HttpDataSourceResult result, final int index, final IDataSourceCallback callback) {
+    // A result shared by coalesced callers is parsed by each of them, but only the first parse is recorded.
+    final DataSourceMetrics metrics = result.getMetrics() != null && !result.getMetrics().isComplete() ? result.getMetrics() : null;
 
-      if (result.getException() != null) {
-        dsResult.setException(result.getException());
+    if (callback == null) {
+      if (metrics != null) {
+        metrics.complete(null);
       }
+    } else if (result.getDataSourceResult() == null && this.isMainThread()) {
+      final Executor callbackExecutor = this.getCallbackExecutor();
+
+      ParseExecutor.get().execute(new Runnable() {
+        @Override
+        public void run() {
+          DataSourceResult dsResult;
+          try {
+            dsResult = toDataSourceResult(result, index, callbackExecutor, callback, metrics);
+          } catch (JsonParseException | IllegalStateException e) {
+            // There is no caller to throw to on this thread, so report it on the result.
+            dsResult = new DataSourceResult();
+            dsResult.setException(e);
+          }
 
-      _dataSourceCallback.onDataSourceComplete(dsResult, index);
+          final DataSourceResult parsedResult = dsResult;
+          callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+              callback.onDataSourceComplete(parsedResult, index);
+            }
+          });
+        }
+      });
+    } else {
+      callback.onDataSourceComplete(this.toDataSourceResult(result, index, DIRECT_EXECUTOR, callback, metrics), index);
     }
   }
 
   /**
-   * {@inheritDoc}
+   * Parse the response of a finished call unless the connector already did.
+   *
+   * @param rowExecutor The executor to deliver row chunks on, if the callback is an IDataSourceRowCallback.
+   * @param metrics Receives the parse timings and completes with the result. May be null.
    */
-  public void onProgressUpdate(int progressCode, int index) {
+  private DataSourceResult toDataSourceResult(HttpDataSourceResult result, int index, Executor rowExecutor, IDataSourceCallback callback,
+      DataSourceMetrics metrics) {
+    DataSourceResult dsResult = result.getDataSourceResult();
+
+    if (dsResult == null) {
+      if (metrics != null) {
+        metrics.markParseStart();
+      }
+
+      try {
+        if (result.getHTTPResponseCode() == 200) {
+          dsResult = this.parseJsonResponse(result.getJsonResponse(), index, rowExecutor, callback, metrics);
+        } else {
+          dsResult = this.parseJsonError(result.getJsonResponse());
+        }
+      } catch (JsonParseException | IllegalStateException e) {
+        if (metrics != null) {
+          metrics.setException(e);
+          metrics.complete(null);
+        }
+        throw e;
+      }
+
+      if (metrics != null) {
+        metrics.markParseEnd();
+      }
+    }
 
+    if (result.getException() != null) {
+      dsResult.setException(result.getException());
+    }
+
+    if (metrics != null) {
+      metrics.complete(dsResult.getTransactionNo());
+    }
+    return dsResult;
   }
 
   /**
-   * Parses the JSON returned from the http data source call.
-   *
-   * @param jsonResponse The JSON string.
-   * @return An instance of DataSourceResult containing the results of the parsed json.
+   * Whether the current thread is the Android main thread, where responses must not be parsed.
    */
-  private DataSourceResult parseJsonResponse(String jsonResponse) {
+  boolean isMainThread() {
+    return MainThreadExecutor.isMainThread();
+  }
 
-    DataSourceResult dsResult = new DataSourceResult();
+  //region DISK CACHE
+
+  /**
+   * Execute according to the cache policy. The disk cache is only read on its own background thread.
+   */
+  private void executeWithCache(final DataSourceCallKey key, final IDataSourceConnectorCallback connectorCallback, final int index) {
+    final CachePolicy cachePolicy = _cachePolicy;
+    final DiskResponseCache diskCache = _diskCache;
+    final long maxAgeMillis = _cacheMaxAgeMillis;
+
+    if (cachePolicy == CachePolicy.NETWORK_FIRST) {
+      this.executeAndCache(key, diskCache, connectorCallback, index, true);
+      return;
+    }
 
-    JsonObject jsonObject = new JsonParser().parse(jsonResponse).getAsJsonObject();
-    if (jsonObject.isJsonObject()) {
+    diskCache.getExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        DiskResponseCache.CachedResponse cached = readCache(diskCache, key);
+        boolean stale = cached == null || cached.getAgeMillis() > maxAgeMillis;
 
-      // Convert any outputs to an instance object
-      if (jsonObject.has("outputs") ) {
+        if (cached == null || (stale && cachePolicy == CachePolicy.CACHE_FIRST)) {
+          executeAndCache(key, diskCache, connectorCallback, index, false);
+          return;
+        }
 
-        JsonElement outputsElement = jsonObject.get("outputs");
+        deliverCached(cached, connectorCallback, index);
 
-        BaseOutputs outputs = this.getBaseOutputs();
-        // Ignore if not output is defined.
-        if(outputs != null) {
-          outputs = (BaseOutputs) new Gson().fromJson(outputsElement, outputs.getClass());
-          dsResult.setOutputs(outputs);
+        if (stale) {
+          refreshCache(key, diskCache);
         }
       }
+    });
+  }
 
-      // Convert any rows to instance objects
-      if (jsonObject.has("rows")) {
-        JsonArray rowsArray = jsonObject.get("rows").getAsJsonArray();
+  /**
+   * Call the server and cache a successful response before it is parsed.
+   *
+   * @param fallbackToCache If true and the call fails, deliver the cached response instead of the failure.
+   */
+  private void executeAndCache(final DataSourceCallKey key, final DiskResponseCache diskCache, final IDataSourceConnectorCallback connectorCallback,
+      int index, final boolean fallbackToCache) {
+    _connector.execute(key.getDataSourceKey(), _credentials, key.getServerName(), key.isUseTestServer(), key.getJsonRequest(),
+        new ForwardingConnectorCallback(connectorCallback, true) {
+          @Override
+          public void onDataSourceConnectorComplete(final HttpDataSourceResult result, final int index) {
+            String jsonResponse = this.getJsonResponse(result);
+            if (isCacheable(result, jsonResponse)) {
+              writeCache(diskCache, key, jsonResponse);
+            } else if (fallbackToCache && result.getException() != null) {
+              diskCache.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                  DiskResponseCache.CachedResponse cached = readCache(diskCache, key);
+                  if (cached != null) {
+                    deliverCached(cached, connectorCallback, index);
+                  } else {
+                    deliverConnectorResult(result, connectorCallback, index);
+                  }
+                }
+              });
+              return;
+            }
+
+            super.onDataSourceConnectorComplete(result, index);
+          }
+        }, index);
+  }
 
-        // Loop through the rows array
-        for (int i = 0; i < rowsArray.size(); ++i) {
-          JsonObject rowObject = rowsArray.get(i).getAsJsonObject();
-          BaseRow baseRow = this.parseRow(rowObject);
+  /**
+   * Call the server in the background only to update the cache.
+   */
+  private void refreshCache(final DataSourceCallKey key, final DiskResponseCache diskCache) {
+    _connector.execute(key.getDataSourceKey(), _credentials, key.getServerName(), key.isUseTestServer(), key.getJsonRequest(),
+        new ForwardingConnectorCallback(this) {
+          @Override
+          boolean canReadResponse() {
+            // Nothing is delivered, so the response is only read for the cache.
+            return false;
+          }
+
+          @Override
+          public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+            if (isCacheable(result, result.getJsonResponse())) {
+              writeCache(diskCache, key, result.getJsonResponse());
+            }
+          }
 
-          if (baseRow != null) {
-            dsResult.addRow(baseRow);
+          @Override
+          public void onProgressUpdate(int progressCode, int index) {
           }
+        }, 0);
+  }
+
+  private boolean isCacheable(HttpDataSourceResult result, String jsonResponse) {
+    return result.getHTTPResponseCode() == 200 && result.getException() == null && jsonResponse != null;
+  }
+
+  private DiskResponseCache.CachedResponse readCache(DiskResponseCache diskCache, DataSourceCallKey key) {
+    try {
+      return diskCache.get(key);
+    } catch (IOException e) {
+      // An unreadable cache is the same as an empty one.
+      return null;
+    }
+  }
+
+  private void writeCache(final DiskResponseCache diskCache, final DataSourceCallKey key, final String jsonResponse) {
+    diskCache.getExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          diskCache.put(key, jsonResponse);
+        } catch (IOException e) {
+          // The response is still delivered; it just won't be cached.
         }
       }
+    });
+  }
 
-      if(jsonObject.has("rowLimitExceeded")) {
-        dsResult.setRowLimitExceeded(jsonObject.get("rowLimitExceeded").getAsBoolean());
+  private void deliverCached(DiskResponseCache.CachedResponse cached, IDataSourceConnectorCallback connectorCallback, int index) {
+    this.deliverConnectorResult(new HttpDataSourceResult(cached.getJsonResponse(), 200), connectorCallback, index);
+  }
+
+  private void deliverConnectorResult(final HttpDataSourceResult result, final IDataSourceConnectorCallback connectorCallback, final int index) {
+    this.getCallbackExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        connectorCallback.onDataSourceConnectorComplete(result, index);
       }
+    });
+  }
+
+  //endregion
+
+  /**
+   * Create a data source from its class, through its (IDataSourceCallback, HttpDataSourceCredentials, String, boolean) constructor.
+   *
+   * @param type The data source class.
+   * @param callback The caller who will receive the data source results.
+   * @param credentials The Plex credentials.
+   * @param serverName The server name.
+   * @param useTestServer If true, use the test api environment.
+   * @return The data source.
+   * @throws ReflectiveOperationException if the class has no such constructor or it fails.
+   */
+  static DataSource newInstance(Class<? extends DataSource> type, IDataSourceCallback callback, HttpDataSourceCredentials credentials,
+      String serverName, boolean useTestServer) throws ReflectiveOperationException {
+    Constructor<? extends DataSource> constructor = type
+        .getDeclaredConstructor(IDataSourceCallback.class, HttpDataSourceCredentials.class, String.class, boolean.class);
+    constructor.setAccessible(true);
+
+    return constructor.newInstance(callback, credentials, serverName, useTestServer);
+  }
+
+  /**
+   * Build and cache the Gson adapters a data source class uses for its inputs, outputs, rows and errors, so its first call does not pay for them.
+   *
+   * @param type The data source class.
+   * @throws ReflectiveOperationException if the data source can not be created.
+   */
+  static void warmUp(Class<? extends DataSource> type) throws ReflectiveOperationException {
+    DataSource dataSource = newInstance(type, null, null, null, false);
+    DataSourceGson gson = dataSource.getDataSourceGson();
 
-      // Every result will have "transaction no", so we don't even test. Just read it.
-      dsResult.setTransactionNo(jsonObject.get("transactionNo").getAsString());
+    if (dataSource.getRowType() != null) {
+      gson.getAdapter(dataSource.getRowType());
     }
+    if (dataSource.getOutputType() != null) {
+      gson.getAdapter(dataSource.getOutputType());
+    }
+    BaseOutputs outputs = dataSource.getBaseOutputs();
+    if (outputs != null) {
+      gson.getAdapter(outputs.getClass());
+    }
+    gson.getAdapter(HttpDataSourceErrors.class);
 
-    return dsResult;
+    // Serializing the default inputs builds the input adapter and loads the writer.
+    dataSource.getJsonRequest();
+  }
+
+  /**
+   * Find the data source a connector callback reports to, looking through any callbacks that wrap it.
+   *
+   * @param callback The callback passed to IDataSourceConnector.execute.
+   * @return The data source, or null if the callback does not belong to one.
+   */
+  static DataSource from(IDataSourceConnectorCallback callback) {
+    while (callback instanceof ForwardingConnectorCallback) {
+      callback = ((ForwardingConnectorCallback) callback).getDelegate();
+    }
+
+    return callback instanceof DataSource ? (DataSource) callback : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void onProgressUpdate(int progressCode, int index) {
+
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Rows are decoded one at a time straight from the response stream.
+   */
+  public DataSourceResult readResponse(InputStream body, int responseCode, int index, Executor callbackExecutor, DataSourceMetrics metrics)
+      throws IOException {
+    return this.readResponse(body, responseCode, index, callbackExecutor, metrics, _dataSourceCallback);
   }
 
-  private BaseRow parseRow(JsonObject rowObject) {
-    if (_rowGson == null) {
-      _rowGson = new Gson();
+  private DataSourceResult readResponse(InputStream body, int responseCode, int index, Executor callbackExecutor, DataSourceMetrics metrics,
+      IDataSourceCallback callback) throws IOException {
+    Reader reader = new InputStreamReader(body, "UTF-8");
+
+    try {
+      if (responseCode == 200) {
+        return this.parseJsonResponse(reader, index, callbackExecutor, callback, metrics);
+      } else {
+        return this.parseJsonError(reader);
+      }
+    } catch (JsonParseException | IllegalStateException e) {
+      throw new IOException("The data source response is not valid JSON", e);
     }
+  }
 
-    BaseRow newRow = _rowGson.fromJson(rowObject, this.getRowType());
-    return newRow;
+  /**
+   * Parses the JSON returned from the http data source call.
+   *
+   * @param jsonResponse The JSON string.
+   * @param index The reference index of the data source execution.
+   * @param callbackExecutor The executor to deliver row chunks on, if the caller is an IDataSourceRowCallback.
+   * @param callback The caller who will receive the result.
+   * @param metrics Receives the row count and row timings. May be null.
+   * @return An instance of DataSourceResult containing the results of the parsed json.
+   */
+  private DataSourceResult parseJsonResponse(String jsonResponse, int index, Executor callbackExecutor, IDataSourceCallback callback,
+      DataSourceMetrics metrics) {
+    try {
+      return this.parseJsonResponse(new StringReader(jsonResponse), index, callbackExecutor, callback, metrics);
+    } catch (IOException e) {
+      // A StringReader only throws for malformed JSON.
+      throw new JsonParseException(e);
+    }
+  }
+
+  /**
+   * Parses the JSON returned from the http data source call without building it into a tree first.
+   *
+   * @param jsonResponse A reader over the JSON.
+   * @param index The reference index of the data source execution.
+   * @param callbackExecutor The executor to deliver row chunks on, if the caller is an IDataSourceRowCallback.
+   * @param callback The caller who will receive the result.
+   * @param metrics Receives the row count and row timings. May be null.
+   * @return An instance of DataSourceResult containing the results of the parsed json.
+   * @throws IOException if the JSON can not be read.
+   */
+  private DataSourceResult parseJsonResponse(Reader jsonResponse, int index, Executor callbackExecutor, IDataSourceCallback callback,
+      DataSourceMetrics metrics) throws IOException {
+    DataSourceResponseParser parser = new DataSourceResponseParser(this.getDataSourceGson(), this.getRowType(), this.getOutputsType(), metrics);
+
+    if (callback instanceof IDataSourceRowCallback) {
+      DataSourceResult dsResult = new DataSourceResult();
+      RowChunker rowChunker = new RowChunker((IDataSourceRowCallback) callback, _rowChunkSize, index, callbackExecutor);
+      parser.parse(new JsonReader(jsonResponse), dsResult, rowChunker);
+      rowChunker.flush();
+      return dsResult;
+    }
+
+    if (_columnarRows) {
+      return parser.parseColumnar(new JsonReader(jsonResponse));
+    }
+
+    return parser.parse(new JsonReader(jsonResponse));
+  }
+
+  /**
+   * Get the Gson context used to write the inputs and read the outputs, rows and errors. Defaults to the context shared by all data sources, so
+   * type adapters are only built once per type. Override to use a context with custom adapters.
+   *
+   * @return The Gson context.
+   */
+  protected DataSourceGson getDataSourceGson() {
+    return DataSourceGson.getDefault();
   }
 
   /**
@@ -182,11 +730,171 @@ public abstract class DataSource implements IDataSourceConnectorCallback {
    */
   private DataSourceResult parseJsonError(String jsonResponse) {
     DataSourceResult dsResult = new DataSourceResult();
-    dsResult.setHttpDataSourceErrors(new Gson().fromJson(jsonResponse, HttpDataSourceErrors.class));
+    dsResult.setHttpDataSourceErrors(this.getDataSourceGson().fromJson(jsonResponse, HttpDataSourceErrors.class));
+
+    return dsResult;
+  }
+
+  /**
+   * Parses the error JSON returned from the http data source call.
+   *
+   * @param jsonResponse A reader over the error JSON.
+   * @return An instance of DataSourceResult containing the results of the parsed json.
+   */
+  private DataSourceResult parseJsonError(Reader jsonResponse) {
+    DataSourceResult dsResult = new DataSourceResult();
+    dsResult.setHttpDataSourceErrors(this.getDataSourceGson().fromJson(jsonResponse, HttpDataSourceErrors.class));
 
     return dsResult;
   }
 
+  /**
+   * The connector callback of one call. Routes the result to the call's callback, which is the data source's own unless the call was made for a
+   * DataSourceBatch, and delivers an aborted call's exception without parsing the response.
+   * <p>
+   * For other callers than the data source's own, a response that can not be parsed is reported on the result instead of thrown, so one bad
+   * response can not stop the caller from hearing about the rest of its calls.
+   */
+  private class CallCallback extends ForwardingConnectorCallback {
+
+    private final IDataSourceCallback _callback;
+    private final DataSourceCall _call;
+    private final boolean _reportParseErrors;
+
+    CallCallback(IDataSourceCallback callback, DataSourceCall call, boolean reportParseErrors) {
+      super(DataSource.this);
+      _callback = callback;
+      _call = call;
+      _reportParseErrors = reportParseErrors;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    DataSourceCall getCall() {
+      return _call;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+      Exception abortException = _call.finish();
+
+      if (abortException != null) {
+        if (result.getMetrics() != null) {
+          result.getMetrics().complete(null);
+        }
+        if (_callback != null) {
+          DataSourceResult dsResult = new DataSourceResult();
+          dsResult.setException(abortException);
+          _callback.onDataSourceComplete(dsResult, index);
+        }
+      } else if (_reportParseErrors) {
+        try {
+          complete(result, index, _callback);
+        } catch (JsonParseException | IllegalStateException e) {
+          DataSourceResult dsResult = new DataSourceResult();
+          dsResult.setException(e);
+          _callback.onDataSourceComplete(dsResult, index);
+        }
+      } else {
+        complete(result, index, _callback);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataSourceResult readResponse(InputStream body, int responseCode, int index, Executor callbackExecutor, DataSourceMetrics metrics)
+        throws IOException {
+      if (_call.isAborted()) {
+        throw new InterruptedIOException("The data source call was aborted");
+      }
+
+      return DataSource.this.readResponse(body, responseCode, index, callbackExecutor, metrics, _callback);
+    }
+  }
+
+  /**
+   * Collects parsed rows into chunks and posts each full chunk to an IDataSourceRowCallback.
+   */
+  private static class RowChunker implements DataSourceResponseParser.RowHandler {
+
+    private final IDataSourceRowCallback _rowCallback;
+    private final int _chunkSize;
+    private final int _index;
+    private final Executor _callbackExecutor;
+    private List<BaseRow> _chunk;
+
+    RowChunker(IDataSourceRowCallback rowCallback, int chunkSize, int index, Executor callbackExecutor) {
+      _rowCallback = rowCallback;
+      _chunkSize = chunkSize;
+      _index = index;
+      _callbackExecutor = callbackExecutor;
+      _chunk = new ArrayList<>(chunkSize);
+    }
+
+    @Override
+    public void onRow(BaseRow row) {
+      _chunk.add(row);
+
+      if (_chunk.size() >= _chunkSize) {
+        this.flush();
+      }
+    }
+
+    /**
+     * Post any rows collected since the last chunk.
+     */
+    void flush() {
+      if (_chunk.isEmpty()) {
+        return;
+      }
+
+      final List<BaseRow> chunk = _chunk;
+      _chunk = new ArrayList<>(_chunkSize);
+      _callbackExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          _rowCallback.onRowsAvailable(chunk, _index);
+        }
+      });
+    }
+  }
+
+  /**
+   * Whether the data source only reads data. Responses from read-only data sources may be cached or shared between identical calls. Data sources
+   * that change data must keep the default of false.
+   *
+   * @return True if executing the data source has no side effects.
+   */
+  protected boolean isReadOnly() {
+    return false;
+  }
+
+  /**
+   * The type the outputs of a response are decoded into. Outputs are ignored if no output is defined.
+   *
+   * @return The class of getBaseOutputs(), or null to skip the outputs.
+   */
+  Type getOutputsType() {
+    BaseOutputs outputs = this.getBaseOutputs();
+    return outputs != null ? outputs.getClass() : null;
+  }
+
+  /**
+   * The class an OfflineWriteQueue recreates this data source from, through newInstance, to parse the response of a journaled write.
+   *
+   * @return The class of this data source, or null if it can not be recreated.
+   */
+  Class<? extends DataSource> getJournalClass() {
+    return this.getClass();
+  }
+
   //region ABSTRACT METHODS
 
   /**
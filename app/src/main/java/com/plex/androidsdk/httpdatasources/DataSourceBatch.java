@@ -0,0 +1,292 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many data sources as one unit, for example one Container_Get1 per serial number on a pallet.
+ * <p>
+ * At most maxParallelism data sources are in flight at a time; each finished data source starts the next one. Each data source is executed with
+ * its position in the batch as its index, and results are collected in that order no matter which call finishes first. A data source that fails
+ * only fails its own result.
+ * <p>
+ * Results go to the batch callback, not to the callback the data source was created with. A batch can only be executed once.
+ * <p>
+ * A batch timeout is a deadline for every data source in it, including the ones still waiting to start. Canceling the batch cancels the calls in
+ * flight and fails the rest without starting them.
+ */
+public class DataSourceBatch {
+
+  public static final int DEFAULT_MAX_PARALLELISM = DataSourceDispatcher.DEFAULT_MAX_REQUESTS_PER_HOST;
+
+  private final int _maxParallelism;
+  private final List<DataSource> _dataSources = new ArrayList<>();
+
+  private IDataSourceBatchCallback _callback;
+  private DataSourceResult[] _results;
+  private DataSourceCall[] _calls;
+  private long _timeoutMillis;
+  private long _deadlineNanos;
+  private boolean _canceled;
+  private long[] _startNanos;
+  private long[] _elapsedNanos;
+  private long _batchStartNanos;
+  private int _nextIndex;
+  private int _remaining;
+  private int _pendingStarts;
+  private boolean _starting;
+
+  /**
+   * Create a batch that runs up to DEFAULT_MAX_PARALLELISM data sources at a time.
+   */
+  public DataSourceBatch() {
+    this(DEFAULT_MAX_PARALLELISM);
+  }
+
+  /**
+   * @param maxParallelism The maximum number of data sources in flight at the same time.
+   */
+  public DataSourceBatch(int maxParallelism) {
+    if (maxParallelism < 1) {
+      throw new IllegalArgumentException("maxParallelism must be positive");
+    }
+
+    _maxParallelism = maxParallelism;
+  }
+
+  /**
+   * Add a data source to the batch.
+   *
+   * @param dataSource The data source to execute.
+   * @return The index the data source's result will be reported with.
+   */
+  public synchronized int add(DataSource dataSource) {
+    if (dataSource == null) {
+      throw new IllegalArgumentException("dataSource == null");
+    }
+    if (_callback != null) {
+      throw new IllegalStateException("The batch has already been executed");
+    }
+
+    _dataSources.add(dataSource);
+    return _dataSources.size() - 1;
+  }
+
+  public synchronized int size() {
+    return _dataSources.size();
+  }
+
+  public int getMaxParallelism() {
+    return _maxParallelism;
+  }
+
+  public synchronized long getTimeoutMillis() {
+    return _timeoutMillis;
+  }
+
+  /**
+   * Set how long the whole batch may take, from execute until its last result. Data sources that have not finished by then fail with an
+   * InterruptedIOException.
+   *
+   * @param timeoutMillis The timeout in milliseconds, or 0 for none.
+   */
+  public synchronized void setTimeoutMillis(long timeoutMillis) {
+    if (_callback != null) {
+      throw new IllegalStateException("The batch has already been executed");
+    }
+
+    _timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Cancel the batch. Data sources in flight are canceled and the ones not started yet are never started; each fails with a
+   * CancellationException. Results already delivered are unaffected.
+   */
+  public void cancel() {
+    List<DataSourceCall> calls = new ArrayList<>();
+
+    synchronized (this) {
+      _canceled = true;
+      if (_calls != null) {
+        for (DataSourceCall call : _calls) {
+          if (call != null) {
+            calls.add(call);
+          }
+        }
+      }
+    }
+
+    for (DataSourceCall call : calls) {
+      call.cancel();
+    }
+  }
+
+  public synchronized boolean isCanceled() {
+    return _canceled;
+  }
+
+  /**
+   * Execute every data source in the batch.
+   *
+   * @param callback The caller who will receive each result and the batch result.
+   */
+  public void execute(IDataSourceBatchCallback callback) {
+    if (callback == null) {
+      throw new IllegalArgumentException("callback == null");
+    }
+
+    int count;
+    synchronized (this) {
+      if (_callback != null) {
+        throw new IllegalStateException("The batch has already been executed");
+      }
+
+      count = _dataSources.size();
+      _callback = callback;
+      _results = new DataSourceResult[count];
+      _calls = new DataSourceCall[count];
+      _startNanos = new long[count];
+      _elapsedNanos = new long[count];
+      _remaining = count;
+      _batchStartNanos = System.nanoTime();
+      _deadlineNanos = _timeoutMillis > 0 ? _batchStartNanos + TimeUnit.MILLISECONDS.toNanos(_timeoutMillis) : 0;
+    }
+
+    if (count == 0) {
+      callback.onBatchComplete(new DataSourceBatchResult(new DataSourceResult[0], new long[0], 0));
+      return;
+    }
+
+    this.startNext(Math.min(_maxParallelism, count));
+  }
+
+  /**
+   * Start more data sources that have not been started yet.
+   * <p>
+   * A connector may complete a call before execute returns, for example on a cache hit. Starts requested while this thread or another is already
+   * starting data sources are handed to that loop rather than run recursively, so a long batch of synchronous results can not overflow the stack.
+   *
+   * @param starts The number of data sources to start.
+   */
+  private void startNext(int starts) {
+    synchronized (this) {
+      _pendingStarts += starts;
+      if (_starting) {
+        return;
+      }
+      _starting = true;
+    }
+
+    while (true) {
+      int index;
+      DataSource dataSource;
+
+      synchronized (this) {
+        if (_pendingStarts == 0 || _nextIndex >= _dataSources.size()) {
+          _pendingStarts = 0;
+          _starting = false;
+          return;
+        }
+
+        _pendingStarts--;
+        index = _nextIndex++;
+        dataSource = _dataSources.get(index);
+        _startNanos[index] = System.nanoTime();
+      }
+
+      this.start(dataSource, index);
+    }
+  }
+
+  private void start(DataSource dataSource, int index) {
+    Exception abortException = null;
+    synchronized (this) {
+      if (_canceled) {
+        abortException = new CancellationException("The data source batch was canceled");
+      } else if (_deadlineNanos != 0 && System.nanoTime() - _deadlineNanos >= 0) {
+        abortException = new InterruptedIOException("The data source batch timed out");
+      }
+    }
+
+    if (abortException != null) {
+      DataSourceResult dsResult = new DataSourceResult();
+      dsResult.setException(abortException);
+      this.itemComplete(dsResult, index);
+      return;
+    }
+
+    try {
+      DataSourceCall call = dataSource.execute(index, new IDataSourceCallback() {
+        @Override
+        public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+          itemComplete(dataSourceResult, index);
+        }
+      }, _deadlineNanos);
+
+      boolean canceled;
+      synchronized (this) {
+        _calls[index] = call;
+        canceled = _canceled;
+      }
+
+      // The batch may have been canceled while this call was starting.
+      if (canceled) {
+        call.cancel();
+      }
+    } catch (RuntimeException e) {
+      // A data source that can not even start still gets a result, so the batch always completes.
+      DataSourceResult dsResult = new DataSourceResult();
+      dsResult.setException(e);
+      this.itemComplete(dsResult, index);
+    }
+  }
+
+  private void itemComplete(DataSourceResult dataSourceResult, int index) {
+    DataSourceBatchResult batchResult = null;
+
+    synchronized (this) {
+      if (_results[index] != null) {
+        // A data source reports once per call; ignore anything else.
+        return;
+      }
+
+      _results[index] = dataSourceResult;
+      _elapsedNanos[index] = System.nanoTime() - _startNanos[index];
+
+      if (--_remaining == 0) {
+        batchResult = new DataSourceBatchResult(_results, _elapsedNanos, System.nanoTime() - _batchStartNanos);
+      }
+    }
+
+    _callback.onDataSourceComplete(dataSourceResult, index);
+
+    if (batchResult != null) {
+      _callback.onBatchComplete(batchResult);
+    } else {
+      this.startNext(1);
+    }
+  }
+}
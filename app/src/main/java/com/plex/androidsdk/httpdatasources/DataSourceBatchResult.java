@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a DataSourceBatch, in the order the data sources were added.
+ */
+public class DataSourceBatchResult {
+
+  private final List<DataSourceResult> _results;
+  private final long[] _elapsedNanos;
+  private final long _batchElapsedNanos;
+
+  DataSourceBatchResult(DataSourceResult[] results, long[] elapsedNanos, long batchElapsedNanos) {
+    _results = Collections.unmodifiableList(Arrays.asList(results));
+    _elapsedNanos = elapsedNanos;
+    _batchElapsedNanos = batchElapsedNanos;
+  }
+
+  /**
+   * Get the result of every data source in the batch. The position of each result is the index of its data source.
+   *
+   * @return The results.
+   */
+  public List<DataSourceResult> getResults() {
+    return _results;
+  }
+
+  /**
+   * Get the result of one data source in the batch.
+   *
+   * @param index The index of the data source.
+   * @return The result.
+   */
+  public DataSourceResult getResult(int index) {
+    return _results.get(index);
+  }
+
+  public int size() {
+    return _results.size();
+  }
+
+  /**
+   * Get the number of data sources whose result is an error.
+   *
+   * @return The error count.
+   */
+  public int getErrorCount() {
+    int errors = 0;
+    for (DataSourceResult result : _results) {
+      if (result.isError()) {
+        errors++;
+      }
+    }
+
+    return errors;
+  }
+
+  /**
+   * Get the time from starting a data source to receiving its result. Includes any time the call waited in the dispatcher queue.
+   *
+   * @param index The index of the data source.
+   * @return The elapsed time in milliseconds.
+   */
+  public long getElapsedMillis(int index) {
+    return _elapsedNanos[index] / 1000000;
+  }
+
+  /**
+   * Get the time from executing the batch to receiving the last result.
+   *
+   * @return The elapsed time in milliseconds.
+   */
+  public long getBatchElapsedMillis() {
+    return _batchElapsedNanos / 1000000;
+  }
+}
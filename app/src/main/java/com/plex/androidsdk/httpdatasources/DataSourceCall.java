@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A handle to one execution of a data source, returned by DataSource.execute.
+ * <p>
+ * Cancel the call when its result is no longer wanted, for example when the user leaves the screen. A running connection is aborted, the response
+ * is not parsed, and the worker thread is freed at once. If the call has a deadline it is aborted the same way when the deadline passes. Either way
+ * the callback still receives a result, with a CancellationException or an InterruptedIOException, so batches and other callers waiting on it
+ * always complete.
+ */
+public class DataSourceCall {
+
+  private static final int RUNNING = 0;
+  private static final int COMPLETE = 1;
+  private static final int CANCELED = 2;
+  private static final int TIMED_OUT = 3;
+
+  private final AtomicInteger _state = new AtomicInteger(RUNNING);
+  private final long _deadlineNanos;
+  private final List<Runnable> _abortActions = new ArrayList<>();
+  private ScheduledFuture<?> _timeout;
+
+  /**
+   * @param deadlineNanos The System.nanoTime by which the call must complete, or 0 for no deadline.
+   */
+  DataSourceCall(long deadlineNanos) {
+    _deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Find the call a connector callback belongs to, looking through any callbacks that wrap it.
+   *
+   * @param callback The callback passed to IDataSourceConnector.execute.
+   * @return The call, or null if the callback does not belong to one that can be aborted.
+   */
+  static DataSourceCall from(IDataSourceConnectorCallback callback) {
+    return callback instanceof ForwardingConnectorCallback ? ((ForwardingConnectorCallback) callback).getCall() : null;
+  }
+
+  /**
+   * Cancel the call. Does nothing if the call has already completed.
+   *
+   * @return True if the call was canceled by this.
+   */
+  public boolean cancel() {
+    return this.abort(CANCELED);
+  }
+
+  public boolean isCanceled() {
+    return _state.get() == CANCELED;
+  }
+
+  public boolean isTimedOut() {
+    return _state.get() == TIMED_OUT;
+  }
+
+  boolean hasDeadline() {
+    return _deadlineNanos != 0;
+  }
+
+  /**
+   * Get the time left before the deadline.
+   *
+   * @return The remaining milliseconds, at least 0, or Long.MAX_VALUE if there is no deadline.
+   */
+  long getRemainingMillis() {
+    if (_deadlineNanos == 0) {
+      return Long.MAX_VALUE;
+    }
+
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(_deadlineNanos - System.nanoTime()));
+  }
+
+  /**
+   * Start the deadline timer, if the call has a deadline.
+   */
+  void start() {
+    if (_deadlineNanos == 0) {
+      return;
+    }
+
+    long delayNanos = _deadlineNanos - System.nanoTime();
+    if (delayNanos <= 0) {
+      this.abort(TIMED_OUT);
+      return;
+    }
+
+    ScheduledFuture<?> timeout = DataSourceScheduler.get().schedule(new Runnable() {
+      @Override
+      public void run() {
+        abort(TIMED_OUT);
+      }
+    }, delayNanos, TimeUnit.NANOSECONDS);
+
+    synchronized (this) {
+      _timeout = timeout;
+    }
+  }
+
+  /**
+   * Whether the call was canceled or timed out, so any work left on it should stop.
+   *
+   * @return True if the call was aborted.
+   */
+  boolean isAborted() {
+    int state = _state.get();
+    return state == CANCELED || state == TIMED_OUT;
+  }
+
+  /**
+   * Get the exception to report for an aborted call.
+   *
+   * @return The exception, or null if the call was not aborted.
+   */
+  Exception getAbortException() {
+    switch (_state.get()) {
+      case CANCELED:
+        return new CancellationException("The data source call was canceled");
+      case TIMED_OUT:
+        return new InterruptedIOException("The data source call timed out");
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Register work to run if the call is aborted, such as disconnecting its connection.
+   *
+   * @param abortAction The action. Runs on the scheduler thread, since closing a connection may touch the network.
+   * @return False if the call has already been aborted, in which case the action is not registered.
+   */
+  synchronized boolean addAbortAction(Runnable abortAction) {
+    if (this.isAborted()) {
+      return false;
+    }
+
+    _abortActions.add(abortAction);
+    return true;
+  }
+
+  synchronized void removeAbortAction(Runnable abortAction) {
+    _abortActions.remove(abortAction);
+  }
+
+  /**
+   * Mark the call complete, just before its result is delivered.
+   *
+   * @return The exception to deliver instead of the result if the call was aborted, otherwise null.
+   */
+  Exception finish() {
+    if (!_state.compareAndSet(RUNNING, COMPLETE)) {
+      return this.getAbortException();
+    }
+
+    synchronized (this) {
+      if (_timeout != null) {
+        _timeout.cancel(false);
+      }
+      _abortActions.clear();
+    }
+
+    return null;
+  }
+
+  private boolean abort(int state) {
+    if (!_state.compareAndSet(RUNNING, state)) {
+      return false;
+    }
+
+    final List<Runnable> abortActions;
+    synchronized (this) {
+      abortActions = new ArrayList<>(_abortActions);
+      _abortActions.clear();
+      if (_timeout != null) {
+        _timeout.cancel(false);
+      }
+    }
+
+    if (!abortActions.isEmpty()) {
+      DataSourceScheduler.get().execute(new Runnable() {
+        @Override
+        public void run() {
+          for (Runnable abortAction : abortActions) {
+            abortAction.run();
+          }
+        }
+      });
+    }
+
+    return true;
+  }
+}
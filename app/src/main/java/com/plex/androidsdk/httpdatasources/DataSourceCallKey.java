@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+/**
+ * Identifies an http data source call by what is sent to the server: the data source key, the identity of the credentials, the server and the JSON
+ * request. Two calls with equal keys return the same response. The identity keeps users and companies on the same server from being served each
+ * other's responses, so the caches need not be cleared when the credentials change.
+ */
+final class DataSourceCallKey {
+
+  private final int _dataSourceKey;
+  private final String _authIdentity;
+  private final String _serverName;
+  private final boolean _useTestServer;
+  private final String _jsonRequest;
+  private final int _hashCode;
+
+  /**
+   * @param dataSourceKey The data source key.
+   * @param credentials The credentials of the call, or null if it has none.
+   * @param serverName The server.
+   * @param useTestServer If true, the call goes to the test api environment.
+   * @param jsonRequest The JSON request, or null.
+   */
+  DataSourceCallKey(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest) {
+    this(dataSourceKey, credentials != null ? credentials.getIdentity() : null, serverName, useTestServer, jsonRequest);
+  }
+
+  DataSourceCallKey(int dataSourceKey, String authIdentity, String serverName, boolean useTestServer, String jsonRequest) {
+    _dataSourceKey = dataSourceKey;
+    _authIdentity = authIdentity;
+    _serverName = serverName;
+    _useTestServer = useTestServer;
+    _jsonRequest = jsonRequest;
+
+    int hashCode = dataSourceKey;
+    hashCode = 31 * hashCode + (authIdentity != null ? authIdentity.hashCode() : 0);
+    hashCode = 31 * hashCode + (serverName != null ? serverName.hashCode() : 0);
+    hashCode = 31 * hashCode + (useTestServer ? 1 : 0);
+    hashCode = 31 * hashCode + (jsonRequest != null ? jsonRequest.hashCode() : 0);
+    _hashCode = hashCode;
+  }
+
+  int getDataSourceKey() {
+    return _dataSourceKey;
+  }
+
+  String getAuthIdentity() {
+    return _authIdentity;
+  }
+
+  String getServerName() {
+    return _serverName;
+  }
+
+  boolean isUseTestServer() {
+    return _useTestServer;
+  }
+
+  String getJsonRequest() {
+    return _jsonRequest;
+  }
+
+  /**
+   * Approximate number of bytes the key holds on the heap.
+   *
+   * @return The size in bytes.
+   */
+  int getSize() {
+    return 2 * (this.length(_authIdentity) + this.length(_serverName) + this.length(_jsonRequest)) + 48;
+  }
+
+  private int length(String value) {
+    return value != null ? value.length() : 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof DataSourceCallKey)) {
+      return false;
+    }
+
+    DataSourceCallKey other = (DataSourceCallKey) o;
+    return _dataSourceKey == other._dataSourceKey
+        && _useTestServer == other._useTestServer
+        && (_authIdentity != null ? _authIdentity.equals(other._authIdentity) : other._authIdentity == null)
+        && (_serverName != null ? _serverName.equals(other._serverName) : other._serverName == null)
+        && (_jsonRequest != null ? _jsonRequest.equals(other._jsonRequest) : other._jsonRequest == null);
+  }
+
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return _authIdentity + "@" + (_useTestServer ? "test." : "") + _serverName + "/" + _dataSourceKey + " " + _jsonRequest;
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * What a data source is, apart from any one call: its key, its row and outputs types, and the server to call. Definitions are immutable, so one
+ * definition can execute any number of inputs at the same time, from any thread.
+ * <p>
+ * Each shipped data source has a definition, such as Container_Get1.definition(), whose inputs are immutable objects such as
+ * Container_Get1.Input:
+ * <pre>
+ * DataSourceDefinition&lt;Container_Get1.Input&gt; containerGet = Container_Get1.definition().withServer(credentials, "cloud", false);
+ * containerGet.execute(new Container_Get1.Input("S123456"), callback, 0);
+ * </pre>
+ * Calls are made with the default settings of a data source, such as no call timeout and no caching, on the connector's dispatcher.
+ *
+ * @param <I> The input type of the data source.
+ */
+public class DataSourceDefinition<I extends IBaseInput> {
+
+  private final int _dataSourceKey;
+  private final Type _rowType;
+  private final Type _outputsType;
+  private final boolean _readOnly;
+  private final Class<? extends DataSource> _dataSourceClass;
+  private final HttpDataSourceCredentials _credentials;
+  private final String _serverName;
+  private final boolean _useTestServer;
+  private final IDataSourceConnector _connector;
+
+  /**
+   * @param dataSourceKey The data source key.
+   * @param rowType The type to decode each row into, or null if the data source returns no rows.
+   * @param outputsType The type to decode the outputs into, or null if the data source has no outputs.
+   * @param readOnly True if the data source only reads data.
+   */
+  public DataSourceDefinition(int dataSourceKey, Type rowType, Type outputsType, boolean readOnly) {
+    this(dataSourceKey, rowType, outputsType, readOnly, null);
+  }
+
+  /**
+   * @param dataSourceKey The data source key.
+   * @param rowType The type to decode each row into, or null if the data source returns no rows.
+   * @param outputsType The type to decode the outputs into, or null if the data source has no outputs.
+   * @param readOnly True if the data source only reads data.
+   * @param dataSourceClass The data source class with the same key and types, or null if there is none. An OfflineWriteQueue can only journal
+   * calls made through a definition that has one, because it recreates that class to parse the response of a write sent after a restart.
+   */
+  public DataSourceDefinition(int dataSourceKey, Type rowType, Type outputsType, boolean readOnly, Class<? extends DataSource> dataSourceClass) {
+    this(dataSourceKey, rowType, outputsType, readOnly, dataSourceClass, null, null, false, null);
+  }
+
+  private DataSourceDefinition(int dataSourceKey, Type rowType, Type outputsType, boolean readOnly, Class<? extends DataSource> dataSourceClass,
+      HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, IDataSourceConnector connector) {
+    _dataSourceKey = dataSourceKey;
+    _rowType = rowType;
+    _outputsType = outputsType;
+    _readOnly = readOnly;
+    _dataSourceClass = dataSourceClass;
+    _credentials = credentials;
+    _serverName = serverName;
+    _useTestServer = useTestServer;
+    _connector = connector;
+  }
+
+  /**
+   * Get a definition that calls the given server. This definition is not changed.
+   *
+   * @param credentials The Plex credentials to use when connecting with the http data source server.
+   * @param serverName Based on data center data is hosted in. AH = cloud, US1/US2 = {customer code}.
+   * @param useTestServer If true, use the test api environment.
+   * @return The definition for the server.
+   */
+  public DataSourceDefinition<I> withServer(HttpDataSourceCredentials credentials, String serverName, boolean useTestServer) {
+    return new DataSourceDefinition<>(_dataSourceKey, _rowType, _outputsType, _readOnly, _dataSourceClass, credentials, serverName, useTestServer, _connector);
+  }
+
+  /**
+   * Get a definition that makes its calls with the given connector instead of HttpDataSourceConnector.getDefault(). This definition is not
+   * changed.
+   *
+   * @param connector The connector.
+   * @return The definition for the connector.
+   */
+  public DataSourceDefinition<I> withConnector(IDataSourceConnector connector) {
+    return new DataSourceDefinition<>(_dataSourceKey, _rowType, _outputsType, _readOnly, _dataSourceClass, _credentials, _serverName, _useTestServer,
+        connector);
+  }
+
+  /**
+   * Execute the data source with the given input.
+   *
+   * @param input The input of this call.
+   * @param callback The caller who will receive the result.
+   * @param index The reference index of the data source execution.
+   * @return A handle to cancel the call.
+   */
+  public DataSourceCall execute(I input, IDataSourceCallback callback, int index) {
+    return this.newDataSource(input, callback).execute(index);
+  }
+
+  /**
+   * Execute the data source once for each input, as a DataSourceBatch with the default parallelism. Results are reported with the position of
+   * their input in the list.
+   *
+   * @param inputs The inputs, one per call.
+   * @param callback The caller who will receive the results.
+   * @return The executed batch, to cancel it.
+   */
+  public DataSourceBatch executeAll(List<? extends I> inputs, IDataSourceBatchCallback callback) {
+    DataSourceBatch batch = new DataSourceBatch();
+
+    for (I input : inputs) {
+      batch.add(this.newDataSource(input, null));
+    }
+
+    batch.execute(callback);
+    return batch;
+  }
+
+  public int getDataSourceKey() {
+    return _dataSourceKey;
+  }
+
+  public Type getRowType() {
+    return _rowType;
+  }
+
+  public Type getOutputsType() {
+    return _outputsType;
+  }
+
+  public boolean isReadOnly() {
+    return _readOnly;
+  }
+
+  public String getServerName() {
+    return _serverName;
+  }
+
+  public boolean isUseTestServer() {
+    return _useTestServer;
+  }
+
+  /**
+   * The connector calls are made with.
+   *
+   * @return The connector given to withConnector, or HttpDataSourceConnector.getDefault().
+   */
+  public IDataSourceConnector getConnector() {
+    return _connector != null ? _connector : HttpDataSourceConnector.getDefault();
+  }
+
+  HttpDataSourceCredentials getCredentials() {
+    return _credentials;
+  }
+
+  Class<? extends DataSource> getDataSourceClass() {
+    return _dataSourceClass;
+  }
+
+  /**
+   * Create the data source of one call. It only holds the call's input and callback; everything else is read from the definition.
+   */
+  DataSource newDataSource(I input, IDataSourceCallback callback) {
+    if (_serverName == null) {
+      throw new IllegalStateException("Set the server with withServer before executing");
+    }
+    if (input == null) {
+      throw new IllegalArgumentException("input == null");
+    }
+
+    return new DefinedDataSource(this, input, callback);
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs http data source calls on a shared thread pool with bounded concurrency.
+ * <p>
+ * Calls are admitted in submission order, limited by the total number of running calls and by the number of running calls per host. Calls that
+ * can not run yet wait in a bounded queue. When the queue is full new calls are rejected so the caller can back off instead of piling up work.
+ * <p>
+ * With adaptive concurrency on, the limit per host shrinks below max requests per host while the host's latency rises, and grows back as it
+ * recovers. See AdaptiveConcurrencyLimit.
+ * <p>
+ * Callbacks are delivered on the callback executor, which by default is the Android main thread.
+ */
+public class DataSourceDispatcher {
+
+  public static final int DEFAULT_MAX_REQUESTS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+  public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+  public static final int DEFAULT_MAX_QUEUED_REQUESTS = 256;
+
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private static DataSourceDispatcher _defaultDispatcher;
+
+  private final int _maxRequests;
+  private final int _maxRequestsPerHost;
+  private final int _maxQueuedRequests;
+  private final Executor _callbackExecutor;
+
+  private final ArrayDeque<DispatchedCall> _readyCalls = new ArrayDeque<>();
+  private final Map<String, Integer> _runningCallsPerHost = new HashMap<>();
+  private final Map<String, AdaptiveConcurrencyLimit> _concurrencyLimits = new HashMap<>();
+  private boolean _adaptiveConcurrency = false;
+  private int _runningCalls = 0;
+  private ExecutorService _executorService;
+
+  /**
+   * Create a dispatcher with the default limits that delivers callbacks on the Android main thread.
+   */
+  public DataSourceDispatcher() {
+    this(DEFAULT_MAX_REQUESTS, DEFAULT_MAX_REQUESTS_PER_HOST, DEFAULT_MAX_QUEUED_REQUESTS, new MainThreadExecutor());
+  }
+
+  /**
+   * @param maxRequests The maximum number of calls running at the same time.
+   * @param maxRequestsPerHost The maximum number of calls running at the same time against a single host.
+   * @param maxQueuedRequests The maximum number of calls waiting to run. Further calls are rejected.
+   * @param callbackExecutor The executor used to deliver callbacks to the caller.
+   */
+  public DataSourceDispatcher(int maxRequests, int maxRequestsPerHost, int maxQueuedRequests, Executor callbackExecutor) {
+    if (maxRequests < 1 || maxRequestsPerHost < 1 || maxQueuedRequests < 0) {
+      throw new IllegalArgumentException("Dispatcher limits must be positive");
+    }
+    if (callbackExecutor == null) {
+      throw new IllegalArgumentException("callbackExecutor == null");
+    }
+
+    _maxRequests = maxRequests;
+    _maxRequestsPerHost = maxRequestsPerHost;
+    _maxQueuedRequests = maxQueuedRequests;
+    _callbackExecutor = callbackExecutor;
+  }
+
+  /**
+   * The dispatcher shared by connectors that are not given one explicitly.
+   *
+   * @return The shared dispatcher.
+   */
+  public static synchronized DataSourceDispatcher getDefault() {
+    if (_defaultDispatcher == null) {
+      _defaultDispatcher = new DataSourceDispatcher();
+    }
+
+    return _defaultDispatcher;
+  }
+
+  /**
+   * Queue a call to run when a thread and the host's concurrency allow it.
+   *
+   * @param host The host the call connects to. Used to apply the per host limit.
+   * @param call The work to run in the background.
+   * @return False if the queue is full and the call was rejected.
+   */
+  public boolean enqueue(String host, Runnable call) {
+    synchronized (this) {
+      if (_readyCalls.size() >= _maxQueuedRequests && !this.canRunNow(host)) {
+        return false;
+      }
+
+      _readyCalls.add(new DispatchedCall(host, call));
+    }
+
+    this.promoteAndExecute();
+    return true;
+  }
+
+  /**
+   * The executor used to deliver callbacks.
+   *
+   * @return The callback executor.
+   */
+  public Executor getCallbackExecutor() {
+    return _callbackExecutor;
+  }
+
+  public int getMaxRequests() {
+    return _maxRequests;
+  }
+
+  public int getMaxRequestsPerHost() {
+    return _maxRequestsPerHost;
+  }
+
+  public int getMaxQueuedRequests() {
+    return _maxQueuedRequests;
+  }
+
+  public synchronized int getRunningCallsCount() {
+    return _runningCalls;
+  }
+
+  public synchronized int getQueuedCallsCount() {
+    return _readyCalls.size();
+  }
+
+  public synchronized boolean isAdaptiveConcurrency() {
+    return _adaptiveConcurrency;
+  }
+
+  /**
+   * Adapt the number of calls running against each host to its latency, between 1 and max requests per host. Off by default.
+   *
+   * @param adaptiveConcurrency True to adapt the limit per host.
+   */
+  public synchronized void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+    _adaptiveConcurrency = adaptiveConcurrency;
+
+    if (!adaptiveConcurrency) {
+      _concurrencyLimits.clear();
+    }
+  }
+
+  /**
+   * Get the number of calls that may run against a host at the same time.
+   *
+   * @param host The host.
+   * @return The adaptive limit of the host if adaptive concurrency is on, otherwise max requests per host.
+   */
+  public synchronized int getMaxRequestsPerHost(String host) {
+    AdaptiveConcurrencyLimit concurrencyLimit = this.getConcurrencyLimit(host);
+    return concurrencyLimit != null ? Math.min(_maxRequestsPerHost, concurrencyLimit.getLimit()) : _maxRequestsPerHost;
+  }
+
+  /**
+   * Feed the outcome of a call to the adaptive limit of its host. Ignored unless adaptive concurrency is on. Any change to the limit applies from
+   * the next call admitted, which happens as soon as the running call finishes.
+   *
+   * @param host The host the call ran against.
+   * @param latencyNanos The time to first byte, or -1 if the call failed before a response.
+   * @param dropped True if the call timed out or the server throttled it.
+   */
+  synchronized void onCallCompleted(String host, long latencyNanos, boolean dropped) {
+    AdaptiveConcurrencyLimit concurrencyLimit = this.getConcurrencyLimit(host);
+
+    if (concurrencyLimit != null) {
+      concurrencyLimit.onSample(latencyNanos, this.getRunningCalls(host), dropped);
+    }
+  }
+
+  private AdaptiveConcurrencyLimit getConcurrencyLimit(String host) {
+    if (!_adaptiveConcurrency) {
+      return null;
+    }
+
+    AdaptiveConcurrencyLimit concurrencyLimit = _concurrencyLimits.get(host);
+    if (concurrencyLimit == null) {
+      concurrencyLimit = new AdaptiveConcurrencyLimit(_maxRequestsPerHost, 1, _maxRequestsPerHost);
+      _concurrencyLimits.put(host, concurrencyLimit);
+    }
+
+    return concurrencyLimit;
+  }
+
+  private boolean canRunNow(String host) {
+    return _readyCalls.isEmpty() && _runningCalls < _maxRequests && this.getRunningCalls(host) < this.getMaxRequestsPerHost(host);
+  }
+
+  /**
+   * Move calls from the ready queue to the thread pool while the limits allow it.
+   */
+  private void promoteAndExecute() {
+    List<DispatchedCall> executableCalls = new ArrayList<>();
+
+    synchronized (this) {
+      for (Iterator<DispatchedCall> i = _readyCalls.iterator(); i.hasNext(); ) {
+        DispatchedCall call = i.next();
+
+        if (_runningCalls >= _maxRequests) {
+          break;
+        }
+        if (this.getRunningCalls(call.host) >= this.getMaxRequestsPerHost(call.host)) {
+          continue;
+        }
+
+        i.remove();
+        _runningCalls++;
+        _runningCallsPerHost.put(call.host, this.getRunningCalls(call.host) + 1);
+        executableCalls.add(call);
+      }
+    }
+
+    for (DispatchedCall call : executableCalls) {
+      this.getExecutorService().execute(call);
+    }
+  }
+
+  private void finished(DispatchedCall call) {
+    synchronized (this) {
+      _runningCalls--;
+      int running = this.getRunningCalls(call.host) - 1;
+      if (running > 0) {
+        _runningCallsPerHost.put(call.host, running);
+      } else {
+        _runningCallsPerHost.remove(call.host);
+      }
+    }
+
+    this.promoteAndExecute();
+  }
+
+  private int getRunningCalls(String host) {
+    Integer running = _runningCallsPerHost.get(host);
+    return running == null ? 0 : running;
+  }
+
+  private synchronized ExecutorService getExecutorService() {
+    if (_executorService == null) {
+      // The dispatcher enforces the limits. The pool itself is unbounded so a thread that is finishing a call never blocks the next one.
+      _executorService = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+          new DispatcherThreadFactory());
+    }
+
+    return _executorService;
+  }
+
+  /**
+   * A call waiting for, or running on, a dispatcher thread.
+   */
+  private class DispatchedCall implements Runnable {
+
+    private final String host;
+    private final Runnable call;
+
+    DispatchedCall(String host, Runnable call) {
+      this.host = host;
+      this.call = call;
+    }
+
+    @Override
+    public void run() {
+      try {
+        call.run();
+      } finally {
+        finished(this);
+      }
+    }
+  }
+
+  /**
+   * Creates named daemon threads so dispatcher threads never keep the process alive.
+   */
+  private static class DispatcherThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger _threadNo = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "DataSourceDispatcher-" + _threadNo.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Gson configuration shared by every data source, with the TypeAdapter for each input, output and row type cached after first use.
+ * <p>
+ * Gson discovers the fields of a class by reflection the first time it sees it. Sharing one context means that work is done once per class for the
+ * life of the process instead of once per data source instance. Instances are thread safe.
+ * <p>
+ * Row, output and input classes use the adapter generated for them by the processor module when there is one, and Gson's reflective adapter
+ * otherwise.
+ * <p>
+ * Custom adapters can be registered with registerTypeAdapter and take precedence over generated ones. Register them before executing the data
+ * sources that use them; registering replaces the underlying Gson and drops the cached adapters.
+ */
+public class DataSourceGson {
+
+  private static DataSourceGson _defaultGson;
+
+  private final GsonBuilder _builder = new GsonBuilder();
+  private volatile Gson _gson;
+  private volatile ConcurrentHashMap<Type, TypeAdapter<?>> _adapters = new ConcurrentHashMap<>();
+
+  /**
+   * Create a context that uses generated adapters where they exist.
+   */
+  public DataSourceGson() {
+    this(true);
+  }
+
+  /**
+   * @param useGeneratedAdapters If false, every class is handled by Gson's reflective adapter, even if an adapter was generated for it.
+   */
+  public DataSourceGson(boolean useGeneratedAdapters) {
+    if (useGeneratedAdapters) {
+      // Registered first so adapters registered later take precedence.
+      _builder.registerTypeAdapterFactory(new GeneratedAdapterFactory());
+    }
+
+    _gson = _builder.create();
+  }
+
+  /**
+   * The context used by data sources that do not override DataSource.getDataSourceGson.
+   *
+   * @return The shared context.
+   */
+  public static synchronized DataSourceGson getDefault() {
+    if (_defaultGson == null) {
+      _defaultGson = new DataSourceGson();
+    }
+
+    return _defaultGson;
+  }
+
+  /**
+   * Register a custom serializer or deserializer, in any form accepted by GsonBuilder.registerTypeAdapter.
+   *
+   * @param type The type the adapter handles.
+   * @param typeAdapter A TypeAdapter, JsonSerializer, JsonDeserializer or InstanceCreator.
+   */
+  public synchronized void registerTypeAdapter(Type type, Object typeAdapter) {
+    _builder.registerTypeAdapter(type, typeAdapter);
+    _gson = _builder.create();
+    _adapters = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Register an adapter factory, in the same way as GsonBuilder.registerTypeAdapterFactory.
+   *
+   * @param factory The factory.
+   */
+  public synchronized void registerTypeAdapterFactory(TypeAdapterFactory factory) {
+    _builder.registerTypeAdapterFactory(factory);
+    _gson = _builder.create();
+    _adapters = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Get the underlying Gson instance.
+   *
+   * @return The Gson instance.
+   */
+  public Gson getGson() {
+    return _gson;
+  }
+
+  /**
+   * Get the adapter for a type, creating and caching it on first use.
+   *
+   * @param type The type.
+   * @return The adapter.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> getAdapter(Type type) {
+    ConcurrentHashMap<Type, TypeAdapter<?>> adapters = _adapters;
+    TypeAdapter<?> adapter = adapters.get(type);
+
+    if (adapter == null) {
+      // Two threads may both look the adapter up; Gson returns an equivalent adapter to each, so either can be kept.
+      adapter = _gson.getAdapter(TypeToken.get(type));
+      TypeAdapter<?> existing = adapters.putIfAbsent(type, adapter);
+      if (existing != null) {
+        adapter = existing;
+      }
+    }
+
+    return (TypeAdapter<T>) adapter;
+  }
+
+  /**
+   * Serialize an object to JSON with the same settings as Gson.toJson.
+   *
+   * @param src The object.
+   * @return The JSON.
+   */
+  public String toJson(Object src) {
+    if (src == null) {
+      return _gson.toJson(null);
+    }
+
+    StringWriter stringWriter = new StringWriter();
+
+    try {
+      // Configure the writer the way Gson.toJson does; newJsonWriter leaves out the HTML escaping.
+      JsonWriter writer = _gson.newJsonWriter(stringWriter);
+      writer.setLenient(true);
+      writer.setHtmlSafe(_gson.htmlSafe());
+      writer.setSerializeNulls(_gson.serializeNulls());
+      this.<Object>getAdapter(src.getClass()).write(writer, src);
+      writer.flush();
+    } catch (IOException e) {
+      // A StringWriter does not throw.
+      throw new IllegalStateException(e);
+    }
+
+    return stringWriter.toString();
+  }
+
+  /**
+   * Read one value with the cached adapter for its type. Like Gson.fromJson, the value itself is read leniently.
+   *
+   * @param reader The reader positioned at the value.
+   * @param type The type to read.
+   * @return The value.
+   * @throws IOException if the value can not be read.
+   */
+  public <T> T fromJson(JsonReader reader, Type type) throws IOException {
+    boolean lenient = reader.isLenient();
+    reader.setLenient(true);
+
+    try {
+      return this.<T>getAdapter(type).read(reader);
+    } finally {
+      reader.setLenient(lenient);
+    }
+  }
+
+  /**
+   * Read a whole document. An empty document reads as null, as with Gson.fromJson.
+   *
+   * @param json A reader over the JSON.
+   * @param classOfT The class to read.
+   * @return The value.
+   */
+  public <T> T fromJson(Reader json, Class<T> classOfT) {
+    return _gson.fromJson(json, classOfT);
+  }
+
+  /**
+   * Read a whole document. An empty document reads as null, as with Gson.fromJson.
+   *
+   * @param json The JSON.
+   * @param classOfT The class to read.
+   * @return The value.
+   */
+  public <T> T fromJson(String json, Class<T> classOfT) {
+    return _gson.fromJson(json, classOfT);
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The timings and sizes of one data source call, tagged with the data source key and the transaction no the server returned.
+ * <p>
+ * Durations are in nanoseconds and -1 when the phase was not measured. The connect phase covers DNS lookup, the TCP connection and the TLS
+ * handshake together, because HttpsURLConnection does not report them separately; the DNS and TLS phases are only measured by transports that
+ * can. When the response is parsed while it downloads, the download and parse phases cover the same time.
+ */
+public class DataSourceMetrics {
+
+  /**
+   * The phases of a call, in the order they happen.
+   */
+  public enum Phase {
+    /**
+     * Waiting in the dispatcher for a free thread.
+     */
+    QUEUE,
+    /**
+     * Opening the connection, including DNS and TLS. Close to zero when a kept-alive connection is reused.
+     */
+    CONNECT,
+    DNS,
+    TLS,
+    REQUEST_WRITE,
+    /**
+     * From the request being sent to the response status line arriving.
+     */
+    TIME_TO_FIRST_BYTE,
+    DOWNLOAD,
+    PARSE,
+    /**
+     * The part of PARSE spent turning rows into row objects.
+     */
+    ROW_MAPPING,
+    /**
+     * From execute to the result being ready for the callback.
+     */
+    TOTAL
+  }
+
+  private static final long NOT_SET = -1;
+
+  private final int _dataSourceKey;
+  private final IMetricsListener _listener;
+  private final AtomicBoolean _completed = new AtomicBoolean();
+
+  private long _enqueued = NOT_SET;
+  private long _started = NOT_SET;
+  private long _connectStart = NOT_SET;
+  private long _connectEnd = NOT_SET;
+  private long _dnsNanos = NOT_SET;
+  private long _tlsNanos = NOT_SET;
+  private long _requestStart = NOT_SET;
+  private long _requestEnd = NOT_SET;
+  private long _responseStart = NOT_SET;
+  private long _responseEnd = NOT_SET;
+  private long _parseStart = NOT_SET;
+  private long _parseEnd = NOT_SET;
+  private long _completedAt = NOT_SET;
+  private long _rowMappingNanos = 0;
+  private int _rowCount = 0;
+  private long _bytesSent = 0;
+  private long _bytesReceived = 0;
+  private int _responseCode = 0;
+  private String _transactionNo;
+  private Exception _exception;
+  private int _concurrencyLimit = 0;
+  private CircuitBreaker.State _circuitState;
+
+  DataSourceMetrics(int dataSourceKey, IMetricsListener listener) {
+    _dataSourceKey = dataSourceKey;
+    _listener = listener;
+  }
+
+  //region GETTERS
+
+  public int getDataSourceKey() {
+    return _dataSourceKey;
+  }
+
+  /**
+   * The transaction no the server returned, for finding the call in the server logs. Null if the call failed before a response was parsed.
+   *
+   * @return The transaction no.
+   */
+  public String getTransactionNo() {
+    return _transactionNo;
+  }
+
+  public int getResponseCode() {
+    return _responseCode;
+  }
+
+  /**
+   * Any exception the call failed with. Null if the call succeeded.
+   *
+   * @return The exception.
+   */
+  public Exception getException() {
+    return _exception;
+  }
+
+  /**
+   * Get the duration of a phase.
+   *
+   * @param phase The phase.
+   * @return The duration in nanoseconds, or -1 if the phase was not measured.
+   */
+  public long getNanos(Phase phase) {
+    switch (phase) {
+      case QUEUE:
+        return this.between(_enqueued, _started);
+      case CONNECT:
+        return this.between(_connectStart, _connectEnd);
+      case DNS:
+        return _dnsNanos;
+      case TLS:
+        return _tlsNanos;
+      case REQUEST_WRITE:
+        return this.between(_requestStart, _requestEnd);
+      case TIME_TO_FIRST_BYTE:
+        return this.between(_requestEnd, _responseStart);
+      case DOWNLOAD:
+        return this.between(_responseStart, _responseEnd);
+      case PARSE:
+        return this.between(_parseStart, _parseEnd);
+      case ROW_MAPPING:
+        return _parseStart == NOT_SET ? NOT_SET : _rowMappingNanos;
+      case TOTAL:
+        return this.between(_enqueued, _completedAt);
+      default:
+        throw new IllegalArgumentException("Unknown phase " + phase);
+    }
+  }
+
+  /**
+   * The number of calls that could run against the host when this call started, which is below the dispatcher's max requests per host while its
+   * adaptive concurrency limit has backed off.
+   *
+   * @return The concurrency limit, or 0 if unknown.
+   */
+  public int getConcurrencyLimit() {
+    return _concurrencyLimit;
+  }
+
+  /**
+   * The state of the circuit breaker for the call's server and data source after the call, if it went through a CircuitBreakingDataSourceConnector.
+   *
+   * @return The circuit state, or null.
+   */
+  public CircuitBreaker.State getCircuitState() {
+    return _circuitState;
+  }
+
+  public long getTotalNanos() {
+    return this.getNanos(Phase.TOTAL);
+  }
+
+  public int getRowCount() {
+    return _rowCount;
+  }
+
+  public long getBytesSent() {
+    return _bytesSent;
+  }
+
+  /**
+   * The number of response body bytes read from the connection.
+   *
+   * @return The bytes received.
+   */
+  public long getBytesReceived() {
+    return _bytesReceived;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder("DataSourceMetrics{dataSourceKey=").append(_dataSourceKey).append(", transactionNo=").append(_transactionNo)
+        .append(", responseCode=").append(_responseCode);
+    for (Phase phase : Phase.values()) {
+      long nanos = this.getNanos(phase);
+      if (nanos != NOT_SET) {
+        text.append(", ").append(phase.name().toLowerCase()).append("Micros=").append(nanos / 1000);
+      }
+    }
+
+    if (_concurrencyLimit > 0) {
+      text.append(", concurrencyLimit=").append(_concurrencyLimit);
+    }
+    if (_circuitState != null) {
+      text.append(", circuitState=").append(_circuitState);
+    }
+
+    return text.append(", rows=").append(_rowCount).append(", bytesSent=").append(_bytesSent).append(", bytesReceived=").append(_bytesReceived)
+        .append('}').toString();
+  }
+
+  private long between(long start, long end) {
+    return start == NOT_SET || end == NOT_SET ? NOT_SET : end - start;
+  }
+
+  //endregion
+
+  //region RECORDING
+
+  void markEnqueued() {
+    _enqueued = System.nanoTime();
+  }
+
+  void markStarted() {
+    _started = System.nanoTime();
+  }
+
+  void markConnectStart() {
+    _connectStart = System.nanoTime();
+  }
+
+  void markConnectEnd() {
+    _connectEnd = System.nanoTime();
+  }
+
+  void setDnsNanos(long dnsNanos) {
+    _dnsNanos = dnsNanos;
+  }
+
+  void setTlsNanos(long tlsNanos) {
+    _tlsNanos = tlsNanos;
+  }
+
+  void markRequestStart() {
+    _requestStart = System.nanoTime();
+  }
+
+  void markRequestEnd(long bytesSent) {
+    _requestEnd = System.nanoTime();
+    _bytesSent = bytesSent;
+  }
+
+  void markResponseStart(int responseCode) {
+    _responseStart = System.nanoTime();
+    _responseCode = responseCode;
+  }
+
+  void markResponseEnd(long bytesReceived) {
+    _responseEnd = System.nanoTime();
+    _bytesReceived = bytesReceived;
+  }
+
+  void markParseStart() {
+    _parseStart = System.nanoTime();
+    _rowMappingNanos = 0;
+    _rowCount = 0;
+  }
+
+  void markParseEnd() {
+    _parseEnd = System.nanoTime();
+  }
+
+  void addRow(long mappingNanos) {
+    _rowMappingNanos += mappingNanos;
+    _rowCount++;
+  }
+
+  void setConcurrencyLimit(int concurrencyLimit) {
+    _concurrencyLimit = concurrencyLimit;
+  }
+
+  void setCircuitState(CircuitBreaker.State circuitState) {
+    _circuitState = circuitState;
+  }
+
+  void setException(Exception exception) {
+    _exception = exception;
+  }
+
+  boolean isComplete() {
+    return _completed.get();
+  }
+
+  /**
+   * Finish the call and report it to the listener, if there is one. Only the first call reports, so a result shared between coalesced callers is counted once.
+   *
+   * @param transactionNo The transaction no from the parsed result, if any.
+   */
+  void complete(String transactionNo) {
+    if (_completed.compareAndSet(false, true)) {
+      _completedAt = System.nanoTime();
+      _transactionNo = transactionNo;
+      if (_listener != null) {
+        _listener.onDataSourceMetrics(this);
+      }
+    }
+  }
+
+  //endregion
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-memory cache of successful http data source responses, keyed by data source key, credentials identity, server and JSON request.
+ * <p>
+ * Caching is opt-in per data source: only data sources given a time to live with setTimeToLive are cached. Entries are evicted least recently used
+ * first once the cache grows past its maximum size in bytes. Hit, miss and eviction counts are kept for tuning.
+ */
+public class DataSourceResponseCache {
+
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+  private final long _maxSizeBytes;
+  private final LinkedHashMap<DataSourceCallKey, Entry> _entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<Integer, Long> _timeToLiveNanos = new HashMap<>();
+  private long _sizeBytes = 0;
+
+  private long _hitCount = 0;
+  private long _missCount = 0;
+  private long _evictionCount = 0;
+
+  /**
+   * @param maxSizeBytes The maximum approximate number of bytes of responses to hold.
+   */
+  public DataSourceResponseCache(long maxSizeBytes) {
+    if (maxSizeBytes < 1) {
+      throw new IllegalArgumentException("maxSizeBytes must be positive");
+    }
+
+    _maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Enable caching for a data source. Only set this for read-only data sources.
+   *
+   * @param dataSourceKey The Plex data source key.
+   * @param timeToLiveMillis How long a response stays valid.
+   */
+  public synchronized void setTimeToLive(int dataSourceKey, long timeToLiveMillis) {
+    if (timeToLiveMillis < 1) {
+      throw new IllegalArgumentException("timeToLiveMillis must be positive");
+    }
+
+    _timeToLiveNanos.put(dataSourceKey, timeToLiveMillis * 1000000L);
+  }
+
+  /**
+   * Disable caching for a data source and drop its cached responses.
+   *
+   * @param dataSourceKey The Plex data source key.
+   */
+  public synchronized void removeTimeToLive(int dataSourceKey) {
+    _timeToLiveNanos.remove(dataSourceKey);
+
+    for (Iterator<Map.Entry<DataSourceCallKey, Entry>> i = _entries.entrySet().iterator(); i.hasNext(); ) {
+      Map.Entry<DataSourceCallKey, Entry> entry = i.next();
+      if (entry.getKey().getDataSourceKey() == dataSourceKey) {
+        _sizeBytes -= entry.getValue().sizeBytes;
+        i.remove();
+      }
+    }
+  }
+
+  /**
+   * Whether responses for the data source are cached.
+   *
+   * @param dataSourceKey The Plex data source key.
+   * @return True if a time to live is set for the data source.
+   */
+  public synchronized boolean isCached(int dataSourceKey) {
+    return _timeToLiveNanos.containsKey(dataSourceKey);
+  }
+
+  /**
+   * Get a response that has not yet expired.
+   *
+   * @param key The call key.
+   * @return The JSON response, or null on a miss.
+   */
+  synchronized String get(DataSourceCallKey key) {
+    Entry entry = _entries.get(key);
+
+    if (entry != null && entry.expiresAtNanos - System.nanoTime() > 0) {
+      _hitCount++;
+      return entry.jsonResponse;
+    }
+
+    if (entry != null) {
+      this.remove(key, entry);
+    }
+
+    _missCount++;
+    return null;
+  }
+
+  /**
+   * Store a response, evicting the least recently used responses if the cache is full.
+   *
+   * @param key The call key.
+   * @param jsonResponse The JSON response.
+   */
+  synchronized void put(DataSourceCallKey key, String jsonResponse) {
+    Long timeToLiveNanos = _timeToLiveNanos.get(key.getDataSourceKey());
+    if (timeToLiveNanos == null || jsonResponse == null) {
+      return;
+    }
+
+    Entry entry = new Entry(jsonResponse, System.nanoTime() + timeToLiveNanos, key.getSize() + 2 * jsonResponse.length() + ENTRY_OVERHEAD_BYTES);
+    if (entry.sizeBytes > _maxSizeBytes) {
+      // Would evict everything else and still not fit.
+      return;
+    }
+
+    Entry previous = _entries.put(key, entry);
+    if (previous != null) {
+      _sizeBytes -= previous.sizeBytes;
+    }
+    _sizeBytes += entry.sizeBytes;
+
+    this.trimToSize();
+  }
+
+  /**
+   * Drop every cached response.
+   */
+  public synchronized void evictAll() {
+    _entries.clear();
+    _sizeBytes = 0;
+  }
+
+  public synchronized long getSizeBytes() {
+    return _sizeBytes;
+  }
+
+  public long getMaxSizeBytes() {
+    return _maxSizeBytes;
+  }
+
+  public synchronized int getEntryCount() {
+    return _entries.size();
+  }
+
+  public synchronized long getHitCount() {
+    return _hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return _missCount;
+  }
+
+  public synchronized long getEvictionCount() {
+    return _evictionCount;
+  }
+
+  private void trimToSize() {
+    Iterator<Map.Entry<DataSourceCallKey, Entry>> i = _entries.entrySet().iterator();
+
+    while (_sizeBytes > _maxSizeBytes && i.hasNext()) {
+      Map.Entry<DataSourceCallKey, Entry> eldest = i.next();
+      _sizeBytes -= eldest.getValue().sizeBytes;
+      i.remove();
+      _evictionCount++;
+    }
+  }
+
+  private void remove(DataSourceCallKey key, Entry entry) {
+    _entries.remove(key);
+    _sizeBytes -= entry.sizeBytes;
+  }
+
+  /**
+   * A cached response.
+   */
+  private static class Entry {
+
+    final String jsonResponse;
+    final long expiresAtNanos;
+    final int sizeBytes;
+
+    Entry(String jsonResponse, long expiresAtNanos, int sizeBytes) {
+      this.jsonResponse = jsonResponse;
+      this.expiresAtNanos = expiresAtNanos;
+      this.sizeBytes = sizeBytes;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Parses the JSON returned from an http data source call one token at a time.
+ * <p>
+ * Each element of the "rows" array is decoded straight into the row type and handed to the RowHandler as soon as it has been read, so neither the
+ * response text nor a JSON tree of it is ever held in memory. The "outputs", "rows", "rowLimitExceeded" and "transactionNo" members may appear in
+ * any order and unknown members are skipped.
+ */
+class DataSourceResponseParser {
+
+  private final DataSourceGson _gson;
+  private final Type _rowType;
+  private final Type _outputsType;
+  private final DataSourceMetrics _metrics;
+
+  /**
+   * @param gson The context whose cached adapters decode rows and outputs.
+   * @param rowType The type to decode each row into. If null, rows are skipped.
+   * @param outputsType The type to decode the outputs into. If null, outputs are skipped.
+   */
+  DataSourceResponseParser(DataSourceGson gson, Type rowType, Type outputsType) {
+    this(gson, rowType, outputsType, null);
+  }
+
+  /**
+   * @param gson The context whose cached adapters decode rows and outputs.
+   * @param rowType The type to decode each row into. If null, rows are skipped.
+   * @param outputsType The type to decode the outputs into. If null, outputs are skipped.
+   * @param metrics Receives the number of rows and the time spent decoding them. May be null.
+   */
+  DataSourceResponseParser(DataSourceGson gson, Type rowType, Type outputsType, DataSourceMetrics metrics) {
+    _gson = gson;
+    _rowType = rowType;
+    _outputsType = outputsType;
+    _metrics = metrics;
+  }
+
+  /**
+   * Parse a successful response, adding every row to the result.
+   *
+   * @param reader The reader positioned at the start of the response.
+   * @return An instance of DataSourceResult containing the results of the parsed json.
+   * @throws IOException if the response can not be read or is not valid JSON.
+   */
+  DataSourceResult parse(JsonReader reader) throws IOException {
+    final DataSourceResult dsResult = new DataSourceResult();
+
+    this.parse(reader, dsResult, new RowHandler() {
+      @Override
+      public void onRow(BaseRow row) {
+        dsResult.addRow(row);
+      }
+    });
+
+    return dsResult;
+  }
+
+  /**
+   * Parse a successful response, storing the rows a column at a time.
+   *
+   * @param reader The reader positioned at the start of the response.
+   * @return An instance of DataSourceResult whose rows are held in ColumnarRows.
+   * @throws IOException if the response can not be read or is not valid JSON.
+   */
+  DataSourceResult parseColumnar(JsonReader reader) throws IOException {
+    DataSourceResult dsResult = new DataSourceResult();
+    ColumnarRows columnarRows = new ColumnarRows(_gson, _rowType);
+
+    this.parse(reader, dsResult, null, columnarRows);
+
+    columnarRows.trimToSize();
+    dsResult.setColumnarRows(columnarRows);
+    return dsResult;
+  }
+
+  /**
+   * Parse a successful response, handing each row to the handler as it is decoded.
+   *
+   * @param reader The reader positioned at the start of the response.
+   * @param dsResult The result to receive the outputs, row limit flag and transaction no.
+   * @param rowHandler Receives each row in order.
+   * @throws IOException if the response can not be read or is not valid JSON.
+   */
+  void parse(JsonReader reader, DataSourceResult dsResult, RowHandler rowHandler) throws IOException {
+    this.parse(reader, dsResult, rowHandler, null);
+  }
+
+  private void parse(JsonReader reader, DataSourceResult dsResult, RowHandler rowHandler, ColumnarRows columnarRows) throws IOException {
+    reader.beginObject();
+
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+
+      if (reader.peek() == JsonToken.NULL) {
+        reader.skipValue();
+      } else if ("outputs".equals(name) && _outputsType != null) {
+        BaseOutputs outputs = _gson.fromJson(reader, _outputsType);
+        dsResult.setOutputs(outputs);
+      } else if ("rows".equals(name) && _rowType != null && columnarRows != null) {
+        this.parseRows(reader, columnarRows);
+      } else if ("rows".equals(name) && _rowType != null) {
+        this.parseRows(reader, rowHandler);
+      } else if ("rowLimitExceeded".equals(name)) {
+        dsResult.setRowLimitExceeded(reader.nextBoolean());
+      } else if ("transactionNo".equals(name)) {
+        dsResult.setTransactionNo(reader.nextString());
+      } else {
+        reader.skipValue();
+      }
+    }
+
+    reader.endObject();
+  }
+
+  private void parseRows(JsonReader reader, RowHandler rowHandler) throws IOException {
+    reader.beginArray();
+
+    while (reader.hasNext()) {
+      long start = _metrics != null ? System.nanoTime() : 0;
+      BaseRow row = _gson.fromJson(reader, _rowType);
+
+      if (row != null) {
+        if (_metrics != null) {
+          _metrics.addRow(System.nanoTime() - start);
+        }
+        rowHandler.onRow(row);
+      }
+    }
+
+    reader.endArray();
+  }
+
+  private void parseRows(JsonReader reader, ColumnarRows columnarRows) throws IOException {
+    reader.beginArray();
+
+    while (reader.hasNext()) {
+      if (reader.peek() == JsonToken.NULL) {
+        reader.skipValue();
+        continue;
+      }
+
+      long start = _metrics != null ? System.nanoTime() : 0;
+      columnarRows.readRow(reader);
+
+      if (_metrics != null) {
+        _metrics.addRow(System.nanoTime() - start);
+      }
+    }
+
+    reader.endArray();
+  }
+
+  /**
+   * Receives rows as they are parsed.
+   */
+  interface RowHandler {
+
+    void onRow(BaseRow row);
+  }
+}
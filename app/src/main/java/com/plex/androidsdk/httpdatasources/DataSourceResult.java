@@ -31,6 +31,7 @@ public class DataSourceResult {
   private BaseOutputs outputs;
 
   private List<BaseRow> rows = new ArrayList<>();
+  private ColumnarRows columnarRows;
   private boolean rowLimitExceeded = false;
 
   private String transactionNo;
@@ -63,6 +64,11 @@ public class DataSourceResult {
     this.outputs = outputs;
   }
 
+  /**
+   * Get the rows. If the rows are held in columns, each row object is built when it is read.
+   *
+   * @return The rows.
+   */
   public List<BaseRow> getRows() {
     return rows;
   }
@@ -71,6 +77,20 @@ public class DataSourceResult {
     rows.add(row);
   }
 
+  /**
+   * Get the rows held a column at a time, if the data source was set to use columnar rows.
+   *
+   * @return The columnar rows, or null if the rows are held as row objects.
+   */
+  public ColumnarRows getColumnarRows() {
+    return columnarRows;
+  }
+
+  void setColumnarRows(ColumnarRows columnarRows) {
+    this.columnarRows = columnarRows;
+    this.rows = columnarRows.getRows();
+  }
+
   public boolean isRowLimitExceeded() {
     return rowLimitExceeded;
   }
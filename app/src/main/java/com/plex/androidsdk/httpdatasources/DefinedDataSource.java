@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.lang.reflect.Type;
+
+/**
+ * The data source of one call made through a DataSourceDefinition. Reads the key, types and server from the definition, so it only holds the
+ * call's input and callback.
+ */
+class DefinedDataSource extends DataSource {
+
+  private final DataSourceDefinition<?> _definition;
+  private final IBaseInput _input;
+
+  DefinedDataSource(DataSourceDefinition<?> definition, IBaseInput input, IDataSourceCallback callback) {
+    super(callback, definition.getCredentials(), definition.getServerName(), definition.isUseTestServer(), definition.getConnector());
+    _definition = definition;
+    _input = input;
+  }
+
+  @Override
+  protected int getDataSourceKey() {
+    return _definition.getDataSourceKey();
+  }
+
+  @Override
+  protected IBaseInput getBaseInput() {
+    return _input;
+  }
+
+  @Override
+  protected Type getOutputType() {
+    return _definition.getOutputsType();
+  }
+
+  @Override
+  Type getOutputsType() {
+    return _definition.getOutputsType();
+  }
+
+  @Override
+  protected Type getRowType() {
+    return _definition.getRowType();
+  }
+
+  @Override
+  protected boolean isReadOnly() {
+    return _definition.isReadOnly();
+  }
+
+  @Override
+  Class<? extends DataSource> getJournalClass() {
+    return _definition.getDataSourceClass();
+  }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent cache of successful http data source responses, so reference data survives app restarts.
+ * <p>
+ * Each response is stored in its own file. A fixed size index file, memory-mapped for cheap reads and writes, holds one slot per response with the
+ * data source key, a 64 bit hash of the request and the identity of its credentials, the file length, a CRC32 of the file and the stored and last
+ * access times. Responses are evicted least recently used first once the total size passes the maximum or the index is full. An entry whose file
+ * is missing, has the wrong length or fails its CRC check is dropped and treated as a miss.
+ * <p>
+ * Since the identity is part of the key, responses cached for one user are never served to another, and the cache need not be cleared when the
+ * user signs out. Call evictAll to remove the responses from the device as well.
+ * <p>
+ * Use it from a data source with DataSource.setCachePolicy. All disk access happens on the cache's own background thread.
+ */
+public class DiskResponseCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String INDEX_FILE_NAME = "index";
+  private static final String ENTRY_FILE_SUFFIX = ".entry";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  private static final int MAGIC = 0x504c5843;
+  // 2 added the credentials identity to the key, so entries cached without it are dropped.
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 16;
+  private static final int SLOT_SIZE = 40;
+
+  // Slot layout
+  private static final int SLOT_HASH = 0;
+  private static final int SLOT_DATA_SOURCE_KEY = 8;
+  private static final int SLOT_LENGTH = 12;
+  private static final int SLOT_CRC = 16;
+  private static final int SLOT_STORED_AT = 24;
+  private static final int SLOT_LAST_ACCESS = 32;
+
+  private final File _directory;
+  private final long _maxSizeBytes;
+  private final int _maxEntries;
+  private final ExecutorService _executor;
+
+  private MappedByteBuffer _index;
+  private final Map<Long, Integer> _slots = new HashMap<>();
+  private final ArrayDeque<Integer> _freeSlots = new ArrayDeque<>();
+  private long _sizeBytes = 0;
+
+  /**
+   * @param directory The directory to store responses in, for example new File(context.getCacheDir(), "datasources").
+   * @param maxSizeBytes The maximum number of bytes of responses to keep on disk.
+   */
+  public DiskResponseCache(File directory, long maxSizeBytes) {
+    this(directory, maxSizeBytes, DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * @param directory The directory to store responses in.
+   * @param maxSizeBytes The maximum number of bytes of responses to keep on disk.
+   * @param maxEntries The maximum number of responses to keep. Fixes the size of the index.
+   */
+  public DiskResponseCache(File directory, long maxSizeBytes, int maxEntries) {
+    if (maxSizeBytes < 1 || maxEntries < 1) {
+      throw new IllegalArgumentException("Disk cache limits must be positive");
+    }
+
+    _directory = directory;
+    _maxSizeBytes = maxSizeBytes;
+    _maxEntries = maxEntries;
+    _executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "DiskResponseCache");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Get a cached response.
+   *
+   * @param key The call key.
+   * @return The cached response, or null if there is none or it failed its integrity check.
+   * @throws IOException if the cache can not be read.
+   */
+  synchronized CachedResponse get(DataSourceCallKey key) throws IOException {
+    this.open();
+
+    long hash = this.hash(key);
+    Integer slot = _slots.get(hash);
+    if (slot == null) {
+      return null;
+    }
+
+    int position = this.getSlotPosition(slot);
+    File file = this.getEntryFile(hash);
+    byte[] data = this.readEntryFile(file, _index.getInt(position + SLOT_LENGTH));
+
+    if (data == null || this.crc(data) != _index.getInt(position + SLOT_CRC)) {
+      this.removeSlot(hash, slot);
+      return null;
+    }
+
+    // The entry starts with the full key, which guards against hash collisions.
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    int keyLength = buffer.getInt();
+    String storedKey = new String(data, 4, keyLength, UTF_8);
+    if (!storedKey.equals(this.getKeyText(key))) {
+      return null;
+    }
+
+    _index.putLong(position + SLOT_LAST_ACCESS, System.currentTimeMillis());
+    String jsonResponse = new String(data, 4 + keyLength, data.length - 4 - keyLength, UTF_8);
+    return new CachedResponse(jsonResponse, _index.getLong(position + SLOT_STORED_AT));
+  }
+
+  /**
+   * Store a response, evicting the least recently used responses if the cache is full.
+   *
+   * @param key The call key.
+   * @param jsonResponse The JSON response.
+   * @throws IOException if the cache can not be written.
+   */
+  synchronized void put(DataSourceCallKey key, String jsonResponse) throws IOException {
+    this.open();
+
+    byte[] keyBytes = this.getKeyText(key).getBytes(UTF_8);
+    byte[] jsonBytes = jsonResponse.getBytes(UTF_8);
+    byte[] data = ByteBuffer.allocate(4 + keyBytes.length + jsonBytes.length).putInt(keyBytes.length).put(keyBytes).put(jsonBytes).array();
+    if (data.length > _maxSizeBytes) {
+      return;
+    }
+
+    long hash = this.hash(key);
+    Integer existing = _slots.get(hash);
+    if (existing != null) {
+      this.removeSlot(hash, existing);
+    }
+
+    while (_sizeBytes + data.length > _maxSizeBytes || _freeSlots.isEmpty()) {
+      this.evictLeastRecentlyUsed();
+    }
+
+    // Write to a temporary file and rename, so a crash never leaves a partly written entry behind.
+    File file = this.getEntryFile(hash);
+    File tempFile = new File(_directory, file.getName() + TEMP_FILE_SUFFIX);
+    FileOutputStream outputStream = new FileOutputStream(tempFile);
+    try {
+      outputStream.write(data);
+      outputStream.getFD().sync();
+    } finally {
+      outputStream.close();
+    }
+    if (!tempFile.renameTo(file)) {
+      tempFile.delete();
+      throw new IOException("Unable to write " + file);
+    }
+
+    int slot = _freeSlots.pop();
+    int position = this.getSlotPosition(slot);
+    long now = System.currentTimeMillis();
+    _index.putInt(position + SLOT_DATA_SOURCE_KEY, key.getDataSourceKey());
+    _index.putInt(position + SLOT_LENGTH, data.length);
+    _index.putInt(position + SLOT_CRC, this.crc(data));
+    _index.putLong(position + SLOT_STORED_AT, now);
+    _index.putLong(position + SLOT_LAST_ACCESS, now);
+    // The hash is written last, so the slot only becomes visible once it is complete.
+    _index.putLong(position + SLOT_HASH, hash);
+    _index.force();
+
+    _slots.put(hash, slot);
+    _sizeBytes += data.length;
+  }
+
+  /**
+   * Drop every cached response.
+   *
+   * @throws IOException if the cache can not be written.
+   */
+  public synchronized void evictAll() throws IOException {
+    this.open();
+
+    for (Map.Entry<Long, Integer> entry : new HashMap<>(_slots).entrySet()) {
+      this.removeSlot(entry.getKey(), entry.getValue());
+    }
+    _index.force();
+  }
+
+  public synchronized long getSizeBytes() throws IOException {
+    this.open();
+    return _sizeBytes;
+  }
+
+  public synchronized int getEntryCount() throws IOException {
+    this.open();
+    return _slots.size();
+  }
+
+  public long getMaxSizeBytes() {
+    return _maxSizeBytes;
+  }
+
+  /**
+   * The background thread used for disk access.
+   *
+   * @return The executor.
+   */
+  ExecutorService getExecutor() {
+    return _executor;
+  }
+
+  /**
+   * Map the index on first use, creating it if it is missing or does not match this cache's format.
+   */
+  private void open() throws IOException {
+    if (_index != null) {
+      return;
+    }
+
+    if (!_directory.isDirectory() && !_directory.mkdirs()) {
+      throw new IOException("Unable to create " + _directory);
+    }
+
+    File indexFile = new File(_directory, INDEX_FILE_NAME);
+    long indexSize = HEADER_SIZE + (long) _maxEntries * SLOT_SIZE;
+    boolean valid = indexFile.length() == indexSize;
+
+    RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+    try {
+      file.setLength(indexSize);
+      _index = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+    } finally {
+      // The mapping stays valid after the file is closed.
+      file.close();
+    }
+
+    valid = valid && _index.getInt(0) == MAGIC && _index.getInt(4) == VERSION && _index.getInt(8) == _maxEntries;
+    if (!valid) {
+      for (int position = 0; position < indexSize; position += 8) {
+        _index.putLong(position, 0);
+      }
+      _index.putInt(0, MAGIC);
+      _index.putInt(4, VERSION);
+      _index.putInt(8, _maxEntries);
+      _index.force();
+    }
+
+    Set<String> entryFileNames = new HashSet<>();
+    for (int slot = 0; slot < _maxEntries; slot++) {
+      long hash = _index.getLong(this.getSlotPosition(slot) + SLOT_HASH);
+      if (hash == 0) {
+        _freeSlots.add(slot);
+      } else {
+        _slots.put(hash, slot);
+        _sizeBytes += _index.getInt(this.getSlotPosition(slot) + SLOT_LENGTH);
+        entryFileNames.add(this.getEntryFile(hash).getName());
+      }
+    }
+
+    // Remove files left behind by entries that never made it into the index. Only files the cache writes itself are touched, in case the
+    // directory is shared with other files.
+    File[] files = _directory.listFiles();
+    if (files != null) {
+      for (File entryFile : files) {
+        String name = entryFile.getName();
+        boolean orphan = name.endsWith(ENTRY_FILE_SUFFIX) && !entryFileNames.contains(name);
+        if (orphan || name.endsWith(ENTRY_FILE_SUFFIX + TEMP_FILE_SUFFIX)) {
+          entryFile.delete();
+        }
+      }
+    }
+  }
+
+  private void evictLeastRecentlyUsed() {
+    long oldestAccess = Long.MAX_VALUE;
+    long oldestHash = 0;
+    int oldestSlot = -1;
+
+    for (Map.Entry<Long, Integer> entry : _slots.entrySet()) {
+      long lastAccess = _index.getLong(this.getSlotPosition(entry.getValue()) + SLOT_LAST_ACCESS);
+      if (lastAccess < oldestAccess) {
+        oldestAccess = lastAccess;
+        oldestHash = entry.getKey();
+        oldestSlot = entry.getValue();
+      }
+    }
+
+    this.removeSlot(oldestHash, oldestSlot);
+  }
+
+  private void removeSlot(long hash, int slot) {
+    int position = this.getSlotPosition(slot);
+    _sizeBytes -= _index.getInt(position + SLOT_LENGTH);
+    _index.putLong(position + SLOT_HASH, 0);
+    _slots.remove(hash);
+    _freeSlots.push(slot);
+    this.getEntryFile(hash).delete();
+  }
+
+  private byte[] readEntryFile(File file, int length) throws IOException {
+    if (file.length() != length) {
+      return null;
+    }
+
+    byte[] data = new byte[length];
+    FileInputStream inputStream = new FileInputStream(file);
+    try {
+      int offset = 0;
+      while (offset < length) {
+        int read = inputStream.read(data, offset, length - offset);
+        if (read == -1) {
+          return null;
+        }
+        offset += read;
+      }
+    } finally {
+      inputStream.close();
+    }
+
+    return data;
+  }
+
+  private int getSlotPosition(int slot) {
+    return HEADER_SIZE + slot * SLOT_SIZE;
+  }
+
+  private File getEntryFile(long hash) {
+    return new File(_directory, Long.toHexString(hash) + ENTRY_FILE_SUFFIX);
+  }
+
+  private String getKeyText(DataSourceCallKey key) {
+    return key.getDataSourceKey() + "\n" + key.getAuthIdentity() + "\n" + key.getServerName() + "\n" + key.isUseTestServer() + "\n" + key.getJsonRequest();
+  }
+
+  /**
+   * 64 bit FNV-1a hash of the key. Zero marks an empty slot, so it is never returned.
+   */
+  private long hash(DataSourceCallKey key) {
+    String text = this.getKeyText(key);
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < text.length(); i++) {
+      hash ^= text.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+
+    return hash != 0 ? hash : 1;
+  }
+
+  private int crc(byte[] data) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(data, 0, data.length);
+    return (int) crc32.getValue();
+  }
+
+  /**
+   * A response read from the cache.
+   */
+  static class CachedResponse {
+
+    private final String _jsonResponse;
+    private final long _storedAtMillis;
+
+    CachedResponse(String jsonResponse, long storedAtMillis) {
+      _jsonResponse = jsonResponse;
+      _storedAtMillis = storedAtMillis;
+    }
+
+    String getJsonResponse() {
+      return _jsonResponse;
+    }
+
+    long getAgeMillis() {
+      return System.currentTimeMillis() - _storedAtMillis;
+    }
+  }
+}
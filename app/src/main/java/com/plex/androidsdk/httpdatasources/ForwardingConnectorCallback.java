@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Base class for connector callbacks that wrap another callback, such as the callbacks used by caching connectors to see a result before passing
+ * it on. Progress updates are forwarded unchanged, and so is the response stream when the wrapped callback parses it, so rows still reach the
+ * caller while the body downloads.
+ * <p>
+ * A callback that needs the response JSON, for example to cache it, buffers the response: the body is read into a string, which the wrapped
+ * callback then parses. Rows still arrive in chunks, but only once the body has downloaded.
+ */
+abstract class ForwardingConnectorCallback implements IDataSourceStreamCallback {
+
+  private final IDataSourceConnectorCallback _delegate;
+  private final boolean _bufferResponse;
+  private volatile String _jsonResponse;
+
+  ForwardingConnectorCallback(IDataSourceConnectorCallback delegate) {
+    this(delegate, false);
+  }
+
+  /**
+   * @param delegate The wrapped callback.
+   * @param bufferResponse True to keep the response JSON of a streamed response, for getJsonResponse.
+   */
+  ForwardingConnectorCallback(IDataSourceConnectorCallback delegate, boolean bufferResponse) {
+    _delegate = delegate;
+    _bufferResponse = bufferResponse;
+  }
+
+  IDataSourceConnectorCallback getDelegate() {
+    return _delegate;
+  }
+
+  /**
+   * Get the call that cancelling or timing out aborts the work done for this callback. Defaults to the call of the wrapped callback.
+   *
+   * @return The call, or null.
+   */
+  DataSourceCall getCall() {
+    return DataSourceCall.from(_delegate);
+  }
+
+  /**
+   * Whether a connector may pass the response stream to readResponse. Defaults to whether the wrapped callback parses the response stream.
+   *
+   * @return True if readResponse can be called.
+   */
+  boolean canReadResponse() {
+    return canReadResponse(_delegate);
+  }
+
+  /**
+   * Whether a connector may pass the response stream to a callback's readResponse instead of reading the body into a string.
+   *
+   * @param callback The connector callback.
+   * @return True if the callback parses the response stream.
+   */
+  static boolean canReadResponse(IDataSourceConnectorCallback callback) {
+    if (callback instanceof ForwardingConnectorCallback) {
+      return ((ForwardingConnectorCallback) callback).canReadResponse();
+    }
+
+    return callback instanceof IDataSourceStreamCallback;
+  }
+
+  /**
+   * Get the response JSON of a result, including a response that was parsed from the stream by a callback that buffers the response.
+   *
+   * @param result The result passed to onDataSourceConnectorComplete.
+   * @return The response JSON, or null if there is none.
+   */
+  String getJsonResponse(HttpDataSourceResult result) {
+    return result.getDataSourceResult() != null ? _jsonResponse : result.getJsonResponse();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+    _delegate.onDataSourceConnectorComplete(result, index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onProgressUpdate(int progressCode, int index) {
+    _delegate.onProgressUpdate(progressCode, index);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Passed to the wrapped callback. Only called if canReadResponse returns true.
+   */
+  @Override
+  public DataSourceResult readResponse(InputStream body, int responseCode, int index, Executor callbackExecutor, DataSourceMetrics metrics)
+      throws IOException {
+    if (_bufferResponse) {
+      String jsonResponse = HttpResponseBody.readString(body, 0);
+      _jsonResponse = jsonResponse;
+      body = new ByteArrayInputStream(jsonResponse.getBytes("UTF-8"));
+    }
+
+    return ((IDataSourceStreamCallback) _delegate).readResponse(body, responseCode, index, callbackExecutor, metrics);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Supplies the generated adapter for BaseRow, BaseOutputs and IBaseInput classes that have one. Returns null for every other type, so Gson falls
+ * back to the next factory, which for these classes is the reflective one.
+ */
+class GeneratedAdapterFactory implements TypeAdapterFactory {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+    Class<? super T> rawType = typeToken.getRawType();
+
+    if (!BaseRow.class.isAssignableFrom(rawType) && !BaseOutputs.class.isAssignableFrom(rawType) && !IBaseInput.class.isAssignableFrom(rawType)) {
+      return null;
+    }
+
+    try {
+      Class<?> adapterClass = Class.forName(GeneratedTypeAdapter.getAdapterName(rawType), true, rawType.getClassLoader());
+      if (!GeneratedTypeAdapter.class.isAssignableFrom(adapterClass)) {
+        return null;
+      }
+
+      Constructor<?> constructor;
+      try {
+        constructor = adapterClass.getConstructor(Gson.class);
+      } catch (NoSuchMethodException e) {
+        // The class can only be written by its adapter, which reads it with the adapter Gson would use without this factory.
+        constructor = adapterClass.getConstructor(Gson.class, TypeAdapter.class);
+        return (TypeAdapter<T>) constructor.newInstance(gson, gson.getDelegateAdapter(this, typeToken));
+      }
+      return (TypeAdapter<T>) constructor.newInstance(gson);
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      // Not generated, for example when the processor did not run. Use reflection.
+      return null;
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException("Could not create the generated adapter for " + rawType.getName(), e);
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException("Could not create the generated adapter for " + rawType.getName(), e.getCause());
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+
+/**
+ * Base class for the adapters the processor module generates for BaseRow, BaseOutputs and IBaseInput classes.
+ * <p>
+ * A generated adapter reads and writes its class with plain method calls instead of reflection. It is named after the class it adapts, for example
+ * Container_Get1_RowJsonAdapter for Container_Get1.Row, and has a public constructor that takes the Gson instance it belongs to. DataSourceGson finds
+ * it by that name; classes without one are handled by Gson's reflective adapter.
+ * <p>
+ * The helpers read values the same way Gson's built-in adapters do, so a generated adapter accepts exactly the JSON the reflective one does.
+ */
+public abstract class GeneratedTypeAdapter<T> extends TypeAdapter<T> {
+
+  /**
+   * The suffix added to the name of an adapted class to get the name of its generated adapter.
+   */
+  public static final String SUFFIX = "JsonAdapter";
+
+  /**
+   * Get the name of the generated adapter for a class.
+   *
+   * @param adaptedClass The adapted class.
+   * @return The fully qualified name of the adapter.
+   */
+  static String getAdapterName(Class<?> adaptedClass) {
+    return adaptedClass.getName().replace('$', '_') + SUFFIX;
+  }
+
+  /**
+   * Consume a null value.
+   *
+   * @return True if the next value was null and has been consumed.
+   */
+  protected static boolean nextNull(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return true;
+    }
+
+    return false;
+  }
+
+  protected static String nextString(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    if (token == JsonToken.BOOLEAN) {
+      return Boolean.toString(in.nextBoolean());
+    }
+
+    return in.nextString();
+  }
+
+  protected static boolean nextBoolean(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.STRING) {
+      return Boolean.parseBoolean(in.nextString());
+    }
+
+    return in.nextBoolean();
+  }
+
+  protected static int nextInt(JsonReader in) throws IOException {
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  protected static long nextLong(JsonReader in) throws IOException {
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  protected static double nextDouble(JsonReader in) throws IOException {
+    return in.nextDouble();
+  }
+
+  protected static float nextFloat(JsonReader in) throws IOException {
+    return (float) in.nextDouble();
+  }
+}
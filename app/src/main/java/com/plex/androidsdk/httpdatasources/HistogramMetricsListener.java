@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates call metrics into one LatencyHistogram per data source key and phase, in microseconds, and counts the calls of each data source that
+ * took longer than a latency budget, such as a scan-to-screen target.
+ */
+public class HistogramMetricsListener implements IMetricsListener {
+
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+  private final long _budgetNanos;
+  private final ConcurrentHashMap<Integer, Map<DataSourceMetrics.Phase, LatencyHistogram>> _histograms = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Integer, AtomicLong> _overBudgetCounts = new ConcurrentHashMap<>();
+
+  /**
+   * Create a listener without a latency budget.
+   */
+  public HistogramMetricsListener() {
+    this(0);
+  }
+
+  /**
+   * @param budgetMillis Calls whose total time is above this are counted as over budget. 0 for no budget.
+   */
+  public HistogramMetricsListener(long budgetMillis) {
+    _budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onDataSourceMetrics(DataSourceMetrics metrics) {
+    Map<DataSourceMetrics.Phase, LatencyHistogram> histograms = this.getHistograms(metrics.getDataSourceKey());
+
+    for (DataSourceMetrics.Phase phase : DataSourceMetrics.Phase.values()) {
+      long nanos = metrics.getNanos(phase);
+      if (nanos >= 0) {
+        histograms.get(phase).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+      }
+    }
+
+    if (_budgetNanos > 0 && metrics.getTotalNanos() > _budgetNanos) {
+      AtomicLong count = _overBudgetCounts.get(metrics.getDataSourceKey());
+      if (count == null) {
+        AtomicLong existing = _overBudgetCounts.putIfAbsent(metrics.getDataSourceKey(), count = new AtomicLong());
+        if (existing != null) {
+          count = existing;
+        }
+      }
+      count.incrementAndGet();
+    }
+  }
+
+  /**
+   * Get the data source keys that have been recorded.
+   *
+   * @return The data source keys.
+   */
+  public Set<Integer> getDataSourceKeys() {
+    return _histograms.keySet();
+  }
+
+  /**
+   * Get the histogram of a phase for a data source, in microseconds.
+   *
+   * @param dataSourceKey The data source key.
+   * @param phase The phase.
+   * @return The histogram, or null if the data source has not been recorded.
+   */
+  public LatencyHistogram getHistogram(int dataSourceKey, DataSourceMetrics.Phase phase) {
+    Map<DataSourceMetrics.Phase, LatencyHistogram> histograms = _histograms.get(dataSourceKey);
+    return histograms != null ? histograms.get(phase) : null;
+  }
+
+  /**
+   * Get the number of calls of a data source that took longer than the budget.
+   *
+   * @param dataSourceKey The data source key.
+   * @return The over budget count.
+   */
+  public long getOverBudgetCount(int dataSourceKey) {
+    AtomicLong count = _overBudgetCounts.get(dataSourceKey);
+    return count != null ? count.get() : 0;
+  }
+
+  private Map<DataSourceMetrics.Phase, LatencyHistogram> getHistograms(int dataSourceKey) {
+    Map<DataSourceMetrics.Phase, LatencyHistogram> histograms = _histograms.get(dataSourceKey);
+
+    if (histograms == null) {
+      // Filled before it is published, and never changed afterwards, so it can be read without locking.
+      histograms = new EnumMap<>(DataSourceMetrics.Phase.class);
+      for (DataSourceMetrics.Phase phase : DataSourceMetrics.Phase.values()) {
+        histograms.put(phase, new LatencyHistogram(HIGHEST_TRACKABLE_MICROS));
+      }
+
+      Map<DataSourceMetrics.Phase, LatencyHistogram> existing = _histograms.putIfAbsent(dataSourceKey, histograms);
+      if (existing != null) {
+        histograms = existing;
+      }
+    }
+
+    return histograms;
+  }
+}
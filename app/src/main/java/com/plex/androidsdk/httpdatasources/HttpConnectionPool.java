@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+
+/**
+ * A pool of keep-alive connections for the connectors it is given to.
+ * <p>
+ * A connection whose response body is fully read goes back to the pool, and the next call to the same {server}.plex.com host reuses it, skipping
+ * the TCP and TLS handshakes. The pool keeps at most max connections idle and closes a connection once it has been idle for the keep-alive
+ * duration. It belongs to its connectors alone: the platform HttpsURLConnection pool, other OkHttp clients and process wide settings are not
+ * touched. Give one pool to several connectors to share connections between them.
+ * <p>
+ * Calls are made through an OkHttpTransport on the pool.
+ */
+public class HttpConnectionPool {
+
+  public static final int DEFAULT_MAX_CONNECTIONS = 5;
+  public static final long DEFAULT_KEEP_ALIVE_DURATION_MILLIS = 5 * 60 * 1000;
+
+  private final int _maxConnections;
+  private final long _keepAliveDurationMillis;
+  private final ConnectionPool _connectionPool;
+
+  /**
+   * Create a pool with the default settings.
+   */
+  public HttpConnectionPool() {
+    this(DEFAULT_MAX_CONNECTIONS, DEFAULT_KEEP_ALIVE_DURATION_MILLIS);
+  }
+
+  /**
+   * @param maxConnections The maximum number of idle connections to keep.
+   * @param keepAliveDurationMillis How long an idle connection is kept before it is evicted.
+   */
+  public HttpConnectionPool(int maxConnections, long keepAliveDurationMillis) {
+    if (maxConnections < 1 || keepAliveDurationMillis < 1) {
+      throw new IllegalArgumentException("Connection pool settings must be positive");
+    }
+
+    _maxConnections = maxConnections;
+    _keepAliveDurationMillis = keepAliveDurationMillis;
+    _connectionPool = new ConnectionPool(maxConnections, keepAliveDurationMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public int getMaxConnections() {
+    return _maxConnections;
+  }
+
+  public long getKeepAliveDurationMillis() {
+    return _keepAliveDurationMillis;
+  }
+
+  /**
+   * Get the number of connections waiting in the pool for a call.
+   *
+   * @return The number of idle connections.
+   */
+  public int getIdleConnectionCount() {
+    return _connectionPool.idleConnectionCount();
+  }
+
+  /**
+   * Close the idle connections now, for example when the app goes to the background. Connections in use are kept.
+   */
+  public void evictAll() {
+    _connectionPool.evictAll();
+  }
+
+  ConnectionPool getConnectionPool() {
+    return _connectionPool;
+  }
+}
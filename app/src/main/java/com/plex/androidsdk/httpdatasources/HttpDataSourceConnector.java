@@ -20,66 +20,366 @@
 
 package com.plex.androidsdk.httpdatasources;
 
-import android.os.AsyncTask;
-
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
 import java.net.URL;
-
-import javax.net.ssl.HttpsURLConnection;
-
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Makes http data source calls through an IHttpTransport, on the threads of a DataSourceDispatcher. The default transport uses HttpsURLConnection;
+ * OkHttpTransport multiplexes concurrent calls to a server over one HTTP/2 connection.
+ * <p>
+ * The connector keeps no state for any one call, so a single instance can run any number of calls at the same time, limited only by its
+ * dispatcher. Share one connector, such as getDefault(), rather than creating one per data source.
+ */
 public class HttpDataSourceConnector implements IDataSourceConnector {
 
+  public static final int REQUEST_COMPRESSION_DISABLED = -1;
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 15000;
+  public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30000;
+
   private static final String PRODUCTION_URL_FORMAT = "https://%1s.plex.com/api/datasources/%2s/execute?format=2";
   private static final String TEST_URL_FORMAT = "https://test.%1s.plex.com/api/datasources/%2s/execute?format=2";
-  private IDataSourceConnectorCallback _callback;
-  private int _index = 0;
+  private static final String PRODUCTION_HOST_FORMAT = "%1s.plex.com";
+  private static final String TEST_HOST_FORMAT = "test.%1s.plex.com";
+  private static final String WARM_UP_URL_FORMAT = "https://%1s/api/datasources/";
+
+  private static HttpDataSourceConnector _defaultConnector;
+
+  private final DataSourceDispatcher _dispatcher;
+  private final IHttpTransport _transport;
+  private volatile IMetricsListener _metricsListener;
+  private volatile int _requestCompressionThreshold = REQUEST_COMPRESSION_DISABLED;
+  private volatile int _connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+  private volatile int _readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+  /**
+   * Create a connector that runs its calls on the shared default dispatcher.
+   */
+  public HttpDataSourceConnector() {
+    this(DataSourceDispatcher.getDefault());
+  }
+
+  /**
+   * Create a connector that runs its calls on the given dispatcher.
+   *
+   * @param dispatcher The dispatcher that limits concurrency and delivers callbacks.
+   */
+  public HttpDataSourceConnector(DataSourceDispatcher dispatcher) {
+    this(dispatcher, (HttpConnectionPool) null);
+  }
+
+  /**
+   * Create a connector that keeps connections alive between calls in the given pool, through an OkHttpTransport.
+   * <p>
+   * Only the pool's max connections are kept idle, so keep the dispatcher's max requests at or below it for every call to find one.
+   *
+   * @param dispatcher The dispatcher that limits concurrency and delivers callbacks.
+   * @param connectionPool The pool. If null, every call opens and closes its own connection through a UrlConnectionTransport.
+   */
+  public HttpDataSourceConnector(DataSourceDispatcher dispatcher, HttpConnectionPool connectionPool) {
+    this(dispatcher, connectionPool != null ? new OkHttpTransport(connectionPool) : new UrlConnectionTransport());
+  }
+
+  /**
+   * Create a connector that makes its calls through the given transport, such as an OkHttpTransport.
+   *
+   * @param dispatcher The dispatcher that limits concurrency and delivers callbacks.
+   * @param transport The transport that opens the http exchanges.
+   */
+  public HttpDataSourceConnector(DataSourceDispatcher dispatcher, IHttpTransport transport) {
+    _dispatcher = dispatcher;
+    _transport = transport;
+  }
+
+  /**
+   * The connector shared by data sources that are not given one explicitly. It runs its calls on the default dispatcher. Settings changed on it,
+   * such as timeouts, apply to every data source using it.
+   *
+   * @return The shared connector.
+   */
+  public static synchronized HttpDataSourceConnector getDefault() {
+    if (_defaultConnector == null) {
+      _defaultConnector = new HttpDataSourceConnector();
+    }
+
+    return _defaultConnector;
+  }
 
   @Override
   public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
       IDataSourceConnectorCallback callback, int index) {
 
-    _callback = callback;
-    _index = index;
     String url = this.getUrl(serverName, dataSourceKey, useTestServer);
     HttpDataSourceRequest dsRequest = new HttpDataSourceRequest(jsonRequest, credentials, url);
+    String host = this.getHost(serverName, useTestServer);
+    DataSourceMetrics metrics = new DataSourceMetrics(dataSourceKey, _metricsListener);
+    DataSource dataSource = DataSource.from(callback);
+    int connectTimeoutMillis = dataSource != null && dataSource.getConnectTimeoutMillis() > 0
+        ? dataSource.getConnectTimeoutMillis() : _connectTimeoutMillis;
+    int readTimeoutMillis = dataSource != null && dataSource.getReadTimeoutMillis() > 0 ? dataSource.getReadTimeoutMillis() : _readTimeoutMillis;
+    HttpConnectorTask task = new HttpConnectorTask(dsRequest, host, callback, index, metrics, DataSourceCall.from(callback), connectTimeoutMillis,
+        readTimeoutMillis);
+
+    metrics.markEnqueued();
+    if (!_dispatcher.enqueue(host, task)) {
+      // Backpressure: the dispatcher queue is full, so fail fast instead of queueing without bound.
+      task.publishProgress(IDataSourceConnectorCallback.Progress.ERROR);
+      task.publishResult(new HttpDataSourceResult(new RejectedExecutionException("Too many data source calls are queued")));
+    }
+  }
 
-    new HttpConnectorTask().execute(dsRequest);
+  /**
+   * Prepare for the first calls to a server in the background, so the first scan after launch is as fast as later ones. Call it early, for
+   * example in Application.onCreate().
+   * <p>
+   * On a dispatcher thread, the host name is resolved and a request is made to the server, which opens a connection and negotiates TLS. The TLS
+   * session is cached, so later connections resume it with a shorter handshake. With a connection pool, the connection is then parked in the
+   * pool for the first call to reuse. On another dispatcher thread, the Gson adapters of the given data source classes are built.
+   * <p>
+   * Warming up is best effort: failures are ignored, and nothing is done if the dispatcher queue is full.
+   *
+   * @param serverName The server the first calls will go to.
+   * @param useTestServer If true, warm up the test api environment.
+   * @param dataSourceClasses The data sources the first calls will execute. Each needs the (IDataSourceCallback, HttpDataSourceCredentials,
+   * String, boolean) constructor every shipped data source has. Classes that are not data sources are skipped.
+   */
+  public void warmUp(String serverName, boolean useTestServer, Class<?>... dataSourceClasses) {
+    final String host = this.getHost(serverName, useTestServer);
+    final List<Class<?>> types = Arrays.asList(dataSourceClasses.clone());
+
+    _dispatcher.enqueue(host, new Runnable() {
+      @Override
+      public void run() {
+        warmUpConnection(host);
+      }
+    });
+
+    if (!types.isEmpty()) {
+      _dispatcher.enqueue(host, new Runnable() {
+        @Override
+        public void run() {
+          for (Class<?> type : types) {
+            try {
+              DataSource.warmUp(type.asSubclass(DataSource.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+              // Not a data source, or one built the usual way on its first call instead.
+            }
+          }
+        }
+      });
+    }
   }
 
   /**
-   * Perform the http data source call in a background thread.
+   * Resolve the host and make a request to it, so its address, TLS session and, with a connection pool, an idle connection are ready for the
+   * first call.
+   *
+   * @param host The host name.
    */
-  private class HttpConnectorTask extends AsyncTask<HttpDataSourceRequest, Integer, HttpDataSourceResult> {
+  private void warmUpConnection(String host) {
+    IHttpExchange connection = null;
+    boolean keepAlive = _transport.isKeepAlive();
+
+    try {
+      InetAddress.getAllByName(host);
+
+      // HEAD, since only the connection is wanted. An unauthorized or not found response still completes the handshake.
+      connection = _transport.open(new URL(String.format(WARM_UP_URL_FORMAT, host)), "HEAD", _connectTimeoutMillis, _readTimeoutMillis, null);
+
+      // Reading the response to the end and closing it returns the connection to the pool.
+      InputStream responseStream = connection.getResponseStream();
+      if (responseStream != null) {
+        HttpResponseBody.drain(responseStream);
+        responseStream.close();
+      }
+    } catch (IOException e) {
+      keepAlive = false;
+    } finally {
+      if (connection != null && !keepAlive) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  /**
+   * The listener that receives the timings of every call, or null if they are not reported.
+   *
+   * @return The metrics listener.
+   */
+  public IMetricsListener getMetricsListener() {
+    return _metricsListener;
+  }
+
+  /**
+   * Set the listener that receives the timings of every call made after this. The timings are also available to connector callbacks through
+   * HttpDataSourceResult.getMetrics whether or not a listener is set.
+   *
+   * @param metricsListener The listener, or null to stop reporting.
+   */
+  public void setMetricsListener(IMetricsListener metricsListener) {
+    _metricsListener = metricsListener;
+  }
+
+  /**
+   * The request JSON length, in characters, from which request bodies are gzip compressed.
+   *
+   * @return The threshold, or REQUEST_COMPRESSION_DISABLED.
+   */
+  public int getRequestCompressionThreshold() {
+    return _requestCompressionThreshold;
+  }
+
+  /**
+   * Gzip compress the body of requests whose JSON is at least this many characters long, and send them with "Content-Encoding: gzip". Worth it
+   * for bulk inputs such as long serial lists; small requests grow when compressed. Off by default, because the server must accept compressed
+   * request bodies.
+   *
+   * @param requestCompressionThreshold The threshold, or REQUEST_COMPRESSION_DISABLED to always send the body uncompressed.
+   */
+  public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+    _requestCompressionThreshold = requestCompressionThreshold;
+  }
+
+  /**
+   * How long opening a connection may take.
+   *
+   * @return The connect timeout in milliseconds. 0 means no timeout.
+   */
+  public int getConnectTimeoutMillis() {
+    return _connectTimeoutMillis;
+  }
+
+  /**
+   * Set how long opening a connection may take before the call fails with a SocketTimeoutException. Data sources can override it with
+   * DataSource.setConnectTimeoutMillis.
+   *
+   * @param connectTimeoutMillis The connect timeout in milliseconds. 0 means no timeout.
+   */
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    _connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  /**
+   * How long the connection may go without receiving data.
+   *
+   * @return The read timeout in milliseconds. 0 means no timeout.
+   */
+  public int getReadTimeoutMillis() {
+    return _readTimeoutMillis;
+  }
+
+  /**
+   * Set how long the connection may go without receiving data before the call fails with a SocketTimeoutException. Data sources can override it
+   * with DataSource.setReadTimeoutMillis.
+   *
+   * @param readTimeoutMillis The read timeout in milliseconds. 0 means no timeout.
+   */
+  public void setReadTimeoutMillis(int readTimeoutMillis) {
+    _readTimeoutMillis = readTimeoutMillis;
+  }
+
+  /**
+   * The dispatcher used to run calls and deliver callbacks.
+   *
+   * @return The dispatcher.
+   */
+  public DataSourceDispatcher getDispatcher() {
+    return _dispatcher;
+  }
+
+  /**
+   * The pool connections are kept in between calls.
+   *
+   * @return The connection pool, or null if the connector was not given one.
+   */
+  public HttpConnectionPool getConnectionPool() {
+    return _transport instanceof OkHttpTransport ? ((OkHttpTransport) _transport).getConnectionPool() : null;
+  }
+
+  /**
+   * The transport that opens the http exchanges.
+   *
+   * @return The transport.
+   */
+  public IHttpTransport getTransport() {
+    return _transport;
+  }
+
+  /**
+   * Perform the http data source call in a background thread. Each task carries its own callback and index, so a connector can run many calls at
+   * the same time.
+   */
+  private class HttpConnectorTask implements Runnable {
 
     static final String HTTP_REQUEST_METHOD = "POST";
     static final String CONTENT_TYPE = "application/json; charset=utf-8";
     static final String ACCEPT = "application/json";
     static final String ACCEPT_ENCODING = "gzip, deflate";
 
+    private final HttpDataSourceRequest _request;
+    private final String _host;
+    private final IDataSourceConnectorCallback _callback;
+    private final int _index;
+    private final DataSourceMetrics _metrics;
+    private final DataSourceCall _call;
+    private final int _connectTimeoutMillis;
+    private final int _readTimeoutMillis;
+
+    HttpConnectorTask(HttpDataSourceRequest request, String host, IDataSourceConnectorCallback callback, int index, DataSourceMetrics metrics,
+        DataSourceCall call, int connectTimeoutMillis, int readTimeoutMillis) {
+      _request = request;
+      _host = host;
+      _callback = callback;
+      _index = index;
+      _metrics = metrics;
+      _call = call;
+      _connectTimeoutMillis = connectTimeoutMillis;
+      _readTimeoutMillis = readTimeoutMillis;
+    }
+
     /**
      * Perform the http data source call in a background thread.
-     *
-     * @param httpDataSourceRequests Data to perform the http data source call.
-     * @return HttpDataSourceResult The result of the http data source call.
      */
     @Override
-    protected HttpDataSourceResult doInBackground(HttpDataSourceRequest... httpDataSourceRequests) {
-      HttpDataSourceRequest request = httpDataSourceRequests[0];
-
+    public void run() {
       HttpDataSourceResult httpDataSourceResult;
+      _metrics.markStarted();
+
+      if (_call != null && _call.isAborted()) {
+        // Canceled or timed out while queued, so never connect.
+        publishResult(new HttpDataSourceResult(_call.getAbortException()));
+        return;
+      }
+
+      _metrics.setConcurrencyLimit(_dispatcher.getMaxRequestsPerHost(_host));
 
       try {
-        httpDataSourceResult = callHttpDataSource(request);
+        httpDataSourceResult = callHttpDataSource(_request);
       } catch (IOException e) {
         publishProgress(IDataSourceConnectorCallback.Progress.ERROR);
-        return new HttpDataSourceResult(e);
+        httpDataSourceResult = new HttpDataSourceResult(e);
       }
 
-      return httpDataSourceResult;
+      int responseCode = httpDataSourceResult.getHTTPResponseCode();
+      boolean dropped = httpDataSourceResult.getException() instanceof SocketTimeoutException || responseCode == 429 || responseCode == 503;
+      _dispatcher.onCallCompleted(_host, _metrics.getNanos(DataSourceMetrics.Phase.TIME_TO_FIRST_BYTE), dropped);
+
+      if (_call != null && _call.isAborted()) {
+        // Whatever the aborted connection failed with, report why it was aborted.
+        httpDataSourceResult = new HttpDataSourceResult(_call.getAbortException());
+      }
+
+      publishResult(httpDataSourceResult);
     }
 
     /**
@@ -92,99 +392,235 @@ public class HttpDataSourceConnector implements IDataSourceConnector {
     private HttpDataSourceResult callHttpDataSource(HttpDataSourceRequest request) throws IOException {
 
       HttpDataSourceResult httpDataSourceResult;
+      Map<String, List<String>> headers = null;
+      // Usually cached; only waits if the provider has no valid token.
+      final IAuthProvider authProvider = request.getCredentials() != null ? request.getCredentials().getAuthProvider() : null;
+      String authorization = authProvider != null ? authProvider.getAuthorization() : null;
       URL url = new URL(request.getUrl());
-      HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
+      final IHttpExchange connection = _transport.open(url, HTTP_REQUEST_METHOD, this.getTimeoutMillis(_connectTimeoutMillis),
+          this.getTimeoutMillis(_readTimeoutMillis), _metrics);
+      Runnable abortAction = new Runnable() {
+        @Override
+        public void run() {
+          // Unblocks the thread from a connect, read or write in progress.
+          connection.disconnect();
+        }
+      };
+      if (_call != null && !_call.addAbortAction(abortAction)) {
+        // Aborted since it was opened, so the abort action never ran.
+        connection.disconnect();
+        throw new InterruptedIOException("The data source call was aborted");
+      }
+
+      boolean keepAlive = _transport.isKeepAlive();
+      // A data source without inputs has no request JSON, and is sent with an empty body.
+      String jsonRequest = request.getJsonRequest() != null ? request.getJsonRequest() : "";
+      int compressionThreshold = _requestCompressionThreshold;
+      boolean compressRequest = compressionThreshold >= 0 && jsonRequest.length() >= compressionThreshold;
 
       try {
         publishProgress(IDataSourceConnectorCallback.Progress.CONNECTION_SUCCESS);
 
         // Send the Json request
-        connection.setRequestMethod(HTTP_REQUEST_METHOD);
-        connection.addRequestProperty("Authorization", request.getCredentials().getAuthorization());
+        if (authorization != null) {
+          connection.setRequestProperty("Authorization", authorization);
+        }
         connection.setRequestProperty("Accept", ACCEPT);
         connection.setRequestProperty("Accept-Encoding", ACCEPT_ENCODING);
         connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+        if (compressRequest) {
+          connection.setRequestProperty("Content-Encoding", "gzip");
+        }
 
-        connection.setDoOutput(true);
-        connection.setChunkedStreamingMode(0);
-        connection.setDoInput(true);
+        // Connect explicitly so the connection time is not counted as writing the request. A reused keep-alive connection connects at once.
+        _metrics.markConnectStart();
+        connection.connect();
+        _metrics.markConnectEnd();
 
-        DataOutputStream outStream = new DataOutputStream(connection.getOutputStream());
-        outStream.writeBytes(request.getJsonRequest());
-        outStream.flush();
-        outStream.close();
+        _metrics.markRequestStart();
+        CountingOutputStream outStream = new CountingOutputStream(connection.getOutputStream());
+        HttpRequestBody.write(outStream, jsonRequest, compressRequest);
+        _metrics.markRequestEnd(outStream.getCount());
         publishProgress(IDataSourceConnectorCallback.Progress.REQUEST_SENT);
 
         int responseCode = connection.getResponseCode();
+        _metrics.markResponseStart(responseCode);
+        if (responseCode == 401 && authorization != null) {
+          authProvider.onUnauthorized(authorization);
+        }
+        headers = connection.getHeaderFields();
         publishProgress(IDataSourceConnectorCallback.Progress.RESPONSE_RECEIVED);
 
-        String responseBody;
-        if (responseCode == 200) {
-          responseBody = this.getStringFromInputStream(connection.getInputStream());
+        // The body is read to the end and closed, which returns a keep-alive connection to the pool.
+        InputStream responseStream = connection.getResponseStream();
+        if (responseStream == null) {
+          _metrics.markResponseEnd(0);
+          httpDataSourceResult = new HttpDataSourceResult("", responseCode);
         } else {
-          responseBody = this.getStringFromInputStream(connection.getErrorStream());
+          CountingInputStream wireStream = new CountingInputStream(responseStream);
+          String contentEncoding = connection.getContentEncoding();
+          InputStream inputStream = HttpResponseBody.decode(wireStream, contentEncoding);
+          try {
+            if (ForwardingConnectorCallback.canReadResponse(_callback)) {
+              // Parse on this thread while the body downloads, rather than buffering it into a string first.
+              publishProgress(IDataSourceConnectorCallback.Progress.PROCESSING_RESULT);
+              _metrics.markParseStart();
+              DataSourceResult dataSourceResult = ((IDataSourceStreamCallback) _callback).readResponse(inputStream, responseCode, _index,
+                  _dispatcher.getCallbackExecutor(), _metrics);
+              _metrics.markParseEnd();
+              HttpResponseBody.drain(inputStream);
+              _metrics.markResponseEnd(wireStream.getCount());
+              httpDataSourceResult = new HttpDataSourceResult(dataSourceResult, responseCode);
+            } else {
+              // Content-Length is the compressed size when the body is compressed, so it is only a useful size hint without an encoding.
+              String responseBody = HttpResponseBody.readString(inputStream, contentEncoding == null ? connection.getContentLength() : 0);
+              _metrics.markResponseEnd(wireStream.getCount());
+              publishProgress(IDataSourceConnectorCallback.Progress.PROCESSING_RESULT);
+              httpDataSourceResult = new HttpDataSourceResult(responseBody, responseCode);
+            }
+          } finally {
+            inputStream.close();
+          }
         }
-
-        publishProgress(IDataSourceConnectorCallback.Progress.PROCESSING_RESULT);
-        httpDataSourceResult = new HttpDataSourceResult(responseBody, responseCode);
       } catch (IOException ioe) {
+        // The connection may be half read, so never return it to the pool.
+        keepAlive = false;
         httpDataSourceResult = new HttpDataSourceResult(ioe);
       } finally {
-        connection.disconnect();
+        if (_call != null) {
+          _call.removeAbortAction(abortAction);
+        }
+        if (!keepAlive) {
+          connection.disconnect();
+        }
       }
 
+      if (headers != null) {
+        httpDataSourceResult.setHeaders(headers);
+      }
       publishProgress(IDataSourceConnectorCallback.Progress.PROCESSING_RESULT_COMPLETE);
 
       return httpDataSourceResult;
     }
 
+    /**
+     * Bound a connection timeout by the time left before the call's deadline, so a call never outlives it waiting on the network.
+     *
+     * @param timeoutMillis The timeout in milliseconds, or 0 for none.
+     * @return The timeout to set on the connection.
+     */
+    private int getTimeoutMillis(int timeoutMillis) {
+      if (_call == null || !_call.hasDeadline()) {
+        return timeoutMillis;
+      }
 
-    @Override
-    protected void onPostExecute(HttpDataSourceResult httpDataSourceResult) {
-      super.onPostExecute(httpDataSourceResult);
-      onAsyncTaskDone(httpDataSourceResult);
-    }
-
-    @Override
-    protected void onProgressUpdate(Integer... values) {
-      super.onProgressUpdate(values);
-      onAsyncTaskUpdate(values[0]);
+      // A timeout of 0 would mean none, so allow at least a millisecond.
+      long remainingMillis = Math.max(1, _call.getRemainingMillis());
+      return (int) (timeoutMillis == 0 ? Math.min(remainingMillis, Integer.MAX_VALUE) : Math.min(timeoutMillis, remainingMillis));
     }
 
     /**
-     * Helper method to convert an input stream to a string.
+     * Deliver the result of the task to the callback on the dispatcher's callback executor.
      *
-     * @param inputStream The stream to read.
-     * @return A string of the contents of the stream.
-     * @throws IOException if an I/O error occurs.
+     * @param httpDataSourceResult The outputs from the task.
      */
-    private String getStringFromInputStream(InputStream inputStream) throws IOException {
-      BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-      StringBuilder responseBody = new StringBuilder(inputStream.available());
-      for (String line; (line = reader.readLine()) != null; ) {
-        responseBody.append(line).append('\n');
+    void publishResult(final HttpDataSourceResult httpDataSourceResult) {
+      if (httpDataSourceResult.getException() != null) {
+        _metrics.setException(httpDataSourceResult.getException());
       }
+      httpDataSourceResult.setMetrics(_metrics);
+
+      _dispatcher.getCallbackExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          _callback.onDataSourceConnectorComplete(httpDataSourceResult, _index);
+        }
+      });
+    }
 
-      return responseBody.toString();
+    /**
+     * Report a progress change to the callback on the dispatcher's callback executor.
+     *
+     * @param progressCode The progress status code value defined in IDataSourceConnectorCallback.Progress.
+     */
+    void publishProgress(final int progressCode) {
+      _dispatcher.getCallbackExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          _callback.onProgressUpdate(progressCode, _index);
+        }
+      });
     }
   }
 
   /**
-   * Called by AsyncTask on completion of task.
-   *
-   * @param httpDataSourceResult The outputs from the task.
+   * Counts the bytes read from the response body.
    */
-  private void onAsyncTaskDone(HttpDataSourceResult httpDataSourceResult) {
-    _callback.onDataSourceConnectorComplete(httpDataSourceResult, _index);
+  private static class CountingInputStream extends FilterInputStream {
+
+    private long _count = 0;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        _count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        _count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      _count += skipped;
+      return skipped;
+    }
+
+    long getCount() {
+      return _count;
+    }
   }
 
   /**
-   * Called by AsyncTask to report progress change.
-   *
-   * @param progressCode The progress status code value defined in IDataSourceConnectorCallback.Progress.
+   * Counts the bytes written to the request body.
    */
-  private void onAsyncTaskUpdate(int progressCode) {
-    _callback.onProgressUpdate(progressCode, _index);
+  private static class CountingOutputStream extends FilterOutputStream {
+
+    private long _count = 0;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      _count++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      // FilterOutputStream would write the bytes one at a time.
+      out.write(buffer, offset, length);
+      _count += length;
+    }
+
+    long getCount() {
+      return _count;
+    }
   }
 
   /**
@@ -195,4 +631,13 @@ public class HttpDataSourceConnector implements IDataSourceConnector {
   private String getUrl(String serverName, int dataSourceKey, boolean useTestServer) {
     return String.format(useTestServer ? TEST_URL_FORMAT : PRODUCTION_URL_FORMAT, serverName, dataSourceKey);
   }
+
+  /**
+   * Gets the host name for the http data source call. The dispatcher limits concurrent calls per host.
+   *
+   * @return The host name
+   */
+  private String getHost(String serverName, boolean useTestServer) {
+    return String.format(useTestServer ? TEST_HOST_FORMAT : PRODUCTION_HOST_FORMAT, serverName);
+  }
 }
@@ -19,30 +19,63 @@
 
 package com.plex.androidsdk.httpdatasources;
 
-import android.util.Base64;
+import java.io.IOException;
 
 /**
- * Contains the credentials used to make an http data source call.
+ * Contains the credentials used to make an http data source call: the IAuthProvider that supplies the Authorization header of each request.
  */
 public class HttpDataSourceCredentials {
 
-  private String _userName;
-  private String _password;
+  private final IAuthProvider _authProvider;
 
+  /**
+   * Authorize with HTTP Basic authentication. The header is encoded once, not for every request.
+   *
+   * @param userName The user name.
+   * @param password The password.
+   */
   public HttpDataSourceCredentials(String userName, String password) {
-    _userName = userName;
-    _password = password;
+    this(new BasicAuthProvider(userName, password));
+  }
+
+  /**
+   * Authorize with the given provider, such as a TokenAuthProvider for bearer or session tokens.
+   *
+   * @param authProvider The provider.
+   */
+  public HttpDataSourceCredentials(IAuthProvider authProvider) {
+    if (authProvider == null) {
+      throw new IllegalArgumentException("authProvider == null");
+    }
+
+    _authProvider = authProvider;
+  }
+
+  public IAuthProvider getAuthProvider() {
+    return _authProvider;
+  }
+
+  /**
+   * The identity of the user or company the credentials authorize as, which cached responses are keyed by.
+   *
+   * @return The provider's identity.
+   */
+  public String getIdentity() {
+    return _authProvider.getIdentity();
   }
 
   /**
-   * Helper method to get the Http Authorization header text for the credentials.
+   * Helper method to get the Http Authorization header text for the credentials. May wait for a token to be fetched, so do not call it on the main
+   * thread with a provider that fetches tokens.
    *
    * @return The Http Authorization header text.
+   * @throws IllegalStateException if the provider can not supply a header.
    */
   public String getAuthorization() {
-    String baseTest = _userName + ":" + _password;
-    String base64string = new String(Base64.encode(baseTest.getBytes(), Base64.NO_WRAP));
-    String basicAuthorization = "Basic " + base64string;
-    return basicAuthorization;
+    try {
+      return _authProvider.getAuthorization();
+    } catch (IOException e) {
+      throw new IllegalStateException("No authorization is available", e);
+    }
   }
 }
@@ -19,21 +19,32 @@
 
 package com.plex.androidsdk.httpdatasources;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Wrapper class that returns the result of the http data source call. This is passed to the UI thread for the JSON to be parsed and other logic
- * applied.
+ * applied, unless the response was already parsed from the stream by an IDataSourceStreamCallback.
  */
 public class HttpDataSourceResult {
 
   private String _jsonResponse;
+  private DataSourceResult _dataSourceResult;
   private Exception _exception;
   private int _responseCode = 0;
+  private DataSourceMetrics _metrics;
+  private Map<String, List<String>> _headers;
 
   public HttpDataSourceResult(String jsonResponse, int responseCode) {
     _jsonResponse = jsonResponse;
     _responseCode = responseCode;
   }
 
+  public HttpDataSourceResult(DataSourceResult dataSourceResult, int responseCode) {
+    _dataSourceResult = dataSourceResult;
+    _responseCode = responseCode;
+  }
+
   public HttpDataSourceResult(Exception exception) {
     _exception = exception;
   }
@@ -47,6 +58,15 @@ public class HttpDataSourceResult {
     return _jsonResponse;
   }
 
+  /**
+   * The result already parsed from the response stream by IDataSourceStreamCallback.readResponse. Null if the response was returned as JSON.
+   *
+   * @return The parsed result.
+   */
+  public DataSourceResult getDataSourceResult() {
+    return _dataSourceResult;
+  }
+
   /**
    * The Http response code for the http data source call.
    *
@@ -64,4 +84,52 @@ public class HttpDataSourceResult {
   public Exception getException() {
     return _exception;
   }
+
+  /**
+   * The timings of the call. Null if the result did not come from HttpDataSourceConnector, for example a cached response.
+   *
+   * @return The metrics.
+   */
+  public DataSourceMetrics getMetrics() {
+    return _metrics;
+  }
+
+  void setMetrics(DataSourceMetrics metrics) {
+    _metrics = metrics;
+  }
+
+  /**
+   * Get a response header, such as Retry-After.
+   *
+   * @param name The header name. Not case sensitive.
+   * @return The last value of the header, or null if the response did not have it.
+   */
+  public String getHeader(String name) {
+    if (_headers != null) {
+      for (Map.Entry<String, List<String>> header : _headers.entrySet()) {
+        if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+          return header.getValue().get(header.getValue().size() - 1);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  void setHeaders(Map<String, List<String>> headers) {
+    _headers = headers;
+  }
+
+  /**
+   * Copy this result with the response JSON in place of the parsed result, for a caller that parses the response for itself.
+   *
+   * @param jsonResponse The response JSON.
+   * @return The copy, with the same response code, headers and metrics.
+   */
+  HttpDataSourceResult withJsonResponse(String jsonResponse) {
+    HttpDataSourceResult result = new HttpDataSourceResult(jsonResponse, _responseCode);
+    result._metrics = _metrics;
+    result._headers = _headers;
+    return result;
+  }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes http request bodies as UTF-8, optionally gzip compressed.
+ * <p>
+ * The JSON is encoded one pooled buffer at a time straight into the connection stream, so the request is never copied into a byte array first.
+ */
+final class HttpRequestBody {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private HttpRequestBody() {
+  }
+
+  /**
+   * Write a request body and close the stream.
+   *
+   * @param out The connection's output stream.
+   * @param json The request JSON.
+   * @param gzip True to gzip compress the body. The request must then be sent with "Content-Encoding: gzip".
+   * @throws IOException if an I/O error occurs.
+   */
+  static void write(OutputStream out, String json, boolean gzip) throws IOException {
+    ByteArrayPool pool = ByteArrayPool.getDefault();
+    byte[] buffer = pool.acquire(ByteArrayPool.BUFFER_SIZE);
+
+    try (OutputStream body = gzip ? new GZIPOutputStream(out, ByteArrayPool.BUFFER_SIZE) : out) {
+      // Unpaired surrogates are replaced, as String.getBytes would.
+      CharsetEncoder encoder = UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+      CharBuffer chars = CharBuffer.wrap(json);
+      ByteBuffer bytes = ByteBuffer.wrap(buffer);
+
+      for (boolean endOfInput = false; ; ) {
+        CoderResult result = endOfInput ? encoder.flush(bytes) : encoder.encode(chars, bytes, true);
+
+        if (bytes.position() > 0 && (result.isOverflow() || endOfInput)) {
+          body.write(buffer, 0, bytes.position());
+          bytes.clear();
+        }
+        if (result.isUnderflow()) {
+          if (endOfInput) {
+            break;
+          }
+          endOfInput = true;
+        }
+      }
+    } finally {
+      pool.release(buffer);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads http response bodies as bytes.
+ * <p>
+ * The connector asks for compressed responses itself, which turns off HttpURLConnection's transparent decompression, so the body is decoded here
+ * according to its Content-Encoding. Bodies read into a string are collected into pooled byte arrays and decoded from UTF-8 once, rather than a
+ * line at a time.
+ */
+final class HttpResponseBody {
+
+  /**
+   * Content-Length is only a hint for the first buffer, so a large or wrong value can not make a call allocate more than this up front.
+   */
+  private static final int MAX_SIZE_HINT = 4 * 1024 * 1024;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private HttpResponseBody() {
+  }
+
+  /**
+   * Wrap a response body so it reads decompressed bytes.
+   *
+   * @param body The body as received.
+   * @param contentEncoding The Content-Encoding header of the response, or null.
+   * @return The decompressed body. Closing it closes the body.
+   * @throws IOException if the encoding is not supported or the compressed header can not be read.
+   */
+  static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return body;
+    }
+
+    switch (contentEncoding.trim().toLowerCase(Locale.US)) {
+      case "":
+      case "identity":
+        return body;
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(body, ByteArrayPool.BUFFER_SIZE);
+      case "deflate":
+        return inflate(body);
+      default:
+        throw new IOException("Unsupported response Content-Encoding " + contentEncoding);
+    }
+  }
+
+  /**
+   * Read a body to the end and decode it as UTF-8.
+   *
+   * @param body The decompressed body.
+   * @param sizeHint The expected number of bytes, such as an uncompressed Content-Length. 0 or less if unknown.
+   * @return The body text.
+   * @throws IOException if an I/O error occurs.
+   */
+  static String readString(InputStream body, int sizeHint) throws IOException {
+    ByteArrayPool pool = ByteArrayPool.getDefault();
+    // One byte over the hint, so reading the end of the body does not grow the buffer.
+    byte[] buffer = pool.acquire(sizeHint > 0 ? Math.min(sizeHint, MAX_SIZE_HINT) + 1 : ByteArrayPool.BUFFER_SIZE);
+    int count = 0;
+
+    try {
+      for (int read; (read = body.read(buffer, count, buffer.length - count)) != -1; ) {
+        count += read;
+
+        if (count == buffer.length) {
+          byte[] larger = pool.acquire(buffer.length * 2);
+          System.arraycopy(buffer, 0, larger, 0, count);
+          pool.release(buffer);
+          buffer = larger;
+        }
+      }
+
+      return new String(buffer, 0, count, UTF_8);
+    } finally {
+      pool.release(buffer);
+    }
+  }
+
+  /**
+   * Read and discard any bytes left in a body, so its connection can be reused.
+   *
+   * @param body The body.
+   * @throws IOException if an I/O error occurs.
+   */
+  static void drain(InputStream body) throws IOException {
+    ByteArrayPool pool = ByteArrayPool.getDefault();
+    byte[] buffer = pool.acquire(ByteArrayPool.BUFFER_SIZE);
+
+    try {
+      while (body.read(buffer) != -1) {
+        // Discard
+      }
+    } finally {
+      pool.release(buffer);
+    }
+  }
+
+  /**
+   * Servers disagree on whether "deflate" means zlib wrapped or raw deflate data, so check for a zlib header first.
+   */
+  private static InputStream inflate(InputStream body) throws IOException {
+    PushbackInputStream pushbackBody = new PushbackInputStream(body, 2);
+    int first = pushbackBody.read();
+    if (first == -1) {
+      return pushbackBody;
+    }
+
+    int second = pushbackBody.read();
+    if (second != -1) {
+      pushbackBody.unread(second);
+    }
+    pushbackBody.unread(first);
+
+    boolean zlib = second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+    return new InflaterBody(pushbackBody, new Inflater(!zlib));
+  }
+
+  /**
+   * Ends its inflater when closed, which InflaterInputStream only does for an inflater it created itself.
+   */
+  private static class InflaterBody extends InflaterInputStream {
+
+    InflaterBody(InputStream in, Inflater inflater) {
+      super(in, inflater, ByteArrayPool.BUFFER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        inf.end();
+      }
+    }
+  }
+}
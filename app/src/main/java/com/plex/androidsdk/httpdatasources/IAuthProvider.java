@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+
+/**
+ * Supplies the Authorization header of http data source requests, such as BasicAuthProvider for a user name and password or TokenAuthProvider for
+ * bearer or session tokens. Wrap a provider in HttpDataSourceCredentials to use it.
+ * <p>
+ * Called on connector threads for every request, so return a cached header without blocking whenever one is valid.
+ */
+public interface IAuthProvider {
+
+  /**
+   * Get the Authorization header for a request.
+   *
+   * @return The header value.
+   * @throws IOException if no valid header can be obtained, in which case the call fails with it.
+   */
+  String getAuthorization() throws IOException;
+
+  /**
+   * Called when the server rejects a request with 401 Unauthorized, so a header the server no longer accepts is not sent again.
+   *
+   * @param authorization The header the rejected request was sent with.
+   */
+  void onUnauthorized(String authorization);
+
+  /**
+   * Name the user or company the requests are authorized as, such as the user name. Cached responses are keyed by it, so one identity is never
+   * served responses fetched for another, including from a DiskResponseCache after a restart. It must not change when a token is refreshed.
+   *
+   * @return The identity.
+   */
+  String getIdentity();
+}
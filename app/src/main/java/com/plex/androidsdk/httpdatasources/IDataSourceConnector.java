@@ -22,9 +22,23 @@ package com.plex.androidsdk.httpdatasources;
 
 /**
  * Interface for making Http request to data source server.
+ * <p>
+ * A connector may be shared by any number of data sources and run many calls at the same time, so implementations keep everything about a call,
+ * such as its callback and index, with the call rather than in fields.
  */
 public interface IDataSourceConnector {
 
+  /**
+   * Start a call. The result is delivered to the callback with the given index.
+   *
+   * @param dataSourceKey The key of the data source to execute.
+   * @param credentials The Plex credentials.
+   * @param serverName The server to call.
+   * @param useTestServer If true, call the test api environment.
+   * @param jsonRequest The inputs as JSON, or null if the data source has none.
+   * @param callback Receives the progress and result of this call.
+   * @param index The reference index passed back to the callback.
+   */
   void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
       IDataSourceConnectorCallback callback, int index);
 }
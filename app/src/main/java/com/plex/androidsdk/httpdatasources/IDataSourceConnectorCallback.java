@@ -35,6 +35,7 @@ public interface IDataSourceConnectorCallback {
     int RESPONSE_RECEIVED = 2;
     int PROCESSING_RESULT = 3;
     int PROCESSING_RESULT_COMPLETE = 4;
+    int RETRYING = 5;
   }
 
   /**
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.List;
+
+/**
+ * Implement instead of IDataSourceCallback to receive rows in chunks while the response is still downloading.
+ * <p>
+ * Rows are delivered in order through onRowsAvailable, followed by one call to onDataSourceComplete. The DataSourceResult passed to
+ * onDataSourceComplete does not hold the rows again, so getRows() is empty.
+ */
+public interface IDataSourceRowCallback extends IDataSourceCallback {
+
+  /**
+   * Receive the next chunk of rows. The chunk size is set with DataSource.setRowChunkSize; the last chunk may be smaller.
+   *
+   * @param chunk The rows, in the order they were returned by the data source.
+   * @param index The reference index of the data source execution.
+   */
+  void onRowsAvailable(List<BaseRow> chunk, int index);
+}
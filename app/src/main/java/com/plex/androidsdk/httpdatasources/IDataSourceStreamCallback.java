@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Implement alongside IDataSourceConnectorCallback to parse the response body while it is being downloaded, instead of receiving it as a string.
+ */
+public interface IDataSourceStreamCallback extends IDataSourceConnectorCallback {
+
+  /**
+   * Parse the response body. Called on the connector's background thread before onDataSourceConnectorComplete. The parsed result is passed to
+   * onDataSourceConnectorComplete through HttpDataSourceResult.getDataSourceResult().
+   *
+   * @param body The response body. The connector closes it once this method returns.
+   * @param responseCode The Http response code.
+   * @param index The reference index of the data source execution.
+   * @param callbackExecutor The executor the connector delivers callbacks on. Use it to publish partial results before the parse completes.
+   * @param metrics The metrics of the call, to record rows against. Null if the connector does not record metrics.
+   * @return The parsed result.
+   * @throws IOException if the body can not be read or parsed.
+   */
+  DataSourceResult readResponse(InputStream body, int responseCode, int index, Executor callbackExecutor, DataSourceMetrics metrics)
+      throws IOException;
+}
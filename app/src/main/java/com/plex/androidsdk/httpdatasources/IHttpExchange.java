@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One request and its response, made through an IHttpTransport. The methods follow HttpURLConnection, and are called in the same order: request
+ * properties, connect, the request body, then the response.
+ */
+public interface IHttpExchange {
+
+  /**
+   * Set a request header, replacing any value it has.
+   *
+   * @param name The header name.
+   * @param value The header value.
+   */
+  void setRequestProperty(String name, String value);
+
+  /**
+   * Open the connection if the transport connects before sending the request. Transports that connect while sending may do nothing.
+   *
+   * @throws IOException if the connection can not be opened.
+   */
+  void connect() throws IOException;
+
+  /**
+   * The stream the request body is written to. It is sent no later than when the response is asked for.
+   *
+   * @return The request body stream.
+   * @throws IOException if an I/O error occurs.
+   */
+  OutputStream getOutputStream() throws IOException;
+
+  /**
+   * Send the request if it has not been sent, and wait for the response status line and headers.
+   *
+   * @return The response status code.
+   * @throws IOException if an I/O error occurs.
+   */
+  int getResponseCode() throws IOException;
+
+  /**
+   * The response headers.
+   *
+   * @return The headers by name.
+   */
+  Map<String, List<String>> getHeaderFields();
+
+  /**
+   * The Content-Encoding of the response.
+   *
+   * @return The encoding, or null if the response has none.
+   */
+  String getContentEncoding();
+
+  /**
+   * The Content-Length of the response.
+   *
+   * @return The length, or -1 if it is not known.
+   */
+  int getContentLength();
+
+  /**
+   * The response body, whatever the status code. Closing it after reading it to the end lets a kept-alive connection be reused.
+   *
+   * @return The body, or null if the response has none.
+   * @throws IOException if an I/O error occurs.
+   */
+  InputStream getResponseStream() throws IOException;
+
+  /**
+   * Abort the exchange and release its connection. May be called from any thread, to unblock a connect, read or write in progress.
+   */
+  void disconnect();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Opens the http exchanges HttpDataSourceConnector makes its calls with.
+ * <p>
+ * UrlConnectionTransport, the default, uses the platform HttpsURLConnection. OkHttpTransport multiplexes calls to the same server over one HTTP/2
+ * connection. A transport is shared by every call of its connector, so it must be safe to use from many threads at once.
+ */
+public interface IHttpTransport {
+
+  /**
+   * Open an exchange. Nothing is sent until the exchange is connected or its response is asked for.
+   *
+   * @param url The url to call.
+   * @param method The request method, such as POST.
+   * @param connectTimeoutMillis How long opening a connection may take, in milliseconds. 0 means no timeout.
+   * @param readTimeoutMillis How long the connection may go without receiving data, in milliseconds. 0 means no timeout.
+   * @param metrics The timings of the call, or null if they are not recorded. Transports in this package record the phases they can see, such
+   * as DNS and TLS.
+   * @return The exchange.
+   * @throws IOException if the exchange can not be opened.
+   */
+  IHttpExchange open(URL url, String method, int connectTimeoutMillis, int readTimeoutMillis, DataSourceMetrics metrics) throws IOException;
+
+  /**
+   * Whether connections are kept for later calls once a response has been read to the end.
+   *
+   * @return True if connections are reused.
+   */
+  boolean isKeepAlive();
+}
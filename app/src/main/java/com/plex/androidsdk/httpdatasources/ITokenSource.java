@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+
+/**
+ * Obtains a new token for TokenAuthProvider, for example by logging in or by redeeming a refresh token.
+ * <p>
+ * Called on the provider's refresh thread, never on the main thread, and never for more than one refresh at a time.
+ */
+public interface ITokenSource {
+
+  /**
+   * Obtain a new token.
+   *
+   * @return The token.
+   * @throws IOException if no token can be obtained.
+   */
+  AuthToken fetchToken() throws IOException;
+
+  /**
+   * Name the user or company the tokens are obtained for. See IAuthProvider.getIdentity.
+   *
+   * @return The identity.
+   */
+  String getIdentity();
+}
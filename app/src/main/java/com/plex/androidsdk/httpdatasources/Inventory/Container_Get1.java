@@ -23,6 +23,7 @@ package com.plex.androidsdk.httpdatasources.Inventory;
 import com.google.gson.annotations.SerializedName;
 import com.plex.androidsdk.httpdatasources.BaseRow;
 import com.plex.androidsdk.httpdatasources.DataSource;
+import com.plex.androidsdk.httpdatasources.DataSourceDefinition;
 import com.plex.androidsdk.httpdatasources.HttpDataSourceCredentials;
 import com.plex.androidsdk.httpdatasources.IBaseInput;
 import com.plex.androidsdk.httpdatasources.IDataSourceCallback;
@@ -37,6 +38,9 @@ import java.math.BigDecimal;
  */
 public class Container_Get1 extends DataSource {
 
+  private static final DataSourceDefinition<Input> DEFINITION = new DataSourceDefinition<>(6455, Row.class, null, true,
+      Container_Get1.class);
+
   private InputParameters inputParameters = new InputParameters();
 
   /**
@@ -61,6 +65,15 @@ public class Container_Get1 extends DataSource {
     super(callback, credentials, serverName, test, connector);
   }
 
+  /**
+   * The definition of Container_Get1, to execute it with immutable inputs from any number of threads at the same time.
+   *
+   * @return The definition.
+   */
+  public static DataSourceDefinition<Input> definition() {
+    return DEFINITION;
+  }
+
   /**
    * Get the Serial No
    *
@@ -88,7 +101,7 @@ public class Container_Get1 extends DataSource {
    */
   @Override
   protected int getDataSourceKey() {
-    return 6455;
+    return DEFINITION.getDataSourceKey();
   }
 
   /**
@@ -111,6 +124,11 @@ public class Container_Get1 extends DataSource {
     return Row.class;
   }
 
+  @Override
+  protected boolean isReadOnly() {
+    return true;
+  }
+
   //endregion
 
   //region INTERNAL CLASSES
@@ -118,7 +136,7 @@ public class Container_Get1 extends DataSource {
   /**
    * Input parameters for data source call. Used by Gson to serialize into JSON.
    */
-  private class InputParameters implements IBaseInput {
+  static class InputParameters implements IBaseInput {
 
     @SerializedName("Serial_No")
     private String serialNo;
@@ -132,10 +150,30 @@ public class Container_Get1 extends DataSource {
     }
   }
 
+  /**
+   * The input parameters of one call made through definition().
+   */
+  public static class Input implements IBaseInput {
+
+    @SerializedName("Serial_No")
+    private final String serialNo;
+
+    /**
+     * @param serialNo The Serial No to search for.
+     */
+    public Input(String serialNo) {
+      this.serialNo = serialNo;
+    }
+
+    public String getSerialNo() {
+      return serialNo;
+    }
+  }
+
   /**
    * Extends BaseRow to represent the structure of a row returned by Container_Get1.
    */
-  public class Row extends BaseRow {
+  public static class Row extends BaseRow {
 
     @SerializedName("Container_Status")
     private String containerStatus;
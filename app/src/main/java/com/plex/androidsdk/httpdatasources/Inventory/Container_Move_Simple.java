@@ -19,8 +19,10 @@
 
 package com.plex.androidsdk.httpdatasources.Inventory;
 
+import com.google.gson.annotations.SerializedName;
 import com.plex.androidsdk.httpdatasources.BaseOutputs;
 import com.plex.androidsdk.httpdatasources.DataSource;
+import com.plex.androidsdk.httpdatasources.DataSourceDefinition;
 import com.plex.androidsdk.httpdatasources.HttpDataSourceCredentials;
 import com.plex.androidsdk.httpdatasources.IBaseInput;
 import com.plex.androidsdk.httpdatasources.IDataSourceCallback;
@@ -29,6 +31,9 @@ import java.lang.reflect.Type;
 
 public class Container_Move_Simple extends DataSource {
 
+  private static final DataSourceDefinition<Input> DEFINITION = new DataSourceDefinition<>(17218, null, OutputParameters.class, false,
+      Container_Move_Simple.class);
+
   private InputParameters inputParameters = new InputParameters();
 
   /**
@@ -59,6 +64,15 @@ public class Container_Move_Simple extends DataSource {
     super(iDataSourceCallback, credentials, serverName, useTestServer, connector);
   }
 
+  /**
+   * The definition of Container_Move_Simple, to execute it with immutable inputs from any number of threads at the same time.
+   *
+   * @return The definition.
+   */
+  public static DataSourceDefinition<Input> definition() {
+    return DEFINITION;
+  }
+
   /**
    * Method to enable setting the Location input parameter.
    *
@@ -104,7 +118,7 @@ public class Container_Move_Simple extends DataSource {
    */
   @Override
   protected int getDataSourceKey() {
-    return 17218;
+    return DEFINITION.getDataSourceKey();
   }
 
   /**
@@ -123,6 +137,14 @@ public class Container_Move_Simple extends DataSource {
     return OutputParameters.class;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected BaseOutputs getBaseOutputs() {
+    return new OutputParameters();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -134,7 +156,7 @@ public class Container_Move_Simple extends DataSource {
   /**
    * Input parameters for data source call. Used by Gson to serialize into JSON.
    */
-  protected class InputParameters implements IBaseInput {
+  protected static class InputParameters implements IBaseInput {
 
     public String Location = "";
     public String Serial_No = "";
@@ -143,10 +165,54 @@ public class Container_Move_Simple extends DataSource {
 
   }
 
+  /**
+   * The input parameters of one call made through definition().
+   */
+  public static class Input implements IBaseInput {
+
+    @SerializedName("Location")
+    private final String location;
+    @SerializedName("Serial_No")
+    private final String serialNo;
+    @SerializedName("Update_By")
+    private final int updateBy;
+    @SerializedName("ValidateLocation")
+    private final boolean validateLocation;
+
+    /**
+     * @param serialNo The Serial No of the container to move.
+     * @param location The Location to move the container to.
+     * @param updateBy The Update By.
+     * @param validateLocation True to validate the location.
+     */
+    public Input(String serialNo, String location, int updateBy, boolean validateLocation) {
+      this.location = location;
+      this.serialNo = serialNo;
+      this.updateBy = updateBy;
+      this.validateLocation = validateLocation;
+    }
+
+    public String getLocation() {
+      return location;
+    }
+
+    public String getSerialNo() {
+      return serialNo;
+    }
+
+    public int getUpdateBy() {
+      return updateBy;
+    }
+
+    public boolean isValidateLocation() {
+      return validateLocation;
+    }
+  }
+
   /**
    * Output parameters for data source call. Used by Gson to de-serialize from JSON.
    */
-  protected class OutputParameters extends BaseOutputs {
+  protected static class OutputParameters extends BaseOutputs {
 
     public int RetVal;
 
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of latencies, laid out like an HDR histogram: values are grouped into power of two buckets that are each split into 64
+ * linear sub-buckets, so every recorded value is kept to within about 1.6% of its real value over the whole range, from 1 to the highest trackable
+ * value. Recording is lock free and takes constant time; percentiles are read without stopping writers.
+ * <p>
+ * The unit is up to the caller; HistogramMetricsListener records microseconds.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 5;
+  private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+  private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT * 2;
+  private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+  private static final int LEADING_ZERO_COUNT_BASE = 64 - SUB_BUCKET_HALF_COUNT_MAGNITUDE - 1;
+
+  private final long _highestTrackableValue;
+  private final AtomicLongArray _counts;
+  private final AtomicLong _totalCount = new AtomicLong();
+  private final AtomicLong _total = new AtomicLong();
+  private final AtomicLong _max = new AtomicLong();
+
+  /**
+   * @param highestTrackableValue The highest value the histogram keeps apart. Larger values are recorded as this value.
+   */
+  public LatencyHistogram(long highestTrackableValue) {
+    if (highestTrackableValue < SUB_BUCKET_COUNT) {
+      throw new IllegalArgumentException("highestTrackableValue must be at least " + SUB_BUCKET_COUNT);
+    }
+
+    _highestTrackableValue = highestTrackableValue;
+
+    int bucketCount = 1;
+    for (long smallestUntrackable = SUB_BUCKET_COUNT; smallestUntrackable <= highestTrackableValue; smallestUntrackable <<= 1) {
+      bucketCount++;
+      if (smallestUntrackable > Long.MAX_VALUE / 2) {
+        break;
+      }
+    }
+    _counts = new AtomicLongArray((bucketCount + 1) * SUB_BUCKET_HALF_COUNT);
+  }
+
+  /**
+   * Record a value. Negative values are recorded as zero.
+   *
+   * @param value The value.
+   */
+  public void recordValue(long value) {
+    value = Math.min(Math.max(value, 0), _highestTrackableValue);
+
+    _counts.incrementAndGet(this.getCountsIndex(value));
+    _totalCount.incrementAndGet();
+    _total.addAndGet(value);
+
+    for (long max = _max.get(); value > max && !_max.compareAndSet(max, value); max = _max.get()) {
+      // Retry until this value is stored or a larger one is.
+    }
+  }
+
+  public long getTotalCount() {
+    return _totalCount.get();
+  }
+
+  public long getMax() {
+    return _max.get();
+  }
+
+  public double getMean() {
+    long count = _totalCount.get();
+    return count == 0 ? 0 : (double) _total.get() / count;
+  }
+
+  /**
+   * Get the value at a percentile, to the histogram's precision.
+   *
+   * @param percentile The percentile, from 0 to 100.
+   * @return The highest value that at least percentile percent of the recorded values are at or below, or 0 if nothing was recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long totalCount = 0;
+    for (int i = 0; i < _counts.length(); i++) {
+      totalCount += _counts.get(i);
+    }
+    if (totalCount == 0) {
+      return 0;
+    }
+
+    long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+    long count = 0;
+
+    for (int i = 0; i < _counts.length(); i++) {
+      count += _counts.get(i);
+      if (count >= countAtPercentile) {
+        return Math.min(this.getHighestEquivalentValue(i), _max.get());
+      }
+    }
+
+    return _max.get();
+  }
+
+  /**
+   * Clear every recorded value. Values recorded while resetting may be partly kept.
+   */
+  public void reset() {
+    for (int i = 0; i < _counts.length(); i++) {
+      _counts.set(i, 0);
+    }
+    _totalCount.set(0);
+    _total.set(0);
+    _max.set(0);
+  }
+
+  private int getCountsIndex(long value) {
+    int bucketIndex = LEADING_ZERO_COUNT_BASE - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+    int subBucketIndex = (int) (value >>> bucketIndex);
+    return ((bucketIndex + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+  }
+
+  private long getHighestEquivalentValue(int countsIndex) {
+    int bucketIndex = (countsIndex >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+    int subBucketIndex = (countsIndex & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+    if (bucketIndex < 0) {
+      subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+      bucketIndex = 0;
+    }
+
+    long lowestValue = (long) subBucketIndex << bucketIndex;
+    return lowestValue + (1L << bucketIndex) - 1;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs tasks on the Android main (UI) thread.
+ */
+public class MainThreadExecutor implements Executor {
+
+  private static Looper _mainLooper;
+  private static boolean _stubLooper = false;
+
+  private Handler _handler;
+
+  @Override
+  public void execute(Runnable command) {
+    this.getHandler().post(command);
+  }
+
+  /**
+   * Whether the current thread is the Android main thread. Always false where there is no main Looper, such as local unit tests and the JVM
+   * benchmarks, whose stub Looper throws.
+   */
+  static boolean isMainThread() {
+    Looper mainLooper = getMainLooper();
+    return mainLooper != null && Looper.myLooper() == mainLooper;
+  }
+
+  /**
+   * The main Looper, looked up once. Null if there is none.
+   */
+  private static synchronized Looper getMainLooper() {
+    if (_mainLooper == null && !_stubLooper) {
+      try {
+        _mainLooper = Looper.getMainLooper();
+      } catch (RuntimeException e) {
+        // The stub android.jar throws "Stub!" from every method.
+        _stubLooper = true;
+      }
+    }
+
+    return _mainLooper;
+  }
+
+  /**
+   * The handler is created on first use so the executor can be constructed where no Looper exists, such as local unit tests.
+   */
+  private synchronized Handler getHandler() {
+    if (_handler == null) {
+      _handler = new Handler(Looper.getMainLooper());
+    }
+
+    return _handler;
+  }
+}
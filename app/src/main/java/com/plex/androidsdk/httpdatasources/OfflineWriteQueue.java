@@ -0,0 +1,436 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends write data sources, such as Container_Move_Simple, through a durable journal so they are not lost while the device is offline.
+ * <p>
+ * enqueue records the data source key, the serialized inputs, the time and the index in a WriteJournal and returns at once, so an operator can
+ * keep scanning without waiting on the network. The queue sends the journal in order, one write at a time, so writes to the same container reach
+ * the server in the order they were made. A write identical to the one made just before it, while that one is still pending, is not sent again:
+ * both get the same result.
+ * <p>
+ * A write that fails because the server could not be reached stays in the journal and the queue tries again after a jittered backoff. Call
+ * drain when connectivity returns to try again at once. Failures after which the write may already have been applied, such as a timeout or one of
+ * the retry policy's status codes, are only tried again for data sources whose class is idempotent, following the retry policy's rules. Any other
+ * result, including errors reported by the data source, is final: the write leaves the journal and its result goes to the queue's callback.
+ * Writes still pending when the app stops are sent by the next queue opened on the same journal file.
+ * <p>
+ * To parse the response, the data source is recreated from its class with its (IDataSourceCallback, HttpDataSourceCredentials, String, boolean)
+ * constructor, which every shipped data source has. Keep it if the app is obfuscated. Calls made through a DataSourceDefinition are recreated from
+ * the definition's data source class.
+ * <p>
+ * Results are delivered on the connector's callback thread, except for writes that could not be journaled or recreated, and writes collapsed
+ * into the one before them, which are reported on the queue's own thread.
+ */
+public class OfflineWriteQueue {
+
+  /**
+   * Retries every minute at most while offline, and waits up to 5 minutes if the server asks for it with Retry-After.
+   */
+  public static final RetryPolicy DEFAULT_RETRY_POLICY = new RetryPolicy(RetryPolicy.DEFAULT_MAX_ATTEMPTS, 1000, 60000, RetryPolicy.DEFAULT_JITTER,
+      300000, 429, 502, 503, 504);
+
+  private final WriteJournal _journal;
+  private final IDataSourceConnector _connector;
+  private final IDataSourceCallback _callback;
+  private final RetryPolicy _retryPolicy;
+  private final ExecutorService _executor;
+  private volatile HttpDataSourceCredentials _credentials;
+  private volatile int _pendingCount = 0;
+
+  // Only used on the queue's thread.
+  private WriteJournal.Entry _inFlight;
+  private ScheduledFuture<?> _retry;
+  private int _failures = 0;
+
+  /**
+   * Create a queue that retries with DEFAULT_RETRY_POLICY. Writes left in the journal are sent right away.
+   *
+   * @param journalFile The journal file, for example new File(context.getFilesDir(), "datasource-writes"). Not the cache directory, which the
+   * system may clear.
+   * @param connector The connector used to send the writes.
+   * @param credentials The credentials to send the writes with. They are never written to the journal.
+   * @param callback The caller who will receive the result of every write, including writes restored from the journal.
+   */
+  public OfflineWriteQueue(File journalFile, IDataSourceConnector connector, HttpDataSourceCredentials credentials, IDataSourceCallback callback) {
+    this(journalFile, connector, credentials, callback, DEFAULT_RETRY_POLICY);
+  }
+
+  /**
+   * @param journalFile The journal file.
+   * @param connector The connector used to send the writes.
+   * @param credentials The credentials to send the writes with. They are never written to the journal.
+   * @param callback The caller who will receive the result of every write, including writes restored from the journal.
+   * @param retryPolicy The backoff, jitter, Retry-After limit and status codes used between attempts. Its max attempts is not used; a write is
+   * tried until it succeeds or fails for good.
+   */
+  public OfflineWriteQueue(File journalFile, IDataSourceConnector connector, HttpDataSourceCredentials credentials, IDataSourceCallback callback,
+      RetryPolicy retryPolicy) {
+    if (journalFile == null || connector == null || callback == null || retryPolicy == null) {
+      throw new IllegalArgumentException("journalFile, connector, callback and retryPolicy are required");
+    }
+
+    _journal = new WriteJournal(journalFile);
+    _connector = connector;
+    _credentials = credentials;
+    _callback = callback;
+    _retryPolicy = retryPolicy;
+    _executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "OfflineWriteQueue");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+    this.drain();
+  }
+
+  /**
+   * Queue a write data source with an index of 0.
+   *
+   * @param dataSource The data source, with its inputs set.
+   */
+  public void enqueue(DataSource dataSource) {
+    this.enqueue(dataSource, 0);
+  }
+
+  /**
+   * Queue a write data source. Its inputs are serialized now, so the data source can be changed and reused as soon as this returns.
+   *
+   * @param dataSource The data source, with its inputs set.
+   * @param index The reference index the result is reported with.
+   */
+  public void enqueue(DataSource dataSource, int index) {
+    if (dataSource == null) {
+      throw new IllegalArgumentException("dataSource == null");
+    }
+    if (dataSource.isReadOnly()) {
+      throw new IllegalArgumentException("Only data sources that change data are queued");
+    }
+    if (dataSource.getJournalClass() == null) {
+      throw new IllegalArgumentException("Only calls made through a definition with a data source class are queued");
+    }
+
+    final WriteJournal.Entry entry = new WriteJournal.Entry(dataSource.getJournalClass().getName(), dataSource.getDataSourceKey(),
+        dataSource.getServerName(), dataSource.isUseTestServer(), dataSource.getJsonRequest(), index, System.currentTimeMillis());
+
+    _executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        add(entry);
+        drainNext();
+      }
+    });
+  }
+
+  /**
+   * Send the pending writes now instead of waiting for the next retry. Call it when connectivity returns.
+   */
+  public void drain() {
+    _executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (_retry != null) {
+          _retry.cancel(false);
+          _retry = null;
+        }
+        _failures = 0;
+        drainNext();
+      }
+    });
+  }
+
+  /**
+   * Get the number of writes not yet sent, including the one in flight.
+   *
+   * @return The number of pending writes.
+   */
+  public int getPendingCount() {
+    return _pendingCount;
+  }
+
+  /**
+   * Set the credentials used for writes sent after this, for example after the user signs in again.
+   *
+   * @param credentials The credentials.
+   */
+  public void setCredentials(HttpDataSourceCredentials credentials) {
+    _credentials = credentials;
+  }
+
+  private void add(WriteJournal.Entry entry) {
+    try {
+      _journal.add(entry);
+      _pendingCount = _journal.size();
+    } catch (IOException e) {
+      this.deliverError(e, entry.getIndex());
+    }
+  }
+
+  /**
+   * Send the oldest pending write, unless a write is in flight or waiting to be retried.
+   */
+  private void drainNext() {
+    while (_inFlight == null && _retry == null) {
+      WriteJournal.Entry entry;
+      try {
+        entry = _journal.peek();
+        _pendingCount = _journal.size();
+      } catch (IOException e) {
+        // The journal can not be read; nothing can be sent until it can.
+        return;
+      }
+
+      if (entry == null) {
+        return;
+      }
+
+      EntryCallback entryCallback = new EntryCallback(entry);
+      DataSource dataSource;
+      try {
+        dataSource = this.createDataSource(entry, entryCallback);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // The data source class is gone or changed, so the response could never be parsed. Drop the write rather than block the rest.
+        this.finish(entry);
+        this.deliverError(e, entry.getIndex());
+        continue;
+      }
+
+      _inFlight = entry;
+      try {
+        _connector.execute(entry.getDataSourceKey(), _credentials, entry.getServerName(), entry.isUseTestServer(), entry.getJsonRequest(),
+            new ReplayCallback(dataSource, entryCallback), entry.getIndex());
+      } catch (RejectedExecutionException e) {
+        this.retryLater(entry, new HttpDataSourceResult(e));
+      }
+    }
+  }
+
+  private DataSource createDataSource(WriteJournal.Entry entry, IDataSourceCallback callback) throws ReflectiveOperationException {
+    Class<? extends DataSource> type = Class.forName(entry.getDataSourceClassName()).asSubclass(DataSource.class);
+    DataSource dataSource = DataSource.newInstance(type, callback, _credentials, entry.getServerName(), entry.isUseTestServer());
+    if (dataSource.getDataSourceKey() != entry.getDataSourceKey()) {
+      throw new IllegalStateException(type.getName() + " is no longer data source " + entry.getDataSourceKey());
+    }
+
+    return dataSource;
+  }
+
+  /**
+   * Whether a failed write may succeed if sent again later without being applied twice.
+   *
+   * @param idempotent Whether the data source can safely be executed more than once.
+   */
+  private boolean isTransient(HttpDataSourceResult result, boolean idempotent) {
+    Exception exception = result.getException();
+    if (exception instanceof RejectedExecutionException || _retryPolicy.isNotSent(exception)) {
+      // Never sent.
+      return true;
+    }
+    if (!idempotent) {
+      return false;
+    }
+    if (exception != null) {
+      return exception instanceof IOException;
+    }
+
+    return _retryPolicy.isRetryStatusCode(result.getHTTPResponseCode());
+  }
+
+  /**
+   * Keep the write in the journal and send it again after a backoff. Called on the queue's thread.
+   */
+  private void retryLater(WriteJournal.Entry entry, HttpDataSourceResult result) {
+    if (_inFlight != entry) {
+      return;
+    }
+
+    _inFlight = null;
+    _failures++;
+
+    long retryAfterMillis = RetryPolicy.parseRetryAfterMillis(result.getHeader("Retry-After"), System.currentTimeMillis());
+    long delayMillis = Math.max(_retryPolicy.getBackoffMillis(_failures), Math.min(retryAfterMillis, _retryPolicy.getMaxRetryAfterMillis()));
+
+    _retry = DataSourceScheduler.get().schedule(new Runnable() {
+      @Override
+      public void run() {
+        _executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            _retry = null;
+            drainNext();
+          }
+        });
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Take a write out of the journal. Called on the queue's thread.
+   */
+  private void finish(WriteJournal.Entry entry) {
+    if (_inFlight == entry) {
+      _inFlight = null;
+      _failures = 0;
+    }
+
+    try {
+      _journal.remove(entry.getId());
+      _pendingCount = _journal.size();
+    } catch (IOException e) {
+      // The write stays in the journal and is sent again by the next queue opened on it.
+    }
+  }
+
+  /**
+   * Take the writes identical to a finished write, made right after it, out of the journal so they are not sent again. Called on the queue's
+   * thread, before the write itself is finished.
+   *
+   * @return The writes taken out, which get the finished write's result.
+   */
+  private List<WriteJournal.Entry> takeDuplicates(WriteJournal.Entry entry) {
+    List<WriteJournal.Entry> duplicates = new ArrayList<>();
+    try {
+      boolean found = false;
+      for (WriteJournal.Entry pending : _journal.getEntries()) {
+        if (pending.getId() == entry.getId()) {
+          found = true;
+        } else if (found && pending.isSameRequest(entry)) {
+          duplicates.add(pending);
+        } else if (found) {
+          break;
+        }
+      }
+
+      for (WriteJournal.Entry duplicate : duplicates) {
+        _journal.remove(duplicate.getId());
+      }
+    } catch (IOException e) {
+      // Writes still in the journal are sent on their own.
+    }
+
+    return duplicates;
+  }
+
+  private void deliverError(Exception exception, int index) {
+    DataSourceResult dsResult = new DataSourceResult();
+    dsResult.setException(exception);
+    _callback.onDataSourceComplete(dsResult, index);
+  }
+
+  /**
+   * Receives the parsed result of a write that will not be sent again.
+   */
+  private class EntryCallback implements IDataSourceCallback {
+
+    private final WriteJournal.Entry _entry;
+
+    EntryCallback(WriteJournal.Entry entry) {
+      _entry = entry;
+    }
+
+    @Override
+    public void onDataSourceComplete(final DataSourceResult dataSourceResult, int index) {
+      _callback.onDataSourceComplete(dataSourceResult, index);
+
+      // Scheduled after the write's own result is delivered, so the results of the writes collapsed into it follow it.
+      _executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          List<WriteJournal.Entry> duplicates = takeDuplicates(_entry);
+          finish(_entry);
+
+          for (WriteJournal.Entry duplicate : duplicates) {
+            _callback.onDataSourceComplete(dataSourceResult, duplicate.getIndex());
+          }
+
+          drainNext();
+        }
+      });
+    }
+  }
+
+  /**
+   * Sees each attempt's result before the data source parses it, and keeps the write for another attempt if the failure is transient.
+   */
+  private class ReplayCallback extends ForwardingConnectorCallback {
+
+    private final EntryCallback _entryCallback;
+    private final boolean _idempotent;
+
+    ReplayCallback(DataSource dataSource, EntryCallback entryCallback) {
+      super(dataSource);
+      _entryCallback = entryCallback;
+      _idempotent = dataSource.isIdempotent();
+    }
+
+    /**
+     * A response that can not be parsed must be final rather than look like a failed read, so it is parsed once it has been read.
+     */
+    @Override
+    boolean canReadResponse() {
+      return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDataSourceConnectorComplete(final HttpDataSourceResult result, int index) {
+      if (isTransient(result, _idempotent)) {
+        if (result.getMetrics() != null) {
+          result.getMetrics().complete(null);
+        }
+
+        _executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            retryLater(_entryCallback._entry, result);
+          }
+        });
+        return;
+      }
+
+      try {
+        super.onDataSourceConnectorComplete(result, index);
+      } catch (JsonParseException | IllegalStateException e) {
+        DataSourceResult dsResult = new DataSourceResult();
+        dsResult.setException(e);
+        _entryCallback.onDataSourceComplete(dsResult, index);
+      }
+    }
+  }
+}
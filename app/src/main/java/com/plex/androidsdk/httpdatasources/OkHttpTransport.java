@@ -0,0 +1,302 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * Makes http exchanges with OkHttp, which negotiates HTTP/2 with the server and falls back to HTTP/1.1 when the server or the platform does not
+ * support it.
+ * <p>
+ * Over HTTP/2, concurrent calls to the same {server}.plex.com host share one connection, each on its own stream with its own flow control window,
+ * instead of queueing for or opening a connection each. The dispatcher still decides which calls run and in what order, so its max requests per
+ * host can be raised without costing more sockets.
+ * <p>
+ * Request bodies are buffered and sent with a Content-Length, since data source requests are small. The DNS and TLS phases of the metrics are
+ * recorded for calls that open a new connection.
+ */
+public class OkHttpTransport implements IHttpTransport {
+
+  private final OkHttpClient _client;
+  private final HttpConnectionPool _connectionPool;
+
+  /**
+   * Create a transport with its own OkHttp client, which keeps up to 5 idle connections for 5 minutes.
+   */
+  public OkHttpTransport() {
+    this(new OkHttpClient.Builder().protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)).build());
+  }
+
+  /**
+   * Create a transport with its own OkHttp client, which keeps its idle connections in the given pool.
+   *
+   * @param connectionPool The pool.
+   */
+  public OkHttpTransport(HttpConnectionPool connectionPool) {
+    this(new OkHttpClient.Builder().protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+        .connectionPool(connectionPool.getConnectionPool()).build(), connectionPool);
+  }
+
+  /**
+   * Create a transport on an existing OkHttp client, sharing its connection pool and settings. The client's event listener is replaced by one
+   * that records the call metrics, and its timeouts by the connector's.
+   *
+   * @param client The client.
+   */
+  public OkHttpTransport(OkHttpClient client) {
+    this(client, null);
+  }
+
+  private OkHttpTransport(OkHttpClient client, HttpConnectionPool connectionPool) {
+    _client = client.newBuilder().eventListenerFactory(MetricsEventListener.FACTORY).build();
+    _connectionPool = connectionPool;
+  }
+
+  /**
+   * The client the exchanges are made with.
+   *
+   * @return The client.
+   */
+  public OkHttpClient getClient() {
+    return _client;
+  }
+
+  /**
+   * The pool given to the constructor.
+   *
+   * @return The connection pool, or null if the client's own pool is used.
+   */
+  public HttpConnectionPool getConnectionPool() {
+    return _connectionPool;
+  }
+
+  @Override
+  public boolean isKeepAlive() {
+    return true;
+  }
+
+  @Override
+  public IHttpExchange open(URL url, String method, int connectTimeoutMillis, int readTimeoutMillis, DataSourceMetrics metrics) {
+    OkHttpClient client = _client;
+    if (client.connectTimeoutMillis() != connectTimeoutMillis || client.readTimeoutMillis() != readTimeoutMillis
+        || client.writeTimeoutMillis() != readTimeoutMillis) {
+      // A derived client shares the connection pool, so calls with their own timeouts still share connections.
+      client = client.newBuilder()
+          .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+          .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+          .writeTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+          .build();
+    }
+
+    return new OkHttpExchange(client, new Request.Builder().url(url).tag(DataSourceMetrics.class, metrics), method);
+  }
+
+  private static class OkHttpExchange implements IHttpExchange {
+
+    private final OkHttpClient _client;
+    private final Request.Builder _requestBuilder;
+    private final String _method;
+    private Buffer _requestBody;
+    private Response _response;
+    private volatile Call _call;
+    private volatile boolean _canceled = false;
+
+    OkHttpExchange(OkHttpClient client, Request.Builder requestBuilder, String method) {
+      _client = client;
+      _requestBuilder = requestBuilder;
+      _method = method;
+    }
+
+    @Override
+    public void setRequestProperty(String name, String value) {
+      _requestBuilder.header(name, value);
+    }
+
+    @Override
+    public void connect() {
+      // OkHttp opens a connection, or picks one to share, when the request is sent.
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      if (_requestBody == null) {
+        _requestBody = new Buffer();
+      }
+
+      return _requestBody.outputStream();
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+      return this.execute().code();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+      return _response != null ? _response.headers().toMultimap() : Collections.<String, List<String>>emptyMap();
+    }
+
+    @Override
+    public String getContentEncoding() {
+      return _response != null ? _response.header("Content-Encoding") : null;
+    }
+
+    @Override
+    public int getContentLength() {
+      long contentLength = _response != null ? _response.body().contentLength() : -1;
+      return contentLength <= Integer.MAX_VALUE ? (int) contentLength : -1;
+    }
+
+    @Override
+    public InputStream getResponseStream() throws IOException {
+      return this.execute().body().byteStream();
+    }
+
+    @Override
+    public void disconnect() {
+      _canceled = true;
+
+      // Over HTTP/2 this resets only this call's stream, leaving the connection to the other calls.
+      Call call = _call;
+      if (call != null) {
+        call.cancel();
+      }
+    }
+
+    /**
+     * Send the request the first time the response is asked for.
+     */
+    private Response execute() throws IOException {
+      if (_response == null) {
+        RequestBody body = null;
+        if (_requestBody != null) {
+          body = RequestBody.create(null, _requestBody.readByteString());
+        } else if ("POST".equals(_method)) {
+          body = RequestBody.create(null, new byte[0]);
+        }
+
+        Call call = _client.newCall(_requestBuilder.method(_method, body).build());
+        _call = call;
+        if (_canceled) {
+          call.cancel();
+        }
+        _response = call.execute();
+      }
+
+      return _response;
+    }
+  }
+
+  /**
+   * Records the connection phases OkHttp reports for a call on its metrics. Events are reported on the thread executing the call.
+   */
+  private static class MetricsEventListener extends EventListener {
+
+    static final EventListener.Factory FACTORY = new EventListener.Factory() {
+      @Override
+      public EventListener create(Call call) {
+        DataSourceMetrics metrics = call.request().tag(DataSourceMetrics.class);
+        return metrics != null ? new MetricsEventListener(metrics) : EventListener.NONE;
+      }
+    };
+
+    private final DataSourceMetrics _metrics;
+    private boolean _connecting = false;
+    private long _dnsStart;
+    private long _secureConnectStart;
+
+    MetricsEventListener(DataSourceMetrics metrics) {
+      _metrics = metrics;
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+      this.markConnectStart();
+      _dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+      _metrics.setDnsNanos(System.nanoTime() - _dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+      this.markConnectStart();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+      _secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+      _metrics.setTlsNanos(System.nanoTime() - _secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+      _metrics.markConnectEnd();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+      _metrics.markRequestStart();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+      _metrics.markRequestEnd(byteCount);
+    }
+
+    /**
+     * CONNECT includes DNS, as it does for HttpsURLConnection, so it starts with whichever comes first.
+     */
+    private void markConnectStart() {
+      if (!_connecting) {
+        _connecting = true;
+        _metrics.markConnectStart();
+      }
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Decides whether, and after how long, a failed http data source call is tried again.
+ * <p>
+ * I/O errors and the status codes that mean the server is overloaded or a gateway failed are retried with exponential backoff. Each delay is
+ * jittered, so clients that failed together do not all retry at the same moment, and a longer Retry-After from the server is honored. Only
+ * idempotent calls are retried after the request may have reached the server; a call whose connection could not even be opened is always safe to
+ * try again.
+ */
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 500;
+  public static final long DEFAULT_MAX_BACKOFF_MILLIS = 10000;
+  public static final double DEFAULT_JITTER = 0.5;
+  public static final long DEFAULT_MAX_RETRY_AFTER_MILLIS = 30000;
+
+  private static final int[] DEFAULT_RETRY_STATUS_CODES = {429, 502, 503, 504};
+  private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+  private final int _maxAttempts;
+  private final long _initialBackoffMillis;
+  private final long _maxBackoffMillis;
+  private final double _jitter;
+  private final long _maxRetryAfterMillis;
+  private final int[] _retryStatusCodes;
+  private final Random _random = new Random();
+
+  /**
+   * Create a policy with the default settings.
+   */
+  public RetryPolicy() {
+    this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, DEFAULT_JITTER, DEFAULT_MAX_RETRY_AFTER_MILLIS,
+        DEFAULT_RETRY_STATUS_CODES);
+  }
+
+  /**
+   * @param maxAttempts The maximum number of times a call is made, including the first. 1 never retries.
+   * @param initialBackoffMillis The delay before the first retry. Doubled for each further retry.
+   * @param maxBackoffMillis The longest delay between retries.
+   * @param jitter The fraction of each delay, from 0 to 1, that is randomized. 0.5 waits between half and all of the backoff.
+   * @param maxRetryAfterMillis The longest Retry-After the server can ask for. A call asked to wait longer fails instead.
+   * @param retryStatusCodes The Http response codes that are retried.
+   */
+  public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, double jitter, long maxRetryAfterMillis,
+      int... retryStatusCodes) {
+    if (maxAttempts < 1 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis || maxRetryAfterMillis < 0) {
+      throw new IllegalArgumentException("Retry settings must be positive");
+    }
+    if (jitter < 0 || jitter > 1) {
+      throw new IllegalArgumentException("jitter must be between 0 and 1");
+    }
+
+    _maxAttempts = maxAttempts;
+    _initialBackoffMillis = initialBackoffMillis;
+    _maxBackoffMillis = maxBackoffMillis;
+    _jitter = jitter;
+    _maxRetryAfterMillis = maxRetryAfterMillis;
+    _retryStatusCodes = retryStatusCodes.clone();
+    Arrays.sort(_retryStatusCodes);
+  }
+
+  public int getMaxAttempts() {
+    return _maxAttempts;
+  }
+
+  public long getInitialBackoffMillis() {
+    return _initialBackoffMillis;
+  }
+
+  public long getMaxBackoffMillis() {
+    return _maxBackoffMillis;
+  }
+
+  public double getJitter() {
+    return _jitter;
+  }
+
+  public long getMaxRetryAfterMillis() {
+    return _maxRetryAfterMillis;
+  }
+
+  /**
+   * Get how long to wait before trying a call again.
+   *
+   * @param result The result of the attempt that just finished.
+   * @param attempt The number of attempts made so far, starting at 1.
+   * @param idempotent Whether the call can safely be made more than once.
+   * @return The delay in milliseconds, or -1 if the call should not be retried.
+   */
+  public long getRetryDelayMillis(HttpDataSourceResult result, int attempt, boolean idempotent) {
+    if (attempt >= _maxAttempts) {
+      return -1;
+    }
+
+    Exception exception = result.getException();
+    if (exception != null) {
+      // An open circuit breaker already decided the server needs a rest.
+      if (!(exception instanceof IOException) || exception instanceof CircuitBreakerOpenException || !(idempotent || this.isNotSent(exception))) {
+        return -1;
+      }
+    } else if (!idempotent || !this.isRetryStatusCode(result.getHTTPResponseCode())) {
+      return -1;
+    }
+
+    long retryAfterMillis = parseRetryAfterMillis(result.getHeader("Retry-After"), System.currentTimeMillis());
+    if (retryAfterMillis > _maxRetryAfterMillis) {
+      return -1;
+    }
+
+    return Math.max(this.getBackoffMillis(attempt), retryAfterMillis);
+  }
+
+  /**
+   * Get the jittered backoff before a retry.
+   *
+   * @param retryNo The retry, starting at 1.
+   * @return The delay in milliseconds.
+   */
+  long getBackoffMillis(int retryNo) {
+    long backoff = _initialBackoffMillis;
+    for (int i = 1; i < retryNo && backoff < _maxBackoffMillis; i++) {
+      backoff *= 2;
+    }
+    backoff = Math.min(backoff, _maxBackoffMillis);
+
+    double random;
+    synchronized (_random) {
+      random = _random.nextDouble();
+    }
+
+    return backoff - (long) (backoff * _jitter * random);
+  }
+
+  /**
+   * Parse a Retry-After header, which is either a number of seconds or an Http date.
+   *
+   * @param retryAfter The header value, or null.
+   * @param nowMillis The current time.
+   * @return The delay in milliseconds, or -1 if there is no valid header.
+   */
+  static long parseRetryAfterMillis(String retryAfter, long nowMillis) {
+    if (retryAfter == null) {
+      return -1;
+    }
+
+    retryAfter = retryAfter.trim();
+    try {
+      return Math.max(0, Long.parseLong(retryAfter) * 1000);
+    } catch (NumberFormatException e) {
+      // Not a number of seconds, so try a date.
+    }
+
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return Math.max(0, format.parse(retryAfter).getTime() - nowMillis);
+    } catch (ParseException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Whether a response code means the server is overloaded or a gateway failed, so the same call may succeed later.
+   *
+   * @param responseCode The Http response code.
+   * @return True if the code is one of the retried status codes.
+   */
+  boolean isRetryStatusCode(int responseCode) {
+    return Arrays.binarySearch(_retryStatusCodes, responseCode) >= 0;
+  }
+
+  /**
+   * Whether the connection failed before any of the request could be sent.
+   */
+  boolean isNotSent(Exception exception) {
+    return exception instanceof ConnectException || exception instanceof UnknownHostException || exception instanceof NoRouteToHostException;
+  }
+}
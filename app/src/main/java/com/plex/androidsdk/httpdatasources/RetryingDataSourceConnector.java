@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connector that tries failed calls again according to a RetryPolicy and passes them to another connector.
+ * <p>
+ * Whether a call is idempotent comes from its data source: read-only data sources such as Container_Get1 are retried after any retryable failure,
+ * while data sources that change data such as Container_Move_Simple are only retried when the failure happened before the request was sent,
+ * unless they are marked with DataSource.setIdempotent. The callback hears Progress.RETRYING before each retry and only receives the final result.
+ * A successful response is never tried again, even if it fails to parse, since its rows may already have reached the caller.
+ */
+public class RetryingDataSourceConnector implements IDataSourceConnector {
+
+  private final IDataSourceConnector _connector;
+  private final RetryPolicy _policy;
+  private final ScheduledExecutorService _scheduler;
+
+  /**
+   * @param connector The connector that makes each attempt.
+   * @param policy The retry policy.
+   */
+  public RetryingDataSourceConnector(IDataSourceConnector connector, RetryPolicy policy) {
+    this(connector, policy, DataSourceScheduler.get());
+  }
+
+  /**
+   * @param connector The connector that makes each attempt.
+   * @param policy The retry policy.
+   * @param scheduler The executor that waits out the backoff between attempts.
+   */
+  public RetryingDataSourceConnector(IDataSourceConnector connector, RetryPolicy policy, ScheduledExecutorService scheduler) {
+    _connector = connector;
+    _policy = policy;
+    _scheduler = scheduler;
+  }
+
+  @Override
+  public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+      IDataSourceConnectorCallback callback, int index) {
+
+    DataSource dataSource = DataSource.from(callback);
+    RetryingCall call = new RetryingCall(dataSourceKey, credentials, serverName, useTestServer, jsonRequest, callback,
+        dataSource != null && dataSource.isIdempotent());
+    call.attempt(index);
+  }
+
+  public RetryPolicy getPolicy() {
+    return _policy;
+  }
+
+  /**
+   * One call and its attempts so far.
+   */
+  private class RetryingCall extends ForwardingConnectorCallback {
+
+    private final int _dataSourceKey;
+    private final HttpDataSourceCredentials _credentials;
+    private final String _serverName;
+    private final boolean _useTestServer;
+    private final String _jsonRequest;
+    private final boolean _idempotent;
+    private int _attempts = 0;
+    private volatile boolean _responseRead = false;
+
+    RetryingCall(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, boolean idempotent) {
+      super(callback);
+      _dataSourceKey = dataSourceKey;
+      _credentials = credentials;
+      _serverName = serverName;
+      _useTestServer = useTestServer;
+      _jsonRequest = jsonRequest;
+      _idempotent = idempotent;
+    }
+
+    void attempt(int index) {
+      _attempts++;
+      _connector.execute(_dataSourceKey, _credentials, _serverName, _useTestServer, _jsonRequest, this, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataSourceResult readResponse(InputStream body, int responseCode, int index, Executor callbackExecutor, DataSourceMetrics metrics)
+        throws IOException {
+      if (responseCode == 200) {
+        // Rows may reach the caller from here on, so another attempt could deliver them twice.
+        _responseRead = true;
+      }
+
+      return super.readResponse(body, responseCode, index, callbackExecutor, metrics);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDataSourceConnectorComplete(HttpDataSourceResult result, final int index) {
+      long delayMillis = _policy.getRetryDelayMillis(result, _attempts, _idempotent);
+      final DataSourceCall call = DataSourceCall.from(this);
+
+      if (_responseRead) {
+        // A successful response that failed to parse part way through.
+        delayMillis = -1;
+      } else if (call != null && (call.isAborted() || call.getRemainingMillis() < delayMillis)) {
+        // Canceled, or the retry could not finish before the call's deadline.
+        delayMillis = -1;
+      }
+
+      if (delayMillis < 0) {
+        super.onDataSourceConnectorComplete(result, index);
+        return;
+      }
+
+      if (result.getMetrics() != null) {
+        // The failed attempt is still reported, so retries show up in the metrics.
+        result.getMetrics().complete(null);
+      }
+
+      super.onProgressUpdate(Progress.RETRYING, index);
+      Runnable retry = new Runnable() {
+        private final AtomicBoolean _started = new AtomicBoolean();
+
+        @Override
+        public void run() {
+          if (_started.compareAndSet(false, true)) {
+            if (call != null) {
+              call.removeAbortAction(this);
+            }
+            attempt(index);
+          }
+        }
+      };
+
+      if (call != null) {
+        // If the call is aborted while waiting, attempt at once; the connector reports the abort without connecting.
+        call.addAbortAction(retry);
+      }
+      _scheduler.schedule(retry, delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorizes requests with tokens that expire, such as OAuth bearer tokens or session tokens, obtained from an ITokenSource.
+ * <p>
+ * The current token's header is returned straight from memory. Once the token is within the refresh window of its expiry, a new one is fetched in
+ * the background while requests keep using the current one, so requests do not wait for a refresh as long as the token source keeps up. Only
+ * when there is no valid token at all, before the first token or after the server rejected the current one, do requests wait, and then for the
+ * same single refresh: a burst of calls never starts more than one refresh.
+ */
+public class TokenAuthProvider implements IAuthProvider {
+
+  public static final long DEFAULT_REFRESH_AHEAD_MILLIS = 60000;
+
+  /**
+   * After a background refresh fails, the next one is not started for this long, so a token source that is down is not called for every request.
+   */
+  static final long REFRESH_RETRY_MILLIS = 5000;
+
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private final ITokenSource _tokenSource;
+  private final long _refreshAheadMillis;
+  private final Executor _refreshExecutor;
+  private volatile AuthToken _token;
+  private FutureTask<AuthToken> _refresh;
+  private volatile long _lastFailureMillis;
+
+  /**
+   * Create a provider that refreshes tokens a minute before they expire, on a thread of its own.
+   *
+   * @param tokenSource Obtains new tokens.
+   */
+  public TokenAuthProvider(ITokenSource tokenSource) {
+    this(tokenSource, DEFAULT_REFRESH_AHEAD_MILLIS, null);
+  }
+
+  /**
+   * @param tokenSource Obtains new tokens.
+   * @param refreshAheadMillis How long before a token expires to start fetching the next one.
+   * @param refreshExecutor The executor refreshes run on. If null, the provider uses a thread of its own that exits when idle.
+   */
+  public TokenAuthProvider(ITokenSource tokenSource, long refreshAheadMillis, Executor refreshExecutor) {
+    if (tokenSource == null) {
+      throw new IllegalArgumentException("tokenSource == null");
+    }
+
+    _tokenSource = tokenSource;
+    _refreshAheadMillis = refreshAheadMillis;
+    _refreshExecutor = refreshExecutor != null ? refreshExecutor : this.createRefreshExecutor();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getAuthorization() throws IOException {
+    AuthToken token = _token;
+    long now = System.currentTimeMillis();
+
+    if (token != null && now < token.getExpiresAtMillis() - _refreshAheadMillis) {
+      return token.getAuthorization();
+    }
+
+    if (token != null && now < token.getExpiresAtMillis()) {
+      // Still valid, so this request uses it while the next one is fetched.
+      if (now - _lastFailureMillis >= REFRESH_RETRY_MILLIS) {
+        this.startRefresh();
+      }
+      return token.getAuthorization();
+    }
+
+    FutureTask<AuthToken> refresh;
+    synchronized (this) {
+      // A refresh may have finished since _token was read, and must not be followed by another.
+      token = _token;
+      if (token != null && System.currentTimeMillis() < token.getExpiresAtMillis()) {
+        return token.getAuthorization();
+      }
+      refresh = this.startRefresh();
+    }
+
+    return this.await(refresh).getAuthorization();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If the rejected header is the current token's, the token is dropped and a new one fetched. Requests made before it arrives wait for it.
+   */
+  @Override
+  public void onUnauthorized(String authorization) {
+    synchronized (this) {
+      AuthToken token = _token;
+      if (token == null || !token.getAuthorization().equals(authorization)) {
+        // Already replaced.
+        return;
+      }
+      _token = null;
+    }
+
+    this.startRefresh();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The token source's identity.
+   */
+  @Override
+  public String getIdentity() {
+    return _tokenSource.getIdentity();
+  }
+
+  /**
+   * Fetch a new token in the background unless a refresh is already running, for example right after logging in so the first call does not wait.
+   */
+  public void refresh() {
+    this.startRefresh();
+  }
+
+  /**
+   * Set the current token, for example one returned by a login call.
+   *
+   * @param token The token.
+   */
+  public void setToken(AuthToken token) {
+    _token = token;
+  }
+
+  private synchronized FutureTask<AuthToken> startRefresh() {
+    FutureTask<AuthToken> refresh = _refresh;
+
+    if (refresh == null) {
+      refresh = new FutureTask<AuthToken>(new Callable<AuthToken>() {
+        @Override
+        public AuthToken call() throws IOException {
+          return _tokenSource.fetchToken();
+        }
+      }) {
+        @Override
+        protected void done() {
+          onRefreshDone(this);
+        }
+      };
+      _refresh = refresh;
+      _refreshExecutor.execute(refresh);
+    }
+
+    // Not _refresh, which is already cleared if the executor ran the refresh inline.
+    return refresh;
+  }
+
+  private synchronized void onRefreshDone(FutureTask<AuthToken> refresh) {
+    if (_refresh == refresh) {
+      _refresh = null;
+    }
+
+    try {
+      AuthToken token = refresh.get();
+      if (token != null) {
+        _token = token;
+        return;
+      }
+    } catch (ExecutionException | InterruptedException e) {
+      // Requests waiting for the refresh fail with the cause.
+    }
+
+    _lastFailureMillis = System.currentTimeMillis();
+  }
+
+  private AuthToken await(FutureTask<AuthToken> refresh) throws IOException {
+    try {
+      AuthToken token = refresh.get();
+      if (token == null) {
+        throw new IOException("The token source returned no token");
+      }
+      return token;
+    } catch (ExecutionException e) {
+      throw new IOException("The authorization token could not be refreshed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for the authorization token");
+    }
+  }
+
+  private Executor createRefreshExecutor() {
+    return new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "TokenAuthProvider");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes http exchanges with the platform HttpsURLConnection, which speaks HTTP/1.1. Each connection carries one call at a time, so parallel calls
+ * to a server open one connection each.
+ */
+public class UrlConnectionTransport implements IHttpTransport {
+
+  private final boolean _keepAlive;
+
+  /**
+   * Create a transport that opens and closes a connection for every call.
+   */
+  public UrlConnectionTransport() {
+    this(false);
+  }
+
+  /**
+   * @param keepAlive True to keep connections alive between calls in the platform's process wide pool, whose size and idle time are set for the
+   * whole app by the http.maxConnections and http.keepAliveDuration system properties. Use an OkHttpTransport on an HttpConnectionPool for a pool
+   * of its own. False to open and close a connection for every call.
+   */
+  public UrlConnectionTransport(boolean keepAlive) {
+    _keepAlive = keepAlive;
+  }
+
+  @Override
+  public boolean isKeepAlive() {
+    return _keepAlive;
+  }
+
+  @Override
+  public IHttpExchange open(URL url, String method, int connectTimeoutMillis, int readTimeoutMillis, DataSourceMetrics metrics)
+      throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(connectTimeoutMillis);
+    connection.setReadTimeout(readTimeoutMillis);
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Connection", this.isKeepAlive() ? "keep-alive" : "close");
+
+    if ("POST".equals(method)) {
+      connection.setDoOutput(true);
+      connection.setChunkedStreamingMode(0);
+    }
+    connection.setDoInput(true);
+
+    return new UrlConnectionExchange(connection);
+  }
+
+  private static class UrlConnectionExchange implements IHttpExchange {
+
+    private final HttpURLConnection _connection;
+
+    UrlConnectionExchange(HttpURLConnection connection) {
+      _connection = connection;
+    }
+
+    @Override
+    public void setRequestProperty(String name, String value) {
+      _connection.setRequestProperty(name, value);
+    }
+
+    @Override
+    public void connect() throws IOException {
+      _connection.connect();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+      return _connection.getOutputStream();
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+      return _connection.getResponseCode();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+      return _connection.getHeaderFields();
+    }
+
+    @Override
+    public String getContentEncoding() {
+      return _connection.getContentEncoding();
+    }
+
+    @Override
+    public int getContentLength() {
+      return _connection.getContentLength();
+    }
+
+    @Override
+    public InputStream getResponseStream() throws IOException {
+      // getInputStream throws for error responses, whose body is the error stream.
+      return _connection.getResponseCode() < 400 ? _connection.getInputStream() : _connection.getErrorStream();
+    }
+
+    @Override
+    public void disconnect() {
+      _connection.disconnect();
+    }
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of pending write data source executions, so they survive the app being closed or killed.
+ * <p>
+ * The file is a sequence of records, each a length, a CRC32 and a body. An add record holds a whole entry, and a remove record the id of an entry
+ * that no longer needs to be sent. Every record is synced to disk before the call that wrote it returns. On open the records are replayed in order;
+ * a record cut short or corrupted by a crash ends the file there and is truncated away. Once no entries are pending the file is emptied, and
+ * when it mostly holds entries already removed it is rewritten with only the pending ones.
+ * <p>
+ * Not thread safe. OfflineWriteQueue uses it from a single thread.
+ */
+class WriteJournal {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final byte RECORD_ADD = 1;
+  private static final byte RECORD_REMOVE = 2;
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final long MIN_COMPACT_SIZE_BYTES = 64 * 1024;
+
+  private final File _file;
+  private final Map<Long, Entry> _entries = new LinkedHashMap<>();
+  private RandomAccessFile _out;
+  private long _pendingBytes = 0;
+  private long _nextId = 1;
+
+  /**
+   * @param file The journal file. Created on open if it does not exist.
+   */
+  WriteJournal(File file) {
+    _file = file;
+  }
+
+  /**
+   * Read the journal, if it is not open yet.
+   *
+   * @throws IOException if the journal can not be read or created.
+   */
+  void open() throws IOException {
+    if (_out != null) {
+      return;
+    }
+
+    File directory = _file.getParentFile();
+    if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create " + directory);
+    }
+
+    RandomAccessFile file = new RandomAccessFile(_file, "rw");
+    try {
+      byte[] data = new byte[(int) file.length()];
+      file.readFully(data);
+      long validLength = this.replay(ByteBuffer.wrap(data));
+      if (validLength < data.length) {
+        file.setLength(validLength);
+        file.getFD().sync();
+      }
+      file.seek(validLength);
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    }
+
+    _out = file;
+  }
+
+  /**
+   * Append an entry and give it an id.
+   *
+   * @param entry The entry. Its id is set by this.
+   * @throws IOException if the entry can not be written. It is not pending in that case.
+   */
+  void add(Entry entry) throws IOException {
+    this.open();
+
+    entry._id = _nextId++;
+    byte[] record = this.toRecord(entry);
+    this.write(record);
+
+    entry._recordSize = record.length;
+    _entries.put(entry._id, entry);
+    _pendingBytes += record.length;
+  }
+
+  /**
+   * Mark an entry as sent, or as never to be sent.
+   *
+   * @param id The id of the entry.
+   * @throws IOException if the journal can not be written.
+   */
+  void remove(long id) throws IOException {
+    this.open();
+
+    Entry entry = _entries.remove(id);
+    if (entry == null) {
+      return;
+    }
+    _pendingBytes -= entry._recordSize;
+
+    if (_entries.isEmpty()) {
+      // Nothing is pending, so nothing in the file is needed any more.
+      _out.setLength(0);
+      _out.getFD().sync();
+      _pendingBytes = 0;
+      return;
+    }
+
+    this.write(this.toRecord(ByteBuffer.allocate(9).put(RECORD_REMOVE).putLong(id).array()));
+
+    if (_out.length() >= MIN_COMPACT_SIZE_BYTES && _out.length() > 2 * _pendingBytes) {
+      this.compact();
+    }
+  }
+
+  /**
+   * Get the pending entries in the order they were added.
+   *
+   * @return A copy of the pending entries.
+   * @throws IOException if the journal can not be read.
+   */
+  List<Entry> getEntries() throws IOException {
+    this.open();
+    return new ArrayList<>(_entries.values());
+  }
+
+  /**
+   * Get the oldest pending entry.
+   *
+   * @return The entry, or null if none are pending.
+   * @throws IOException if the journal can not be read.
+   */
+  Entry peek() throws IOException {
+    this.open();
+    return _entries.isEmpty() ? null : _entries.values().iterator().next();
+  }
+
+  int size() throws IOException {
+    this.open();
+    return _entries.size();
+  }
+
+  long getFileSizeBytes() throws IOException {
+    this.open();
+    return _out.length();
+  }
+
+  void close() throws IOException {
+    if (_out != null) {
+      _out.close();
+      _out = null;
+      _entries.clear();
+      _pendingBytes = 0;
+    }
+  }
+
+  /**
+   * Rebuild the pending entries from the records in the file.
+   *
+   * @return The length of the file up to the last complete record.
+   */
+  private long replay(ByteBuffer data) {
+    _entries.clear();
+    _pendingBytes = 0;
+
+    while (data.remaining() >= RECORD_HEADER_SIZE) {
+      int start = data.position();
+      int length = data.getInt();
+      int crc = data.getInt();
+      if (length < 1 || length > data.remaining()) {
+        return start;
+      }
+
+      byte[] body = new byte[length];
+      data.get(body);
+      if (this.crc(body) != crc) {
+        return start;
+      }
+
+      try {
+        this.apply(ByteBuffer.wrap(body), RECORD_HEADER_SIZE + length);
+      } catch (BufferUnderflowException | IllegalArgumentException e) {
+        return start;
+      }
+    }
+
+    return data.position();
+  }
+
+  private void apply(ByteBuffer body, int recordSize) {
+    byte type = body.get();
+    long id = body.getLong();
+    _nextId = Math.max(_nextId, id + 1);
+
+    if (type == RECORD_ADD) {
+      Entry entry = new Entry();
+      entry._id = id;
+      entry._timestampMillis = body.getLong();
+      entry._index = body.getInt();
+      entry._dataSourceKey = body.getInt();
+      entry._useTestServer = body.get() != 0;
+      entry._dataSourceClassName = this.readString(body);
+      entry._serverName = this.readString(body);
+      entry._jsonRequest = this.readString(body);
+      entry._recordSize = recordSize;
+      _entries.put(id, entry);
+      _pendingBytes += recordSize;
+    } else if (type == RECORD_REMOVE) {
+      Entry entry = _entries.remove(id);
+      if (entry != null) {
+        _pendingBytes -= entry._recordSize;
+      }
+    } else {
+      throw new IllegalArgumentException("Unknown journal record " + type);
+    }
+  }
+
+  private void write(byte[] record) throws IOException {
+    _out.write(record);
+    _out.getFD().sync();
+  }
+
+  /**
+   * Rewrite the journal with only the pending entries. The new file replaces the old one by a rename, so a crash leaves one or the other.
+   */
+  private void compact() throws IOException {
+    List<Entry> entries = new ArrayList<>(_entries.values());
+    File tempFile = new File(_file.getPath() + ".tmp");
+    this.close();
+
+    FileOutputStream outputStream = new FileOutputStream(tempFile);
+    try {
+      for (Entry entry : entries) {
+        outputStream.write(this.toRecord(entry));
+      }
+      outputStream.getFD().sync();
+    } finally {
+      outputStream.close();
+    }
+
+    if (!tempFile.renameTo(_file)) {
+      tempFile.delete();
+      throw new IOException("Unable to write " + _file);
+    }
+
+    this.open();
+  }
+
+  private byte[] toRecord(Entry entry) throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(body);
+    out.writeByte(RECORD_ADD);
+    out.writeLong(entry._id);
+    out.writeLong(entry._timestampMillis);
+    out.writeInt(entry._index);
+    out.writeInt(entry._dataSourceKey);
+    out.writeBoolean(entry._useTestServer);
+    this.writeString(out, entry._dataSourceClassName);
+    this.writeString(out, entry._serverName);
+    this.writeString(out, entry._jsonRequest);
+
+    return this.toRecord(body.toByteArray());
+  }
+
+  private byte[] toRecord(byte[] body) {
+    return ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length).putInt(body.length).putInt(this.crc(body)).put(body).array();
+  }
+
+  /**
+   * Strings are written as a length and UTF-8 bytes, since a JSON request can be longer than DataOutputStream.writeUTF allows. A null string
+   * has a length of -1.
+   */
+  private void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private String readString(ByteBuffer body) {
+    int length = body.getInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0 || length > body.remaining()) {
+      throw new IllegalArgumentException("Bad string length " + length);
+    }
+
+    String value = new String(body.array(), body.arrayOffset() + body.position(), length, UTF_8);
+    body.position(body.position() + length);
+    return value;
+  }
+
+  private int crc(byte[] data) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(data, 0, data.length);
+    return (int) crc32.getValue();
+  }
+
+  /**
+   * One pending write data source execution.
+   */
+  static class Entry {
+
+    private long _id;
+    private long _timestampMillis;
+    private int _index;
+    private int _dataSourceKey;
+    private boolean _useTestServer;
+    private String _dataSourceClassName;
+    private String _serverName;
+    private String _jsonRequest;
+    private int _recordSize;
+
+    private Entry() {
+    }
+
+    /**
+     * @param dataSourceClassName The class of the data source, used to recreate it to parse the response.
+     * @param dataSourceKey The data source key.
+     * @param serverName The server name.
+     * @param useTestServer True to use the test server.
+     * @param jsonRequest The serialized inputs.
+     * @param index The reference index the result is reported with.
+     * @param timestampMillis When the write was made.
+     */
+    Entry(String dataSourceClassName, int dataSourceKey, String serverName, boolean useTestServer, String jsonRequest, int index,
+        long timestampMillis) {
+      _dataSourceClassName = dataSourceClassName;
+      _dataSourceKey = dataSourceKey;
+      _serverName = serverName;
+      _useTestServer = useTestServer;
+      _jsonRequest = jsonRequest;
+      _index = index;
+      _timestampMillis = timestampMillis;
+    }
+
+    long getId() {
+      return _id;
+    }
+
+    long getTimestampMillis() {
+      return _timestampMillis;
+    }
+
+    int getIndex() {
+      return _index;
+    }
+
+    int getDataSourceKey() {
+      return _dataSourceKey;
+    }
+
+    boolean isUseTestServer() {
+      return _useTestServer;
+    }
+
+    String getDataSourceClassName() {
+      return _dataSourceClassName;
+    }
+
+    String getServerName() {
+      return _serverName;
+    }
+
+    String getJsonRequest() {
+      return _jsonRequest;
+    }
+
+    /**
+     * Whether two entries would send the same request, so only one needs to be sent.
+     */
+    boolean isSameRequest(Entry other) {
+      return _dataSourceKey == other._dataSourceKey && _useTestServer == other._useTestServer
+          && _dataSourceClassName.equals(other._dataSourceClassName) && equal(_serverName, other._serverName)
+          && equal(_jsonRequest, other._jsonRequest);
+    }
+
+    private static boolean equal(String a, String b) {
+      return a == null ? b == null : a.equals(b);
+    }
+  }
+}
@@ -23,6 +23,7 @@ package com.plex.androidsdk.httpdatasources.part;
 import com.google.gson.annotations.SerializedName;
 import com.plex.androidsdk.httpdatasources.BaseOutputs;
 import com.plex.androidsdk.httpdatasources.DataSource;
+import com.plex.androidsdk.httpdatasources.DataSourceDefinition;
 import com.plex.androidsdk.httpdatasources.HttpDataSourceCredentials;
 import com.plex.androidsdk.httpdatasources.IBaseInput;
 import com.plex.androidsdk.httpdatasources.IDataSourceCallback;
@@ -34,6 +35,9 @@ import java.lang.reflect.Type;
  */
 public class Part_Name_Output_Get extends DataSource {
 
+  private static final DataSourceDefinition<Input> DEFINITION = new DataSourceDefinition<>(721, null, OutputParameters.class, true,
+      Part_Name_Output_Get.class);
+
   private Part_Name_Output_Get.InputParameters _inputParameters = new Part_Name_Output_Get.InputParameters();
 
   /**
@@ -60,12 +64,21 @@ public class Part_Name_Output_Get extends DataSource {
     super(iDataSourceCallback, credentials, serverName, useTestServer, connector);
   }
 
+  /**
+   * The definition of Part_Name_Output_Get, to execute it with immutable inputs from any number of threads at the same time.
+   *
+   * @return The definition.
+   */
+  public static DataSourceDefinition<Input> definition() {
+    return DEFINITION;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   protected int getDataSourceKey() {
-    return 721;
+    return DEFINITION.getDataSourceKey();
   }
 
   /**
@@ -97,6 +110,14 @@ public class Part_Name_Output_Get extends DataSource {
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isReadOnly() {
+    return true;
+  }
+
   /**
    * Get the Part Key input parameter.
    *
@@ -120,7 +141,7 @@ public class Part_Name_Output_Get extends DataSource {
   /**
    * Input parameters for data source call. Used by GSON to serialize into JSON.
    */
-  private class InputParameters implements IBaseInput {
+  static class InputParameters implements IBaseInput {
 
     @SerializedName("Part_Key")
     private int partKey;
@@ -134,7 +155,27 @@ public class Part_Name_Output_Get extends DataSource {
     }
   }
 
-  class OutputParameters extends BaseOutputs {
+  /**
+   * The input parameters of one call made through definition().
+   */
+  public static class Input implements IBaseInput {
+
+    @SerializedName("Part_Key")
+    private final int partKey;
+
+    /**
+     * @param partKey The Part Key to get the name of.
+     */
+    public Input(int partKey) {
+      this.partKey = partKey;
+    }
+
+    public int getPartKey() {
+      return partKey;
+    }
+  }
+
+  static class OutputParameters extends BaseOutputs {
 
     public String Name;
   }
@@ -24,6 +24,7 @@ package com.plex.androidsdk.httpdatasources.part;
 import com.google.gson.annotations.SerializedName;
 import com.plex.androidsdk.httpdatasources.BaseRow;
 import com.plex.androidsdk.httpdatasources.DataSource;
+import com.plex.androidsdk.httpdatasources.DataSourceDefinition;
 import com.plex.androidsdk.httpdatasources.HttpDataSourceCredentials;
 import com.plex.androidsdk.httpdatasources.IBaseInput;
 import com.plex.androidsdk.httpdatasources.IDataSourceCallback;
@@ -35,6 +36,9 @@ import java.lang.reflect.Type;
  */
 public class Parts_Picker_Get2 extends DataSource {
 
+  private static final DataSourceDefinition<Input> DEFINITION = new DataSourceDefinition<>(1791, Row.class, null, true,
+      Parts_Picker_Get2.class);
+
   private Parts_Picker_Get2.InputParameters inputParameters = new Parts_Picker_Get2.InputParameters();
 
   /**
@@ -60,6 +64,15 @@ public class Parts_Picker_Get2 extends DataSource {
     super(iDataSourceCallback, credentials, serverName, useTestServer, connector);
   }
 
+  /**
+   * The definition of Parts_Picker_Get2, to execute it with immutable inputs from any number of threads at the same time.
+   *
+   * @return The definition.
+   */
+  public static DataSourceDefinition<Input> definition() {
+    return DEFINITION;
+  }
+
   /**
    * Get the current part no filter.
    *
@@ -82,7 +95,7 @@ public class Parts_Picker_Get2 extends DataSource {
 
   @Override
   protected int getDataSourceKey() {
-    return 1791;
+    return DEFINITION.getDataSourceKey();
   }
 
   @Override
@@ -100,6 +113,11 @@ public class Parts_Picker_Get2 extends DataSource {
     return Row.class;
   }
 
+  @Override
+  protected boolean isReadOnly() {
+    return true;
+  }
+
   //endregion
 
   //region INTERNAL CLASSES
@@ -107,7 +125,7 @@ public class Parts_Picker_Get2 extends DataSource {
   /**
    * Input parameters for data source call. Used by GSON to serialize into JSON.
    */
-  private class InputParameters implements IBaseInput {
+  static class InputParameters implements IBaseInput {
 
     @SerializedName("Part_No")
     private String partNo;
@@ -121,10 +139,30 @@ public class Parts_Picker_Get2 extends DataSource {
     }
   }
 
+  /**
+   * The input parameters of one call made through definition().
+   */
+  public static class Input implements IBaseInput {
+
+    @SerializedName("Part_No")
+    private final String partNo;
+
+    /**
+     * @param partNo The part no to filter on.
+     */
+    public Input(String partNo) {
+      this.partNo = partNo;
+    }
+
+    public String getPartNo() {
+      return partNo;
+    }
+  }
+
   /**
    * Extends BaseRow to represent the structure of a row returned by Part_Picker_Get2.
    */
-  public class Row extends BaseRow {
+  public static class Row extends BaseRow {
 
     @SerializedName("Part_Key")
     private int partKey;
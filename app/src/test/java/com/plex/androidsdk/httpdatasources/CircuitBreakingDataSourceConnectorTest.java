@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+
+public class CircuitBreakingDataSourceConnectorTest {
+
+  /**
+   * The circuit opens once enough calls fail, rejects calls while open, and closes after a successful trial call.
+   */
+  @Test
+  public void execute_OpensAndCloses() throws InterruptedException {
+    FixedConnector connector = new FixedConnector();
+    CircuitBreakingDataSourceConnector breakingConnector = new CircuitBreakingDataSourceConnector(connector, 0.5, 4, 4, 50);
+    CircuitBreaker circuitBreaker = breakingConnector.getCircuitBreaker("cloud", false, 1);
+
+    connector.result = new HttpDataSourceResult("{}", 200);
+    this.execute(breakingConnector, 1);
+    connector.result = new HttpDataSourceResult(new SocketTimeoutException());
+    this.execute(breakingConnector, 1);
+    connector.result = new HttpDataSourceResult("{}", 503);
+    this.execute(breakingConnector, 1);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+    // Rejected by the local dispatcher, so not counted.
+    connector.result = new HttpDataSourceResult(new RejectedExecutionException());
+    this.execute(breakingConnector, 1);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+    connector.result = new HttpDataSourceResult("{}", 504);
+    this.execute(breakingConnector, 1);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertEquals(5, connector.calls);
+
+    HttpDataSourceResult rejected = this.execute(breakingConnector, 1);
+    assertTrue(rejected.getException() instanceof CircuitBreakerOpenException);
+    assertEquals(5, connector.calls);
+
+    // Other data sources on the same server have their own circuit.
+    connector.result = new HttpDataSourceResult("{}", 200);
+    assertNull(this.execute(breakingConnector, 2).getException());
+
+    Thread.sleep(60);
+    assertTrue(circuitBreaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    circuitBreaker.onIgnored();
+
+    assertNull(this.execute(breakingConnector, 1).getException());
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertEquals(0, circuitBreaker.getFailureRate(), 0);
+  }
+
+  /**
+   * A failed trial call opens the circuit again, and only one trial call is let through at a time.
+   */
+  @Test
+  public void tryAcquire_OneTrialWhileHalfOpen() throws InterruptedException {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, 1, 1, 20);
+    circuitBreaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+    Thread.sleep(30);
+    assertTrue(circuitBreaker.tryAcquire());
+    assertFalse(circuitBreaker.tryAcquire());
+    circuitBreaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquire());
+  }
+
+  private HttpDataSourceResult execute(CircuitBreakingDataSourceConnector connector, int dataSourceKey) {
+    final HttpDataSourceResult[] results = new HttpDataSourceResult[1];
+    connector.execute(dataSourceKey, null, "cloud", false, "{}", new IDataSourceConnectorCallback() {
+      @Override
+      public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+        results[0] = result;
+      }
+
+      @Override
+      public void onProgressUpdate(int progressCode, int index) {
+      }
+    }, 0);
+    return results[0];
+  }
+
+  /**
+   * Completes every call at once with the current result.
+   */
+  private static class FixedConnector implements IDataSourceConnector {
+
+    HttpDataSourceResult result;
+    int calls = 0;
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      calls++;
+      callback.onDataSourceConnectorComplete(result, index);
+    }
+  }
+}
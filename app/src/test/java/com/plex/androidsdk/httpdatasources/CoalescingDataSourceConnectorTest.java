@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Move_Simple;
+import com.plex.androidsdk.httpdatasources.part.Part_Name_Output_Get;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class CoalescingDataSourceConnectorTest {
+
+  private static final String RESPONSE = "{\"outputs\":{\"Name\":\"Rear Suspension Arm\"},\"rows\":[],\"rowLimitExceeded\":false,\"transactionNo\":\"1\"}";
+
+  /**
+   * Identical read-only calls share one round trip and each caller gets the result with its own index.
+   */
+  @Test
+  public void execute_CoalescesIdenticalCalls() {
+    HeldConnector heldConnector = new HeldConnector();
+    CoalescingDataSourceConnector connector = new CoalescingDataSourceConnector(heldConnector);
+    IndexCallback callback = new IndexCallback();
+
+    new TestPart_Name_Output_Get(callback, connector, 1).execute(1);
+    new TestPart_Name_Output_Get(callback, connector, 1).execute(2);
+    new TestPart_Name_Output_Get(callback, connector, 2).execute(3);
+
+    assertEquals(2, heldConnector.held.size());
+    assertEquals(1, connector.getCoalescedCount());
+
+    heldConnector.completeAll();
+
+    assertEquals(3, callback.indexes.size());
+    assertTrue(callback.indexes.contains(1));
+    assertTrue(callback.indexes.contains(2));
+    assertTrue(callback.indexes.contains(3));
+    assertEquals(0, connector.getInFlightCount());
+
+    // Once the shared call finishes, the next identical call goes to the server again.
+    new TestPart_Name_Output_Get(callback, connector, 1).execute(4);
+    assertEquals(1, heldConnector.held.size());
+  }
+
+  /**
+   * Write data sources are never coalesced.
+   */
+  @Test
+  public void execute_WriteNotCoalesced() {
+    HeldConnector heldConnector = new HeldConnector();
+    CoalescingDataSourceConnector connector = new CoalescingDataSourceConnector(heldConnector);
+
+    new TestContainer_Move_Simple(connector).execute(1);
+    new TestContainer_Move_Simple(connector).execute(2);
+
+    assertEquals(2, heldConnector.held.size());
+    assertEquals(0, connector.getCoalescedCount());
+  }
+
+  /**
+   * Holds calls until the test completes them.
+   */
+  private static class HeldConnector implements IDataSourceConnector {
+
+    final List<IDataSourceConnectorCallback> held = new ArrayList<>();
+    final List<Integer> indexes = new ArrayList<>();
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      held.add(callback);
+      indexes.add(index);
+    }
+
+    void completeAll() {
+      while (!held.isEmpty()) {
+        held.remove(0).onDataSourceConnectorComplete(new HttpDataSourceResult(RESPONSE, 200), indexes.remove(0));
+      }
+    }
+  }
+
+  private static class IndexCallback implements IDataSourceCallback {
+
+    final List<Integer> indexes = new ArrayList<>();
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      assertEquals("1", dataSourceResult.getTransactionNo());
+      indexes.add(index);
+    }
+  }
+
+  private static class TestPart_Name_Output_Get extends Part_Name_Output_Get {
+
+    TestPart_Name_Output_Get(IDataSourceCallback callback, IDataSourceConnector connector, int partKey) {
+      super(callback, null, "cloud", false, connector);
+      this.setPartKey(partKey);
+    }
+  }
+
+  private static class TestContainer_Move_Simple extends Container_Move_Simple {
+
+    TestContainer_Move_Simple(IDataSourceConnector connector) {
+      super(null, null, "cloud", false, connector);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.stream.JsonReader;
+import com.plex.androidsdk.httpdatasources.ColumnarRows.ColumnType;
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import com.plex.androidsdk.httpdatasources.part.Parts_Picker_Get2;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+
+public class ColumnarRowsTest {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  /**
+   * Whole numbers are held as ints, decimals as doubles and repeated strings once each, and every value reads back as the row based parse read it.
+   */
+  @Test
+  public void parseColumnar_MatchesRows() throws IOException {
+    String json = DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 2000);
+    DataSourceResult rowResult = this.getParser(DataSourceFixtures.CONTAINER_GET1).parse(new JsonReader(new StringReader(json)));
+
+    DataSourceResult dsResult = this.getParser(DataSourceFixtures.CONTAINER_GET1).parseColumnar(new JsonReader(new StringReader(json)));
+    ColumnarRows columnarRows = dsResult.getColumnarRows();
+
+    assertEquals("1", dsResult.getTransactionNo());
+    assertEquals(2000, columnarRows.size());
+    assertEquals(ColumnType.INT, columnarRows.getColumnType(columnarRows.getColumnIndex("Operation_Key")));
+    assertEquals(ColumnType.DOUBLE, columnarRows.getColumnType(columnarRows.getColumnIndex("Quantity")));
+    assertEquals(1, columnarRows.getDictionarySize(columnarRows.getColumnIndex("Container_Status")));
+    assertEquals(100, columnarRows.getDictionarySize(columnarRows.getColumnIndex("Location")));
+    assertEquals(-1, columnarRows.getColumnIndex("Serial_No"));
+
+    ColumnarRows.RowView rowView = columnarRows.getRow(0);
+    for (int i = 0; i < columnarRows.size(); i++) {
+      Container_Get1.Row row = (Container_Get1.Row) rowResult.getRows().get(i);
+      rowView.moveTo(i);
+
+      assertEquals(row.getOperationKey(), rowView.getInt("Operation_Key"));
+      assertEquals(row.getPartNoRevision(), rowView.getString("Part_No_Revision"));
+      assertEquals(row.getLocation(), rowView.getString("Location"));
+      assertEquals(row.getQuantity(), rowView.getBigDecimal("Quantity"));
+    }
+
+    Container_Get1.Row row = (Container_Get1.Row) dsResult.getRows().get(1999);
+    assertEquals(1999, row.getOperationKey());
+    assertEquals("A99", row.getLocation());
+    assertEquals(new BigDecimal("12.5"), row.getQuantity());
+  }
+
+  /**
+   * A column of mostly distinct strings still reads back every value, and a column that is always null has no type.
+   */
+  @Test
+  public void parseColumnar_DistinctAndNullColumns() throws IOException {
+    String json = DataSourceFixtures.createResponse(DataSourceFixtures.PARTS_PICKER_GET2, 3000);
+
+    ColumnarRows columnarRows = this.getParser(DataSourceFixtures.PARTS_PICKER_GET2).parseColumnar(new JsonReader(new StringReader(json)))
+        .getColumnarRows();
+
+    int name = columnarRows.getColumnIndex("Name");
+    int oldPartNo = columnarRows.getColumnIndex("Old_Part_No");
+    assertEquals(3000, columnarRows.getDictionarySize(name));
+    assertEquals("Bracket 2999", columnarRows.getString(2999, name));
+    assertEquals(1, columnarRows.getDictionarySize(columnarRows.getColumnIndex("Part_Status")));
+    assertEquals(ColumnType.NULL, columnarRows.getColumnType(oldPartNo));
+    assertTrue(columnarRows.isNull(10, oldPartNo));
+
+    Parts_Picker_Get2.Row row = (Parts_Picker_Get2.Row) columnarRows.getRows().get(42);
+    assertEquals(42, row.getPartKey());
+    assertEquals("4709-A-42", row.getPartNoRevision());
+    assertNull(row.getOldPartNo());
+  }
+
+  /**
+   * Numbers widen as larger or decimal values arrive, a column with mixed kinds of values becomes a string column, and cells a row does not have
+   * are null.
+   */
+  @Test
+  public void parseColumnar_WidensAndMixes() throws IOException {
+    String json = "{\"rows\":[{\"a\":1,\"b\":\"x\",\"c\":true,\"e\":7},"
+        + "{\"a\":3000000000,\"b\":2,\"d\":1.5,\"e\":3000000000},"
+        + "{\"a\":2.5,\"b\":null,\"c\":false}]}";
+
+    ColumnarRows columnarRows = this.getParser(DataSourceFixtures.CONTAINER_GET1).parseColumnar(new JsonReader(new StringReader(json)))
+        .getColumnarRows();
+
+    int a = columnarRows.getColumnIndex("a");
+    int b = columnarRows.getColumnIndex("b");
+    int c = columnarRows.getColumnIndex("c");
+    int d = columnarRows.getColumnIndex("d");
+    int e = columnarRows.getColumnIndex("e");
+    assertEquals(3, columnarRows.size());
+
+    assertEquals(ColumnType.DOUBLE, columnarRows.getColumnType(a));
+    assertEquals(1d, columnarRows.getDouble(0, a), 0);
+    assertEquals(3000000000d, columnarRows.getDouble(1, a), 0);
+    assertEquals(2.5d, columnarRows.getDouble(2, a), 0);
+
+    assertEquals(ColumnType.STRING, columnarRows.getColumnType(b));
+    assertEquals("x", columnarRows.getString(0, b));
+    assertEquals("2", columnarRows.getString(1, b));
+    assertNull(columnarRows.getString(2, b));
+    assertEquals(2, columnarRows.getDictionarySize(b));
+
+    assertEquals(ColumnType.BOOLEAN, columnarRows.getColumnType(c));
+    assertTrue(columnarRows.getBoolean(0, c));
+    assertTrue(columnarRows.isNull(1, c));
+    assertFalse(columnarRows.getBoolean(2, c));
+
+    assertTrue(columnarRows.isNull(0, d));
+    assertEquals(new BigDecimal("1.5"), columnarRows.getBigDecimal(1, d));
+    assertTrue(columnarRows.isNull(2, d));
+
+    assertEquals(ColumnType.LONG, columnarRows.getColumnType(e));
+    assertEquals(7, columnarRows.getInt(0, e));
+    assertEquals(3000000000L, columnarRows.getLong(1, e));
+    assertTrue(columnarRows.isNull(2, e));
+  }
+
+  /**
+   * A data source set to use columnar rows returns them from the stream it reads while the body downloads.
+   */
+  @Test
+  public void setColumnarRows_ReadResponse() throws IOException {
+    DataSource dataSource = DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, null);
+    dataSource.setColumnarRows(true);
+    byte[] body = DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 10).getBytes(Charset.forName("UTF-8"));
+
+    DataSourceResult dsResult = dataSource.readResponse(new ByteArrayInputStream(body), 200, 0, DIRECT_EXECUTOR, null);
+
+    assertNotNull(dsResult.getColumnarRows());
+    assertEquals(10, dsResult.getRows().size());
+    assertEquals(9, ((Container_Get1.Row) dsResult.getRows().get(9)).getOperationKey());
+  }
+
+  private DataSourceResponseParser getParser(String name) {
+    DataSource dataSource = DataSourceFixtures.createDataSource(name, null);
+    return new DataSourceResponseParser(new DataSourceGson(), dataSource.getRowType(), null);
+  }
+}
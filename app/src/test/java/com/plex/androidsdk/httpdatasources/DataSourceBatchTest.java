@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class DataSourceBatchTest {
+
+  /**
+   * Results are collected by index even when calls finish out of order, and no more than maxParallelism calls are in flight.
+   */
+  @Test
+  public void execute_OrderedAndBounded() {
+    HeldConnector connector = new HeldConnector();
+    BatchCallback callback = new BatchCallback();
+    DataSourceBatch batch = new DataSourceBatch(3);
+    for (int i = 0; i < 10; i++) {
+      batch.add(new TestContainer_Get1(connector, "S" + i));
+    }
+
+    batch.execute(callback);
+
+    while (!connector.held.isEmpty()) {
+      assertTrue(connector.held.size() <= 3);
+      // Finish the newest call first.
+      connector.complete(connector.held.size() - 1);
+    }
+
+    assertEquals(3, connector.maxHeld);
+    assertNotNull(callback.batchResult);
+    assertEquals(10, callback.batchResult.size());
+    assertEquals(10, callback.itemCount);
+    for (int i = 0; i < 10; i++) {
+      assertEquals("S" + i, callback.batchResult.getResult(i).getTransactionNo());
+    }
+    assertEquals(0, callback.batchResult.getErrorCount());
+  }
+
+  /**
+   * A response that can not be parsed fails only its own item.
+   */
+  @Test
+  public void execute_FailureIsolated() {
+    DirectConnector connector = new DirectConnector();
+    BatchCallback callback = new BatchCallback();
+    DataSourceBatch batch = new DataSourceBatch(2);
+    batch.add(new TestContainer_Get1(connector, "S0"));
+    batch.add(new TestContainer_Get1(connector, "BAD"));
+    batch.add(new TestContainer_Get1(connector, "S2"));
+
+    batch.execute(callback);
+
+    assertNotNull(callback.batchResult);
+    assertEquals(1, callback.batchResult.getErrorCount());
+    assertFalse(callback.batchResult.getResult(0).isError());
+    assertNotNull(callback.batchResult.getResult(1).getException());
+    assertEquals("S2", callback.batchResult.getResult(2).getTransactionNo());
+  }
+
+  /**
+   * The data source's own callback is not called for batch results.
+   */
+  @Test
+  public void execute_OwnCallbackNotCalled() {
+    BatchCallback ownCallback = new BatchCallback();
+    BatchCallback callback = new BatchCallback();
+    DataSourceBatch batch = new DataSourceBatch();
+    batch.add(new TestContainer_Get1(ownCallback, new DirectConnector(), "S0"));
+
+    batch.execute(callback);
+
+    assertEquals(0, ownCallback.itemCount);
+    assertEquals(1, callback.itemCount);
+  }
+
+  /**
+   * An empty batch completes immediately, and a batch can only run once.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void execute_Once() {
+    BatchCallback callback = new BatchCallback();
+    DataSourceBatch batch = new DataSourceBatch();
+
+    batch.execute(callback);
+    assertNotNull(callback.batchResult);
+    assertEquals(0, callback.batchResult.size());
+
+    batch.execute(callback);
+  }
+
+  /**
+   * Canceling a batch cancels the calls in flight and fails the rest without starting them.
+   */
+  @Test
+  public void cancel_AbortsRemaining() {
+    HeldConnector connector = new HeldConnector();
+    BatchCallback callback = new BatchCallback();
+    DataSourceBatch batch = new DataSourceBatch(2);
+    for (int i = 0; i < 5; i++) {
+      batch.add(new TestContainer_Get1(connector, "S" + i));
+    }
+
+    batch.execute(callback);
+    connector.complete(0);
+    batch.cancel();
+    while (!connector.held.isEmpty()) {
+      connector.complete(0);
+    }
+
+    assertEquals(3, connector.started);
+    assertNotNull(callback.batchResult);
+    assertEquals("S0", callback.batchResult.getResult(0).getTransactionNo());
+    for (int i = 1; i < 5; i++) {
+      assertTrue(callback.batchResult.getResult(i).getException() instanceof CancellationException);
+    }
+  }
+
+  /**
+   * The batch timeout is a deadline for every data source in it, so the ones still waiting when it passes are never started.
+   */
+  @Test
+  public void setTimeoutMillis_Deadline() throws InterruptedException {
+    HeldConnector connector = new HeldConnector();
+    BatchCallback callback = new BatchCallback();
+    DataSourceBatch batch = new DataSourceBatch(1);
+    batch.add(new TestContainer_Get1(connector, "S0"));
+    batch.add(new TestContainer_Get1(connector, "S1"));
+    batch.setTimeoutMillis(200);
+
+    batch.execute(callback);
+    final CountDownLatch aborted = new CountDownLatch(1);
+    DataSourceCall call = DataSourceCall.from((IDataSourceConnectorCallback) connector.held.get(0)[0]);
+    if (!call.addAbortAction(new Runnable() {
+      @Override
+      public void run() {
+        aborted.countDown();
+      }
+    })) {
+      aborted.countDown();
+    }
+    assertTrue(aborted.await(5, TimeUnit.SECONDS));
+    // The response only arrives after the deadline.
+    connector.complete(0);
+
+    assertEquals(1, connector.started);
+    assertNotNull(callback.batchResult);
+    assertTrue(callback.batchResult.getResult(0).getException() instanceof InterruptedIOException);
+    assertTrue(callback.batchResult.getResult(1).getException() instanceof InterruptedIOException);
+  }
+
+  private static String getJsonResponse(String jsonRequest) {
+    if (jsonRequest.contains("BAD")) {
+      return "{\"rows\":[";
+    }
+
+    String serialNo = jsonRequest.substring(jsonRequest.indexOf(":\"") + 2, jsonRequest.lastIndexOf('"'));
+    return "{\"outputs\":{},\"rows\":[],\"rowLimitExceeded\":false,\"transactionNo\":\"" + serialNo + "\"}";
+  }
+
+  /**
+   * Completes every call before execute returns.
+   */
+  private static class DirectConnector implements IDataSourceConnector {
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(getJsonResponse(jsonRequest), 200), index);
+    }
+  }
+
+  /**
+   * Holds calls until the test completes them.
+   */
+  private static class HeldConnector implements IDataSourceConnector {
+
+    final List<Object[]> held = new ArrayList<>();
+    int maxHeld = 0;
+    int started = 0;
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      started++;
+      held.add(new Object[]{callback, index, jsonRequest});
+      maxHeld = Math.max(maxHeld, held.size());
+    }
+
+    void complete(int position) {
+      Object[] call = held.remove(position);
+      ((IDataSourceConnectorCallback) call[0])
+          .onDataSourceConnectorComplete(new HttpDataSourceResult(getJsonResponse((String) call[2]), 200), (Integer) call[1]);
+    }
+  }
+
+  private static class BatchCallback implements IDataSourceBatchCallback {
+
+    int itemCount = 0;
+    DataSourceBatchResult batchResult;
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      assertNull(batchResult);
+      itemCount++;
+    }
+
+    @Override
+    public void onBatchComplete(DataSourceBatchResult batchResult) {
+      this.batchResult = batchResult;
+    }
+  }
+
+  private static class TestContainer_Get1 extends Container_Get1 {
+
+    TestContainer_Get1(IDataSourceConnector connector, String serialNo) {
+      this(null, connector, serialNo);
+    }
+
+    TestContainer_Get1(IDataSourceCallback callback, IDataSourceConnector connector, String serialNo) {
+      super(callback, null, "cloud", false, connector);
+      this.setSerialNo(serialNo);
+    }
+  }
+}
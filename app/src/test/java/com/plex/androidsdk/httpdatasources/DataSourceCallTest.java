@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class DataSourceCallTest {
+
+  /**
+   * A canceled call delivers a CancellationException instead of its response, and aborts the work registered for it.
+   */
+  @Test
+  public void cancel_SkipsResponse() {
+    HeldConnector connector = new HeldConnector();
+    ResultCallback callback = new ResultCallback();
+    DataSource dataSource = new TestContainer_Get1(callback, connector);
+
+    DataSourceCall call = dataSource.execute();
+    assertTrue(call.cancel());
+    assertFalse(call.cancel());
+    assertTrue(call.isCanceled());
+
+    connector.complete(0, new HttpDataSourceResult(DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 5), 200));
+
+    assertEquals(1, callback.count);
+    assertTrue(callback.result.getException() instanceof CancellationException);
+    assertTrue(callback.result.getRows().isEmpty());
+  }
+
+  /**
+   * A call that has completed can no longer be canceled.
+   */
+  @Test
+  public void cancel_AfterComplete() {
+    HeldConnector connector = new HeldConnector();
+    ResultCallback callback = new ResultCallback();
+    DataSource dataSource = new TestContainer_Get1(callback, connector);
+
+    DataSourceCall call = dataSource.execute();
+    connector.complete(0, new HttpDataSourceResult(DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 5), 200));
+
+    assertFalse(call.cancel());
+    assertFalse(call.isCanceled());
+    assertNull(callback.result.getException());
+    assertEquals(5, callback.result.getRows().size());
+  }
+
+  /**
+   * A call that outlives its call timeout is aborted, which unblocks the connection, and reports an InterruptedIOException.
+   */
+  @Test
+  public void callTimeout_Aborts() throws InterruptedException {
+    BlockingConnector connector = new BlockingConnector();
+    ResultCallback callback = new ResultCallback();
+    DataSource dataSource = new TestContainer_Get1(callback, connector);
+    dataSource.setCallTimeoutMillis(50);
+
+    DataSourceCall call = dataSource.execute();
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(call.isTimedOut());
+    assertTrue(callback.result.getException() instanceof InterruptedIOException);
+  }
+
+  /**
+   * A call canceled while waiting to be retried is not retried.
+   */
+  @Test
+  public void cancel_StopsRetries() throws InterruptedException {
+    HeldConnector connector = new HeldConnector();
+    ResultCallback callback = new ResultCallback();
+    RetryPolicy policy = new RetryPolicy(3, 60000, 60000, 0, 1000, 503);
+    DataSource dataSource = new TestContainer_Get1(callback, new RetryingDataSourceConnector(connector, policy));
+
+    DataSourceCall call = dataSource.execute();
+    connector.complete(0, new HttpDataSourceResult(new SocketTimeoutException()));
+    assertEquals(0, callback.count);
+
+    // The retry starts at once instead of after the backoff, so it can report the cancellation.
+    call.cancel();
+    assertTrue(connector.awaitHeld(5, TimeUnit.SECONDS));
+    connector.complete(0, new HttpDataSourceResult(new SocketTimeoutException()));
+
+    assertEquals(2, connector.attempts);
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(callback.result.getException() instanceof CancellationException);
+  }
+
+  /**
+   * Holds calls until the test completes them.
+   */
+  private static class HeldConnector implements IDataSourceConnector {
+
+    private final List<Object[]> _held = new ArrayList<>();
+    int attempts = 0;
+
+    @Override
+    public synchronized void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer,
+        String jsonRequest, IDataSourceConnectorCallback callback, int index) {
+      attempts++;
+      _held.add(new Object[]{callback, index});
+      this.notifyAll();
+    }
+
+    synchronized boolean awaitHeld(long timeout, TimeUnit unit) throws InterruptedException {
+      long deadlineMillis = System.currentTimeMillis() + unit.toMillis(timeout);
+      while (_held.isEmpty() && System.currentTimeMillis() < deadlineMillis) {
+        this.wait(deadlineMillis - System.currentTimeMillis());
+      }
+      return !_held.isEmpty();
+    }
+
+    void complete(int position, HttpDataSourceResult result) {
+      Object[] call;
+      synchronized (this) {
+        call = _held.remove(position);
+      }
+      ((IDataSourceConnectorCallback) call[0]).onDataSourceConnectorComplete(result, (Integer) call[1]);
+    }
+  }
+
+  /**
+   * Behaves like a connection that never responds until it is disconnected.
+   */
+  private static class BlockingConnector implements IDataSourceConnector {
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        final IDataSourceConnectorCallback callback, final int index) {
+      Runnable disconnect = new Runnable() {
+        @Override
+        public void run() {
+          callback.onDataSourceConnectorComplete(new HttpDataSourceResult(new IOException("Socket closed")), index);
+        }
+      };
+
+      // Like HttpDataSourceConnector, disconnects at once if the call was aborted before the connection was opened.
+      if (!DataSourceCall.from(callback).addAbortAction(disconnect)) {
+        disconnect.run();
+      }
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceCallback {
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile int count = 0;
+    volatile DataSourceResult result;
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      result = dataSourceResult;
+      count++;
+      latch.countDown();
+    }
+  }
+
+  private static class TestContainer_Get1 extends Container_Get1 {
+
+    TestContainer_Get1(IDataSourceCallback callback, IDataSourceConnector connector) {
+      super(callback, null, "cloud", false, connector);
+      this.setSerialNo("S123456");
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import com.plex.androidsdk.httpdatasources.part.Part_Name_Output_Get;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class DataSourceDefinitionTest {
+
+  /**
+   * A call made through a definition sends the same request as the data source object with the same inputs, and delivers its rows to the given
+   * callback and index.
+   */
+  @Test
+  public void execute_SameRequestAsDataSource() {
+    RecordingConnector connector = new RecordingConnector(DataSourceFixtures.CONTAINER_GET1);
+    ResultCallback callback = new ResultCallback();
+    DataSourceDefinition<Container_Get1.Input> definition = Container_Get1.definition().withServer(null, "cloud", true).withConnector(connector);
+
+    definition.execute(new Container_Get1.Input("S123456"), callback, 4);
+
+    assertEquals(DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, null).getJsonRequest(), connector.requests.get(0));
+    assertEquals(Integer.valueOf(6455), connector.dataSourceKeys.get(0));
+    assertEquals(Integer.valueOf(4), callback.indexes.get(0));
+    assertEquals(3, callback.results.get(0).getRows().size());
+    assertSame(definition.getConnector(), connector);
+  }
+
+  /**
+   * Outputs are decoded into the definition's outputs type.
+   */
+  @Test
+  public void execute_Outputs() {
+    RecordingConnector connector = new RecordingConnector(DataSourceFixtures.PART_NAME_OUTPUT_GET);
+    ResultCallback callback = new ResultCallback();
+
+    Part_Name_Output_Get.definition().withServer(null, "cloud", false).withConnector(connector)
+        .execute(new Part_Name_Output_Get.Input(123456), callback, 0);
+
+    assertEquals(DataSourceFixtures.createDataSource(DataSourceFixtures.PART_NAME_OUTPUT_GET, null).getJsonRequest(), connector.requests.get(0));
+    assertNotNull(callback.results.get(0).getOutputs());
+    assertNull(callback.results.get(0).getException());
+  }
+
+  /**
+   * Every input of executeAll is sent, and results are reported in the order of the inputs.
+   */
+  @Test
+  public void executeAll_OneCallPerInput() {
+    RecordingConnector connector = new RecordingConnector(DataSourceFixtures.CONTAINER_GET1);
+    ResultCallback callback = new ResultCallback();
+
+    Container_Get1.definition().withServer(null, "cloud", false).withConnector(connector)
+        .executeAll(Arrays.asList(new Container_Get1.Input("S1"), new Container_Get1.Input("S2"), new Container_Get1.Input("S3")), callback);
+
+    assertEquals(3, connector.requests.size());
+    assertEquals(3, callback.batchResult.size());
+    assertEquals(Arrays.asList(0, 1, 2), callback.indexes);
+    assertEquals(0, callback.batchResult.getErrorCount());
+  }
+
+  /**
+   * A definition without a server can not execute.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void execute_NoServer() {
+    Container_Get1.definition().execute(new Container_Get1.Input("S1"), new ResultCallback(), 0);
+  }
+
+  /**
+   * Answers every call at once with a response of the given data source.
+   */
+  private static class RecordingConnector implements IDataSourceConnector {
+
+    final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    final List<Integer> dataSourceKeys = Collections.synchronizedList(new ArrayList<Integer>());
+    private final String _dataSourceName;
+
+    RecordingConnector(String dataSourceName) {
+      _dataSourceName = dataSourceName;
+    }
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      requests.add(jsonRequest);
+      dataSourceKeys.add(dataSourceKey);
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(DataSourceFixtures.createResponse(_dataSourceName, 3), 200), index);
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceBatchCallback {
+
+    final List<DataSourceResult> results = new ArrayList<>();
+    final List<Integer> indexes = new ArrayList<>();
+    DataSourceBatchResult batchResult;
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      results.add(dataSourceResult);
+      indexes.add(index);
+    }
+
+    @Override
+    public void onBatchComplete(DataSourceBatchResult batchResult) {
+      this.batchResult = batchResult;
+    }
+  }
+}
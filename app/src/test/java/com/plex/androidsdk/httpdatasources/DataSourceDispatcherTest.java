@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class DataSourceDispatcherTest {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  /**
+   * Calls against different hosts run at the same time.
+   */
+  @Test
+  public void runsCallsInParallel() throws InterruptedException {
+    DataSourceDispatcher dispatcher = new DataSourceDispatcher(4, 1, 10, DIRECT_EXECUTOR);
+    final CountDownLatch allStarted = new CountDownLatch(3);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    for (int i = 0; i < 3; i++) {
+      dispatcher.enqueue("host" + i, new BlockingCall(allStarted, release));
+    }
+
+    assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+    assertEquals(3, dispatcher.getRunningCallsCount());
+    release.countDown();
+  }
+
+  /**
+   * Calls against the same host wait until a running call for that host finishes.
+   */
+  @Test
+  public void limitsCallsPerHost() throws InterruptedException {
+    DataSourceDispatcher dispatcher = new DataSourceDispatcher(4, 2, 10, DIRECT_EXECUTOR);
+    final CountDownLatch started = new CountDownLatch(2);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(3);
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      dispatcher.enqueue("cloud.plex.com", new Runnable() {
+        @Override
+        public void run() {
+          maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+          started.countDown();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+          finished.countDown();
+        }
+      });
+    }
+
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertEquals(1, dispatcher.getQueuedCallsCount());
+    release.countDown();
+
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    assertEquals(2, maxRunning.get());
+  }
+
+  /**
+   * Calls are rejected once the queue is full.
+   */
+  @Test
+  public void rejectsWhenQueueIsFull() throws InterruptedException {
+    DataSourceDispatcher dispatcher = new DataSourceDispatcher(1, 1, 1, DIRECT_EXECUTOR);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    assertTrue(dispatcher.enqueue("cloud.plex.com", new BlockingCall(started, release)));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertTrue(dispatcher.enqueue("cloud.plex.com", new BlockingCall(new CountDownLatch(1), release)));
+    assertFalse(dispatcher.enqueue("cloud.plex.com", new BlockingCall(new CountDownLatch(1), release)));
+    release.countDown();
+  }
+
+  /**
+   * With adaptive concurrency on, the limit per host backs off while latency rises and grows back once it settles.
+   */
+  @Test
+  public void adaptiveConcurrency_FollowsLatency() {
+    DataSourceDispatcher dispatcher = new DataSourceDispatcher(8, 8, 10, DIRECT_EXECUTOR);
+    assertEquals(8, dispatcher.getMaxRequestsPerHost("cloud.plex.com"));
+    dispatcher.setAdaptiveConcurrency(true);
+
+    for (int i = 0; i < 50; i++) {
+      dispatcher.onCallCompleted("cloud.plex.com", TimeUnit.MILLISECONDS.toNanos(20), false);
+    }
+    assertEquals(8, dispatcher.getMaxRequestsPerHost("cloud.plex.com"));
+
+    for (int i = 0; i < 20; i++) {
+      dispatcher.onCallCompleted("cloud.plex.com", TimeUnit.MILLISECONDS.toNanos(200), false);
+    }
+    int limit = dispatcher.getMaxRequestsPerHost("cloud.plex.com");
+    assertTrue(limit < 8);
+    assertEquals(8, dispatcher.getMaxRequestsPerHost("test.cloud.plex.com"));
+
+    for (int i = 0; i < 50; i++) {
+      dispatcher.onCallCompleted("cloud.plex.com", -1, true);
+    }
+    assertEquals(1, dispatcher.getMaxRequestsPerHost("cloud.plex.com"));
+
+    AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(1, 1, 8);
+    for (int i = 0; i < 100; i++) {
+      concurrencyLimit.onSample(TimeUnit.MILLISECONDS.toNanos(20), concurrencyLimit.getLimit(), false);
+    }
+    assertEquals(8, concurrencyLimit.getLimit());
+
+    dispatcher.setAdaptiveConcurrency(false);
+    assertEquals(8, dispatcher.getMaxRequestsPerHost("cloud.plex.com"));
+  }
+
+  /**
+   * A call that signals when it starts and then waits to be released.
+   */
+  private static class BlockingCall implements Runnable {
+
+    private final CountDownLatch _started;
+    private final CountDownLatch _release;
+
+    BlockingCall(CountDownLatch started, CountDownLatch release) {
+      _started = started;
+      _release = release;
+    }
+
+    @Override
+    public void run() {
+      _started.countDown();
+      try {
+        _release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
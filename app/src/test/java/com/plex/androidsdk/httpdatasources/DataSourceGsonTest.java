@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class DataSourceGsonTest {
+
+  /**
+   * Adapters are built once per type and reused.
+   */
+  @Test
+  public void getAdapter_Cached() {
+    DataSourceGson gson = new DataSourceGson();
+
+    assertSame(gson.getAdapter(TestInput.class), gson.getAdapter(TestInput.class));
+  }
+
+  /**
+   * Requests are written exactly as Gson.toJson writes them, including leaving out null fields and escaping HTML characters.
+   */
+  @Test
+  public void toJson_SameAsGson() {
+    TestInput input = new TestInput();
+    input.serialNo = "<A&B>";
+
+    assertEquals(new Gson().toJson(input), new DataSourceGson().toJson(input));
+    assertEquals("{}", new DataSourceGson().toJson(new TestInput()));
+  }
+
+  /**
+   * Registered adapters replace the reflective ones.
+   */
+  @Test
+  public void registerTypeAdapter() throws IOException {
+    DataSourceGson gson = new DataSourceGson();
+    TypeAdapter<TestInput> reflective = gson.getAdapter(TestInput.class);
+
+    gson.registerTypeAdapter(TestInput.class, new TypeAdapter<TestInput>() {
+      @Override
+      public void write(JsonWriter out, TestInput value) throws IOException {
+        out.value(value.serialNo);
+      }
+
+      @Override
+      public TestInput read(JsonReader in) throws IOException {
+        TestInput input = new TestInput();
+        input.serialNo = in.nextString();
+        return input;
+      }
+    });
+
+    assertNotSame(reflective, gson.getAdapter(TestInput.class));
+
+    TestInput input = new TestInput();
+    input.serialNo = "S1";
+    assertEquals("\"S1\"", gson.toJson(input));
+    TestInput read = gson.fromJson(new JsonReader(new StringReader("\"S2\"")), TestInput.class);
+    assertEquals("S2", read.serialNo);
+  }
+
+  /**
+   * Warming up a data source class builds the adapters its first call would otherwise build.
+   */
+  @Test
+  public void warmUp_BuildsAdapters() throws ReflectiveOperationException {
+    DataSource dataSource = new WarmUpContainer_Get1(null, null, "cloud", false);
+    WarmUpContainer_Get1.gson.types.clear();
+
+    DataSource.warmUp(WarmUpContainer_Get1.class);
+
+    Set<Type> types = WarmUpContainer_Get1.gson.types;
+    assertEquals(3, types.size());
+    assertTrue(types.contains(dataSource.getRowType()));
+    assertTrue(types.contains(dataSource.getBaseInput().getClass()));
+    assertTrue(types.contains(HttpDataSourceErrors.class));
+  }
+
+  private static class TestInput implements IBaseInput {
+
+    @SerializedName("Serial_No")
+    String serialNo;
+  }
+
+  /**
+   * Records the types adapters are requested for.
+   */
+  private static class RecordingGson extends DataSourceGson {
+
+    final Set<Type> types = Collections.synchronizedSet(new HashSet<Type>());
+
+    @Override
+    public <T> TypeAdapter<T> getAdapter(Type type) {
+      types.add(type);
+      return super.getAdapter(type);
+    }
+  }
+
+  private static class WarmUpContainer_Get1 extends Container_Get1 {
+
+    static final RecordingGson gson = new RecordingGson();
+
+    WarmUpContainer_Get1(IDataSourceCallback callback, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer) {
+      super(callback, credentials, serverName, useTestServer, null);
+    }
+
+    @Override
+    protected DataSourceGson getDataSourceGson() {
+      return gson;
+    }
+  }
+}
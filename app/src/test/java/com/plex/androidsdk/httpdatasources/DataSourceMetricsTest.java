@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+
+public class DataSourceMetricsTest {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  /**
+   * A response delivered as a string is timed and counted while the data source parses it, and reported before the callback.
+   */
+  @Test
+  public void complete_StringResponse() {
+    final RecordingListener listener = new RecordingListener();
+    IDataSourceCallback callback = new IDataSourceCallback() {
+      @Override
+      public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+        assertEquals(1, listener.metrics.size());
+      }
+    };
+    DataSource dataSource = DataSourceFixtures.createDataSource(DataSourceFixtures.PARTS_PICKER_GET2, callback);
+
+    HttpDataSourceResult result = new HttpDataSourceResult(DataSourceFixtures.createResponse(DataSourceFixtures.PARTS_PICKER_GET2, 25), 200);
+    result.setMetrics(this.createMetrics(dataSource, listener));
+    dataSource.onDataSourceConnectorComplete(result, 0);
+
+    assertEquals(1, listener.metrics.size());
+    DataSourceMetrics metrics = listener.metrics.get(0);
+    assertEquals("1", metrics.getTransactionNo());
+    assertEquals(25, metrics.getRowCount());
+    assertTrue(metrics.getNanos(DataSourceMetrics.Phase.PARSE) >= metrics.getNanos(DataSourceMetrics.Phase.ROW_MAPPING));
+    assertTrue(metrics.getTotalNanos() >= metrics.getNanos(DataSourceMetrics.Phase.PARSE));
+    assertEquals(-1, metrics.getNanos(DataSourceMetrics.Phase.DNS));
+    assertNull(metrics.getException());
+  }
+
+  /**
+   * A response parsed from the stream has its rows counted by readResponse, and is reported once it is delivered.
+   */
+  @Test
+  public void readResponse_StreamResponse() throws IOException {
+    RecordingListener listener = new RecordingListener();
+    DataSource dataSource = DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, new IDataSourceCallback() {
+      @Override
+      public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      }
+    });
+    DataSourceMetrics metrics = this.createMetrics(dataSource, listener);
+    byte[] body = DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 10).getBytes("UTF-8");
+
+    metrics.markParseStart();
+    DataSourceResult dsResult = dataSource.readResponse(new ByteArrayInputStream(body), 200, 0, DIRECT_EXECUTOR, metrics);
+    metrics.markParseEnd();
+    assertEquals(10, metrics.getRowCount());
+    assertEquals(0, listener.metrics.size());
+
+    HttpDataSourceResult result = new HttpDataSourceResult(dsResult, 200);
+    result.setMetrics(metrics);
+    dataSource.onDataSourceConnectorComplete(result, 0);
+
+    assertEquals(1, listener.metrics.size());
+    assertEquals("1", metrics.getTransactionNo());
+    assertEquals(10, metrics.getRowCount());
+  }
+
+  /**
+   * A result shared by coalesced callers is reported once, and the histogram listener counts calls over its budget.
+   */
+  @Test
+  public void complete_CoalescedReportedOnce() {
+    final List<IDataSourceConnectorCallback> held = new ArrayList<>();
+    final HistogramMetricsListener listener = new HistogramMetricsListener(1);
+    CoalescingDataSourceConnector connector = new CoalescingDataSourceConnector(new IDataSourceConnector() {
+      @Override
+      public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+          IDataSourceConnectorCallback callback, int index) {
+        held.add(callback);
+      }
+    });
+
+    IDataSourceCallback callback = new IDataSourceCallback() {
+      @Override
+      public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+        assertEquals(3, dataSourceResult.getRows().size());
+      }
+    };
+    DataSource first = DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, callback);
+    DataSource second = DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, callback);
+    connector.execute(first.getDataSourceKey(), null, "cloud", false, first.getJsonRequest(), first, 0);
+    connector.execute(second.getDataSourceKey(), null, "cloud", false, second.getJsonRequest(), second, 1);
+    assertEquals(1, held.size());
+
+    DataSourceMetrics metrics = this.createMetrics(first, listener);
+    this.sleep(2);
+    HttpDataSourceResult result = new HttpDataSourceResult(DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 3), 200);
+    result.setMetrics(metrics);
+    held.get(0).onDataSourceConnectorComplete(result, 0);
+
+    assertEquals(3, metrics.getRowCount());
+    LatencyHistogram total = listener.getHistogram(first.getDataSourceKey(), DataSourceMetrics.Phase.TOTAL);
+    assertNotNull(total);
+    assertEquals(1, total.getTotalCount());
+    assertEquals(1, listener.getHistogram(first.getDataSourceKey(), DataSourceMetrics.Phase.PARSE).getTotalCount());
+    assertEquals(0, listener.getHistogram(first.getDataSourceKey(), DataSourceMetrics.Phase.CONNECT).getTotalCount());
+    assertEquals(1, listener.getOverBudgetCount(first.getDataSourceKey()));
+  }
+
+  private DataSourceMetrics createMetrics(DataSource dataSource, IMetricsListener listener) {
+    DataSourceMetrics metrics = new DataSourceMetrics(dataSource.getDataSourceKey(), listener);
+    metrics.markEnqueued();
+    metrics.markStarted();
+    return metrics;
+  }
+
+  private void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class RecordingListener implements IMetricsListener {
+
+    final List<DataSourceMetrics> metrics = new ArrayList<>();
+
+    @Override
+    public void onDataSourceMetrics(DataSourceMetrics metrics) {
+      this.metrics.add(metrics);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Move_Simple;
+import com.plex.androidsdk.httpdatasources.part.Part_Name_Output_Get;
+import org.junit.Test;
+
+public class DataSourceResponseCacheTest {
+
+  private static final String RESPONSE = "{\"outputs\":{\"Name\":\"Rear Suspension Arm\"},\"rows\":[],\"rowLimitExceeded\":false,\"transactionNo\":\"1\"}";
+
+  /**
+   * Responses are only cached for data sources with a time to live.
+   */
+  @Test
+  public void put_OnlyWithTimeToLive() {
+    DataSourceResponseCache cache = new DataSourceResponseCache(10000);
+    cache.setTimeToLive(721, 60000);
+
+    cache.put(new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":1}"), RESPONSE);
+    cache.put(new DataSourceCallKey(1791, "user1", "cloud", false, "{\"Part_No\":\"A\"}"), RESPONSE);
+
+    assertEquals(RESPONSE, cache.get(new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":1}")));
+    assertNull(cache.get(new DataSourceCallKey(721, "user1", "cloud", true, "{\"Part_Key\":1}")));
+    assertNull(cache.get(new DataSourceCallKey(721, "user2", "cloud", false, "{\"Part_Key\":1}")));
+    assertNull(cache.get(new DataSourceCallKey(1791, "user1", "cloud", false, "{\"Part_No\":\"A\"}")));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+  }
+
+  /**
+   * Expired responses are not returned.
+   */
+  @Test
+  public void get_Expired() throws InterruptedException {
+    DataSourceResponseCache cache = new DataSourceResponseCache(10000);
+    cache.setTimeToLive(721, 1);
+    DataSourceCallKey key = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":1}");
+
+    cache.put(key, RESPONSE);
+    Thread.sleep(5);
+
+    assertNull(cache.get(key));
+    assertEquals(0, cache.getEntryCount());
+    assertEquals(0, cache.getSizeBytes());
+  }
+
+  /**
+   * The least recently used response is evicted when the cache is full.
+   */
+  @Test
+  public void put_EvictsLeastRecentlyUsed() {
+    DataSourceCallKey key1 = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":1}");
+    DataSourceCallKey key2 = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":2}");
+    DataSourceCallKey key3 = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":3}");
+    DataSourceResponseCache cache = new DataSourceResponseCache(750);
+    cache.setTimeToLive(721, 60000);
+
+    cache.put(key1, RESPONSE);
+    cache.put(key2, RESPONSE);
+    cache.get(key1);
+    cache.put(key3, RESPONSE);
+
+    assertEquals(1, cache.getEvictionCount());
+    assertNull(cache.get(key2));
+    assertEquals(RESPONSE, cache.get(key1));
+    assertEquals(RESPONSE, cache.get(key3));
+  }
+
+  /**
+   * Read-only data sources are served from the cache after the first call. Write data sources always reach the connector.
+   */
+  @Test
+  public void connector_CachesReadOnly() {
+    CountingConnector countingConnector = new CountingConnector();
+    DataSourceResponseCache cache = new DataSourceResponseCache(10000);
+    cache.setTimeToLive(721, 60000);
+    cache.setTimeToLive(17218, 60000);
+    CachingDataSourceConnector connector = new CachingDataSourceConnector(countingConnector, cache);
+
+    TestPart_Name_Output_Get read = new TestPart_Name_Output_Get(connector);
+    read.execute();
+    read.execute();
+
+    TestContainer_Move_Simple write = new TestContainer_Move_Simple(connector);
+    write.execute();
+    write.execute();
+
+    assertEquals(3, countingConnector.calls);
+    assertEquals(1, cache.getHitCount());
+  }
+
+  /**
+   * Counts calls and returns a fixed response.
+   */
+  private static class CountingConnector implements IDataSourceConnector {
+
+    int calls = 0;
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      calls++;
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(RESPONSE, 200), index);
+    }
+  }
+
+  private static class TestPart_Name_Output_Get extends Part_Name_Output_Get {
+
+    TestPart_Name_Output_Get(IDataSourceConnector connector) {
+      super(null, null, "cloud", false, connector);
+    }
+  }
+
+  private static class TestContainer_Move_Simple extends Container_Move_Simple {
+
+    TestContainer_Move_Simple(IDataSourceConnector connector) {
+      super(null, null, "cloud", false, connector);
+    }
+  }
+}
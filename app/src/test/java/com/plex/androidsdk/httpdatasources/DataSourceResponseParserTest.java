@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class DataSourceResponseParserTest {
+
+  /**
+   * Members are read regardless of the order they appear in.
+   */
+  @Test
+  public void parse_AnyOrder() throws IOException {
+    String json = "{\"transactionNo\":\"3836077\",\"rowLimitExceeded\":true,\"rows\":[{\"Part_Key\":1},{\"Part_Key\":2}],\"outputs\":{\"Name\":\"Arm\"}}";
+
+    DataSourceResult dsResult = this.getParser().parse(new JsonReader(new StringReader(json)));
+
+    assertEquals("3836077", dsResult.getTransactionNo());
+    assertTrue(dsResult.isRowLimitExceeded());
+    assertEquals(2, dsResult.getRows().size());
+    assertEquals(2, ((TestRow) dsResult.getRows().get(1)).partKey);
+    assertEquals("Arm", ((TestOutputs) dsResult.getOutputs()).Name);
+  }
+
+  /**
+   * Rows are handed out in order as they are decoded.
+   */
+  @Test
+  public void parse_HandsOutRows() throws IOException {
+    String json = "{\"outputs\":{},\"rows\":[{\"Part_Key\":1},{\"Part_Key\":2},{\"Part_Key\":3}],\"rowLimitExceeded\":false,\"transactionNo\":\"1\"}";
+    final List<Integer> partKeys = new ArrayList<>();
+    DataSourceResult dsResult = new DataSourceResult();
+
+    this.getParser().parse(new JsonReader(new StringReader(json)), dsResult, new DataSourceResponseParser.RowHandler() {
+      @Override
+      public void onRow(BaseRow row) {
+        partKeys.add(((TestRow) row).partKey);
+      }
+    });
+
+    assertEquals(3, partKeys.size());
+    assertEquals(Integer.valueOf(3), partKeys.get(2));
+    assertEquals(0, dsResult.getRows().size());
+  }
+
+  /**
+   * Null members and unknown members are skipped, and rows are skipped when there is no row type.
+   */
+  @Test
+  public void parse_SkipsNullAndUnknown() throws IOException {
+    String json = "{\"outputs\":null,\"extra\":{\"a\":[1,2]},\"rows\":[{\"Part_Key\":1}],\"transactionNo\":\"5\"}";
+    DataSourceResponseParser parser = new DataSourceResponseParser(new DataSourceGson(), null, TestOutputs.class);
+
+    DataSourceResult dsResult = parser.parse(new JsonReader(new StringReader(json)));
+
+    assertNull(dsResult.getOutputs());
+    assertEquals(0, dsResult.getRows().size());
+    assertEquals("5", dsResult.getTransactionNo());
+  }
+
+  private DataSourceResponseParser getParser() {
+    return new DataSourceResponseParser(new DataSourceGson(), TestRow.class, TestOutputs.class);
+  }
+
+  static class TestRow extends BaseRow {
+
+    @SerializedName("Part_Key")
+    int partKey;
+  }
+
+  static class TestOutputs extends BaseOutputs {
+
+    String Name;
+  }
+}
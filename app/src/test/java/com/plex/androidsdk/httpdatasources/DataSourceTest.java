@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.JsonParseException;
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import com.plex.androidsdk.httpdatasources.part.Parts_Picker_Get2;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class DataSourceTest {
+
+  private static final Pattern SERIAL_NO = Pattern.compile("\"Serial_No\":\"([^\"]*)\"");
+
+  /**
+   * A response handed over on the main thread is parsed on another thread, and only the finished result is posted to the callback executor.
+   */
+  @Test
+  public void onDataSourceConnectorComplete_ParsesOffMainThread() throws InterruptedException {
+    ResultCallback callback = new ResultCallback();
+    CountingExecutor callbackExecutor = new CountingExecutor();
+    DataSource dataSource = new MainThreadParts_Picker_Get2(callback);
+    dataSource.setCallbackExecutor(callbackExecutor);
+
+    dataSource.onDataSourceConnectorComplete(new HttpDataSourceResult(DataSourceFixtures.createResponse(DataSourceFixtures.PARTS_PICKER_GET2, 5000),
+        200), 3);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertNotSame(Thread.currentThread(), callback.thread);
+    assertEquals(1, callbackExecutor.count.get());
+    assertEquals(3, callback.index);
+    assertEquals(5000, callback.result.getRows().size());
+    assertNull(callback.result.getException());
+  }
+
+  /**
+   * A response that can not be parsed in the background is reported on the result, since there is no caller to throw to.
+   */
+  @Test
+  public void onDataSourceConnectorComplete_ReportsParseError() throws InterruptedException {
+    ResultCallback callback = new ResultCallback();
+    DataSource dataSource = new MainThreadParts_Picker_Get2(callback);
+    dataSource.setCallbackExecutor(new CountingExecutor());
+
+    dataSource.onDataSourceConnectorComplete(new HttpDataSourceResult("{\"rows\":[{", 200), 0);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(callback.result.getException() instanceof JsonParseException);
+  }
+
+  /**
+   * A result the connector already parsed is delivered as is, on the thread it was handed over on.
+   */
+  @Test
+  public void onDataSourceConnectorComplete_ParsedResultDeliveredDirectly() {
+    ResultCallback callback = new ResultCallback();
+    CountingExecutor callbackExecutor = new CountingExecutor();
+    DataSource dataSource = new MainThreadParts_Picker_Get2(callback);
+    dataSource.setCallbackExecutor(callbackExecutor);
+    DataSourceResult dsResult = new DataSourceResult();
+
+    dataSource.onDataSourceConnectorComplete(new HttpDataSourceResult(dsResult, 200), 0);
+
+    assertSame(dsResult, callback.result);
+    assertSame(Thread.currentThread(), callback.thread);
+    assertEquals(0, callbackExecutor.count.get());
+  }
+
+  /**
+   * Data sources made with the public constructor share one connector, and one connector runs many calls at once, each delivering to its own
+   * callback and index.
+   */
+  @Test
+  public void execute_SharedConnector() throws InterruptedException {
+    DataSource first = new Container_Get1(null, null, "cloud", false);
+    DataSource second = new Container_Get1(null, null, "us1", true);
+    assertSame(HttpDataSourceConnector.getDefault(), first.getConnector());
+    assertSame(first.getConnector(), second.getConnector());
+
+    // Answers each call with its own serial number as the transaction number.
+    FakeHttpTransport transport = new FakeHttpTransport() {
+      @Override
+      String respond(String jsonRequest) {
+        Matcher matcher = SERIAL_NO.matcher(jsonRequest);
+        return "{\"rows\":[],\"transactionNo\":\"" + (matcher.find() ? matcher.group(1) : "") + "\"}";
+      }
+    };
+    HttpDataSourceConnector connector = new HttpDataSourceConnector(new DataSourceDispatcher(8, 8, 1000, new CountingExecutor()), transport);
+
+    List<ResultCallback> callbacks = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      ResultCallback callback = new ResultCallback();
+      callbacks.add(callback);
+      Container_Get1 dataSource = new ConnectorContainer_Get1(callback, connector);
+      dataSource.setSerialNo("S" + i);
+      dataSource.execute(i);
+    }
+
+    for (int i = 0; i < callbacks.size(); i++) {
+      assertTrue(callbacks.get(i).latch.await(5, TimeUnit.SECONDS));
+      assertEquals(i, callbacks.get(i).index);
+      assertNull(callbacks.get(i).result.getException());
+      assertEquals("S" + i, callbacks.get(i).result.getTransactionNo());
+    }
+    assertEquals(200, transport.requests.size());
+  }
+
+  private static class CountingExecutor implements Executor {
+
+    final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable command) {
+      count.incrementAndGet();
+      command.run();
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceCallback {
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile DataSourceResult result;
+    volatile Thread thread;
+    volatile int index;
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      this.result = dataSourceResult;
+      this.thread = Thread.currentThread();
+      this.index = index;
+      latch.countDown();
+    }
+  }
+
+  private static class ConnectorContainer_Get1 extends Container_Get1 {
+
+    ConnectorContainer_Get1(IDataSourceCallback callback, IDataSourceConnector connector) {
+      super(callback, null, "cloud", false, connector);
+    }
+  }
+
+  /**
+   * Behaves as if every result were handed over on the main thread.
+   */
+  private static class MainThreadParts_Picker_Get2 extends Parts_Picker_Get2 {
+
+    MainThreadParts_Picker_Get2(IDataSourceCallback callback) {
+      super(callback, null, "cloud", false, null);
+    }
+
+    @Override
+    boolean isMainThread() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.plex.androidsdk.httpdatasources.part.Part_Name_Output_Get;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskResponseCacheTest {
+
+  private static final String RESPONSE = "{\"outputs\":{\"Name\":\"Rear Suspension Arm\"},\"rows\":[],\"rowLimitExceeded\":false,\"transactionNo\":\"1\"}";
+  private static final DataSourceCallKey KEY = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":1}");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Responses survive reopening the cache.
+   */
+  @Test
+  public void get_AfterReopen() throws IOException {
+    File directory = folder.newFolder();
+    new DiskResponseCache(directory, 10000).put(KEY, RESPONSE);
+
+    DiskResponseCache cache = new DiskResponseCache(directory, 10000);
+
+    assertEquals(1, cache.getEntryCount());
+    assertEquals(RESPONSE, cache.get(KEY).getJsonResponse());
+    assertNull(cache.get(new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":2}")));
+    // Another user on the same server is never served this user's response.
+    assertNull(cache.get(new DataSourceCallKey(721, "user2", "cloud", false, "{\"Part_Key\":1}")));
+  }
+
+  /**
+   * A response whose file was changed fails its CRC check and is dropped.
+   */
+  @Test
+  public void get_Corrupted() throws IOException {
+    File directory = folder.newFolder();
+    DiskResponseCache cache = new DiskResponseCache(directory, 10000);
+    cache.put(KEY, RESPONSE);
+
+    for (File file : directory.listFiles()) {
+      if (file.getName().endsWith(".entry")) {
+        RandomAccessFile entry = new RandomAccessFile(file, "rw");
+        entry.seek(file.length() - 2);
+        entry.write('x');
+        entry.close();
+      }
+    }
+
+    assertNull(cache.get(KEY));
+    assertEquals(0, cache.getEntryCount());
+    assertEquals(0, cache.getSizeBytes());
+  }
+
+  /**
+   * The least recently used response is evicted when the index is full.
+   */
+  @Test
+  public void put_EvictsLeastRecentlyUsed() throws IOException, InterruptedException {
+    DataSourceCallKey key2 = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":2}");
+    DataSourceCallKey key3 = new DataSourceCallKey(721, "user1", "cloud", false, "{\"Part_Key\":3}");
+    DiskResponseCache cache = new DiskResponseCache(folder.newFolder(), 10000, 2);
+
+    cache.put(KEY, RESPONSE);
+    Thread.sleep(2);
+    cache.put(key2, RESPONSE);
+    Thread.sleep(2);
+    cache.get(KEY);
+    cache.put(key3, RESPONSE);
+
+    assertEquals(2, cache.getEntryCount());
+    assertNotNull(cache.get(KEY));
+    assertNull(cache.get(key2));
+    assertNotNull(cache.get(key3));
+  }
+
+  /**
+   * Opening the cache removes entry files left behind by a crash, but never other files in its directory.
+   */
+  @Test
+  public void open_KeepsOtherFiles() throws IOException {
+    File directory = folder.newFolder();
+    File otherFile = new File(directory, "settings.xml");
+    File strayEntry = new File(directory, "1a2b.entry");
+    File strayTemp = new File(directory, "3c4d.entry.tmp");
+    assertTrue(otherFile.createNewFile() && strayEntry.createNewFile() && strayTemp.createNewFile());
+
+    assertEquals(0, new DiskResponseCache(directory, 10000).getEntryCount());
+
+    assertTrue(otherFile.exists());
+    assertFalse(strayEntry.exists());
+    assertFalse(strayTemp.exists());
+  }
+
+  /**
+   * With CACHE_FIRST a fresh cached response is used instead of calling the server.
+   */
+  @Test
+  public void dataSource_CacheFirst() throws Exception {
+    DiskResponseCache cache = new DiskResponseCache(folder.newFolder(), 10000);
+    CountingConnector connector = new CountingConnector();
+    ResultCallback callback = new ResultCallback();
+
+    TestPart_Name_Output_Get pnog = new TestPart_Name_Output_Get(callback, connector);
+    pnog.setCachePolicy(CachePolicy.CACHE_FIRST, cache, TimeUnit.HOURS.toMillis(1));
+    pnog.setCallbackExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    });
+
+    pnog.execute();
+    this.waitForCache(cache);
+    pnog.execute();
+    this.waitForCache(cache);
+
+    assertEquals(1, connector.calls);
+    assertEquals(2, callback.results);
+  }
+
+  /**
+   * Only read-only data sources can use a cache policy.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void dataSource_WriteNotCached() throws IOException {
+    new com.plex.androidsdk.httpdatasources.Inventory.Container_Move_Simple(null, null, null)
+        .setCachePolicy(CachePolicy.CACHE_FIRST, new DiskResponseCache(folder.newFolder(), 10000), 1000);
+  }
+
+  private void waitForCache(DiskResponseCache cache) throws Exception {
+    cache.getExecutor().submit(new Runnable() {
+      @Override
+      public void run() {
+      }
+    }).get(5, TimeUnit.SECONDS);
+  }
+
+  private static class CountingConnector implements IDataSourceConnector {
+
+    int calls = 0;
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      calls++;
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(RESPONSE, 200), index);
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceCallback {
+
+    int results = 0;
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      assertEquals("1", dataSourceResult.getTransactionNo());
+      results++;
+    }
+  }
+
+  private static class TestPart_Name_Output_Get extends Part_Name_Output_Get {
+
+    TestPart_Name_Output_Get(IDataSourceCallback callback, IDataSourceConnector connector) {
+      super(callback, null, "cloud", false, connector);
+    }
+  }
+}
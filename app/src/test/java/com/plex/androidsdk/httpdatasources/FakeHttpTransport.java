@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers every exchange in memory, without a network. Override respond to choose the response body for a request.
+ */
+class FakeHttpTransport implements IHttpTransport {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+  final List<FakeExchange> exchanges = Collections.synchronizedList(new ArrayList<FakeExchange>());
+
+  @Override
+  public IHttpExchange open(URL url, String method, int connectTimeoutMillis, int readTimeoutMillis, DataSourceMetrics metrics) {
+    FakeExchange exchange = new FakeExchange();
+    exchanges.add(exchange);
+    this.onOpen(exchange);
+    return exchange;
+  }
+
+  @Override
+  public boolean isKeepAlive() {
+    return true;
+  }
+
+  /**
+   * Called on the connector thread when an exchange is opened.
+   *
+   * @param exchange The exchange.
+   */
+  void onOpen(FakeExchange exchange) {
+  }
+
+  /**
+   * The response body for a request.
+   *
+   * @param jsonRequest The request body.
+   * @return The response body.
+   */
+  String respond(String jsonRequest) {
+    return "{\"rows\":[],\"transactionNo\":\"1\"}";
+  }
+
+  class FakeExchange implements IHttpExchange {
+
+    final Map<String, String> requestProperties = new HashMap<>();
+    private final ByteArrayOutputStream _requestBody = new ByteArrayOutputStream();
+    private byte[] _responseBody;
+    volatile boolean disconnected = false;
+    volatile boolean responseRead = false;
+
+    @Override
+    public void setRequestProperty(String name, String value) {
+      requestProperties.put(name, value);
+    }
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      return _requestBody;
+    }
+
+    @Override
+    public int getResponseCode() {
+      if (_responseBody == null) {
+        String jsonRequest = new String(_requestBody.toByteArray(), UTF_8);
+        requests.add(jsonRequest);
+        _responseBody = respond(jsonRequest).getBytes(UTF_8);
+      }
+
+      return 200;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public String getContentEncoding() {
+      return null;
+    }
+
+    @Override
+    public int getContentLength() {
+      return _responseBody != null ? _responseBody.length : -1;
+    }
+
+    @Override
+    public InputStream getResponseStream() {
+      this.getResponseCode();
+      return new ByteArrayInputStream(_responseBody) {
+        @Override
+        public synchronized int read() {
+          return this.onRead(super.read());
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+          return this.onRead(super.read(b, off, len));
+        }
+
+        private int onRead(int read) {
+          if (read == -1) {
+            responseRead = true;
+          }
+          return read;
+        }
+      };
+    }
+
+    @Override
+    public void disconnect() {
+      disconnected = true;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.stream.JsonReader;
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Move_Simple;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import org.junit.Test;
+
+public class GeneratedTypeAdapterTest {
+
+  private static final String ROW = "{\"Container_Status\":\"OK\",\"Defect_Type\":null,\"Location\":\"A1\",\"Name\":\"Arm\",\"Note\":true,"
+      + "\"Operation_Code\":\"Weld\",\"Operation_Key\":\"42\",\"Part_Key\":12,\"Part_No_Revision\":\"P-1\",\"Quantity\":12.5,"
+      + "\"Rework_Operation\":null,\"Unknown\":{\"a\":[1,2]},\"Special_Instructions\":\"None\"}";
+
+  /**
+   * Row classes use the adapter generated for them unless generated adapters are turned off.
+   */
+  @Test
+  public void getAdapter_Generated() {
+    assertTrue(new DataSourceGson().getAdapter(Container_Get1.Row.class) instanceof GeneratedTypeAdapter);
+    assertFalse(new DataSourceGson(false).getAdapter(Container_Get1.Row.class) instanceof GeneratedTypeAdapter);
+    assertFalse(new DataSourceGson().getAdapter(HttpDataSourceErrors.class) instanceof GeneratedTypeAdapter);
+  }
+
+  /**
+   * The generated adapter reads a row exactly as the reflective adapter does, including nulls, numbers in strings and unknown columns.
+   */
+  @Test
+  public void read_SameAsReflective() throws IOException {
+    Container_Get1.Row generated = new DataSourceGson().fromJson(new JsonReader(new StringReader(ROW)), Container_Get1.Row.class);
+    Container_Get1.Row reflective = new DataSourceGson(false).fromJson(new JsonReader(new StringReader(ROW)), Container_Get1.Row.class);
+
+    assertEquals("OK", generated.getContainerStatus());
+    assertNull(generated.getDefectType());
+    assertEquals("true", generated.getNote());
+    assertEquals(42, generated.getOperationKey());
+    assertEquals(new BigDecimal("12.5"), generated.getQuantity());
+
+    assertEquals(reflective.getContainerStatus(), generated.getContainerStatus());
+    assertEquals(reflective.getDefectType(), generated.getDefectType());
+    assertEquals(reflective.getLocation(), generated.getLocation());
+    assertEquals(reflective.getName(), generated.getName());
+    assertEquals(reflective.getNote(), generated.getNote());
+    assertEquals(reflective.getOperationCode(), generated.getOperationCode());
+    assertEquals(reflective.getOperationKey(), generated.getOperationKey());
+    assertEquals(reflective.getPartKey(), generated.getPartKey());
+    assertEquals(reflective.getPartNoRevision(), generated.getPartNoRevision());
+    assertEquals(reflective.getQuantity(), generated.getQuantity());
+    assertEquals(reflective.getReworkOperation(), generated.getReworkOperation());
+    assertEquals(reflective.getSpecialInstructions(), generated.getSpecialInstructions());
+  }
+
+  /**
+   * Whole responses of the shipped row data sources parse the same with and without generated adapters.
+   */
+  @Test
+  public void parse_FixtureResponses() throws IOException {
+    String[] dataSources = {DataSourceFixtures.CONTAINER_GET1, DataSourceFixtures.PARTS_PICKER_GET2};
+
+    for (String name : dataSources) {
+      DataSource dataSource = DataSourceFixtures.createDataSource(name, null);
+      String response = DataSourceFixtures.createResponse(name, 50);
+      DataSourceResponseParser generated = new DataSourceResponseParser(new DataSourceGson(), dataSource.getRowType(), null);
+      DataSourceResponseParser reflective = new DataSourceResponseParser(new DataSourceGson(false), dataSource.getRowType(), null);
+
+      DataSourceResult generatedResult = generated.parse(new JsonReader(new StringReader(response)));
+      DataSourceResult reflectiveResult = reflective.parse(new JsonReader(new StringReader(response)));
+
+      assertEquals(50, generatedResult.getRows().size());
+      DataSourceGson gson = new DataSourceGson(false);
+      assertEquals(gson.toJson(reflectiveResult.getRows().get(49)), gson.toJson(generatedResult.getRows().get(49)));
+    }
+  }
+
+  /**
+   * The generated adapter writes the same JSON as the reflective adapter.
+   */
+  @Test
+  public void write_SameAsReflective() throws IOException {
+    Container_Get1.Row row = new DataSourceGson().fromJson(new JsonReader(new StringReader(ROW)), Container_Get1.Row.class);
+
+    assertEquals(new DataSourceGson(false).toJson(row), new DataSourceGson().toJson(row));
+  }
+
+  /**
+   * An immutable input, which has no no argument constructor, gets an adapter that writes the same JSON as the reflective adapter, and is read by
+   * the reflective adapter.
+   */
+  @Test
+  public void write_ImmutableInput() throws IOException {
+    Container_Move_Simple.Input input = new Container_Move_Simple.Input("S1", "Dock <1>", 8, true);
+
+    assertTrue(new DataSourceGson().getAdapter(Container_Move_Simple.Input.class) instanceof GeneratedTypeAdapter);
+    assertEquals(new DataSourceGson(false).toJson(input), new DataSourceGson().toJson(input));
+    assertEquals("{}", new DataSourceGson().toJson(new Container_Get1.Input(null)));
+
+    Container_Move_Simple.Input read = new DataSourceGson().fromJson(new JsonReader(new StringReader(new DataSourceGson().toJson(input))),
+        Container_Move_Simple.Input.class);
+    assertEquals("Dock <1>", read.getLocation());
+    assertEquals(8, read.getUpdateBy());
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import com.plex.androidsdk.httpdatasources.part.Parts_Picker_Get2;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class HttpDataSourceConnectorTest {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  /**
+   * A call without request JSON is sent with an empty body.
+   */
+  @Test
+  public void execute_NoJsonRequest() throws InterruptedException {
+    FakeHttpTransport transport = new FakeHttpTransport();
+    HttpDataSourceConnector connector = new HttpDataSourceConnector(new DataSourceDispatcher(1, 1, 10, DIRECT_EXECUTOR), transport);
+    ResultCallback callback = new ResultCallback();
+
+    connector.execute(6455, null, "cloud", false, null, callback, 0);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertNull(callback.result.getException());
+    assertEquals(200, callback.result.getHTTPResponseCode());
+    assertEquals("", transport.requests.get(0));
+  }
+
+  /**
+   * A call aborted after its exchange was opened, but before the connector could register to abort it, still releases the exchange.
+   */
+  @Test
+  public void execute_AbortedAfterOpen() throws InterruptedException {
+    final AtomicReference<DataSourceCall> call = new AtomicReference<>();
+    FakeHttpTransport transport = new FakeHttpTransport() {
+      @Override
+      void onOpen(FakeExchange exchange) {
+        call.get().cancel();
+      }
+    };
+    DataSourceDispatcher dispatcher = new DataSourceDispatcher(1, 1, 10, DIRECT_EXECUTOR);
+    final CountDownLatch release = new CountDownLatch(1);
+    // Holds the only thread until the call has been stored.
+    dispatcher.enqueue("other", new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    DataSourceTestCallback callback = new DataSourceTestCallback();
+
+    call.set(new Container_Get1(callback, null, "cloud", false, new HttpDataSourceConnector(dispatcher, transport)) {
+    }.execute());
+    release.countDown();
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(callback.result.getException() instanceof CancellationException);
+    assertTrue(transport.exchanges.get(0).disconnected);
+    assertTrue(transport.requests.isEmpty());
+  }
+
+  /**
+   * Connectors that wrap the callback still pass the response stream to the data source, so rows reach the caller before the body has been read.
+   */
+  @Test
+  public void execute_RowsStreamedThroughWrappers() throws InterruptedException {
+    final FakeHttpTransport transport = new RowsTransport();
+    IDataSourceConnector connector = new RetryingDataSourceConnector(new CircuitBreakingDataSourceConnector(
+        new HttpDataSourceConnector(new DataSourceDispatcher(1, 1, 10, DIRECT_EXECUTOR), transport)), new RetryPolicy());
+    RowCallback callback = new RowCallback() {
+      @Override
+      public void onRowsAvailable(List<BaseRow> chunk, int index) {
+        super.onRowsAvailable(chunk, index);
+        readBeforeRows.add(transport.exchanges.get(0).responseRead);
+      }
+    };
+
+    this.executeRows(connector, callback);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(500, callback.rowCount);
+    assertFalse(callback.readBeforeRows.get(0));
+    assertNull(callback.result.getException());
+  }
+
+  /**
+   * Connectors that need the response JSON read the whole body first, but the rows still reach every caller in chunks.
+   */
+  @Test
+  public void execute_RowsChunkedThroughBufferingWrappers() throws InterruptedException {
+    FakeHttpTransport transport = new RowsTransport();
+    DataSourceResponseCache cache = new DataSourceResponseCache(1024 * 1024);
+    cache.setTimeToLive(1791, 60000);
+    IDataSourceConnector connector = new CachingDataSourceConnector(new CoalescingDataSourceConnector(
+        new HttpDataSourceConnector(new DataSourceDispatcher(1, 1, 10, DIRECT_EXECUTOR), transport)), cache);
+    RowCallback callback = new RowCallback();
+    RowCallback cachedCallback = new RowCallback();
+
+    this.executeRows(connector, callback);
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    this.executeRows(connector, cachedCallback);
+
+    assertTrue(cachedCallback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(1, transport.requests.size());
+    assertEquals(1, cache.getEntryCount());
+    assertEquals(500, callback.rowCount);
+    assertEquals(500, cachedCallback.rowCount);
+    assertEquals(50, cachedCallback.chunkCount);
+  }
+
+  private void executeRows(IDataSourceConnector connector, IDataSourceCallback callback) {
+    Parts_Picker_Get2 dataSource = new Parts_Picker_Get2(callback, null, "cloud", false, connector) {
+    };
+    dataSource.setRowChunkSize(10);
+    dataSource.execute();
+  }
+
+  /**
+   * Warming up is best effort, so a class that is not a data source is skipped rather than thrown on the caller's thread.
+   */
+  @Test
+  public void warmUp_SkipsOtherClasses() {
+    HttpDataSourceConnector connector = new HttpDataSourceConnector(new DataSourceDispatcher(1, 1, 10, DIRECT_EXECUTOR), new FakeHttpTransport());
+
+    connector.warmUp("cloud", false, String.class, Container_Get1.class);
+  }
+
+  private static class ResultCallback implements IDataSourceConnectorCallback {
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile HttpDataSourceResult result;
+
+    @Override
+    public void onDataSourceConnectorComplete(HttpDataSourceResult result, int index) {
+      this.result = result;
+      latch.countDown();
+    }
+
+    @Override
+    public void onProgressUpdate(int progressCode, int index) {
+    }
+  }
+
+  private static class RowsTransport extends FakeHttpTransport {
+
+    @Override
+    String respond(String jsonRequest) {
+      return DataSourceFixtures.createResponse(DataSourceFixtures.PARTS_PICKER_GET2, 500);
+    }
+  }
+
+  private static class RowCallback implements IDataSourceRowCallback {
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    final List<Boolean> readBeforeRows = Collections.synchronizedList(new ArrayList<Boolean>());
+    volatile int rowCount = 0;
+    volatile int chunkCount = 0;
+    volatile DataSourceResult result;
+
+    @Override
+    public void onRowsAvailable(List<BaseRow> chunk, int index) {
+      rowCount += chunk.size();
+      chunkCount++;
+    }
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      this.result = dataSourceResult;
+      latch.countDown();
+    }
+  }
+
+  private static class DataSourceTestCallback implements IDataSourceCallback {
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    volatile DataSourceResult result;
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      this.result = dataSourceResult;
+      latch.countDown();
+    }
+  }
+}
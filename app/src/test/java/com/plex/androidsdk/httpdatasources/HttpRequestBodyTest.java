@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.Test;
+
+public class HttpRequestBodyTest {
+
+  /**
+   * Characters outside ASCII, including surrogate pairs split across buffers, are written as UTF-8 instead of being truncated to one byte.
+   */
+  @Test
+  public void write_Utf8() throws IOException {
+    String json = this.createJson();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    HttpRequestBody.write(out, json, false);
+
+    assertArrayEquals(json.getBytes("UTF-8"), out.toByteArray());
+  }
+
+  /**
+   * A compressed body unzips to the same UTF-8 bytes, and is smaller.
+   */
+  @Test
+  public void write_Gzip() throws IOException {
+    String json = this.createJson();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    HttpRequestBody.write(out, json, true);
+
+    byte[] expected = json.getBytes("UTF-8");
+    assertTrue(out.size() < expected.length / 4);
+
+    ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      byte[] buffer = new byte[1024];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        unzipped.write(buffer, 0, read);
+      }
+    }
+    assertArrayEquals(expected, unzipped.toByteArray());
+    assertEquals(0, new String(unzipped.toByteArray(), "UTF-8").compareTo(json));
+  }
+
+  private String createJson() {
+    StringBuilder json = new StringBuilder("{\"serialNos\":\"");
+    for (int i = 0; i < 3000; i++) {
+      json.append(i > 0 ? "," : "").append("S\u00e9rie-").append(i).append("\ud83d\udce6");
+    }
+    return json.append("\"}").toString();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+public class HttpResponseBodyTest {
+
+  private static final String BODY = DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, 200) + "\r\n";
+
+  /**
+   * Gzip, zlib wrapped deflate, raw deflate and uncompressed bodies all read back the same text, line endings included.
+   */
+  @Test
+  public void decode_AllEncodings() throws IOException {
+    byte[] bytes = BODY.getBytes("UTF-8");
+
+    assertEquals(BODY, this.read(this.gzip(bytes), "gzip"));
+    assertEquals(BODY, this.read(this.deflate(bytes, false), "deflate"));
+    assertEquals(BODY, this.read(this.deflate(bytes, true), "Deflate"));
+    assertEquals(BODY, this.read(bytes, null));
+    assertEquals(BODY, this.read(bytes, "identity"));
+    assertEquals("", this.read(new byte[0], "deflate"));
+
+    try {
+      this.read(bytes, "br");
+      fail("Expected an unsupported encoding");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Multi-byte characters are decoded correctly wherever the buffer boundaries fall, whatever the size hint.
+   */
+  @Test
+  public void readString_Utf8AcrossBuffers() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      text.append("Br\u00e4cket \u2713 ");
+    }
+    byte[] bytes = text.toString().getBytes("UTF-8");
+
+    assertEquals(text.toString(), HttpResponseBody.readString(new TrickleInputStream(bytes), 0));
+    assertEquals(text.toString(), HttpResponseBody.readString(new TrickleInputStream(bytes), 10));
+    assertEquals(text.toString(), HttpResponseBody.readString(new ByteArrayInputStream(bytes), bytes.length));
+  }
+
+  /**
+   * Released buffers are reused, and the pool never keeps more than its max bytes.
+   */
+  @Test
+  public void byteArrayPool_ReusesWithinLimit() {
+    ByteArrayPool pool = new ByteArrayPool(3 * ByteArrayPool.BUFFER_SIZE);
+    byte[] small = pool.acquire(100);
+    byte[] large = pool.acquire(2 * ByteArrayPool.BUFFER_SIZE);
+
+    assertEquals(ByteArrayPool.BUFFER_SIZE, small.length);
+    pool.release(large);
+    pool.release(small);
+    pool.release(new byte[ByteArrayPool.BUFFER_SIZE]);
+    assertEquals(3 * ByteArrayPool.BUFFER_SIZE, pool.getPooledBytes());
+
+    assertSame(small, pool.acquire(100));
+    assertSame(large, pool.acquire(ByteArrayPool.BUFFER_SIZE + 1));
+    assertEquals(0, pool.getPooledBytes());
+  }
+
+  private String read(byte[] bytes, String contentEncoding) throws IOException {
+    try (InputStream body = HttpResponseBody.decode(new ByteArrayInputStream(bytes), contentEncoding)) {
+      return HttpResponseBody.readString(body, 0);
+    }
+  }
+
+  private byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    }
+    return compressed.toByteArray();
+  }
+
+  private byte[] deflate(byte[] bytes, boolean raw) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+    try (OutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+      out.write(bytes);
+    } finally {
+      deflater.end();
+    }
+    return compressed.toByteArray();
+  }
+
+  /**
+   * Returns at most 7 bytes per read, like a slow connection.
+   */
+  private static class TrickleInputStream extends ByteArrayInputStream {
+
+    TrickleInputStream(byte[] bytes) {
+      super(bytes);
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int offset, int length) {
+      return super.read(buffer, offset, Math.min(length, 7));
+    }
+  }
+}
@@ -229,7 +229,7 @@ public class Container_Get1Test {
     }
 
     @Override
-    public void onDataSourceComplete(DataSourceResult dataSourceResult) {
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
       int expectedRowSize = 1;
       ExpectedGoodRowWithNulls expectedData = new ExpectedGoodRowWithNulls();
 
@@ -258,10 +258,10 @@ public class Container_Get1Test {
 
     @Override
     public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
-        IDataSourceConnectorCallback callback) {
+        IDataSourceConnectorCallback callback, int index) {
       String jsonResponse = "{\"outputs\":{},\"rows\":[{\"Part_No_Revision\":\"4799-AAA\",\"Name\":\"Rear Suspension Arm\",\"Part_Key\":837,\"Operation_Code\":\"Cut and Blank\",\"Quantity\":723.0000000000000000000,\"Container_Status\":\"OK\",\"Location\":\"Press 16\",\"Note\":\"Some Note\",\"Operation_Key\":230,\"Rework_Operation\":null,\"Special_Instructions\":\"Special Instructions Value\",\"Defect_Type\":\"Defect Type Value\"}],\"rowLimitExceeded\":false,\"transactionNo\":\"3836084\"}";
       HttpDataSourceResult result = new HttpDataSourceResult(jsonResponse, 200);
-      callback.onDataSourceConnectorComplete(result);
+      callback.onDataSourceConnectorComplete(result, index);
     }
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -21,6 +21,14 @@ package com.plex.androidsdk.httpdatasources.Inventory;
 
 import static org.junit.Assert.*;
 
+import com.plex.androidsdk.httpdatasources.DataSourceResult;
+import com.plex.androidsdk.httpdatasources.HttpDataSourceCredentials;
+import com.plex.androidsdk.httpdatasources.HttpDataSourceResult;
+import com.plex.androidsdk.httpdatasources.IDataSourceCallback;
+import com.plex.androidsdk.httpdatasources.IDataSourceConnector;
+import com.plex.androidsdk.httpdatasources.IDataSourceConnectorCallback;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 
 public class Container_Move_SimpleTest {
@@ -64,4 +72,43 @@ public class Container_Move_SimpleTest {
     cgl.setValidateLocation(validateLocation);
     assertEquals(expectedValue, cgl.getJsonRequest());
   }
-}
\ No newline at end of file
+
+  /**
+   * The data source and its definition decode the outputs into the same class.
+   */
+  @Test
+  public void testOutputsSameAsDefinition() {
+    ResultCallback callback = new ResultCallback();
+    new Container_Move_Simple(callback, null, "cloud", false, new TestConnector()).execute();
+    Container_Move_Simple.definition().withServer(null, "cloud", false).withConnector(new TestConnector())
+        .execute(new Container_Move_Simple.Input("S123456", "here", 8, true), callback, 1);
+
+    assertEquals(2, callback.results.size());
+    for (DataSourceResult result : callback.results) {
+      assertEquals(1, ((Container_Move_Simple.OutputParameters) result.getOutputs()).RetVal);
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceCallback {
+
+    final List<DataSourceResult> results = new ArrayList<>();
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      results.add(dataSourceResult);
+    }
+  }
+
+  /**
+   * Answers every call with a successful move.
+   */
+  private static class TestConnector implements IDataSourceConnector {
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      String jsonResponse = "{\"outputs\":{\"RetVal\":1},\"rows\":[],\"rowLimitExceeded\":false,\"transactionNo\":\"3836083\"}";
+      callback.onDataSourceConnectorComplete(new HttpDataSourceResult(jsonResponse, 200), index);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  /**
+   * Percentiles are within the histogram's precision of the exact value, over the whole range.
+   */
+  @Test
+  public void getValueAtPercentile_WithinPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram(60000000);
+    for (long value = 1; value <= 100000; value++) {
+      histogram.recordValue(value);
+    }
+
+    assertEquals(100000, histogram.getTotalCount());
+    assertEquals(100000, histogram.getMax());
+    assertEquals(50000.5, histogram.getMean(), 0.001);
+    this.assertWithinPrecision(50000, histogram.getValueAtPercentile(50));
+    this.assertWithinPrecision(99000, histogram.getValueAtPercentile(99));
+    this.assertWithinPrecision(99900, histogram.getValueAtPercentile(99.9));
+    assertEquals(100000, histogram.getValueAtPercentile(100));
+    assertEquals(1, histogram.getValueAtPercentile(0));
+  }
+
+  /**
+   * Values above the highest trackable value are kept as that value, and reset clears everything.
+   */
+  @Test
+  public void recordValue_ClampsAndResets() {
+    LatencyHistogram histogram = new LatencyHistogram(1000);
+    histogram.recordValue(5000);
+    histogram.recordValue(-1);
+
+    assertEquals(2, histogram.getTotalCount());
+    assertEquals(1000, histogram.getMax());
+    this.assertWithinPrecision(1000, histogram.getValueAtPercentile(100));
+    assertEquals(0, histogram.getValueAtPercentile(50));
+
+    histogram.reset();
+
+    assertEquals(0, histogram.getTotalCount());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  private void assertWithinPrecision(long expected, long actual) {
+    assertTrue("Expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 50);
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Move_Simple;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OfflineWriteQueueTest {
+
+  private static final RetryPolicy FAST_RETRY_POLICY = new RetryPolicy(1, 1, 5, 0.5, 1000, 503);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes are sent one at a time in the order they were queued, a write identical to the one before it is sent once but reported for both, and
+   * the journal is emptied once everything is sent.
+   */
+  @Test
+  public void enqueue_InOrderAndDeduplicated() throws Exception {
+    File journalFile = new File(folder.getRoot(), "writes");
+    ScriptedConnector connector = new ScriptedConnector();
+    ResultCallback callback = new ResultCallback(4);
+    OfflineWriteQueue queue = new OfflineWriteQueue(journalFile, connector, null, callback, FAST_RETRY_POLICY);
+
+    connector.hold();
+    queue.enqueue(this.createMove("S1", "Dock 1"), 1);
+    queue.enqueue(this.createMove("S2", "Dock 2"), 2);
+    queue.enqueue(this.createMove("S2", "Dock 2"), 3);
+    queue.enqueue(this.createMove("S1", "Dock 3"), 4);
+    // The first write is in flight, so the others are all journaled before it completes.
+    this.awaitRequests(connector, 1);
+    connector.release();
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(3, connector.requests.size());
+    assertTrue(connector.requests.get(0).contains("Dock 1"));
+    assertTrue(connector.requests.get(1).contains("Dock 2"));
+    assertTrue(connector.requests.get(2).contains("Dock 3"));
+    assertEquals(Arrays.asList(1, 2, 3, 4), callback.indexes);
+    assertSame(callback.results.get(1), callback.results.get(2));
+    assertNull(callback.results.get(0).getException());
+
+    this.awaitPending(queue, 0);
+    assertEquals(0, journalFile.length());
+  }
+
+  /**
+   * A write identical to an earlier one, but not to the one just before it, is still sent, so a container moved back ends where it was moved last.
+   */
+  @Test
+  public void enqueue_MovedBackSent() throws Exception {
+    ScriptedConnector connector = new ScriptedConnector();
+    ResultCallback callback = new ResultCallback(3);
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), connector, null, callback, FAST_RETRY_POLICY);
+
+    connector.hold();
+    queue.enqueue(this.createMove("S1", "Dock 1"), 1);
+    queue.enqueue(this.createMove("S1", "Dock 2"), 2);
+    queue.enqueue(this.createMove("S1", "Dock 1"), 3);
+    this.awaitRequests(connector, 1);
+    connector.release();
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(3, connector.requests.size());
+    assertTrue(connector.requests.get(2).contains("Dock 1"));
+    assertEquals(Arrays.asList(1, 2, 3), callback.indexes);
+  }
+
+  /**
+   * A write that can not reach the server stays queued and is sent again; the callback only sees the final result.
+   */
+  @Test
+  public void enqueue_TransientFailureRetried() throws Exception {
+    ScriptedConnector connector = new ScriptedConnector(new HttpDataSourceResult(new ConnectException()),
+        new HttpDataSourceResult(new UnknownHostException()));
+    ResultCallback callback = new ResultCallback(1);
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), connector, null, callback, FAST_RETRY_POLICY);
+
+    queue.enqueue(this.createMove("S1", "Dock 1"));
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(3, connector.requests.size());
+    assertNull(callback.results.get(0).getException());
+    assertEquals("1", callback.results.get(0).getTransactionNo());
+  }
+
+  /**
+   * A write that timed out may already have been applied, so unless its data source is idempotent it is reported and not sent again.
+   */
+  @Test
+  public void enqueue_TimedOutWriteFinal() throws Exception {
+    ScriptedConnector connector = new ScriptedConnector(new HttpDataSourceResult(new SocketTimeoutException()));
+    ResultCallback callback = new ResultCallback(1);
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), connector, null, callback, FAST_RETRY_POLICY);
+
+    queue.enqueue(this.createMove("S1", "Dock 1"));
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertTrue(callback.results.get(0).getException() instanceof SocketTimeoutException);
+    this.awaitPending(queue, 0);
+    assertEquals(1, connector.requests.size());
+  }
+
+  /**
+   * An idempotent write is sent again after a timeout or a retried status code.
+   */
+  @Test
+  public void enqueue_IdempotentRetried() throws Exception {
+    ScriptedConnector connector = new ScriptedConnector(new HttpDataSourceResult(new SocketTimeoutException()), new HttpDataSourceResult("{}", 503));
+    ResultCallback callback = new ResultCallback(1);
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), connector, null, callback, FAST_RETRY_POLICY);
+    IdempotentContainer_Move_Simple dataSource = new IdempotentContainer_Move_Simple(null, null, "cloud", false);
+    dataSource.setSerialNo("S1");
+    dataSource.setLocation("Dock 1");
+
+    queue.enqueue(dataSource);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(3, connector.requests.size());
+    assertNull(callback.results.get(0).getException());
+  }
+
+  /**
+   * A write the server rejects is final, so it is reported and not sent again.
+   */
+  @Test
+  public void enqueue_ServerErrorFinal() throws Exception {
+    ScriptedConnector connector = new ScriptedConnector(new HttpDataSourceResult(DataSourceFixtures.createErrorResponse(1), 400));
+    ResultCallback callback = new ResultCallback(1);
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), connector, null, callback, FAST_RETRY_POLICY);
+
+    queue.enqueue(this.createMove("S1", "Dock 1"));
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertNotNull(callback.results.get(0).getHttpDataSourceErrors());
+    this.awaitPending(queue, 0);
+    assertEquals(1, connector.requests.size());
+  }
+
+  /**
+   * Writes still pending when the app stops are sent by the next queue opened on the journal, and a record cut short by a crash is dropped.
+   */
+  @Test
+  public void open_RestoresPendingWrites() throws Exception {
+    File journalFile = new File(folder.getRoot(), "writes");
+    ScriptedConnector offline = new ScriptedConnector();
+    offline.hold();
+    OfflineWriteQueue queue = new OfflineWriteQueue(journalFile, offline, null, new ResultCallback(0), FAST_RETRY_POLICY);
+    queue.enqueue(this.createMove("S1", "Dock 1"), 1);
+    queue.enqueue(this.createMove("S2", "Dock 2"), 2);
+    this.awaitPending(queue, 2);
+
+    FileOutputStream outputStream = new FileOutputStream(journalFile, true);
+    outputStream.write(new byte[]{0, 0, 0, 40, 1, 2});
+    outputStream.close();
+
+    ScriptedConnector online = new ScriptedConnector();
+    ResultCallback callback = new ResultCallback(2);
+    new OfflineWriteQueue(journalFile, online, null, callback, FAST_RETRY_POLICY);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(2, online.requests.size());
+    assertTrue(online.requests.get(0).contains("S1"));
+    assertEquals(Integer.valueOf(1), callback.indexes.get(0));
+    assertEquals(Integer.valueOf(2), callback.indexes.get(1));
+    assertNull(callback.results.get(1).getException());
+  }
+
+  /**
+   * A call made through a definition is journaled, and replayed by the next queue opened on the journal from the definition's data source class.
+   */
+  @Test
+  public void open_RestoresDefinedWrite() throws Exception {
+    File journalFile = new File(folder.getRoot(), "writes");
+    ScriptedConnector offline = new ScriptedConnector();
+    offline.hold();
+    DataSource dataSource = Container_Move_Simple.definition().withServer(null, "cloud", false)
+        .newDataSource(new Container_Move_Simple.Input("S1", "Dock 1", 8, true), null);
+    OfflineWriteQueue queue = new OfflineWriteQueue(journalFile, offline, null, new ResultCallback(0), FAST_RETRY_POLICY);
+    queue.enqueue(dataSource, 1);
+    this.awaitPending(queue, 1);
+
+    ScriptedConnector online = new ScriptedConnector();
+    ResultCallback callback = new ResultCallback(1);
+    new OfflineWriteQueue(journalFile, online, null, callback, FAST_RETRY_POLICY);
+
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(Collections.singletonList(dataSource.getJsonRequest()), online.requests);
+    assertEquals(Integer.valueOf(1), callback.indexes.get(0));
+    assertNull(callback.results.get(0).getException());
+    assertNotNull(callback.results.get(0).getOutputs());
+  }
+
+  /**
+   * A call made through a definition without a data source class can not be replayed, so it is not queued.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void enqueue_DefinitionWithoutClassRejected() {
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), new ScriptedConnector(), null, new ResultCallback(0));
+    queue.enqueue(new DataSourceDefinition<Container_Move_Simple.Input>(17218, null, null, false).withServer(null, "cloud", false)
+        .newDataSource(new Container_Move_Simple.Input("S1", "Dock 1", 8, true), null));
+  }
+
+  /**
+   * Read-only data sources are not queued.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void enqueue_ReadOnlyRejected() {
+    OfflineWriteQueue queue = new OfflineWriteQueue(new File(folder.getRoot(), "writes"), new ScriptedConnector(), null, new ResultCallback(0));
+    queue.enqueue(DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, null));
+  }
+
+  private DataSource createMove(String serialNo, String location) {
+    TestContainer_Move_Simple dataSource = new TestContainer_Move_Simple(null, null, "cloud", false);
+    dataSource.setSerialNo(serialNo);
+    dataSource.setLocation(location);
+    return dataSource;
+  }
+
+  private void awaitRequests(ScriptedConnector connector, int requestCount) throws InterruptedException {
+    for (int i = 0; i < 500 && connector.requests.size() < requestCount; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(requestCount, connector.requests.size());
+  }
+
+  private void awaitPending(OfflineWriteQueue queue, int pendingCount) throws InterruptedException {
+    for (int i = 0; i < 500 && queue.getPendingCount() != pendingCount; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(pendingCount, queue.getPendingCount());
+  }
+
+  /**
+   * Returns the given results in order, then successes. While held, calls are not answered until released.
+   */
+  private static class ScriptedConnector implements IDataSourceConnector {
+
+    final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private final List<HttpDataSourceResult> _results = new ArrayList<>();
+    private final List<Object[]> _held = new ArrayList<>();
+    private boolean _holding = false;
+
+    ScriptedConnector(HttpDataSourceResult... results) {
+      Collections.addAll(_results, results);
+    }
+
+    synchronized void hold() {
+      _holding = true;
+    }
+
+    void release() {
+      List<Object[]> held;
+      synchronized (this) {
+        _holding = false;
+        held = new ArrayList<>(_held);
+        _held.clear();
+      }
+
+      for (Object[] call : held) {
+        this.complete((IDataSourceConnectorCallback) call[0], (Integer) call[1]);
+      }
+    }
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      requests.add(jsonRequest);
+
+      synchronized (this) {
+        if (_holding) {
+          _held.add(new Object[]{callback, index});
+          return;
+        }
+      }
+
+      this.complete(callback, index);
+    }
+
+    private void complete(IDataSourceConnectorCallback callback, int index) {
+      HttpDataSourceResult result;
+      synchronized (this) {
+        result = _results.isEmpty()
+            ? new HttpDataSourceResult(DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_MOVE_SIMPLE, 0), 200)
+            : _results.remove(0);
+      }
+
+      callback.onDataSourceConnectorComplete(result, index);
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceCallback {
+
+    final CountDownLatch latch;
+    final List<DataSourceResult> results = Collections.synchronizedList(new ArrayList<DataSourceResult>());
+    final List<Integer> indexes = Collections.synchronizedList(new ArrayList<Integer>());
+
+    ResultCallback(int count) {
+      latch = new CountDownLatch(count);
+    }
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      results.add(dataSourceResult);
+      indexes.add(index);
+      latch.countDown();
+    }
+  }
+
+  /**
+   * Has the constructor the queue recreates data sources with, without creating a connector.
+   */
+  private static class TestContainer_Move_Simple extends Container_Move_Simple {
+
+    TestContainer_Move_Simple(IDataSourceCallback callback, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer) {
+      super(callback, credentials, serverName, useTestServer, null);
+    }
+  }
+
+  /**
+   * Declares moves safe to repeat, so the queue may send it again after any transient failure.
+   */
+  private static class IdempotentContainer_Move_Simple extends Container_Move_Simple {
+
+    IdempotentContainer_Move_Simple(IDataSourceCallback callback, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer) {
+      super(callback, credentials, serverName, useTestServer, null);
+    }
+
+    @Override
+    public boolean isIdempotent() {
+      return true;
+    }
+  }
+}
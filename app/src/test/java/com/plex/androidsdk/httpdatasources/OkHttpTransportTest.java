@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OkHttpTransportTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private MockWebServer _server;
+
+  @Before
+  public void setUp() {
+    _server = new MockWebServer();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    _server.shutdown();
+  }
+
+  /**
+   * Concurrent calls to a server that speaks HTTP/2 share a single connection.
+   */
+  @Test
+  public void open_MultiplexesOverHttp2() throws Exception {
+    List<Protocol> protocols = Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE);
+    _server.setProtocols(protocols);
+    for (int i = 0; i < 10; i++) {
+      _server.enqueue(new MockResponse().setBody("{\"rows\":[]}").setBodyDelay(100, TimeUnit.MILLISECONDS));
+    }
+    _server.start();
+    final OkHttpTransport transport = new OkHttpTransport(new OkHttpClient.Builder().protocols(protocols).build());
+    final URL url = _server.url("/api/datasources/6455/execute").url();
+    final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch done = new CountDownLatch(10);
+
+    for (int i = 0; i < 10; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            bodies.add(post(transport.open(url, "POST", 15000, 30000, null), "{}"));
+          } catch (IOException e) {
+            bodies.add(e.toString());
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(Collections.nCopies(10, "{\"rows\":[]}"), bodies);
+    assertEquals(1, transport.getClient().connectionPool().connectionCount());
+    Set<Integer> sequenceNumbers = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      // Numbered per connection, so calls on separate connections would all be 0.
+      sequenceNumbers.add(_server.takeRequest().getSequenceNumber());
+    }
+    assertEquals(10, sequenceNumbers.size());
+  }
+
+  /**
+   * A server that only speaks HTTP/1.1 is called over HTTP/1.1, and the connection phases are recorded on the metrics.
+   */
+  @Test
+  public void open_Http11() throws Exception {
+    _server.enqueue(new MockResponse().setBody("{\"rows\":[]}"));
+    _server.start();
+    OkHttpTransport transport = new OkHttpTransport();
+    DataSourceMetrics metrics = new DataSourceMetrics(6455, null);
+
+    IHttpExchange exchange = transport.open(_server.url("/").url(), "POST", 15000, 30000, metrics);
+    exchange.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+    String body = post(exchange, "{\"Serial_No\":\"S1\"}");
+
+    RecordedRequest request = _server.takeRequest();
+    assertEquals("{\"rows\":[]}", body);
+    assertEquals("HTTP/1.1", request.getRequestLine().substring(request.getRequestLine().lastIndexOf(' ') + 1));
+    assertEquals("application/json; charset=utf-8", request.getHeader("Content-Type"));
+    assertEquals("{\"Serial_No\":\"S1\"}", request.getBody().readUtf8());
+    assertEquals(18, metrics.getBytesSent());
+    assertTrue(metrics.getNanos(DataSourceMetrics.Phase.CONNECT) >= 0);
+    assertTrue(metrics.getNanos(DataSourceMetrics.Phase.DNS) >= 0);
+    assertEquals(-1, metrics.getNanos(DataSourceMetrics.Phase.TLS));
+  }
+
+  /**
+   * A transport on an HttpConnectionPool reuses the connection of the previous call, keeps it in its own pool, and closes it once it has been idle
+   * for the keep-alive duration.
+   */
+  @Test
+  public void open_ReusesPooledConnection() throws Exception {
+    _server.enqueue(new MockResponse().setBody("{\"rows\":[]}"));
+    _server.enqueue(new MockResponse().setBody("{\"rows\":[]}"));
+    _server.start();
+    HttpConnectionPool connectionPool = new HttpConnectionPool(1, 1000);
+    HttpConnectionPool otherPool = new HttpConnectionPool();
+    OkHttpTransport transport = new OkHttpTransport(connectionPool);
+    new OkHttpTransport(otherPool);
+
+    post(transport.open(_server.url("/").url(), "POST", 15000, 30000, null), "{}");
+    post(transport.open(_server.url("/").url(), "POST", 15000, 30000, null), "{}");
+
+    assertEquals(0, _server.takeRequest().getSequenceNumber());
+    assertEquals(1, _server.takeRequest().getSequenceNumber());
+    assertEquals(1, connectionPool.getIdleConnectionCount());
+    assertEquals(0, otherPool.getIdleConnectionCount());
+    assertSame(connectionPool, transport.getConnectionPool());
+
+    for (int i = 0; i < 500 && connectionPool.getIdleConnectionCount() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, connectionPool.getIdleConnectionCount());
+  }
+
+  /**
+   * An exchange disconnected before its request is sent fails instead of sending it.
+   */
+  @Test
+  public void disconnect_BeforeSend() throws Exception {
+    _server.start();
+    IHttpExchange exchange = new OkHttpTransport().open(_server.url("/").url(), "POST", 15000, 30000, null);
+
+    exchange.disconnect();
+
+    try {
+      exchange.getResponseCode();
+      fail();
+    } catch (IOException e) {
+      assertEquals(0, _server.getRequestCount());
+    }
+  }
+
+  private static String post(IHttpExchange exchange, String json) throws IOException {
+    exchange.connect();
+    OutputStream outStream = exchange.getOutputStream();
+    outStream.write(json.getBytes(UTF_8));
+    outStream.close();
+
+    assertEquals(200, exchange.getResponseCode());
+    InputStream responseStream = exchange.getResponseStream();
+    try {
+      return HttpResponseBody.readString(responseStream, exchange.getContentLength());
+    } finally {
+      responseStream.close();
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class RetryingDataSourceConnectorTest {
+
+  private final ScheduledExecutorService _scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void tearDown() {
+    _scheduler.shutdownNow();
+  }
+
+  /**
+   * A read-only data source is retried after I/O errors and retryable status codes, and the callback only sees the final result.
+   */
+  @Test
+  public void execute_ReadOnlyRetried() throws InterruptedException {
+    ScriptedConnector connector = new ScriptedConnector(new HttpDataSourceResult(new SocketTimeoutException()),
+        new HttpDataSourceResult("{}", 503), this.createSuccess(DataSourceFixtures.CONTAINER_GET1));
+    ResultCallback callback = new ResultCallback();
+    DataSource dataSource = DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_GET1, callback);
+
+    this.execute(new RetryingDataSourceConnector(connector, new RetryPolicy(3, 1, 5, 0.5, 1000, 503), _scheduler), dataSource, callback);
+
+    assertEquals(3, connector.attempts);
+    assertNull(callback.result.getException());
+    assertEquals("1", callback.result.getTransactionNo());
+  }
+
+  /**
+   * A data source that changes data is only retried when the request was never sent, unless it is marked idempotent.
+   */
+  @Test
+  public void execute_WriteRetriedOnlyWhenSafe() throws InterruptedException {
+    RetryingDataSourceConnector retryingConnector;
+    ResultCallback callback = new ResultCallback();
+    DataSource dataSource = DataSourceFixtures.createDataSource(DataSourceFixtures.CONTAINER_MOVE_SIMPLE, callback);
+
+    ScriptedConnector connector = new ScriptedConnector(new HttpDataSourceResult(new SocketTimeoutException()),
+        this.createSuccess(DataSourceFixtures.CONTAINER_MOVE_SIMPLE));
+    retryingConnector = new RetryingDataSourceConnector(connector, new RetryPolicy(3, 1, 5, 0.5, 1000, 503), _scheduler);
+    this.execute(retryingConnector, dataSource, callback);
+    assertEquals(1, connector.attempts);
+    assertTrue(callback.result.getException() instanceof SocketTimeoutException);
+
+    connector = new ScriptedConnector(new HttpDataSourceResult(new ConnectException()), this.createSuccess(DataSourceFixtures.CONTAINER_MOVE_SIMPLE));
+    retryingConnector = new RetryingDataSourceConnector(connector, new RetryPolicy(3, 1, 5, 0.5, 1000, 503), _scheduler);
+    this.execute(retryingConnector, dataSource, callback);
+    assertEquals(2, connector.attempts);
+    assertNull(callback.result.getException());
+
+    dataSource.setIdempotent(true);
+    connector = new ScriptedConnector(new HttpDataSourceResult(new SocketTimeoutException()),
+        this.createSuccess(DataSourceFixtures.CONTAINER_MOVE_SIMPLE));
+    retryingConnector = new RetryingDataSourceConnector(connector, new RetryPolicy(3, 1, 5, 0.5, 1000, 503), _scheduler);
+    this.execute(retryingConnector, dataSource, callback);
+    assertEquals(2, connector.attempts);
+    assertNull(callback.result.getException());
+  }
+
+  /**
+   * Backoff doubles up to the max and is jittered downwards, Retry-After extends it, and attempts are limited.
+   */
+  @Test
+  public void getRetryDelayMillis_BackoffAndRetryAfter() {
+    RetryPolicy policy = new RetryPolicy(4, 100, 250, 0.5, 5000, 503);
+    HttpDataSourceResult timeout = new HttpDataSourceResult(new SocketTimeoutException());
+
+    for (int i = 0; i < 20; i++) {
+      this.assertBetween(50, 100, policy.getRetryDelayMillis(timeout, 1, true));
+      this.assertBetween(100, 200, policy.getRetryDelayMillis(timeout, 2, true));
+      this.assertBetween(125, 250, policy.getRetryDelayMillis(timeout, 3, true));
+    }
+    assertEquals(-1, policy.getRetryDelayMillis(timeout, 4, true));
+    assertEquals(-1, policy.getRetryDelayMillis(new HttpDataSourceResult("{}", 500), 1, true));
+    assertEquals(-1, policy.getRetryDelayMillis(new HttpDataSourceResult(new IOException()), 1, false));
+
+    assertEquals(2000, policy.getRetryDelayMillis(this.createRetryAfter("2"), 1, true));
+    assertEquals(-1, policy.getRetryDelayMillis(this.createRetryAfter("60"), 1, true));
+    this.assertBetween(50, 100, policy.getRetryDelayMillis(this.createRetryAfter("soon"), 1, true));
+
+    assertEquals(3000, RetryPolicy.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:03 GMT", 1445412480000L));
+    assertEquals(0, RetryPolicy.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT", 1445412490000L));
+    assertEquals(-1, RetryPolicy.parseRetryAfterMillis(null, 0));
+  }
+
+  private void execute(RetryingDataSourceConnector connector, DataSource dataSource, ResultCallback callback) throws InterruptedException {
+    callback.reset();
+    connector.execute(dataSource.getDataSourceKey(), null, "cloud", false, dataSource.getJsonRequest(), dataSource, 0);
+    assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+  }
+
+  private HttpDataSourceResult createSuccess(String name) {
+    return new HttpDataSourceResult(DataSourceFixtures.createResponse(name, 1), 200);
+  }
+
+  private HttpDataSourceResult createRetryAfter(String retryAfter) {
+    Map<String, List<String>> headers = new HashMap<>();
+    headers.put("Retry-After", Collections.singletonList(retryAfter));
+    HttpDataSourceResult result = new HttpDataSourceResult("{}", 503);
+    result.setHeaders(headers);
+    return result;
+  }
+
+  private void assertBetween(long min, long max, long actual) {
+    assertTrue(actual + " is not between " + min + " and " + max, actual >= min && actual <= max);
+  }
+
+  /**
+   * Returns the given results in order, one per attempt.
+   */
+  private static class ScriptedConnector implements IDataSourceConnector {
+
+    private final LinkedList<HttpDataSourceResult> _results = new LinkedList<>();
+    volatile int attempts = 0;
+
+    ScriptedConnector(HttpDataSourceResult... results) {
+      Collections.addAll(_results, results);
+    }
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+      attempts++;
+      callback.onDataSourceConnectorComplete(_results.removeFirst(), index);
+    }
+  }
+
+  private static class ResultCallback implements IDataSourceCallback {
+
+    volatile CountDownLatch latch;
+    volatile DataSourceResult result;
+
+    void reset() {
+      latch = new CountDownLatch(1);
+      result = null;
+    }
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      result = dataSourceResult;
+      latch.countDown();
+    }
+  }
+}
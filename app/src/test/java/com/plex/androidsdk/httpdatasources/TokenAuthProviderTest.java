@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TokenAuthProviderTest {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  /**
+   * A token outside the refresh window is returned as is, without calling the token source.
+   */
+  @Test
+  public void getAuthorization_Cached() throws IOException {
+    CountingTokenSource tokenSource = new CountingTokenSource();
+    TokenAuthProvider authProvider = new TokenAuthProvider(tokenSource, 60000, DIRECT_EXECUTOR);
+    authProvider.setToken(AuthToken.bearer("abc", 3600));
+
+    assertEquals("Bearer abc", authProvider.getAuthorization());
+    assertEquals("Bearer abc", authProvider.getAuthorization());
+    assertEquals(0, tokenSource.fetches.get());
+  }
+
+  /**
+   * A token about to expire is still used while a single refresh runs in the background, and the new token is used once it arrives.
+   */
+  @Test
+  public void getAuthorization_RefreshesAheadOfExpiry() throws IOException {
+    CountingTokenSource tokenSource = new CountingTokenSource();
+    HeldExecutor refreshExecutor = new HeldExecutor();
+    TokenAuthProvider authProvider = new TokenAuthProvider(tokenSource, 60000, refreshExecutor);
+    authProvider.setToken(AuthToken.bearer("old", 30));
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals("Bearer old", authProvider.getAuthorization());
+    }
+    assertEquals(1, refreshExecutor.tasks.size());
+
+    refreshExecutor.runAll();
+
+    assertEquals("Bearer token1", authProvider.getAuthorization());
+    assertEquals(1, tokenSource.fetches.get());
+  }
+
+  /**
+   * Without a valid token, a burst of requests waits for one shared refresh.
+   */
+  @Test
+  public void getAuthorization_SingleFlight() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountingTokenSource tokenSource = new CountingTokenSource(release);
+    final TokenAuthProvider authProvider = new TokenAuthProvider(tokenSource);
+    final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch done = new CountDownLatch(20);
+
+    for (int i = 0; i < 20; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            authorizations.add(authProvider.getAuthorization());
+          } catch (IOException e) {
+            authorizations.add(e.toString());
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+    Thread.sleep(50);
+    release.countDown();
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, tokenSource.fetches.get());
+    assertEquals(Collections.nCopies(20, "Bearer token1"), authorizations);
+  }
+
+  /**
+   * A rejected token is dropped and replaced, unless it has already been replaced.
+   */
+  @Test
+  public void onUnauthorized_ReplacesToken() throws IOException {
+    CountingTokenSource tokenSource = new CountingTokenSource();
+    TokenAuthProvider authProvider = new TokenAuthProvider(tokenSource, 60000, DIRECT_EXECUTOR);
+    authProvider.setToken(AuthToken.bearer("abc", 3600));
+
+    authProvider.onUnauthorized("Bearer stale");
+    assertEquals("Bearer abc", authProvider.getAuthorization());
+
+    authProvider.onUnauthorized("Bearer abc");
+    assertEquals("Bearer token1", authProvider.getAuthorization());
+    assertEquals(1, tokenSource.fetches.get());
+  }
+
+  /**
+   * Without a valid token, a failed refresh fails the request.
+   */
+  @Test
+  public void getAuthorization_RefreshFails() {
+    TokenAuthProvider authProvider = new TokenAuthProvider(new ITokenSource() {
+      @Override
+      public AuthToken fetchToken() throws IOException {
+        throw new IOException("Login failed");
+      }
+
+      @Override
+      public String getIdentity() {
+        return "user1";
+      }
+    }, 60000, DIRECT_EXECUTOR);
+
+    try {
+      authProvider.getAuthorization();
+      fail();
+    } catch (IOException e) {
+      assertEquals("Login failed", e.getCause().getMessage());
+    }
+  }
+
+  private static class CountingTokenSource implements ITokenSource {
+
+    final AtomicInteger fetches = new AtomicInteger();
+    private final CountDownLatch _release;
+
+    CountingTokenSource() {
+      this(new CountDownLatch(0));
+    }
+
+    CountingTokenSource(CountDownLatch release) {
+      _release = release;
+    }
+
+    @Override
+    public AuthToken fetchToken() throws IOException {
+      try {
+        _release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      return AuthToken.bearer("token" + fetches.incrementAndGet(), 3600);
+    }
+
+    @Override
+    public String getIdentity() {
+      return "user1";
+    }
+  }
+
+  private static class HeldExecutor implements Executor {
+
+    final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    void runAll() {
+      for (Runnable task : new ArrayList<>(tasks)) {
+        task.run();
+      }
+      tasks.clear();
+    }
+  }
+}
@@ -81,7 +81,7 @@ public class Part_Name_Output_GetTest {
     }
 
     @Override
-    public void onDataSourceComplete(DataSourceResult dataSourceResult) {
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
       String expectedPartName = "Rear Suspension Arm";
 
       Part_Name_Output_Get.OutputParameters outputParameters = (Part_Name_Output_Get.OutputParameters) dataSourceResult.getOutputs();
@@ -98,15 +98,15 @@ public class Part_Name_Output_GetTest {
 
     @Override
     public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
-        IDataSourceConnectorCallback callback) {
+        IDataSourceConnectorCallback callback, int index) {
 
       String jsonResponse = "{\"outputs\":{\"Name\":\"Rear Suspension Arm\"},\"rows\":[],\"rowLimitExceeded\":false,\"transactionNo\":\"3836083\"}";
 
       HttpDataSourceResult result = new HttpDataSourceResult(jsonResponse, 200);
 
-      callback.onDataSourceConnectorComplete(result);
+      callback.onDataSourceConnectorComplete(result, index);
     }
   }
 
 
-}
\ No newline at end of file
+}
\ No newline at end of file
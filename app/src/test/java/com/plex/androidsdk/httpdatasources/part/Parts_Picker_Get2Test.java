@@ -21,17 +21,28 @@
 package com.plex.androidsdk.httpdatasources.part;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.plex.androidsdk.httpdatasources.BaseRow;
 import com.plex.androidsdk.httpdatasources.DataSourceResult;
 import com.plex.androidsdk.httpdatasources.HttpDataSourceCredentials;
 import com.plex.androidsdk.httpdatasources.HttpDataSourceResult;
 import com.plex.androidsdk.httpdatasources.IDataSourceCallback;
 import com.plex.androidsdk.httpdatasources.IDataSourceConnector;
 import com.plex.androidsdk.httpdatasources.IDataSourceConnectorCallback;
+import com.plex.androidsdk.httpdatasources.IDataSourceRowCallback;
+import com.plex.androidsdk.httpdatasources.IDataSourceStreamCallback;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 import org.junit.Test;
 
 public class Parts_Picker_Get2Test {
@@ -100,6 +111,24 @@ public class Parts_Picker_Get2Test {
     ta.Test();
   }
 
+  /**
+   * Test parsing of full JSON package from a response stream.
+   */
+  @Test
+  public void ConnectionTest_Stream() {
+    TestConnector_Good ta = new TestConnector_Good();
+    ta.TestStream();
+  }
+
+  /**
+   * Test rows are delivered in chunks before completion when the caller is an IDataSourceRowCallback.
+   */
+  @Test
+  public void ConnectionTest_RowChunks() {
+    TestRowCallback trc = new TestRowCallback();
+    trc.Test();
+  }
+
   /**
    * Data to test row parsing logic.
    *
@@ -133,8 +162,13 @@ public class Parts_Picker_Get2Test {
       ppg2.execute();
     }
 
+    public void TestStream() {
+      Parts_Picker_Get2 ppg2 = new Parts_Picker_Get2(this, null, null, false, new TestStreamConnector());
+      ppg2.execute();
+    }
+
     @Override
-    public void onDataSourceComplete(DataSourceResult dataSourceResult) {
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
 
       int expectedRowCount = 2;
       int expectedPartKey = 1859416;
@@ -154,6 +188,42 @@ public class Parts_Picker_Get2Test {
     }
   }
 
+  /**
+   * Test chunked row delivery
+   */
+  private class TestRowCallback implements IDataSourceRowCallback {
+
+    private final List<List<BaseRow>> chunks = new ArrayList<>();
+    private boolean complete = false;
+
+    public void Test() {
+      Parts_Picker_Get2 ppg2 = new Parts_Picker_Get2(this, null, null, false, new TestStreamConnector());
+      ppg2.setRowChunkSize(1);
+      ppg2.execute(3);
+
+      assertTrue(complete);
+    }
+
+    @Override
+    public void onRowsAvailable(List<BaseRow> chunk, int index) {
+      assertFalse(complete);
+      assertEquals(3, index);
+      chunks.add(chunk);
+    }
+
+    @Override
+    public void onDataSourceComplete(DataSourceResult dataSourceResult, int index) {
+      complete = true;
+
+      assertEquals(2, chunks.size());
+      assertEquals(0, dataSourceResult.getRows().size());
+      assertEquals("3836077", dataSourceResult.getTransactionNo());
+
+      Parts_Picker_Get2.Row row1 = (Parts_Picker_Get2.Row) chunks.get(1).get(0);
+      assertEquals(246334, row1.getPartKey());
+    }
+  }
+
   /**
    * Test connector that represents a connection to a server. Returns a known package to test parsing logic. Inject into the data source constructor.
    */
@@ -161,31 +231,62 @@ public class Parts_Picker_Get2Test {
 
     @Override
     public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
-        IDataSourceConnectorCallback callback) {
-
-      String jsonResponse = "{\n"
-          + "    \"outputs\": {},    \"rows\": [\n"
-          + "        {\n"
-          + "            \"Part_Key\": 1859416,\n"
-          + "            \"Part_No_Revision\": \"ABC\",\n"
-          + "            \"Name\": \"ABC Name\",\n"
-          + "            \"Part_Status\": \"Production\",\n"
-          + "            \"Old_Part_No\": \"\"\n"
-          + "        },\n"
-          + "        {\n"
-          + "            \"Part_Key\": 246334,\n"
-          + "            \"Part_No_Revision\": \"ABC-1-A\",\n"
-          + "            \"Name\": \"Large Stamping\",\n"
-          + "            \"Part_Status\": \"Production\",\n"
-          + "            \"Old_Part_No\": \"OldPart No\"\n"
-          + "        }],"
-          + "    \"rowLimitExceeded\": false,\n"
-          + "    \"transactionNo\": \"3836077\"\n"
-          + "}";
-
-      HttpDataSourceResult result = new HttpDataSourceResult(jsonResponse, 200);
-
-      callback.onDataSourceConnectorComplete(result);
+        IDataSourceConnectorCallback callback, int index) {
+
+      HttpDataSourceResult result = new HttpDataSourceResult(getJsonResponse(), 200);
+
+      callback.onDataSourceConnectorComplete(result, index);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Test connector that passes the known package to the data source as a stream, the way HttpDataSourceConnector does.
+   */
+  private class TestStreamConnector implements IDataSourceConnector {
+
+    @Override
+    public void execute(int dataSourceKey, HttpDataSourceCredentials credentials, String serverName, boolean useTestServer, String jsonRequest,
+        IDataSourceConnectorCallback callback, int index) {
+
+      HttpDataSourceResult result;
+      try {
+        InputStream body = new ByteArrayInputStream(getJsonResponse().getBytes("UTF-8"));
+        result = new HttpDataSourceResult(((IDataSourceStreamCallback) callback).readResponse(body, 200, index, new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            command.run();
+          }
+        }, null), 200);
+      } catch (IOException e) {
+        result = new HttpDataSourceResult(e);
+      }
+
+      callback.onDataSourceConnectorComplete(result, index);
+    }
+  }
+
+  /**
+   * The known package returned by the test connectors.
+   */
+  private static String getJsonResponse() {
+    return "{\n"
+        + "    \"outputs\": {},    \"rows\": [\n"
+        + "        {\n"
+        + "            \"Part_Key\": 1859416,\n"
+        + "            \"Part_No_Revision\": \"ABC\",\n"
+        + "            \"Name\": \"ABC Name\",\n"
+        + "            \"Part_Status\": \"Production\",\n"
+        + "            \"Old_Part_No\": \"\"\n"
+        + "        },\n"
+        + "        {\n"
+        + "            \"Part_Key\": 246334,\n"
+        + "            \"Part_No_Revision\": \"ABC-1-A\",\n"
+        + "            \"Name\": \"Large Stamping\",\n"
+        + "            \"Part_Status\": \"Production\",\n"
+        + "            \"Old_Part_No\": \"OldPart No\"\n"
+        + "        }],"
+        + "    \"rowLimitExceeded\": false,\n"
+        + "    \"transactionNo\": \"3836077\"\n"
+        + "}";
+  }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Get1;
+import com.plex.androidsdk.httpdatasources.Inventory.Container_Move_Simple;
+import com.plex.androidsdk.httpdatasources.part.Part_Name_Output_Get;
+import com.plex.androidsdk.httpdatasources.part.Parts_Picker_Get2;
+
+/**
+ * Synthetic data sources and responses shared by the unit tests and the benchmark module.
+ * <p>
+ * Responses have the same shape as the http data source server's, with values that vary by row so the parser can not take shortcuts.
+ */
+public final class DataSourceFixtures {
+
+  public static final String CONTAINER_GET1 = "Container_Get1";
+  public static final String CONTAINER_MOVE_SIMPLE = "Container_Move_Simple";
+  public static final String PART_NAME_OUTPUT_GET = "Part_Name_Output_Get";
+  public static final String PARTS_PICKER_GET2 = "Parts_Picker_Get2";
+
+  private DataSourceFixtures() {
+  }
+
+  /**
+   * Create a shipped data source with its inputs set.
+   *
+   * @param name The data source name, one of the constants in this class.
+   * @param callback The callback for the data source.
+   * @return The data source. It has no connector, so it can only be used to build requests and parse responses.
+   */
+  public static DataSource createDataSource(String name, IDataSourceCallback callback) {
+    switch (name) {
+      case CONTAINER_GET1:
+        Container_Get1 containerGet1 = new FixtureContainer_Get1(callback);
+        containerGet1.setSerialNo("S123456");
+        return containerGet1;
+      case CONTAINER_MOVE_SIMPLE:
+        Container_Move_Simple containerMove = new FixtureContainer_Move_Simple(callback);
+        containerMove.setSerialNo("S123456");
+        containerMove.setLocation("Dock <1> & 2");
+        containerMove.setUpdateBy(8);
+        containerMove.setValidateLocation(true);
+        return containerMove;
+      case PART_NAME_OUTPUT_GET:
+        Part_Name_Output_Get partName = new FixturePart_Name_Output_Get(callback);
+        partName.setPartKey(123456);
+        return partName;
+      case PARTS_PICKER_GET2:
+        Parts_Picker_Get2 partsPicker = new FixtureParts_Picker_Get2(callback);
+        partsPicker.setPartNo("4709-A");
+        return partsPicker;
+      default:
+        throw new IllegalArgumentException("Unknown data source " + name);
+    }
+  }
+
+  /**
+   * Create a successful response for a shipped data source.
+   *
+   * @param name The data source name, one of the constants in this class.
+   * @param rowCount The number of rows. Ignored by data sources that only return outputs.
+   * @return The response JSON.
+   */
+  public static String createResponse(String name, int rowCount) {
+    StringBuilder response = new StringBuilder("{\"outputs\":").append(createOutputs(name)).append(",\"rows\":[");
+
+    if (CONTAINER_GET1.equals(name) || PARTS_PICKER_GET2.equals(name)) {
+      for (int i = 0; i < rowCount; i++) {
+        if (i > 0) {
+          response.append(',');
+        }
+        response.append(createRow(name, i));
+      }
+    }
+
+    return response.append("],\"rowLimitExceeded\":false,\"transactionNo\":\"1\"}").toString();
+  }
+
+  /**
+   * Create one row of a data source that returns rows.
+   *
+   * @param name CONTAINER_GET1 or PARTS_PICKER_GET2.
+   * @param i The row number, used to vary the values.
+   * @return The row JSON.
+   */
+  public static String createRow(String name, int i) {
+    if (CONTAINER_GET1.equals(name)) {
+      return "{\"Container_Status\":\"OK\",\"Defect_Type\":\"\",\"Location\":\"A" + (i % 100) + "\",\"Name\":\"Rear Suspension Arm\",\"Note\":\"\","
+          + "\"Operation_Code\":\"Weld\",\"Operation_Key\":" + i + ",\"Part_Key\":" + (i % 500) + ",\"Part_No_Revision\":\"P-" + (i % 500)
+          + "\",\"Quantity\":12.5,\"Rework_Operation\":0,\"Special_Instructions\":\"\"}";
+    }
+    if (PARTS_PICKER_GET2.equals(name)) {
+      return "{\"Part_Key\":" + i + ",\"Part_No_Revision\":\"4709-A-" + i + "\",\"Name\":\"Bracket " + i + "\",\"Part_Status\":\"Production\","
+          + "\"Old_Part_No\":null}";
+    }
+
+    throw new IllegalArgumentException(name + " does not return rows");
+  }
+
+  /**
+   * Create an error response with the given number of errors.
+   *
+   * @param errorCount The number of errors.
+   * @return The error JSON.
+   */
+  public static String createErrorResponse(int errorCount) {
+    StringBuilder response = new StringBuilder("{\"errors\":[");
+
+    for (int i = 0; i < errorCount; i++) {
+      if (i > 0) {
+        response.append(',');
+      }
+      response.append("{\"code\":\"").append(4000 + i).append("\",\"message\":\"Input parameter ").append(i).append(" is not valid.\"}");
+    }
+
+    return response.append("],\"transactionNo\":\"1\"}").toString();
+  }
+
+  private static String createOutputs(String name) {
+    switch (name) {
+      case CONTAINER_MOVE_SIMPLE:
+        return "{\"RetVal\":1}";
+      case PART_NAME_OUTPUT_GET:
+        return "{\"Name\":\"Rear Suspension Arm\"}";
+      default:
+        return "{}";
+    }
+  }
+
+  private static class FixtureContainer_Get1 extends Container_Get1 {
+
+    FixtureContainer_Get1(IDataSourceCallback callback) {
+      super(callback, null, "cloud", false, null);
+    }
+  }
+
+  private static class FixtureContainer_Move_Simple extends Container_Move_Simple {
+
+    FixtureContainer_Move_Simple(IDataSourceCallback callback) {
+      super(callback, null, "cloud", false, null);
+    }
+  }
+
+  private static class FixturePart_Name_Output_Get extends Part_Name_Output_Get {
+
+    FixturePart_Name_Output_Get(IDataSourceCallback callback) {
+      super(callback, null, "cloud", false, null);
+    }
+  }
+
+  private static class FixtureParts_Picker_Get2 extends Parts_Picker_Get2 {
+
+    FixtureParts_Picker_Get2(IDataSourceCallback callback) {
+      super(callback, null, "cloud", false, null);
+    }
+  }
+}
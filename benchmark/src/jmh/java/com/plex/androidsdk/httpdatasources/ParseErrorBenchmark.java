@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing error responses.
+ */
+@State(Scope.Benchmark)
+public class ParseErrorBenchmark {
+
+  @Param({"1", "10"})
+  public int errors;
+
+  private final ResultHolder _resultHolder = new ResultHolder();
+  private DataSource _dataSource;
+  private String _response;
+
+  @Setup
+  public void setUp() {
+    _dataSource = DataSourceFixtures.createDataSource(DataSourceFixtures.PART_NAME_OUTPUT_GET, _resultHolder);
+    _response = DataSourceFixtures.createErrorResponse(errors);
+  }
+
+  @Benchmark
+  public DataSourceResult parseJsonError() {
+    _dataSource.onDataSourceConnectorComplete(new HttpDataSourceResult(_response, 500), 0);
+    return _resultHolder.result;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing successful responses of the shipped data sources that only return outputs.
+ */
+@State(Scope.Benchmark)
+public class ParseOutputsBenchmark {
+
+  @Param({DataSourceFixtures.CONTAINER_MOVE_SIMPLE, DataSourceFixtures.PART_NAME_OUTPUT_GET})
+  public String dataSource;
+
+  private final ResultHolder _resultHolder = new ResultHolder();
+  private DataSource _dataSource;
+  private String _response;
+
+  @Setup
+  public void setUp() {
+    _dataSource = DataSourceFixtures.createDataSource(dataSource, _resultHolder);
+    _response = DataSourceFixtures.createResponse(dataSource, 0);
+  }
+
+  @Benchmark
+  public DataSourceResult parseJsonResponse() {
+    _dataSource.onDataSourceConnectorComplete(new HttpDataSourceResult(_response, 200), 0);
+    return _resultHolder.result;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decoding a single row, with the adapter generated by the processor module and with Gson's reflective adapter.
+ */
+@State(Scope.Benchmark)
+public class ParseRowBenchmark {
+
+  @Param({DataSourceFixtures.CONTAINER_GET1, DataSourceFixtures.PARTS_PICKER_GET2})
+  public String dataSource;
+
+  @Param({"true", "false"})
+  public boolean generatedAdapters;
+
+  private DataSourceGson _gson;
+  private Type _rowType;
+  private String _row;
+
+  @Setup
+  public void setUp() {
+    _gson = new DataSourceGson(generatedAdapters);
+    _rowType = DataSourceFixtures.createDataSource(dataSource, null).getRowType();
+    _row = DataSourceFixtures.createRow(dataSource, 42);
+  }
+
+  @Benchmark
+  public BaseRow parseRow() throws IOException {
+    return _gson.fromJson(new JsonReader(new StringReader(_row)), _rowType);
+  }
+}
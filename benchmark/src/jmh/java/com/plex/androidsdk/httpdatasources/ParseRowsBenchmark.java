@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing successful responses of the shipped data sources that return rows, from a single row up to 100k.
+ * <p>
+ * parseJsonResponse goes through the JSON string the connector hands over when caching or coalescing, readResponse through the stream the
+ * connector parses while the body downloads. readResponseColumnar holds the rows in ColumnarRows instead of row objects.
+ */
+@State(Scope.Benchmark)
+public class ParseRowsBenchmark {
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  @Param({DataSourceFixtures.CONTAINER_GET1, DataSourceFixtures.PARTS_PICKER_GET2})
+  public String dataSource;
+
+  @Param({"1", "100", "10000", "100000"})
+  public int rows;
+
+  private final ResultHolder _resultHolder = new ResultHolder();
+  private DataSource _dataSource;
+  private DataSource _columnarDataSource;
+  private String _response;
+  private byte[] _responseBytes;
+
+  @Setup
+  public void setUp() {
+    _dataSource = DataSourceFixtures.createDataSource(dataSource, _resultHolder);
+    _columnarDataSource = DataSourceFixtures.createDataSource(dataSource, _resultHolder);
+    _columnarDataSource.setColumnarRows(true);
+    _response = DataSourceFixtures.createResponse(dataSource, rows);
+    _responseBytes = _response.getBytes(Charset.forName("UTF-8"));
+  }
+
+  @Benchmark
+  public DataSourceResult parseJsonResponse() {
+    _dataSource.onDataSourceConnectorComplete(new HttpDataSourceResult(_response, 200), 0);
+    return _resultHolder.result;
+  }
+
+  @Benchmark
+  public DataSourceResult readResponse() throws IOException {
+    return _dataSource.readResponse(new ByteArrayInputStream(_responseBytes), 200, 0, DIRECT_EXECUTOR, null);
+  }
+
+  @Benchmark
+  public DataSourceResult readResponseColumnar() throws IOException {
+    return _columnarDataSource.readResponse(new ByteArrayInputStream(_responseBytes), 200, 0, DIRECT_EXECUTOR, null);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.httpdatasources;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reading a Container_Get1 response body into a string, as the connector does for callbacks that do not parse the stream, with and without gzip.
+ */
+@State(Scope.Benchmark)
+public class ResponseBodyBenchmark {
+
+  @Param({"100", "10000"})
+  public int rows;
+
+  @Param({"identity", "gzip"})
+  public String contentEncoding;
+
+  private byte[] _body;
+
+  @Setup
+  public void setUp() throws IOException {
+    byte[] body = DataSourceFixtures.createResponse(DataSourceFixtures.CONTAINER_GET1, rows).getBytes("UTF-8");
+
+    if ("gzip".equals(contentEncoding)) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (OutputStream out = new GZIPOutputStream(compressed)) {
+        out.write(body);
+      }
+      body = compressed.toByteArray();
+    }
+
+    _body = body;
+  }
+
+  @Benchmark
+  public String readString() throws IOException {
+    try (InputStream body = HttpResponseBody.decode(new ByteArrayInputStream(_body), contentEncoding)) {
+      return HttpResponseBody.readString(body, 0);
+    }
+  }
+}
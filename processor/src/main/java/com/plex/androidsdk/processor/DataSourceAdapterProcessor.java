@@ -0,0 +1,577 @@
+/*
+ * Copyright 2019 Plex Systems, Inc
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.plex.androidsdk.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a streaming Gson adapter for every BaseRow, BaseOutputs and IBaseInput class in the compilation.
+ * <p>
+ * The adapter for a class is written to the same package and named after it, for example Container_Get1_RowJsonAdapter for Container_Get1.Row. It
+ * reads each field through the field itself if it is not private, and otherwise through its package visible setter or getter. Field names come
+ * from {@code @SerializedName} the same way Gson's reflective adapter finds them.
+ * <p>
+ * A class is skipped, with a note, if the generated code could not reach it: a private or inner (non static) class, a class without a no argument
+ * constructor, a private field without a matching setter and getter, or a superclass with fields of its own. Skipped classes keep using
+ * reflection at runtime.
+ * <p>
+ * Inputs are only ever written, so an IBaseInput class without a no argument constructor, such as an immutable one, gets an adapter that only
+ * writes it. Its private fields only need a getter, and reads are left to the adapter Gson would use without it, which the adapter is given as
+ * the second argument of its constructor.
+ */
+public class DataSourceAdapterProcessor extends AbstractProcessor {
+
+  static final String PACKAGE = "com.plex.androidsdk.httpdatasources";
+  static final String GENERATED_TYPE_ADAPTER = PACKAGE + ".GeneratedTypeAdapter";
+  static final String SUFFIX = "JsonAdapter";
+  static final String INPUT_TYPE = PACKAGE + ".IBaseInput";
+  static final String[] ADAPTED_TYPES = {PACKAGE + ".BaseRow", PACKAGE + ".BaseOutputs", INPUT_TYPE};
+  static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+
+  private Elements _elements;
+  private Types _types;
+  private Messager _messager;
+  private final List<TypeElement> _adaptedTypes = new ArrayList<>();
+  private final Set<String> _generated = new HashSet<>();
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    _elements = processingEnv.getElementUtils();
+    _types = processingEnv.getTypeUtils();
+    _messager = processingEnv.getMessager();
+
+    for (String name : ADAPTED_TYPES) {
+      TypeElement type = _elements.getTypeElement(name);
+      if (type != null) {
+        _adaptedTypes.add(type);
+      }
+    }
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    // Row classes do not need an annotation of their own, so look at every class.
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (_adaptedTypes.isEmpty() || _elements.getTypeElement(GENERATED_TYPE_ADAPTER) == null) {
+      return false;
+    }
+
+    for (Element element : roundEnv.getRootElements()) {
+      this.processElement(element);
+    }
+
+    // Never claim annotations; other processors still see them.
+    return false;
+  }
+
+  private void processElement(Element element) {
+    if (element.getKind() == ElementKind.CLASS) {
+      TypeElement type = (TypeElement) element;
+
+      if (this.isAdapted(type) && _generated.add(type.getQualifiedName().toString())) {
+        this.generate(type);
+      }
+    }
+
+    for (TypeElement nested : ElementFilter.typesIn(element.getEnclosedElements())) {
+      this.processElement(nested);
+    }
+  }
+
+  private boolean isAdapted(TypeElement type) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+      return false;
+    }
+
+    for (TypeElement adaptedType : _adaptedTypes) {
+      if (!type.equals(adaptedType) && _types.isAssignable(_types.erasure(type.asType()), _types.erasure(adaptedType.asType()))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  //region CHECKS
+
+  private void generate(TypeElement type) {
+    boolean readable = this.hasConstructor(type);
+    String reason = this.getSkipReason(type);
+    if (reason == null && !readable && !this.isInput(type)) {
+      reason = "it has no accessible no argument constructor";
+    }
+    if (reason != null) {
+      _messager.printMessage(Diagnostic.Kind.NOTE, "No generated adapter for " + type.getQualifiedName() + ": " + reason, type);
+      return;
+    }
+
+    List<AdapterField> fields = new ArrayList<>();
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      Set<Modifier> modifiers = field.getModifiers();
+      if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+        continue;
+      }
+
+      AdapterField adapterField = this.getAdapterField(type, field, readable);
+      if (adapterField == null) {
+        _messager.printMessage(Diagnostic.Kind.NOTE, "No generated adapter for " + type.getQualifiedName() + ": field " + field.getSimpleName()
+            + " is private without a matching " + (readable ? "setter and getter" : "getter"), field);
+        return;
+      }
+      fields.add(adapterField);
+    }
+
+    try {
+      this.write(type, fields, readable);
+    } catch (IOException e) {
+      _messager.printMessage(Diagnostic.Kind.ERROR, "Could not write the adapter for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+    }
+  }
+
+  /**
+   * Find why the generated code could not create or reach the class.
+   *
+   * @return The reason, or null if an adapter can be generated.
+   */
+  private String getSkipReason(TypeElement type) {
+    if (!type.getTypeParameters().isEmpty()) {
+      return "it is generic";
+    }
+
+    for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+      TypeElement enclosing = (TypeElement) element;
+      if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+        return enclosing.getSimpleName() + " is private";
+      }
+      if (enclosing.getNestingKind() == NestingKind.LOCAL || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+        return "it is a local class";
+      }
+      if (enclosing.getNestingKind() == NestingKind.MEMBER && enclosing.getKind() == ElementKind.CLASS
+          && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+        return enclosing.getSimpleName() + " is an inner class; make it static";
+      }
+    }
+
+    for (TypeMirror superclass = type.getSuperclass(); superclass.getKind() == TypeKind.DECLARED; ) {
+      TypeElement superElement = (TypeElement) _types.asElement(superclass);
+      if (_adaptedTypes.contains(superElement) || superElement.getQualifiedName().contentEquals("java.lang.Object")) {
+        break;
+      }
+      for (VariableElement field : ElementFilter.fieldsIn(superElement.getEnclosedElements())) {
+        if (!field.getModifiers().contains(Modifier.STATIC)) {
+          return "superclass " + superElement.getSimpleName() + " has fields";
+        }
+      }
+      superclass = superElement.getSuperclass();
+    }
+
+    return null;
+  }
+
+  /**
+   * Whether generated code can create the class to read it into.
+   */
+  private boolean hasConstructor(TypeElement type) {
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean isInput(TypeElement type) {
+    TypeElement inputType = _elements.getTypeElement(INPUT_TYPE);
+    return inputType != null && _types.isAssignable(_types.erasure(type.asType()), _types.erasure(inputType.asType()));
+  }
+
+  /**
+   * Work out how generated code reads and writes a field.
+   *
+   * @param readable Whether the field is read as well as written.
+   * @return The field, or null if it can not be reached every way it is used.
+   */
+  private AdapterField getAdapterField(TypeElement type, VariableElement field, boolean readable) {
+    String fieldName = field.getSimpleName().toString();
+    boolean direct = !field.getModifiers().contains(Modifier.PRIVATE);
+    boolean assignable = direct && !field.getModifiers().contains(Modifier.FINAL);
+    String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+
+    String setter = assignable || !readable ? null : this.findSetter(type, field, "set" + capitalized);
+    if (setter == null && !assignable && readable) {
+      return null;
+    }
+
+    String getter = direct ? null : this.findGetter(type, field, "get" + capitalized);
+    if (getter == null && !direct && field.asType().getKind() == TypeKind.BOOLEAN) {
+      getter = this.findGetter(type, field, "is" + capitalized);
+    }
+    if (getter == null && !direct) {
+      return null;
+    }
+
+    List<String> names = new ArrayList<>();
+    names.add(fieldName);
+    for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+      if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(SERIALIZED_NAME)) {
+        names.clear();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+          String member = entry.getKey().getSimpleName().toString();
+          if ("value".equals(member)) {
+            names.add(0, (String) entry.getValue().getValue());
+          } else if ("alternate".equals(member)) {
+            for (Object alternate : (List<?>) entry.getValue().getValue()) {
+              names.add((String) ((AnnotationValue) alternate).getValue());
+            }
+          }
+        }
+      }
+    }
+
+    return new AdapterField(fieldName, field.asType(), names, setter, getter);
+  }
+
+  private String findSetter(TypeElement type, VariableElement field, String name) {
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (method.getSimpleName().contentEquals(name) && this.isReachable(method) && method.getParameters().size() == 1
+          && _types.isSameType(method.getParameters().get(0).asType(), field.asType())) {
+        return name;
+      }
+    }
+
+    return null;
+  }
+
+  private String findGetter(TypeElement type, VariableElement field, String name) {
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (method.getSimpleName().contentEquals(name) && this.isReachable(method) && method.getParameters().isEmpty()
+          && _types.isSameType(method.getReturnType(), field.asType())) {
+        return name;
+      }
+    }
+
+    return null;
+  }
+
+  private boolean isReachable(ExecutableElement method) {
+    return !method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC);
+  }
+
+  //endregion
+
+  //region CODE GENERATION
+
+  private void write(TypeElement type, List<AdapterField> fields, boolean readable) throws IOException {
+    String packageName = _elements.getPackageOf(type).getQualifiedName().toString();
+    String binaryName = _elements.getBinaryName(type).toString();
+    String adapterName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + SUFFIX;
+    String typeName = type.getQualifiedName().toString();
+
+    StringBuilder code = new StringBuilder();
+    code.append("// Generated by ").append(DataSourceAdapterProcessor.class.getSimpleName()).append(". Do not edit.\n");
+    if (!packageName.isEmpty()) {
+      code.append("package ").append(packageName).append(";\n");
+    }
+    code.append("\n");
+    code.append("public final class ").append(adapterName).append(" extends ").append(GENERATED_TYPE_ADAPTER).append("<").append(typeName)
+        .append("> {\n\n");
+
+    // Fields of other types use Gson's adapter for that type.
+    boolean delegates = false;
+    for (int i = 0; i < fields.size(); i++) {
+      AdapterField field = fields.get(i);
+      if (field.getKind() == FieldKind.DELEGATED) {
+        code.append("  private final com.google.gson.TypeAdapter<").append(this.boxed(field.type)).append("> _adapter").append(i).append(";\n");
+        delegates = true;
+      }
+    }
+    if (!readable) {
+      code.append("  private final com.google.gson.TypeAdapter<").append(typeName).append("> _readAdapter;\n");
+    }
+    if (delegates || !readable) {
+      code.append("\n");
+    }
+    if (readable) {
+      code.append("  public ").append(adapterName).append("(com.google.gson.Gson gson) {\n");
+    } else {
+      code.append("  public ").append(adapterName).append("(com.google.gson.Gson gson, com.google.gson.TypeAdapter<").append(typeName)
+          .append("> readAdapter) {\n");
+      code.append("    _readAdapter = readAdapter;\n");
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      AdapterField field = fields.get(i);
+      if (field.getKind() == FieldKind.DELEGATED) {
+        String boxed = this.boxed(field.type);
+        if (this.isGeneric(field.type)) {
+          code.append("    _adapter").append(i).append(" = gson.getAdapter(new com.google.gson.reflect.TypeToken<").append(boxed).append(">() {});\n");
+        } else {
+          code.append("    _adapter").append(i).append(" = gson.getAdapter(").append(boxed).append(".class);\n");
+        }
+      }
+    }
+    code.append("  }\n\n");
+
+    if (readable) {
+      this.writeRead(code, typeName, fields);
+    } else {
+      this.writeDelegatedRead(code, typeName);
+    }
+    this.writeWrite(code, typeName, fields);
+    code.append("}\n");
+
+    Writer writer = processingEnv.getFiler().createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + adapterName, type).openWriter();
+    try {
+      writer.write(code.toString());
+    } finally {
+      writer.close();
+    }
+  }
+
+  private void writeRead(StringBuilder code, String typeName, List<AdapterField> fields) {
+    code.append("  @Override\n");
+    code.append("  public ").append(typeName).append(" read(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n");
+    code.append("    if (nextNull(in)) {\n      return null;\n    }\n\n");
+    code.append("    ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+    code.append("    in.beginObject();\n");
+    code.append("    while (in.hasNext()) {\n");
+    code.append("      switch (in.nextName()) {\n");
+
+    for (int i = 0; i < fields.size(); i++) {
+      AdapterField field = fields.get(i);
+      for (String name : field.names) {
+        code.append("        case ").append(this.literal(name)).append(":\n");
+      }
+
+      FieldKind kind = field.getKind();
+      if (kind.primitive) {
+        // Like the reflective adapter, a null leaves a primitive field at its default.
+        code.append("          if (!nextNull(in)) {\n");
+        code.append("            ").append(field.assign(kind.read)).append("\n");
+        code.append("          }\n");
+      } else if (kind == FieldKind.DELEGATED && field.type.getKind().isPrimitive()) {
+        code.append("          {\n");
+        code.append("            ").append(this.boxed(field.type)).append(" fieldValue = _adapter").append(i).append(".read(in);\n");
+        code.append("            if (fieldValue != null) {\n");
+        code.append("              ").append(field.assign("fieldValue")).append("\n");
+        code.append("            }\n");
+        code.append("          }\n");
+      } else if (kind == FieldKind.DELEGATED) {
+        code.append("          ").append(field.assign("_adapter" + i + ".read(in)")).append("\n");
+      } else {
+        code.append("          ").append(field.assign(kind.read)).append("\n");
+      }
+      code.append("          break;\n");
+    }
+
+    code.append("        default:\n");
+    code.append("          in.skipValue();\n");
+    code.append("      }\n");
+    code.append("    }\n");
+    code.append("    in.endObject();\n\n");
+    code.append("    return value;\n");
+    code.append("  }\n\n");
+  }
+
+  private void writeDelegatedRead(StringBuilder code, String typeName) {
+    code.append("  @Override\n");
+    code.append("  public ").append(typeName).append(" read(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n");
+    code.append("    return _readAdapter.read(in);\n");
+    code.append("  }\n\n");
+  }
+
+  private void writeWrite(StringBuilder code, String typeName, List<AdapterField> fields) {
+    code.append("  @Override\n");
+    code.append("  public void write(com.google.gson.stream.JsonWriter out, ").append(typeName).append(" value) throws java.io.IOException {\n");
+    code.append("    if (value == null) {\n      out.nullValue();\n      return;\n    }\n\n");
+    code.append("    out.beginObject();\n");
+
+    for (int i = 0; i < fields.size(); i++) {
+      AdapterField field = fields.get(i);
+      code.append("    out.name(").append(this.literal(field.names.get(0))).append(");\n");
+
+      FieldKind kind = field.getKind();
+      if (kind == FieldKind.DELEGATED) {
+        code.append("    _adapter").append(i).append(".write(out, ").append(field.access()).append(");\n");
+      } else {
+        code.append("    out.value(").append(String.format(kind.write, field.access())).append(");\n");
+      }
+    }
+
+    code.append("    out.endObject();\n");
+    code.append("  }\n");
+  }
+
+  private String boxed(TypeMirror type) {
+    return type.getKind().isPrimitive() ? _types.boxedClass((PrimitiveType) type).getQualifiedName().toString()
+        : type.toString();
+  }
+
+  private boolean isGeneric(TypeMirror type) {
+    return type.getKind() == TypeKind.ARRAY ? this.isGeneric(((ArrayType) type).getComponentType())
+        : type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty();
+  }
+
+  private String literal(String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if (c < 0x20 || c > 0x7e) {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+
+    return literal.append('"').toString();
+  }
+
+  //endregion
+
+  /**
+   * How a field type is read and written. Types without their own kind use Gson's adapter for the type.
+   */
+  enum FieldKind {
+    INT(true, "nextInt(in)", "%s"),
+    LONG(true, "nextLong(in)", "%s"),
+    DOUBLE(true, "nextDouble(in)", "%s"),
+    FLOAT(true, "nextFloat(in)", "(Number) Float.valueOf(%s)"),
+    BOOLEAN(true, "nextBoolean(in)", "%s"),
+    STRING(false, "nextString(in)", "%s"),
+    BOXED_INTEGER(false, "nextNull(in) ? null : Integer.valueOf(nextInt(in))", "(Number) %s"),
+    BOXED_LONG(false, "nextNull(in) ? null : Long.valueOf(nextLong(in))", "(Number) %s"),
+    BOXED_DOUBLE(false, "nextNull(in) ? null : Double.valueOf(nextDouble(in))", "(Number) %s"),
+    BOXED_BOOLEAN(false, "nextNull(in) ? null : Boolean.valueOf(nextBoolean(in))", "(Boolean) %s"),
+    DELEGATED(false, null, null);
+
+    final boolean primitive;
+    final String read;
+    final String write;
+
+    FieldKind(boolean primitive, String read, String write) {
+      this.primitive = primitive;
+      this.read = read;
+      this.write = write;
+    }
+  }
+
+  /**
+   * A field of an adapted class, with the JSON names it is read from and how generated code reaches it.
+   */
+  private static class AdapterField {
+
+    final String fieldName;
+    final TypeMirror type;
+    final List<String> names;
+    final String setter;
+    final String getter;
+
+    AdapterField(String fieldName, TypeMirror type, List<String> names, String setter, String getter) {
+      this.fieldName = fieldName;
+      this.type = type;
+      this.names = names;
+      this.setter = setter;
+      this.getter = getter;
+    }
+
+    FieldKind getKind() {
+      switch (type.getKind()) {
+        case INT:
+          return FieldKind.INT;
+        case LONG:
+          return FieldKind.LONG;
+        case DOUBLE:
+          return FieldKind.DOUBLE;
+        case FLOAT:
+          return FieldKind.FLOAT;
+        case BOOLEAN:
+          return FieldKind.BOOLEAN;
+        case DECLARED:
+          String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+          switch (name) {
+            case "java.lang.String":
+              return FieldKind.STRING;
+            case "java.lang.Integer":
+              return FieldKind.BOXED_INTEGER;
+            case "java.lang.Long":
+              return FieldKind.BOXED_LONG;
+            case "java.lang.Double":
+              return FieldKind.BOXED_DOUBLE;
+            case "java.lang.Boolean":
+              return FieldKind.BOXED_BOOLEAN;
+            default:
+              return FieldKind.DELEGATED;
+          }
+        default:
+          return FieldKind.DELEGATED;
+      }
+    }
+
+    String assign(String expression) {
+      return setter != null ? "value." + setter + "(" + expression + ");" : "value." + fieldName + " = " + expression + ";";
+    }
+
+    String access() {
+      return getter != null ? "value." + getter + "()" : "value." + fieldName;
+    }
+  }
+}